@@ -11,6 +11,7 @@
 package org.eclipse.daanse.db.dialect.api;
 
 import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.util.List;
@@ -369,6 +370,39 @@ public interface Dialect {
         Object value,
         Datatype datatype);
 
+    /**
+     * Returns whether values of a given datatype can be passed to a
+     * statement as bind parameters.
+     *
+     * <p>If not, generated SQL contains values of this type as literals
+     * (see {@link #quote(StringBuilder, Object, Datatype)}) even if bind
+     * parameters are enabled.
+     *
+     * @param datatype Datatype
+     * @return whether values of the datatype can be bound
+     */
+    boolean allowsBindParameter(Datatype datatype);
+
+    /**
+     * Sets the value of a bind parameter of a prepared statement.
+     *
+     * <p>The value is in the form that would be passed to
+     * {@link #quote(StringBuilder, Object, Datatype)}; the dialect converts
+     * it to the JDBC type that matches the datatype.
+     *
+     * @param statement Prepared statement
+     * @param parameterIndex Index of parameter (1-based)
+     * @param value Value
+     * @param datatype Datatype of value
+     * @throws SQLException if the value cannot be set
+     */
+    void bindParameter(
+        PreparedStatement statement,
+        int parameterIndex,
+        Object value,
+        Datatype datatype)
+        throws SQLException;
+
     /**
      * Returns whether this dialect supports common SQL Data Definition
      * Language (DDL) statements such as <code>CREATE TABLE</code> and
@@ -746,6 +780,19 @@ public interface Dialect {
 
     boolean requiresDrillthroughMaxRowsInLimit();
 
+    /**
+     * Returns whether the SQL dialect can skip rows and limit the number of
+     * rows a query returns with a trailing clause
+     * "LIMIT <i>count</i> OFFSET <i>offset</i>".
+     *
+     * <p>If so, drill-through queries which read one page of rows skip the
+     * rows before the page in the database, rather than reading them and
+     * throwing them away.</p>
+     *
+     * @return whether dialect supports LIMIT and OFFSET clauses
+     */
+    boolean supportsLimitOffset();
+
 
     /**
      * Returns whether the SQL dialect allows "AS" in the 'field' clause.
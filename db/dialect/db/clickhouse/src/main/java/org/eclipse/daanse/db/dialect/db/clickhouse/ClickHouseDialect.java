@@ -44,6 +44,11 @@ public class ClickHouseDialect extends JdbcDialectImpl {
         return true;
     }
 
+    @Override
+    public boolean supportsLimitOffset() {
+        return true;
+    }
+
     @Override
     public void quoteStringLiteral(
         StringBuilder buf,
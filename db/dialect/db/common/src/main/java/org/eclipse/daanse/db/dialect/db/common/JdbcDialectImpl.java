@@ -10,9 +10,11 @@
 */
 package org.eclipse.daanse.db.dialect.db.common;
 
+import java.math.BigDecimal;
 import java.sql.Connection;
 import java.sql.DatabaseMetaData;
 import java.sql.Date;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
@@ -752,6 +754,84 @@ public abstract class JdbcDialectImpl implements Dialect {
         }
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * <p>The default implementation binds strings and numbers. Literals of
+     * other types are generated in dialect-specific formats (for example
+     * {@link #quoteDateLiteral(StringBuilder, Date)}), which a dialect
+     * should keep if its driver converts bound values differently.
+     */
+    @Override
+    public boolean allowsBindParameter(Datatype datatype) {
+        return datatype == Datatype.STRING || datatype.isNumeric();
+    }
+
+    @Override
+    public void bindParameter(
+        PreparedStatement statement,
+        int parameterIndex,
+        Object value,
+        Datatype datatype)
+        throws SQLException
+    {
+        if (value == null) {
+            statement.setNull(parameterIndex, toJdbcType(datatype));
+            return;
+        }
+        final String valueString = value.toString();
+        switch (datatype) {
+        case STRING:
+            statement.setString(parameterIndex, valueString);
+            break;
+        case NUMERIC:
+        case INTEGER:
+            statement.setBigDecimal(
+                parameterIndex,
+                value instanceof BigDecimal bigDecimal
+                    ? bigDecimal
+                    : new BigDecimal(valueString));
+            break;
+        case BOOLEAN:
+            statement.setBoolean(
+                parameterIndex, Boolean.parseBoolean(valueString));
+            break;
+        case DATE:
+            statement.setDate(parameterIndex, Date.valueOf(valueString));
+            break;
+        case TIME:
+            statement.setTime(parameterIndex, Time.valueOf(valueString));
+            break;
+        case TIMESTAMP:
+            statement.setTimestamp(
+                parameterIndex, Timestamp.valueOf(valueString));
+            break;
+        default:
+            statement.setObject(parameterIndex, value);
+        }
+    }
+
+    private static int toJdbcType(Datatype datatype) {
+        switch (datatype) {
+        case STRING:
+            return Types.VARCHAR;
+        case NUMERIC:
+            return Types.DECIMAL;
+        case INTEGER:
+            return Types.INTEGER;
+        case BOOLEAN:
+            return Types.BOOLEAN;
+        case DATE:
+            return Types.DATE;
+        case TIME:
+            return Types.TIME;
+        case TIMESTAMP:
+            return Types.TIMESTAMP;
+        default:
+            return Types.OTHER;
+        }
+    }
+
     /**
      * Guesses the type of a column based upon (a) its basic type,
      * (b) a list of values.
@@ -1140,6 +1220,11 @@ public abstract class JdbcDialectImpl implements Dialect {
         return false;
     }
 
+    @Override
+    public boolean supportsLimitOffset() {
+        return false;
+    }
+
     @Override
     public boolean allowsFieldAs() {
         return true;
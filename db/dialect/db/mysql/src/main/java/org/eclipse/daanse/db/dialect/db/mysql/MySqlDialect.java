@@ -196,6 +196,11 @@ public class MySqlDialect extends JdbcDialectImpl {
         return true;
     }
 
+    @Override
+    public boolean supportsLimitOffset() {
+        return true;
+    }
+
     @Override
     public boolean allowsFromQuery() {
         // MySQL before 4.0 does not allow FROM
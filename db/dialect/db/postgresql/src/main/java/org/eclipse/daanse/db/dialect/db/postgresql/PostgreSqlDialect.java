@@ -55,6 +55,11 @@ public class PostgreSqlDialect extends JdbcDialectImpl {
         return true;
     }
 
+    @Override
+    public boolean supportsLimitOffset() {
+        return true;
+    }
+
     @Override
     protected StringBuilder generateOrderByNulls(CharSequence expr, boolean ascending, boolean collateNullsLast) {
         // Support for "ORDER BY ... NULLS LAST" was introduced in Postgres 8.3.
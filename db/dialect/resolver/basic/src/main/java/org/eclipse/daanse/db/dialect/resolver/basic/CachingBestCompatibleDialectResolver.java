@@ -0,0 +1,243 @@
+/*
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   SmartCity Jena - initial
+ */
+package org.eclipse.daanse.db.dialect.resolver.basic;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.WeakHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+import javax.sql.DataSource;
+
+import org.eclipse.daanse.db.dialect.api.Dialect;
+import org.eclipse.daanse.db.dialect.api.DialectResolver;
+import org.osgi.framework.Constants;
+import org.osgi.service.component.ComponentServiceObjects;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Reference;
+import org.osgi.service.component.annotations.ReferenceCardinality;
+import org.osgi.service.component.annotations.ReferencePolicy;
+import org.osgi.service.component.annotations.ReferenceScope;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Implementation of {@link DialectResolver} that:<br>
+ *
+ * - caches the resolved and initialized {@link Dialect} per database, which is
+ * identified by a fingerprint of product name, product version, URL and user
+ * name <br>
+ * - remembers the fingerprint of each {@link DataSource}, so that resolving a
+ * known DataSource again does not open a connection <br>
+ * - tries the Dialects one after the other in the order of their service
+ * ranking, highest first, then of their service id, and returns the first one
+ * that initializes on the connection <br>
+ * - gets a new instance of the Dialect service for each database, so that
+ * Dialects which are initialized for different databases do not share state
+ * <br>
+ * - when a Dialect is bound, forgets the databases for which it would be tried
+ * before the resolved Dialect, or for which no Dialect was compatible; when a
+ * Dialect is unbound, forgets the databases that resolved to it; and forgets a
+ * DataSource when its service is unbound or updated.
+ *
+ * <p>
+ * A database is resolved once, by the first caller, without holding a lock;
+ * concurrent callers for the same database wait for its result, and those for
+ * other databases are not blocked. Dialect instances that were handed out are
+ * never released by the resolver, because callers may still use them.
+ *
+ * <p>
+ * It has a higher service ranking than
+ * {@link UncachedBestCompatibleDialectResolver}, so it is the resolver that
+ * services get by default.
+ */
+@Component(service = DialectResolver.class, property = Constants.SERVICE_RANKING + ":Integer=10")
+public class CachingBestCompatibleDialectResolver implements DialectResolver {
+    private static final Logger LOGGER = LoggerFactory.getLogger(CachingBestCompatibleDialectResolver.class);
+
+    private static final Comparator<RankedDialect> BEST_FIRST = Comparator
+            .comparingInt((RankedDialect d) -> d.ranking).reversed()
+            .thenComparingLong(d -> d.serviceId);
+
+    private static final Resolved NONE = new Resolved(Optional.empty(), null);
+
+    /** Dialects, best first; replaced, never modified. */
+    private volatile List<RankedDialect> dialects = List.of();
+
+    /** Resolution per fingerprint, complete or in progress. */
+    private final Map<String, CompletableFuture<Resolved>> dialectsByFingerprint = new ConcurrentHashMap<>();
+
+    private final Map<DataSource, String> fingerprints = Collections.synchronizedMap(new WeakHashMap<>());
+
+    @Reference(service = Dialect.class, cardinality = ReferenceCardinality.MULTIPLE, policy = ReferencePolicy.DYNAMIC, scope = ReferenceScope.PROTOTYPE_REQUIRED)
+    public synchronized void bindDialect(ComponentServiceObjects<Dialect> dialect, Map<String, Object> properties) {
+        RankedDialect added = new RankedDialect(dialect, properties);
+        List<RankedDialect> list = new ArrayList<>(dialects);
+        list.add(added);
+        list.sort(BEST_FIRST);
+        dialects = List.copyOf(list);
+        // the new dialect is tried before these
+        evict(resolved -> resolved.source == null || BEST_FIRST.compare(added, resolved.source) < 0);
+    }
+
+    public synchronized void unbindDialect(ComponentServiceObjects<Dialect> dialect) {
+        dialects = dialects.stream()
+                .filter(d -> !d.serviceObjects.equals(dialect))
+                .toList();
+        evict(resolved -> resolved.source != null && resolved.source.serviceObjects.equals(dialect));
+    }
+
+    public synchronized void updatedDialect(ComponentServiceObjects<Dialect> dialect, Map<String, Object> properties) {
+        unbindDialect(dialect);
+        bindDialect(dialect, properties);
+    }
+
+    @Reference(service = DataSource.class, cardinality = ReferenceCardinality.MULTIPLE, policy = ReferencePolicy.DYNAMIC)
+    public void bindDataSource(DataSource dataSource) {
+        fingerprints.remove(dataSource);
+    }
+
+    public void unbindDataSource(DataSource dataSource) {
+        fingerprints.remove(dataSource);
+    }
+
+    public void updatedDataSource(DataSource dataSource) {
+        fingerprints.remove(dataSource);
+    }
+
+    @Override
+    public Optional<Dialect> resolve(DataSource dataSource) {
+        String fingerprint = fingerprints.get(dataSource);
+        if (fingerprint != null) {
+            CompletableFuture<Resolved> resolved = dialectsByFingerprint.get(fingerprint);
+            if (resolved != null) {
+                return resolved.join().dialect;
+            }
+        }
+
+        CompletableFuture<Resolved> future = new CompletableFuture<>();
+        CompletableFuture<Resolved> existing;
+        try (Connection c = dataSource.getConnection()) {
+            fingerprint = fingerprint(c.getMetaData());
+            fingerprints.put(dataSource, fingerprint);
+            existing = dialectsByFingerprint.putIfAbsent(fingerprint, future);
+            if (existing == null) {
+                resolve(fingerprint, future, c);
+            }
+        } catch (SQLException e) {
+            LOGGER.error("connection error", e);
+            return Optional.empty();
+        }
+        // another caller resolves the database; wait without the connection
+        return (existing == null ? future : existing).join().dialect;
+    }
+
+    /**
+     * Resolves a database and completes its future. If the dialects changed
+     * meanwhile, the result is returned to the callers that wait for it, but
+     * not cached.
+     */
+    private void resolve(String fingerprint, CompletableFuture<Resolved> future, Connection c) {
+        List<RankedDialect> candidates = dialects;
+        try {
+            future.complete(initialize(candidates, c));
+        } finally {
+            if (!future.isDone() || dialects != candidates) {
+                dialectsByFingerprint.remove(fingerprint, future);
+                // the waiting callers get nothing if initialize failed
+                future.complete(NONE);
+            }
+        }
+    }
+
+    /**
+     * Returns a new instance of the best Dialect that initializes on a
+     * connection.
+     */
+    private static Resolved initialize(List<RankedDialect> candidates, Connection c) {
+        for (RankedDialect rankedDialect : candidates) {
+            Dialect dialect;
+            try {
+                dialect = rankedDialect.serviceObjects.getService();
+            } catch (IllegalStateException e) {
+                // the service is unregistered
+                LOGGER.debug("get dialect failed", e);
+                continue;
+            }
+            if (dialect == null) {
+                continue;
+            }
+            boolean compatible;
+            try {
+                compatible = dialect.initialize(c);
+            } catch (RuntimeException e) {
+                LOGGER.warn("initializing dialect {} failed", dialect.getClass().getName(), e);
+                compatible = false;
+            }
+            if (compatible) {
+                return new Resolved(Optional.of(dialect), rankedDialect);
+            }
+            try {
+                rankedDialect.serviceObjects.ungetService(dialect);
+            } catch (IllegalStateException | IllegalArgumentException e) {
+                // the service is already unregistered
+                LOGGER.debug("unget dialect failed", e);
+            }
+        }
+        return NONE;
+    }
+
+    /**
+     * Forgets the resolved databases that a change of the dialects may affect.
+     * Resolutions in progress check for changes themselves. The dialects
+     * stay with the callers that got them.
+     */
+    private void evict(Predicate<Resolved> affected) {
+        dialectsByFingerprint.values()
+                .removeIf(resolved -> resolved.isDone() && affected.test(resolved.join()));
+    }
+
+    static String fingerprint(DatabaseMetaData metaData) throws SQLException {
+        return String.join("|", String.valueOf(metaData.getDatabaseProductName()),
+                String.valueOf(metaData.getDatabaseProductVersion()), String.valueOf(metaData.getURL()),
+                String.valueOf(metaData.getUserName()));
+    }
+
+    /**
+     * Resolved dialect, empty if no dialect is compatible, and the service it
+     * was got from.
+     */
+    private record Resolved(Optional<Dialect> dialect, RankedDialect source) {
+    }
+
+    private static class RankedDialect {
+        private final ComponentServiceObjects<Dialect> serviceObjects;
+        private final int ranking;
+        private final long serviceId;
+
+        RankedDialect(ComponentServiceObjects<Dialect> serviceObjects, Map<String, Object> properties) {
+            this.serviceObjects = serviceObjects;
+            this.ranking = properties.get(Constants.SERVICE_RANKING) instanceof Integer i ? i : 0;
+            this.serviceId = properties.get(Constants.SERVICE_ID) instanceof Long l ? l : Long.MAX_VALUE;
+        }
+    }
+}
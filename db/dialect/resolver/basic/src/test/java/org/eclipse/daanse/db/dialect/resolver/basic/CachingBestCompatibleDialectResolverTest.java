@@ -0,0 +1,246 @@
+/*
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   SmartCity Jena - initial
+ */
+package org.eclipse.daanse.db.dialect.resolver.basic;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.eclipse.daanse.db.dialect.api.Dialect;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.osgi.framework.Constants;
+import org.osgi.service.component.ComponentServiceObjects;
+
+class CachingBestCompatibleDialectResolverTest {
+    private CachingBestCompatibleDialectResolver resolver;
+
+    @BeforeEach
+    void setUp() {
+        resolver = new CachingBestCompatibleDialectResolver();
+    }
+
+    @Test
+    void testResolvesOncePerDataSource() throws SQLException {
+        ComponentServiceObjects<Dialect> dialect = dialect(true);
+        resolver.bindDialect(dialect, properties(0, 1L));
+        DataSource dataSource = dataSource("jdbc:db:one");
+
+        Dialect resolved = resolver.resolve(dataSource).orElseThrow();
+        assertSame(resolved, resolver.resolve(dataSource).orElseThrow());
+
+        verify(dataSource, times(1)).getConnection();
+        verify(dialect, times(1)).getService();
+    }
+
+    @Test
+    void testSharesDialectPerFingerprint() throws SQLException {
+        ComponentServiceObjects<Dialect> dialect = dialect(true);
+        resolver.bindDialect(dialect, properties(0, 1L));
+
+        Dialect one = resolver.resolve(dataSource("jdbc:db:one")).orElseThrow();
+        assertSame(one, resolver.resolve(dataSource("jdbc:db:one")).orElseThrow());
+        assertNotSame(one, resolver.resolve(dataSource("jdbc:db:two")).orElseThrow());
+        verify(dialect, times(2)).getService();
+    }
+
+    @Test
+    void testPrefersRankingThenServiceId() throws SQLException {
+        ComponentServiceObjects<Dialect> incompatible = dialect(false);
+        ComponentServiceObjects<Dialect> low = dialect(true);
+        ComponentServiceObjects<Dialect> later = dialect(true);
+        ComponentServiceObjects<Dialect> best = dialect(true);
+        resolver.bindDialect(later, properties(5, 4L));
+        resolver.bindDialect(low, properties(0, 1L));
+        resolver.bindDialect(incompatible, properties(10, 2L));
+        resolver.bindDialect(best, properties(5, 3L));
+
+        assertTrue(resolver.resolve(dataSource("jdbc:db:one")).isPresent());
+
+        verify(incompatible).ungetService(any());
+        verify(best).getService();
+        verify(later, never()).getService();
+        verify(low, never()).getService();
+    }
+
+    @Test
+    void testRebindingDataSourceReconnects() throws SQLException {
+        ComponentServiceObjects<Dialect> dialect = dialect(true);
+        resolver.bindDialect(dialect, properties(0, 1L));
+        DataSource dataSource = dataSource("jdbc:db:one");
+        Dialect resolved = resolver.resolve(dataSource).orElseThrow();
+
+        // rebinding the data source reconnects, but finds the dialect by fingerprint
+        resolver.unbindDataSource(dataSource);
+        assertSame(resolved, resolver.resolve(dataSource).orElseThrow());
+        verify(dataSource, times(2)).getConnection();
+    }
+
+    @Test
+    void testBindingLowerRankedDialectKeepsResolved() throws SQLException {
+        ComponentServiceObjects<Dialect> dialect = dialect(true);
+        resolver.bindDialect(dialect, properties(5, 1L));
+        DataSource dataSource = dataSource("jdbc:db:one");
+        Dialect resolved = resolver.resolve(dataSource).orElseThrow();
+
+        ComponentServiceObjects<Dialect> lower = dialect(true);
+        resolver.bindDialect(lower, properties(0, 2L));
+        assertSame(resolved, resolver.resolve(dataSource).orElseThrow());
+        verify(dataSource, times(1)).getConnection();
+        verify(lower, never()).getService();
+    }
+
+    @Test
+    void testBindingHigherRankedDialectResolvesAgain() throws SQLException {
+        ComponentServiceObjects<Dialect> dialect = dialect(true);
+        resolver.bindDialect(dialect, properties(0, 1L));
+        DataSource dataSource = dataSource("jdbc:db:one");
+        Dialect resolved = resolver.resolve(dataSource).orElseThrow();
+
+        ComponentServiceObjects<Dialect> higher = dialect(true);
+        resolver.bindDialect(higher, properties(5, 2L));
+        assertNotSame(resolved, resolver.resolve(dataSource).orElseThrow());
+        verify(higher).getService();
+        // the resolved dialect may still be in use
+        verify(dialect, never()).ungetService(any());
+    }
+
+    @Test
+    void testUnbindingEvictsOnlyItsDatabases() throws SQLException {
+        ComponentServiceObjects<Dialect> first = dialect(true);
+        ComponentServiceObjects<Dialect> unused = dialect(true);
+        ComponentServiceObjects<Dialect> fallback = dialect(true);
+        resolver.bindDialect(first, properties(5, 1L));
+        resolver.bindDialect(unused, properties(0, 2L));
+        resolver.bindDialect(fallback, properties(0, 3L));
+        DataSource dataSource = dataSource("jdbc:db:one");
+        Dialect resolved = resolver.resolve(dataSource).orElseThrow();
+
+        resolver.unbindDialect(fallback);
+        assertSame(resolved, resolver.resolve(dataSource).orElseThrow());
+        verify(dataSource, times(1)).getConnection();
+
+        resolver.unbindDialect(first);
+        assertNotSame(resolved, resolver.resolve(dataSource).orElseThrow());
+        verify(dataSource, times(2)).getConnection();
+        verify(unused).getService();
+        verify(first, never()).ungetService(any());
+    }
+
+    @Test
+    void testBindingResolvesIncompatibleAgain() throws SQLException {
+        resolver.bindDialect(dialect(false), properties(5, 1L));
+        DataSource dataSource = dataSource("jdbc:db:one");
+        assertTrue(resolver.resolve(dataSource).isEmpty());
+
+        resolver.bindDialect(dialect(true), properties(0, 2L));
+        assertTrue(resolver.resolve(dataSource).isPresent());
+    }
+
+    @Test
+    void testResolvesWithoutLock() throws Exception {
+        CountDownLatch initializing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ComponentServiceObjects<Dialect> dialect = dialect(true);
+        ComponentServiceObjects<Dialect> slow = dialect(c -> {
+            if (c.getMetaData().getURL().equals("jdbc:db:slow")) {
+                initializing.countDown();
+                release.await();
+                return true;
+            }
+            return false;
+        });
+        resolver.bindDialect(slow, properties(5, 1L));
+        resolver.bindDialect(dialect, properties(0, 2L));
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Optional<Dialect>> first = executor.submit(() -> resolver.resolve(dataSource("jdbc:db:slow")));
+            assertTrue(initializing.await(10, TimeUnit.SECONDS));
+            Future<Optional<Dialect>> second = executor.submit(() -> resolver.resolve(dataSource("jdbc:db:slow")));
+
+            // another database is resolved while the first one initializes
+            assertTrue(resolver.resolve(dataSource("jdbc:db:other")).isPresent());
+            assertFalse(second.isDone());
+
+            release.countDown();
+            assertSame(first.get(10, TimeUnit.SECONDS).orElseThrow(),
+                    second.get(10, TimeUnit.SECONDS).orElseThrow());
+            verify(slow, times(2)).getService();
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testNoCompatibleDialect() throws SQLException {
+        resolver.bindDialect(dialect(false), properties(0, 1L));
+        assertTrue(resolver.resolve(dataSource("jdbc:db:one")).isEmpty());
+    }
+
+    private static ComponentServiceObjects<Dialect> dialect(boolean compatible) {
+        return dialect(c -> compatible);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ComponentServiceObjects<Dialect> dialect(Initializer initializer) {
+        ComponentServiceObjects<Dialect> serviceObjects = mock(ComponentServiceObjects.class);
+        when(serviceObjects.getService()).thenAnswer(invocation -> {
+            Dialect dialect = mock(Dialect.class);
+            when(dialect.initialize(any())).thenAnswer(i -> initializer.initialize(i.getArgument(0)));
+            return dialect;
+        });
+        return serviceObjects;
+    }
+
+    @FunctionalInterface
+    private interface Initializer {
+        boolean initialize(Connection connection) throws Exception;
+    }
+
+    private static Map<String, Object> properties(int ranking, long serviceId) {
+        return Map.of(Constants.SERVICE_RANKING, ranking, Constants.SERVICE_ID, serviceId);
+    }
+
+    private static DataSource dataSource(String url) throws SQLException {
+        DatabaseMetaData metaData = mock(DatabaseMetaData.class);
+        when(metaData.getDatabaseProductName()).thenReturn("DB");
+        when(metaData.getDatabaseProductVersion()).thenReturn("1.0");
+        when(metaData.getURL()).thenReturn(url);
+        Connection connection = mock(Connection.class);
+        when(connection.getMetaData()).thenReturn(metaData);
+        DataSource dataSource = mock(DataSource.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        return dataSource;
+    }
+}
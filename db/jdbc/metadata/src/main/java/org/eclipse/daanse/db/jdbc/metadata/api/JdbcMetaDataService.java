@@ -21,4 +21,8 @@ public interface JdbcMetaDataService {
     List<ForeignKey> getForeignKeys(String schemaName, String tableName);
 
     List<Column> getColumns(String schemaName, String tableName);
+
+    List<String> getAllTables(String schemaName) throws SQLException;
+
+    List<Column> getAllColumns(String schemaName, String tableName) throws SQLException;
 }
@@ -96,4 +96,26 @@ public class JdbcMetaDataServiceLiveImpl implements JdbcMetaDataService {
         return result;
     }
 
+    @Override
+    public List<String> getAllTables(String schemaName) throws SQLException {
+        List<String> result = new ArrayList<>();
+        try (ResultSet rs = metadata.getTables(catalogName, schemaName, "%", null)) {
+            while (rs.next()) {
+                result.add(rs.getString("TABLE_NAME"));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public List<Column> getAllColumns(String schemaName, String tableName) throws SQLException {
+        List<Column> result = new ArrayList<>();
+        try (ResultSet rs = metadata.getColumns(catalogName, schemaName, tableName, "%")) {
+            while (rs.next()) {
+                result.add(new Column(rs.getString("COLUMN_NAME"), rs.getInt("DATA_TYPE")));
+            }
+        }
+        return result;
+    }
+
 }
@@ -0,0 +1,317 @@
+/*
+* Copyright (c) 2023 Contributors to the Eclipse Foundation.
+*
+* This program and the accompanying materials are made
+* available under the terms of the Eclipse Public License 2.0
+* which is available at https://www.eclipse.org/legal/epl-2.0/
+*
+* SPDX-License-Identifier: EPL-2.0
+*
+* Contributors:
+*   SmartCity Jena - initial
+*/
+package org.eclipse.daanse.db.statistics.persistent;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+import javax.sql.DataSource;
+
+import org.eclipse.daanse.db.dialect.api.Dialect;
+import org.eclipse.daanse.db.statistics.api.StatisticsProvider;
+import org.eclipse.daanse.db.statistics.persistent.StatisticsStore.Entry;
+import org.eclipse.daanse.db.statistics.persistent.StatisticsStore.Key;
+import org.eclipse.daanse.db.statistics.persistent.StatisticsStore.Kind;
+import org.osgi.namespace.unresolvable.UnresolvableNamespace;
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.ConfigurationPolicy;
+import org.osgi.service.component.annotations.Deactivate;
+import org.osgi.service.component.annotations.Reference;
+import org.osgi.service.component.annotations.ReferenceScope;
+import org.osgi.service.component.annotations.ServiceScope;
+import org.osgi.service.metatype.annotations.Designate;
+import org.osgi.util.converter.Converter;
+import org.osgi.util.converter.Converters;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Implementation of {@link StatisticsProvider} that keeps the cardinalities of
+ * another provider in a store on disk, so that they survive restarts.
+ *
+ * <p>
+ * A cardinality that is not in the store is obtained from the delegate, which
+ * is set by the {@value #REF_NAME_DELEGATE}.target property, for example to the
+ * {@code SqlStatisticsProvider} or the {@code JdbcStatisticsProvider}. A
+ * cardinality that is older than its time to live is returned as it is, and
+ * obtained again in the background.
+ *
+ * <p>
+ * If {@link PersistentStatisticsProviderConfig#sampleRows()} is positive, the
+ * cardinality of a column of a table that has more rows is estimated from the
+ * first rows of the column, rather than counted by the delegate. The rows are
+ * those the database returns first, not a random sample, so the estimate is
+ * rough for tables whose rows are stored in the order of the column.
+ */
+@Designate(ocd = PersistentStatisticsProviderConfig.class, factory = true)
+@Component(service = StatisticsProvider.class, scope = ServiceScope.PROTOTYPE, configurationPolicy = ConfigurationPolicy.REQUIRE)
+public class PersistentStatisticsProvider implements StatisticsProvider {
+
+    public static final String PID = "org.eclipse.daanse.db.statistics.persistent.PersistentStatisticsProvider";
+    public static final String REF_NAME_DELEGATE = "delegate";
+    private static final Logger LOGGER = LoggerFactory.getLogger(PersistentStatisticsProvider.class);
+    private static final Converter CONVERTER = Converters.standardConverter();
+    private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+
+    @Reference(name = REF_NAME_DELEGATE, target = UnresolvableNamespace.UNRESOLVABLE_FILTER, scope = ReferenceScope.PROTOTYPE)
+    private StatisticsProvider delegate;
+
+    private PersistentStatisticsProviderConfig config;
+    private DataSource dataSource;
+    private Dialect dialect;
+    private StatisticsStore store;
+    private ScheduledExecutorService executor;
+    private final Set<Key> refreshing = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean writeScheduled = new AtomicBoolean();
+
+    public PersistentStatisticsProvider() {
+        // used by the service component runtime
+    }
+
+    public PersistentStatisticsProvider(StatisticsProvider delegate, PersistentStatisticsProviderConfig config) {
+        this.delegate = delegate;
+        this.config = config;
+    }
+
+    @Activate
+    public void activate(Map<String, Object> configuration) {
+        this.config = CONVERTER.convert(configuration)
+                .to(PersistentStatisticsProviderConfig.class);
+    }
+
+    /**
+     * Stops refreshing and writes the cardinalities that have changed.
+     */
+    @Deactivate
+    public void deactivate() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+        write();
+    }
+
+    @Override
+    public void initialize(DataSource dataSource, Dialect dialect) {
+        delegate.initialize(dataSource, dialect);
+        // Keep what the current store has not written yet.
+        write();
+        this.dataSource = dataSource;
+        this.dialect = dialect;
+        final String database = databaseOf(dataSource);
+        this.store = StatisticsStore.open(Path.of(config.storeDirectory())
+                .resolve("statistics-" + digest(database) + ".bin"), database);
+        if (executor == null) {
+            executor = Executors.newScheduledThreadPool(Math.max(1, config.refreshThreads()), r -> {
+                final Thread thread = new Thread(r, "daanse-statistics-" + THREAD_COUNT.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    @Override
+    public long getTableCardinality(String catalog, String schema, String table) {
+        return cardinality(new Key(Kind.TABLE, catalog, schema, table, null), config.tableTtlSeconds(),
+                () -> delegate.getTableCardinality(catalog, schema, table));
+    }
+
+    @Override
+    public long getQueryCardinality(String sql) {
+        return cardinality(new Key(Kind.QUERY, null, null, null, sql), config.queryTtlSeconds(),
+                () -> delegate.getQueryCardinality(sql));
+    }
+
+    @Override
+    public long getColumnCardinality(String catalog, String schema, String table, String column) {
+        return cardinality(new Key(Kind.COLUMN, catalog, schema, table, column), config.columnTtlSeconds(),
+                () -> computeColumnCardinality(catalog, schema, table, column));
+    }
+
+    /**
+     * Returns a stored cardinality, refreshing it in the background if it has
+     * expired, or computes and stores it if there is none. An unknown
+     * cardinality is not stored, so it is asked for again next time.
+     */
+    private long cardinality(Key key, long ttlSeconds, LongSupplier compute) {
+        final Entry entry = store.get(key);
+        if (entry == null) {
+            final long cardinality = compute.getAsLong();
+            if (cardinality >= 0) {
+                store.put(key, new Entry(cardinality, System.currentTimeMillis()));
+                scheduleWrite();
+            }
+            return cardinality;
+        }
+        if (System.currentTimeMillis() - entry.computedMillis() >= TimeUnit.SECONDS.toMillis(ttlSeconds)) {
+            refresh(key, entry, compute);
+        }
+        return entry.cardinality();
+    }
+
+    private void refresh(Key key, Entry entry, LongSupplier compute) {
+        if (!refreshing.add(key)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    final long cardinality = compute.getAsLong();
+                    // Keep a known cardinality if the delegate no longer has
+                    // an estimate, but do not ask again before the next
+                    // expiry.
+                    store.put(key, new Entry(cardinality >= 0 ? cardinality : entry.cardinality(),
+                            System.currentTimeMillis()));
+                    scheduleWrite();
+                } catch (RuntimeException e) {
+                    LOGGER.warn("Failed to refresh cardinality {}", key, e);
+                } finally {
+                    refreshing.remove(key);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            refreshing.remove(key);
+        }
+    }
+
+    private void scheduleWrite() {
+        if (executor == null || !writeScheduled.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            executor.schedule(() -> {
+                writeScheduled.set(false);
+                write();
+            }, config.writeDelaySeconds(), TimeUnit.SECONDS);
+        } catch (RejectedExecutionException e) {
+            writeScheduled.set(false);
+        }
+    }
+
+    private void write() {
+        if (store == null) {
+            return;
+        }
+        try {
+            store.write();
+        } catch (IOException e) {
+            LOGGER.warn("Failed to write statistics store", e);
+        }
+    }
+
+    private long computeColumnCardinality(String catalog, String schema, String table, String column) {
+        final int sampleRows = config.sampleRows();
+        if (sampleRows > 0) {
+            final long tableRows = getTableCardinality(catalog, schema, table);
+            if (tableRows > sampleRows) {
+                final long estimate = sampleColumnCardinality(catalog, schema, table, column, sampleRows,
+                        tableRows);
+                if (estimate >= 0) {
+                    return estimate;
+                }
+            }
+        }
+        return delegate.getColumnCardinality(catalog, schema, table, column);
+    }
+
+    /**
+     * Estimates the number of distinct values of a column from its first rows,
+     * using the guaranteed-error estimator of Charikar et al.: values seen once
+     * in the sample are scaled up by the square root of the ratio of table rows
+     * to sample rows; values seen more than once are counted once.
+     *
+     * @return Estimate, or -1 if the column cannot be read
+     */
+    private long sampleColumnCardinality(String catalog, String schema, String table, String column,
+            int sampleRows, long tableRows) {
+        final StringBuilder sql = new StringBuilder("select ").append(dialect.quoteIdentifier(column))
+                .append(" from ");
+        dialect.quoteIdentifier(sql, catalog, schema, table);
+        final Map<Object, Integer> frequencies = new HashMap<>();
+        int rows = 0;
+        try (Connection connection = dataSource.getConnection();
+                Statement statement = connection.createStatement()) {
+            statement.setMaxRows(sampleRows);
+            statement.setFetchSize(Math.min(sampleRows, 1000));
+            try (ResultSet resultSet = statement.executeQuery(sql.toString())) {
+                while (resultSet.next()) {
+                    ++rows;
+                    final Object value = resultSet.getObject(1);
+                    if (value != null) {
+                        frequencies.merge(value, 1, Integer::sum);
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            LOGGER.warn("Failed to sample column {} of table {}", column, table, e);
+            return CARDINALITY_UNKNOWN;
+        }
+        if (rows < sampleRows) {
+            // The whole table was read.
+            return frequencies.size();
+        }
+        long once = 0;
+        for (int frequency : frequencies.values()) {
+            if (frequency == 1) {
+                ++once;
+            }
+        }
+        final double estimate = Math.sqrt((double) tableRows / rows) * once + (frequencies.size() - once);
+        return Math.max(frequencies.size(), Math.min(tableRows, Math.round(estimate)));
+    }
+
+    /**
+     * Returns the URL and user of a data source, which identify the store of
+     * its cardinalities.
+     */
+    private static String databaseOf(DataSource dataSource) {
+        try (Connection connection = dataSource.getConnection()) {
+            final DatabaseMetaData metaData = connection.getMetaData();
+            return metaData.getURL() + " " + metaData.getUserName();
+        } catch (SQLException e) {
+            throw new IllegalStateException("Cannot identify the database of the statistics store", e);
+        }
+    }
+
+    private static String digest(String s) {
+        try {
+            final byte[] hash = MessageDigest.getInstance("SHA-256")
+                    .digest(s.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of()
+                    .formatHex(hash, 0, 8);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
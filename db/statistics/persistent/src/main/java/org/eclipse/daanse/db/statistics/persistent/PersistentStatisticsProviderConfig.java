@@ -0,0 +1,78 @@
+/*
+* Copyright (c) 2023 Contributors to the Eclipse Foundation.
+*
+* This program and the accompanying materials are made
+* available under the terms of the Eclipse Public License 2.0
+* which is available at https://www.eclipse.org/legal/epl-2.0/
+*
+* SPDX-License-Identifier: EPL-2.0
+*
+* Contributors:
+*   SmartCity Jena - initial
+*/
+package org.eclipse.daanse.db.statistics.persistent;
+
+import org.osgi.service.metatype.annotations.AttributeDefinition;
+import org.osgi.service.metatype.annotations.ObjectClassDefinition;
+
+@ObjectClassDefinition
+public interface PersistentStatisticsProviderConfig {
+
+    /**
+     * @return Directory of the store files; one file per database and user
+     */
+    @AttributeDefinition(description = "storeDirectory")
+    default String storeDirectory() {
+        return System.getProperty("java.io.tmpdir") + "/daanse-statistics";
+    }
+
+    /**
+     * @return Seconds after which a table cardinality is refreshed
+     */
+    @AttributeDefinition(description = "tableTtlSeconds")
+    default long tableTtlSeconds() {
+        return 86400;
+    }
+
+    /**
+     * @return Seconds after which a column cardinality is refreshed
+     */
+    @AttributeDefinition(description = "columnTtlSeconds")
+    default long columnTtlSeconds() {
+        return 86400;
+    }
+
+    /**
+     * @return Seconds after which a query cardinality is refreshed
+     */
+    @AttributeDefinition(description = "queryTtlSeconds")
+    default long queryTtlSeconds() {
+        return 3600;
+    }
+
+    /**
+     * @return Number of threads that refresh expired cardinalities
+     */
+    @AttributeDefinition(description = "refreshThreads")
+    default int refreshThreads() {
+        return 1;
+    }
+
+    /**
+     * @return Seconds to wait after a change before the store is written
+     */
+    @AttributeDefinition(description = "writeDelaySeconds")
+    default long writeDelaySeconds() {
+        return 10;
+    }
+
+    /**
+     * @return Number of rows read to estimate a column cardinality, or 0 to
+     *         ask the delegate for every column
+     */
+    @AttributeDefinition(description = "sampleRows")
+    default int sampleRows() {
+        return 0;
+    }
+
+}
@@ -0,0 +1,197 @@
+/*
+* Copyright (c) 2023 Contributors to the Eclipse Foundation.
+*
+* This program and the accompanying materials are made
+* available under the terms of the Eclipse Public License 2.0
+* which is available at https://www.eclipse.org/legal/epl-2.0/
+*
+* SPDX-License-Identifier: EPL-2.0
+*
+* Contributors:
+*   SmartCity Jena - initial
+*/
+package org.eclipse.daanse.db.statistics.persistent;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Cardinalities of one database, kept in memory and written to a file.
+ *
+ * <p>
+ * The file is read when the store is opened and replaced as a whole when the
+ * store is written, so a reader never sees a partly written file. A file that
+ * cannot be read, or that belongs to another database, is ignored.
+ *
+ * <p>
+ * All providers in a JVM that open the same file share one store.
+ */
+final class StatisticsStore {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(StatisticsStore.class);
+    private static final int MAGIC = 0x44535354;
+    private static final int VERSION = 1;
+    private static final Map<Path, StatisticsStore> STORES = new ConcurrentHashMap<>();
+
+    private final Path file;
+    private final String database;
+    private final Map<Key, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicBoolean dirty = new AtomicBoolean();
+
+    private StatisticsStore(Path file, String database) {
+        this.file = file;
+        this.database = database;
+        read();
+    }
+
+    /**
+     * Returns the store of a file, reading the file if no provider has opened
+     * it yet.
+     *
+     * @param file     Store file
+     * @param database Identifies the database whose cardinalities the file holds
+     */
+    static StatisticsStore open(Path file, String database) {
+        return STORES.computeIfAbsent(file.toAbsolutePath()
+                .normalize(), f -> new StatisticsStore(f, database));
+    }
+
+    /**
+     * Forgets the stores that have been opened, so that each file is read
+     * again when it is next opened, as after a restart.
+     */
+    static void forgetAll() {
+        STORES.clear();
+    }
+
+    Entry get(Key key) {
+        return entries.get(key);
+    }
+
+    void put(Key key, Entry entry) {
+        entries.put(key, entry);
+        dirty.set(true);
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    /**
+     * Writes the store to its file, if it has changed since it was last
+     * written.
+     */
+    synchronized void write() throws IOException {
+        if (!dirty.getAndSet(false)) {
+            return;
+        }
+        final Map<Key, Entry> snapshot = new HashMap<>(entries);
+        try {
+            Files.createDirectories(file.getParent());
+            final Path tmp = Files.createTempFile(file.getParent(), file.getFileName()
+                    .toString(), ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                writeString(out, database);
+                out.writeInt(snapshot.size());
+                for (Map.Entry<Key, Entry> e : snapshot.entrySet()) {
+                    final Key key = e.getKey();
+                    out.writeByte(key.kind()
+                            .ordinal());
+                    writeString(out, key.catalog());
+                    writeString(out, key.schema());
+                    writeString(out, key.table());
+                    writeString(out, key.name());
+                    out.writeLong(e.getValue()
+                            .cardinality());
+                    out.writeLong(e.getValue()
+                            .computedMillis());
+                }
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            dirty.set(true);
+            throw e;
+        }
+    }
+
+    private void read() {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                LOGGER.warn("Ignoring statistics store {} of unknown format", file);
+                return;
+            }
+            final String storedDatabase = readString(in);
+            if (!database.equals(storedDatabase)) {
+                LOGGER.warn("Ignoring statistics store {} of database {}", file, storedDatabase);
+                return;
+            }
+            final Kind[] kinds = Kind.values();
+            final int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                final Key key = new Key(kinds[in.readByte()], readString(in), readString(in), readString(in),
+                        readString(in));
+                entries.put(key, new Entry(in.readLong(), in.readLong()));
+            }
+            LOGGER.debug("Read {} cardinalities from {}", count, file);
+        } catch (NoSuchFileException e) {
+            // Nothing stored yet.
+        } catch (IOException | RuntimeException e) {
+            LOGGER.warn("Ignoring statistics store {} that cannot be read", file, e);
+            entries.clear();
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        if (s == null) {
+            out.writeInt(-1);
+            return;
+        }
+        final byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        final int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        final byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    enum Kind {
+        TABLE, COLUMN, QUERY
+    }
+
+    /**
+     * Identifies a cardinality. The name is the column of a column cardinality
+     * and the SQL of a query cardinality.
+     */
+    record Key(Kind kind, String catalog, String schema, String table, String name) {
+    }
+
+    /**
+     * A cardinality and the time it was computed.
+     */
+    record Entry(long cardinality, long computedMillis) {
+    }
+}
@@ -0,0 +1,290 @@
+/*
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   SmartCity Jena - initial
+ */
+package org.eclipse.daanse.db.statistics.persistent;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.eclipse.daanse.db.dialect.api.Dialect;
+import org.eclipse.daanse.db.statistics.api.StatisticsProvider;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class PersistentStatisticsProviderTest {
+
+    @TempDir
+    Path storeDirectory;
+
+    private Dialect dialect;
+    private final List<String> sqls = new ArrayList<>();
+    private final List<PersistentStatisticsProvider> providers = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        StatisticsStore.forgetAll();
+        dialect = mock(Dialect.class);
+        // Quotes nothing, and joins the names that are not null with dots.
+        when(dialect.quoteIdentifier(any(CharSequence.class))).thenAnswer(invocation -> new StringBuilder(
+                invocation.getArgument(0, CharSequence.class)));
+        doAnswer(invocation -> {
+            final StringBuilder buf = invocation.getArgument(0);
+            String separator = "";
+            for (int i = 1; i < invocation.getArguments().length; i++) {
+                final String name = invocation.getArgument(i);
+                if (name != null) {
+                    buf.append(separator)
+                            .append(name);
+                    separator = ".";
+                }
+            }
+            return null;
+        }).when(dialect)
+                .quoteIdentifier(any(StringBuilder.class), any());
+    }
+
+    @AfterEach
+    void tearDown() {
+        for (PersistentStatisticsProvider provider : providers) {
+            provider.deactivate();
+        }
+        StatisticsStore.forgetAll();
+    }
+
+    @Test
+    void testChainsToDelegate() throws SQLException {
+        final StatisticsProvider delegate = mock(StatisticsProvider.class);
+        when(delegate.getTableCardinality("c", "s", "t")).thenReturn(100L);
+        when(delegate.getColumnCardinality("c", "s", "t", "x")).thenReturn(7L);
+        when(delegate.getQueryCardinality("select 1")).thenReturn(1L);
+        final DataSource dataSource = dataSource("jdbc:db:one");
+        final PersistentStatisticsProvider provider = provider(delegate, config(3600, 0));
+        provider.initialize(dataSource, dialect);
+        verify(delegate).initialize(dataSource, dialect);
+
+        for (int i = 0; i < 2; i++) {
+            assertEquals(100L, provider.getTableCardinality("c", "s", "t"));
+            assertEquals(7L, provider.getColumnCardinality("c", "s", "t", "x"));
+            assertEquals(1L, provider.getQueryCardinality("select 1"));
+        }
+        // Each cardinality was obtained once, then read from the store.
+        verify(delegate, times(1)).getTableCardinality("c", "s", "t");
+        verify(delegate, times(1)).getColumnCardinality("c", "s", "t", "x");
+        verify(delegate, times(1)).getQueryCardinality("select 1");
+    }
+
+    @Test
+    void testUnknownCardinalityIsNotStored() throws SQLException {
+        final StatisticsProvider delegate = mock(StatisticsProvider.class);
+        when(delegate.getTableCardinality("c", "s", "t")).thenReturn(StatisticsProvider.CARDINALITY_UNKNOWN, 100L);
+        final PersistentStatisticsProvider provider = provider(delegate, config(3600, 0));
+        provider.initialize(dataSource("jdbc:db:one"), dialect);
+
+        assertEquals(StatisticsProvider.CARDINALITY_UNKNOWN, provider.getTableCardinality("c", "s", "t"));
+        assertEquals(100L, provider.getTableCardinality("c", "s", "t"));
+        assertEquals(100L, provider.getTableCardinality("c", "s", "t"));
+        verify(delegate, times(2)).getTableCardinality("c", "s", "t");
+    }
+
+    @Test
+    void testExpiredCardinalityIsRefreshed() throws Exception {
+        final StatisticsProvider delegate = mock(StatisticsProvider.class);
+        when(delegate.getTableCardinality("c", "s", "t")).thenReturn(100L, 200L);
+        // Every cardinality has expired as soon as it is stored.
+        final PersistentStatisticsProvider provider = provider(delegate, config(0, 0));
+        provider.initialize(dataSource("jdbc:db:one"), dialect);
+
+        assertEquals(100L, provider.getTableCardinality("c", "s", "t"));
+        // The expired cardinality is returned while a new one is obtained in
+        // the background.
+        assertEquals(100L, provider.getTableCardinality("c", "s", "t"));
+        long cardinality = 100L;
+        for (int i = 0; i < 500 && cardinality == 100L; i++) {
+            Thread.sleep(10);
+            cardinality = provider.getTableCardinality("c", "s", "t");
+        }
+        assertEquals(200L, cardinality);
+    }
+
+    @Test
+    void testCardinalityWithinTtlIsNotRefreshed() throws SQLException {
+        final StatisticsProvider delegate = mock(StatisticsProvider.class);
+        when(delegate.getTableCardinality("c", "s", "t")).thenReturn(100L, 200L);
+        final PersistentStatisticsProvider provider = provider(delegate, config(3600, 0));
+        provider.initialize(dataSource("jdbc:db:one"), dialect);
+
+        assertEquals(100L, provider.getTableCardinality("c", "s", "t"));
+        assertEquals(100L, provider.getTableCardinality("c", "s", "t"));
+        verify(delegate, times(1)).getTableCardinality("c", "s", "t");
+    }
+
+    @Test
+    void testCardinalitiesSurviveRestart() throws SQLException {
+        final StatisticsProvider delegate = mock(StatisticsProvider.class);
+        when(delegate.getTableCardinality("c", "s", "t")).thenReturn(100L);
+        final PersistentStatisticsProvider provider = provider(delegate, config(3600, 0));
+        provider.initialize(dataSource("jdbc:db:one"), dialect);
+        assertEquals(100L, provider.getTableCardinality("c", "s", "t"));
+        provider.deactivate();
+        StatisticsStore.forgetAll();
+
+        final StatisticsProvider restarted = mock(StatisticsProvider.class);
+        when(restarted.getTableCardinality("c", "s", "t")).thenReturn(999L);
+        final PersistentStatisticsProvider provider2 = provider(restarted, config(3600, 0));
+        provider2.initialize(dataSource("jdbc:db:one"), dialect);
+        assertEquals(100L, provider2.getTableCardinality("c", "s", "t"));
+        verify(restarted, never()).getTableCardinality("c", "s", "t");
+
+        // The store of another database is separate.
+        final PersistentStatisticsProvider provider3 = provider(restarted, config(3600, 0));
+        provider3.initialize(dataSource("jdbc:db:two"), dialect);
+        assertEquals(999L, provider3.getTableCardinality("c", "s", "t"));
+    }
+
+    @Test
+    void testInitializeWritesCurrentStore() throws Exception {
+        final StatisticsProvider delegate = mock(StatisticsProvider.class);
+        when(delegate.getTableCardinality("c", "s", "t")).thenReturn(100L);
+        final PersistentStatisticsProvider provider = provider(delegate, config(3600, 0));
+        provider.initialize(dataSource("jdbc:db:one"), dialect);
+        assertEquals(100L, provider.getTableCardinality("c", "s", "t"));
+
+        // Moving to another database writes the cardinalities of the first
+        // one, long before the delayed write would.
+        provider.initialize(dataSource("jdbc:db:two"), dialect);
+        try (var files = Files.list(storeDirectory)) {
+            assertEquals(1L, files.filter(f -> f.toString()
+                    .endsWith(".bin"))
+                    .count());
+        }
+        StatisticsStore.forgetAll();
+
+        final StatisticsProvider restarted = mock(StatisticsProvider.class);
+        final PersistentStatisticsProvider provider2 = provider(restarted, config(3600, 0));
+        provider2.initialize(dataSource("jdbc:db:one"), dialect);
+        assertEquals(100L, provider2.getTableCardinality("c", "s", "t"));
+        verify(restarted, never()).getTableCardinality("c", "s", "t");
+    }
+
+    @Test
+    void testSampledColumnCardinality() throws SQLException {
+        final StatisticsProvider delegate = mock(StatisticsProvider.class);
+        when(delegate.getTableCardinality("c", "s", "t")).thenReturn(100L);
+        final DataSource dataSource = dataSource("jdbc:db:one", "a", "a", "b", "c");
+        final PersistentStatisticsProvider provider = provider(delegate, config(3600, 4));
+        provider.initialize(dataSource, dialect);
+
+        // Of 4 rows, "a" is seen twice, "b" and "c" once; the values seen
+        // once are scaled by sqrt(100 / 4) = 5, so 5 * 2 + 1 = 11.
+        assertEquals(11L, provider.getColumnCardinality("c", "s", "t", "x"));
+        assertEquals(List.of("select x from c.s.t"), sqls);
+        verify(delegate, never()).getColumnCardinality(anyString(), anyString(), anyString(), anyString());
+    }
+
+    @Test
+    void testSmallTableIsNotSampled() throws SQLException {
+        final StatisticsProvider delegate = mock(StatisticsProvider.class);
+        when(delegate.getTableCardinality("c", "s", "t")).thenReturn(3L);
+        when(delegate.getColumnCardinality("c", "s", "t", "x")).thenReturn(2L);
+        final PersistentStatisticsProvider provider = provider(delegate, config(3600, 4));
+        provider.initialize(dataSource("jdbc:db:one", "a", "a", "b"), dialect);
+
+        assertEquals(2L, provider.getColumnCardinality("c", "s", "t", "x"));
+        assertTrue(sqls.isEmpty(), sqls::toString);
+    }
+
+    private PersistentStatisticsProvider provider(StatisticsProvider delegate,
+            PersistentStatisticsProviderConfig config) {
+        final PersistentStatisticsProvider provider = new PersistentStatisticsProvider(delegate, config);
+        providers.add(provider);
+        return provider;
+    }
+
+    private PersistentStatisticsProviderConfig config(long ttlSeconds, int sampleRows) {
+        final String directory = storeDirectory.toString();
+        return new PersistentStatisticsProviderConfig() {
+            @Override
+            public String storeDirectory() {
+                return directory;
+            }
+
+            @Override
+            public long tableTtlSeconds() {
+                return ttlSeconds;
+            }
+
+            @Override
+            public long columnTtlSeconds() {
+                return ttlSeconds;
+            }
+
+            @Override
+            public long queryTtlSeconds() {
+                return ttlSeconds;
+            }
+
+            @Override
+            public int sampleRows() {
+                return sampleRows;
+            }
+        };
+    }
+
+    /**
+     * Creates a data source whose queries record their SQL and return the
+     * given values as the rows of a single column.
+     */
+    private DataSource dataSource(String url, Object... values) throws SQLException {
+        final DatabaseMetaData metaData = mock(DatabaseMetaData.class);
+        when(metaData.getURL()).thenReturn(url);
+        when(metaData.getUserName()).thenReturn("user");
+        final DataSource dataSource = mock(DataSource.class);
+        when(dataSource.getConnection()).thenAnswer(connectionInvocation -> {
+            final Connection connection = mock(Connection.class);
+            when(connection.getMetaData()).thenReturn(metaData);
+            final Statement statement = mock(Statement.class);
+            when(connection.createStatement()).thenReturn(statement);
+            when(statement.executeQuery(anyString())).thenAnswer(queryInvocation -> {
+                sqls.add(queryInvocation.getArgument(0));
+                final ResultSet resultSet = mock(ResultSet.class);
+                final int[] row = { -1 };
+                when(resultSet.next()).thenAnswer(nextInvocation -> ++row[0] < values.length);
+                when(resultSet.getObject(1)).thenAnswer(getInvocation -> values[row[0]]);
+                return resultSet;
+            });
+            return connection;
+        });
+        return dataSource;
+    }
+}
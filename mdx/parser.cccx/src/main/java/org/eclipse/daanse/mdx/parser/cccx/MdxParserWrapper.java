@@ -63,19 +63,10 @@ public class MdxParserWrapper implements org.eclipse.daanse.mdx.parser.api.MdxPa
 
         } catch (Exception e) {
             throw new MdxParserException(e);
-        } finally {
-            dump();
         }
 
     }
 
-    private void dump() {
-        Node root = delegate.rootNode();
-        if (root != null) {
-            root.dump();
-        }
-    }
-
     @Override
     public SelectQueryAsteriskClause parseSelectQueryAsteriskClause() throws MdxParserException {
         try {
@@ -83,8 +74,6 @@ public class MdxParserWrapper implements org.eclipse.daanse.mdx.parser.api.MdxPa
             return (SelectQueryAsteriskClause) delegate.peekNode();
         } catch (Exception e) {
             throw new MdxParserException(e);
-        } finally {
-            dump();
         }
 
     }
@@ -96,8 +85,6 @@ public class MdxParserWrapper implements org.eclipse.daanse.mdx.parser.api.MdxPa
             return (SelectStatement) delegate.peekNode();
         } catch (Exception e) {
             throw new MdxParserException(e);
-        } finally {
-            dump();
         }
     }
 
@@ -108,8 +95,6 @@ public class MdxParserWrapper implements org.eclipse.daanse.mdx.parser.api.MdxPa
             return (SelectQueryAxesClause) delegate.peekNode();
         } catch (Exception e) {
             throw new MdxParserException(e);
-        } finally {
-            dump();
         }
     }
 
@@ -120,8 +105,6 @@ public class MdxParserWrapper implements org.eclipse.daanse.mdx.parser.api.MdxPa
             return (Expression) delegate.peekNode();
         } catch (Exception e) {
             throw new MdxParserException(e);
-        } finally {
-            dump();
         }
     }
 
@@ -132,8 +115,6 @@ public class MdxParserWrapper implements org.eclipse.daanse.mdx.parser.api.MdxPa
             return (SelectSubcubeClause) delegate.peekNode();
         } catch (Exception e) {
             throw new MdxParserException(e);
-        } finally {
-            dump();
         }
     }
 
@@ -143,8 +124,6 @@ public class MdxParserWrapper implements org.eclipse.daanse.mdx.parser.api.MdxPa
             return (SelectWithClause) delegate.peekNode();
         } catch (Exception e) {
             throw new MdxParserException(e);
-        } finally {
-            dump();
         }
     }
 
@@ -154,8 +133,6 @@ public class MdxParserWrapper implements org.eclipse.daanse.mdx.parser.api.MdxPa
             return (SelectQueryAxisClause) delegate.peekNode();
         } catch (Exception e) {
             throw new MdxParserException(e);
-        } finally {
-            dump();
         }
     }
 
@@ -165,8 +142,6 @@ public class MdxParserWrapper implements org.eclipse.daanse.mdx.parser.api.MdxPa
             return Optional.of((SelectSlicerAxisClause) delegate.peekNode());
         } catch (Exception e) {
             throw new MdxParserException(e);
-        } finally {
-            dump();
         }
     }
 
@@ -176,8 +151,6 @@ public class MdxParserWrapper implements org.eclipse.daanse.mdx.parser.api.MdxPa
             return (SelectCellPropertyListClause) delegate.peekNode();
         } catch (Exception e) {
             throw new MdxParserException(e);
-        } finally {
-            dump();
         }
     }
 
@@ -187,8 +160,6 @@ public class MdxParserWrapper implements org.eclipse.daanse.mdx.parser.api.MdxPa
             return (DrillthroughStatement) delegate.peekNode();
         } catch (Exception e) {
             throw new MdxParserException(e);
-        } finally {
-            dump();
         }
     }
 
@@ -198,8 +169,6 @@ public class MdxParserWrapper implements org.eclipse.daanse.mdx.parser.api.MdxPa
             return (ExplainStatement) delegate.peekNode();
         } catch (Exception e) {
             throw new MdxParserException(e);
-        } finally {
-            dump();
         }
     }
 
@@ -209,8 +178,6 @@ public class MdxParserWrapper implements org.eclipse.daanse.mdx.parser.api.MdxPa
 
         } catch (Exception e) {
             throw new MdxParserException(e);
-        } finally {
-            dump();
         }
     }
 
@@ -220,8 +187,6 @@ public class MdxParserWrapper implements org.eclipse.daanse.mdx.parser.api.MdxPa
             return (MemberPropertyDefinition) delegate.peekNode();
         } catch (Exception e) {
             throw new MdxParserException(e);
-        } finally {
-            dump();
         }
     }
 
@@ -231,8 +196,6 @@ public class MdxParserWrapper implements org.eclipse.daanse.mdx.parser.api.MdxPa
             return (SelectDimensionPropertyListClause) delegate.peekNode();
         } catch (Exception e) {
             throw new MdxParserException(e);
-        } finally {
-            dump();
         }
     }
 
@@ -243,8 +206,6 @@ public class MdxParserWrapper implements org.eclipse.daanse.mdx.parser.api.MdxPa
 
         } catch (Exception e) {
             throw new MdxParserException(e);
-        } finally {
-            dump();
         }
     }
 
@@ -253,8 +214,6 @@ public class MdxParserWrapper implements org.eclipse.daanse.mdx.parser.api.MdxPa
             return delegate.DMVStatement();
         } catch (Exception e) {
             throw new MdxParserException(e);
-        } finally {
-            dump();
         }
     }
 }
@@ -220,7 +220,7 @@ public interface ExpCompiler {
             CLASS_ARRAY = new Class[] {
                     Evaluator.class,
                     Validator.class,
-                    ResultStyle[].class,
+                    List.class,
             };
         }
 
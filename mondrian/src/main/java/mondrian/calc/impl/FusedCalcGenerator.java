@@ -0,0 +1,756 @@
+/*
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   SmartCity Jena - initial
+ */
+package mondrian.calc.impl;
+
+import static org.objectweb.asm.Opcodes.AALOAD;
+import static org.objectweb.asm.Opcodes.ACC_FINAL;
+import static org.objectweb.asm.Opcodes.ACC_PUBLIC;
+import static org.objectweb.asm.Opcodes.ACC_SUPER;
+import static org.objectweb.asm.Opcodes.ALOAD;
+import static org.objectweb.asm.Opcodes.ASTORE;
+import static org.objectweb.asm.Opcodes.CHECKCAST;
+import static org.objectweb.asm.Opcodes.DADD;
+import static org.objectweb.asm.Opcodes.DALOAD;
+import static org.objectweb.asm.Opcodes.DCMPL;
+import static org.objectweb.asm.Opcodes.DDIV;
+import static org.objectweb.asm.Opcodes.DLOAD;
+import static org.objectweb.asm.Opcodes.DMUL;
+import static org.objectweb.asm.Opcodes.DNEG;
+import static org.objectweb.asm.Opcodes.DRETURN;
+import static org.objectweb.asm.Opcodes.DSTORE;
+import static org.objectweb.asm.Opcodes.DSUB;
+import static org.objectweb.asm.Opcodes.GETFIELD;
+import static org.objectweb.asm.Opcodes.GOTO;
+import static org.objectweb.asm.Opcodes.ICONST_0;
+import static org.objectweb.asm.Opcodes.ICONST_1;
+import static org.objectweb.asm.Opcodes.IFEQ;
+import static org.objectweb.asm.Opcodes.IFGE;
+import static org.objectweb.asm.Opcodes.IFGT;
+import static org.objectweb.asm.Opcodes.IFLE;
+import static org.objectweb.asm.Opcodes.IFLT;
+import static org.objectweb.asm.Opcodes.IFNE;
+import static org.objectweb.asm.Opcodes.IFNULL;
+import static org.objectweb.asm.Opcodes.ILOAD;
+import static org.objectweb.asm.Opcodes.INVOKEINTERFACE;
+import static org.objectweb.asm.Opcodes.INVOKESPECIAL;
+import static org.objectweb.asm.Opcodes.INVOKESTATIC;
+import static org.objectweb.asm.Opcodes.IRETURN;
+import static org.objectweb.asm.Opcodes.ISTORE;
+import static org.objectweb.asm.Opcodes.IXOR;
+import static org.objectweb.asm.Opcodes.RETURN;
+import static org.objectweb.asm.Opcodes.V17;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.daanse.olap.api.model.Member;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Type;
+
+import mondrian.calc.Calc;
+import mondrian.olap.Evaluator;
+import mondrian.olap.Util;
+import mondrian.olap.fun.FunUtil;
+
+/**
+ * Generates a calculation, as a hidden class, that evaluates a tree of
+ * scalar operators with primitive locals instead of a tree of calculations.
+ *
+ * <p>The operators behave exactly like the calculations that the built-in
+ * functions compile to, including their treatment of null values
+ * ({@link FunUtil#DOUBLE_NULL}) and the order in which they evaluate their
+ * operands. The leaves of the tree are calculations compiled as usual,
+ * constants, and the values of constant tuples.
+ *
+ * <p>The generated code depends only on the shape of the tree, not on its
+ * leaves and constants, so a class is generated once for each shape.
+ *
+ * @see FusingExpCompiler
+ */
+final class FusedCalcGenerator {
+    private static final int MAX_CACHED_SHAPES = 1000;
+
+    private static final Map<String, MethodHandle> CONSTRUCTORS =
+        new ConcurrentHashMap<>();
+
+    private static final MethodType CONSTRUCTOR_TYPE =
+        MethodType.methodType(
+            void.class, String.class, mondrian.olap.type.Type.class,
+            Calc[].class, double[].class, Member[][].class, boolean.class);
+
+    private static final String CLASS_NAME =
+        Type.getInternalName(FusedCalcGenerator.class) + "$Generated";
+    private static final String GENERATOR =
+        Type.getInternalName(FusedCalcGenerator.class);
+    private static final String DOUBLE_BASE =
+        Type.getInternalName(DoubleBase.class);
+    private static final String BOOLEAN_BASE =
+        Type.getInternalName(BooleanBase.class);
+    private static final String EVALUATOR =
+        Type.getInternalName(Evaluator.class);
+    private static final String CALC = Type.getInternalName(Calc.class);
+    private static final String DOUBLE_CALC =
+        Type.getInternalName(mondrian.calc.DoubleCalc.class);
+    private static final String BOOLEAN_CALC =
+        Type.getInternalName(mondrian.calc.BooleanCalc.class);
+    private static final String OPERANDS_DESC =
+        Type.getDescriptor(Calc[].class);
+    private static final String TUPLES_DESC =
+        Type.getDescriptor(Member[][].class);
+    private static final String TUPLE_VALUE_DESC =
+        "(L" + EVALUATOR + ";" + Type.getDescriptor(Member[].class)
+        + "Z)Ljava/lang/Object;";
+    private static final String TUPLE_DOUBLE_DESC =
+        "(L" + EVALUATOR + ";" + Type.getDescriptor(Member[].class) + "Z)D";
+    private static final String TO_DOUBLE_DESC =
+        "(L" + EVALUATOR + ";Ljava/lang/Object;)D";
+
+    private FusedCalcGenerator() {
+    }
+
+    /**
+     * Creates a calculation that evaluates a tree of operators.
+     *
+     * @param name Name of the calculation
+     * @param type Type of the calculation
+     * @param root Root of the tree; a numeric or a logical operator
+     * @param operands Calculations referenced by the leaves of the tree
+     * @param constants Constants referenced by the leaves of the tree
+     * @param tuples Tuples whose values the leaves of the tree reference
+     * @param nullCheck Whether the value of a tuple is null if it has members
+     *   of dimensions unrelated to the cube, as in {@link MemberValueCalc}
+     * @return Calculation, a {@link mondrian.calc.DoubleCalc} or a
+     *   {@link mondrian.calc.BooleanCalc}
+     */
+    static Calc create(
+        String name,
+        mondrian.olap.type.Type type,
+        Node root,
+        Calc[] operands,
+        double[] constants,
+        Member[][] tuples,
+        boolean nullCheck)
+    {
+        final boolean logical = root.isLogical();
+        final String shape = (logical ? "B:" : "D:") + root;
+        MethodHandle constructor = CONSTRUCTORS.get(shape);
+        if (constructor == null) {
+            constructor = define(generate(root, logical));
+            if (CONSTRUCTORS.size() < MAX_CACHED_SHAPES) {
+                CONSTRUCTORS.putIfAbsent(shape, constructor);
+            }
+        }
+        try {
+            return (Calc) constructor.invoke(
+                name, type, operands, constants, tuples, nullCheck);
+        } catch (Throwable e) {
+            throw Util.newInternal(e, "while creating fused calc " + shape);
+        }
+    }
+
+    private static MethodHandle define(byte[] bytes) {
+        try {
+            final MethodHandles.Lookup lookup =
+                MethodHandles.lookup().defineHiddenClass(bytes, true);
+            return lookup.findConstructor(
+                lookup.lookupClass(), CONSTRUCTOR_TYPE);
+        } catch (ReflectiveOperationException e) {
+            throw Util.newInternal(e, "while defining fused calc");
+        }
+    }
+
+    private static byte[] generate(Node root, boolean logical) {
+        final ClassWriter cw =
+            new ClassWriter(ClassWriter.COMPUTE_FRAMES) {
+                @Override
+                protected String getCommonSuperClass(
+                    String type1,
+                    String type2)
+                {
+                    // Only values of the same type meet in the generated
+                    // code; do not load classes to find out.
+                    return "java/lang/Object";
+                }
+            };
+        final String base = logical ? BOOLEAN_BASE : DOUBLE_BASE;
+        cw.visit(
+            V17, ACC_FINAL | ACC_SUPER, CLASS_NAME, null, base, null);
+
+        final String constructorDesc =
+            CONSTRUCTOR_TYPE.toMethodDescriptorString();
+        MethodVisitor mv =
+            cw.visitMethod(ACC_PUBLIC, "<init>", constructorDesc, null, null);
+        mv.visitCode();
+        for (int i = 0; i < 6; i++) {
+            mv.visitVarInsn(ALOAD, i);
+        }
+        mv.visitVarInsn(ILOAD, 6);
+        mv.visitMethodInsn(
+            INVOKESPECIAL, base, "<init>", constructorDesc, false);
+        mv.visitInsn(RETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+
+        mv = cw.visitMethod(
+            ACC_PUBLIC,
+            logical ? "evaluateBoolean" : "evaluateDouble",
+            "(L" + EVALUATOR + ";)" + (logical ? "Z" : "D"),
+            null,
+            null);
+        mv.visitCode();
+        final Emitter emitter = new Emitter(mv, base);
+        if (logical) {
+            emitter.emitBoolean(root);
+            mv.visitInsn(IRETURN);
+        } else {
+            emitter.emitDouble(root);
+            mv.visitInsn(DRETURN);
+        }
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+        cw.visitEnd();
+        return cw.toByteArray();
+    }
+
+    /**
+     * Returns the value of a tuple, as {@link MemberValueCalc} and
+     * {@link MemberArrayValueCalc} do.
+     */
+    static Object tupleValue(
+        Evaluator evaluator,
+        Member[] members,
+        boolean nullCheck)
+    {
+        final int savepoint = evaluator.savepoint();
+        try {
+            for (Member member : members) {
+                if (member == null || member.isNull()) {
+                    return null;
+                }
+                evaluator.setContext(member);
+            }
+            if (nullCheck
+                && evaluator.needToReturnNullForUnrelatedDimension(members))
+            {
+                return null;
+            }
+            return evaluator.evaluateCurrent();
+        } finally {
+            evaluator.restore(savepoint);
+        }
+    }
+
+    /**
+     * Returns the value of a tuple as a double.
+     */
+    static double tupleDouble(
+        Evaluator evaluator,
+        Member[] members,
+        boolean nullCheck)
+    {
+        return GenericCalc.toDouble(
+            evaluator, tupleValue(evaluator, members, nullCheck));
+    }
+
+    /**
+     * Returns a value as a double.
+     */
+    static double toDouble(Evaluator evaluator, Object o) {
+        return GenericCalc.toDouble(evaluator, o);
+    }
+
+    /**
+     * Operator of a tree.
+     */
+    enum Op {
+        /** Numeric {@code +}. */
+        ADD,
+        /** Numeric binary {@code -}. */
+        SUBTRACT,
+        /** Numeric {@code *}. */
+        MULTIPLY,
+        /** Numeric {@code /}; null denominator gives infinity. */
+        DIVIDE,
+        /** Numeric {@code /}; null denominator gives null. */
+        DIVIDE_NULL,
+        /** Numeric unary {@code -}. */
+        NEGATE,
+        /** Numeric {@code =}. */
+        EQ,
+        /** Numeric {@code <>}. */
+        NE,
+        /** Numeric {@code <}. */
+        LT,
+        /** Numeric {@code <=}. */
+        LE,
+        /** Numeric {@code >}. */
+        GT,
+        /** Numeric {@code >=}. */
+        GE,
+        /** Logical {@code AND}. */
+        AND,
+        /** Logical {@code OR}. */
+        OR,
+        /** Logical {@code NOT}. */
+        NOT;
+
+        boolean isLogical() {
+            return compareTo(EQ) >= 0;
+        }
+    }
+
+    /**
+     * Node of a tree of operators. Its string representation identifies the
+     * shape of the tree.
+     */
+    sealed interface Node {
+        default boolean isLogical() {
+            return false;
+        }
+    }
+
+    /** Constant; an index into the constants. */
+    record Const(int index) implements Node {
+    }
+
+    /**
+     * Value of a calculation; an index into the operands. If boxed, the
+     * calculation is evaluated as an object and converted to a double.
+     */
+    record Value(int index, boolean boxed) implements Node {
+    }
+
+    /** Value of a constant tuple; an index into the tuples. */
+    record Lookup(int index) implements Node {
+    }
+
+    /** Boolean value of a calculation; an index into the operands. */
+    record Condition(int index) implements Node {
+        @Override
+        public boolean isLogical() {
+            return true;
+        }
+    }
+
+    /** Operator with one operand. */
+    record Unary(Op op, Node operand) implements Node {
+        @Override
+        public boolean isLogical() {
+            return op.isLogical();
+        }
+    }
+
+    /** Operator with two operands. */
+    record Binary(Op op, Node left, Node right) implements Node {
+        @Override
+        public boolean isLogical() {
+            return op.isLogical();
+        }
+    }
+
+    /** Numeric {@code IIf}. */
+    record Iif(Node condition, Node ifTrue, Node ifFalse) implements Node {
+    }
+
+    /**
+     * Numeric {@code CoalesceEmpty}. A {@link Value} or {@link Lookup}
+     * operand is null if its object value is null, any other operand if it
+     * is {@link FunUtil#DOUBLE_NULL}; a {@link Const} operand is never null.
+     */
+    record Coalesce(List<Node> operands) implements Node {
+    }
+
+    /**
+     * Base class of generated numeric calculations.
+     */
+    abstract static class DoubleBase extends AbstractDoubleCalc {
+        final Calc[] operands;
+        final double[] constants;
+        final Member[][] tuples;
+        final boolean nullCheck;
+
+        DoubleBase(
+            String name,
+            mondrian.olap.type.Type type,
+            Calc[] operands,
+            double[] constants,
+            Member[][] tuples,
+            boolean nullCheck)
+        {
+            super(name, type, operands);
+            this.operands = operands;
+            this.constants = constants;
+            this.tuples = tuples;
+            this.nullCheck = nullCheck;
+        }
+    }
+
+    /**
+     * Base class of generated logical calculations.
+     */
+    abstract static class BooleanBase extends AbstractBooleanCalc {
+        final Calc[] operands;
+        final double[] constants;
+        final Member[][] tuples;
+        final boolean nullCheck;
+
+        BooleanBase(
+            String name,
+            mondrian.olap.type.Type type,
+            Calc[] operands,
+            double[] constants,
+            Member[][] tuples,
+            boolean nullCheck)
+        {
+            super(name, type, operands);
+            this.operands = operands;
+            this.constants = constants;
+            this.tuples = tuples;
+            this.nullCheck = nullCheck;
+        }
+    }
+
+    /**
+     * Emits the code of a tree. Each intermediate value has its own local
+     * variable; the evaluator is local 1.
+     */
+    private static class Emitter {
+        private final MethodVisitor mv;
+        private final String base;
+        private int nextLocal = 2;
+
+        Emitter(MethodVisitor mv, String base) {
+            this.mv = mv;
+            this.base = base;
+        }
+
+        private int newLocal(int size) {
+            final int local = nextLocal;
+            nextLocal += size;
+            return local;
+        }
+
+        /** Emits code that pushes the value of a numeric node. */
+        void emitDouble(Node node) {
+            if (node instanceof Const c) {
+                mv.visitVarInsn(ALOAD, 0);
+                mv.visitFieldInsn(GETFIELD, base, "constants", "[D");
+                mv.visitLdcInsn(c.index());
+                mv.visitInsn(DALOAD);
+            } else if (node instanceof Value v) {
+                if (v.boxed()) {
+                    mv.visitVarInsn(ALOAD, 1);
+                    emitEvaluate(v.index());
+                    mv.visitMethodInsn(
+                        INVOKESTATIC, GENERATOR, "toDouble", TO_DOUBLE_DESC,
+                        false);
+                } else {
+                    emitOperand(v.index(), DOUBLE_CALC);
+                    mv.visitVarInsn(ALOAD, 1);
+                    mv.visitMethodInsn(
+                        INVOKEINTERFACE, DOUBLE_CALC, "evaluateDouble",
+                        "(L" + EVALUATOR + ";)D", true);
+                }
+            } else if (node instanceof Lookup l) {
+                emitTuple(l.index());
+                mv.visitMethodInsn(
+                    INVOKESTATIC, GENERATOR, "tupleDouble", TUPLE_DOUBLE_DESC,
+                    false);
+            } else if (node instanceof Unary u) {
+                emitNegate(u);
+            } else if (node instanceof Binary b) {
+                emitArithmetic(b);
+            } else if (node instanceof Iif i) {
+                final Label ifFalse = new Label();
+                final Label end = new Label();
+                emitBoolean(i.condition());
+                mv.visitJumpInsn(IFEQ, ifFalse);
+                emitDouble(i.ifTrue());
+                mv.visitJumpInsn(GOTO, end);
+                mv.visitLabel(ifFalse);
+                emitDouble(i.ifFalse());
+                mv.visitLabel(end);
+            } else if (node instanceof Coalesce c) {
+                emitCoalesce(c);
+            } else {
+                throw Util.newInternal("not numeric: " + node);
+            }
+        }
+
+        /** Emits code that pushes the value of a logical node. */
+        void emitBoolean(Node node) {
+            if (node instanceof Condition c) {
+                emitOperand(c.index(), BOOLEAN_CALC);
+                mv.visitVarInsn(ALOAD, 1);
+                mv.visitMethodInsn(
+                    INVOKEINTERFACE, BOOLEAN_CALC, "evaluateBoolean",
+                    "(L" + EVALUATOR + ";)Z", true);
+            } else if (node instanceof Unary u && u.op() == Op.NOT) {
+                emitBoolean(u.operand());
+                mv.visitInsn(ICONST_1);
+                mv.visitInsn(IXOR);
+            } else if (node instanceof Binary b && b.op() == Op.AND) {
+                emitAndOr(b, true);
+            } else if (node instanceof Binary b && b.op() == Op.OR) {
+                emitAndOr(b, false);
+            } else if (node instanceof Binary b && b.isLogical()) {
+                emitComparison(b);
+            } else {
+                throw Util.newInternal("not logical: " + node);
+            }
+        }
+
+        private void emitOperand(int index, String type) {
+            mv.visitVarInsn(ALOAD, 0);
+            mv.visitFieldInsn(GETFIELD, base, "operands", OPERANDS_DESC);
+            mv.visitLdcInsn(index);
+            mv.visitInsn(AALOAD);
+            mv.visitTypeInsn(CHECKCAST, type);
+        }
+
+        /** Pushes the object value of an operand. */
+        private void emitEvaluate(int index) {
+            emitOperand(index, CALC);
+            mv.visitVarInsn(ALOAD, 1);
+            mv.visitMethodInsn(
+                INVOKEINTERFACE, CALC, "evaluate",
+                "(L" + EVALUATOR + ";)Ljava/lang/Object;", true);
+        }
+
+        /** Pushes the evaluator, a tuple and the null check flag. */
+        private void emitTuple(int index) {
+            mv.visitVarInsn(ALOAD, 1);
+            mv.visitVarInsn(ALOAD, 0);
+            mv.visitFieldInsn(GETFIELD, base, "tuples", TUPLES_DESC);
+            mv.visitLdcInsn(index);
+            mv.visitInsn(AALOAD);
+            mv.visitVarInsn(ALOAD, 0);
+            mv.visitFieldInsn(GETFIELD, base, "nullCheck", "Z");
+        }
+
+        private int emitToLocal(Node node) {
+            emitDouble(node);
+            final int local = newLocal(2);
+            mv.visitVarInsn(DSTORE, local);
+            return local;
+        }
+
+        /** Jumps if a local holds {@link FunUtil#DOUBLE_NULL}. */
+        private void jumpIfNull(int local, Label label) {
+            mv.visitVarInsn(DLOAD, local);
+            mv.visitLdcInsn(FunUtil.DOUBLE_NULL);
+            mv.visitInsn(DCMPL);
+            mv.visitJumpInsn(IFEQ, label);
+        }
+
+        /** Jumps if a local holds NaN. */
+        private void jumpIfNaN(int local, Label label) {
+            mv.visitVarInsn(DLOAD, local);
+            mv.visitVarInsn(DLOAD, local);
+            mv.visitInsn(DCMPL);
+            mv.visitJumpInsn(IFNE, label);
+        }
+
+        private void pushNull() {
+            mv.visitLdcInsn(FunUtil.DOUBLE_NULL);
+        }
+
+        private void emitNegate(Unary u) {
+            final int v = emitToLocal(u.operand());
+            final Label isNull = new Label();
+            final Label end = new Label();
+            jumpIfNull(v, isNull);
+            mv.visitVarInsn(DLOAD, v);
+            mv.visitInsn(DNEG);
+            mv.visitJumpInsn(GOTO, end);
+            mv.visitLabel(isNull);
+            pushNull();
+            mv.visitLabel(end);
+        }
+
+        private void emitArithmetic(Binary b) {
+            // Both operands are evaluated, whatever their values.
+            final int v0 = emitToLocal(b.left());
+            final int v1 = emitToLocal(b.right());
+            final Label end = new Label();
+            switch (b.op()) {
+            case ADD, SUBTRACT: {
+                // A null operand is ignored; both null gives null.
+                final Label leftNull = new Label();
+                final Label rightNull = new Label();
+                final Label bothNull = new Label();
+                jumpIfNull(v0, leftNull);
+                jumpIfNull(v1, rightNull);
+                mv.visitVarInsn(DLOAD, v0);
+                mv.visitVarInsn(DLOAD, v1);
+                mv.visitInsn(b.op() == Op.ADD ? DADD : DSUB);
+                mv.visitJumpInsn(GOTO, end);
+                mv.visitLabel(rightNull);
+                mv.visitVarInsn(DLOAD, v0);
+                mv.visitJumpInsn(GOTO, end);
+                mv.visitLabel(leftNull);
+                jumpIfNull(v1, bothNull);
+                mv.visitVarInsn(DLOAD, v1);
+                if (b.op() == Op.SUBTRACT) {
+                    mv.visitInsn(DNEG);
+                }
+                mv.visitJumpInsn(GOTO, end);
+                mv.visitLabel(bothNull);
+                pushNull();
+                break;
+            }
+            case MULTIPLY, DIVIDE_NULL: {
+                // Either operand null gives null.
+                final Label isNull = new Label();
+                jumpIfNull(v0, isNull);
+                jumpIfNull(v1, isNull);
+                mv.visitVarInsn(DLOAD, v0);
+                mv.visitVarInsn(DLOAD, v1);
+                mv.visitInsn(b.op() == Op.MULTIPLY ? DMUL : DDIV);
+                mv.visitJumpInsn(GOTO, end);
+                mv.visitLabel(isNull);
+                pushNull();
+                break;
+            }
+            case DIVIDE: {
+                // Null numerator gives null; null denominator gives
+                // infinity.
+                final Label numeratorNull = new Label();
+                final Label denominatorNull = new Label();
+                jumpIfNull(v0, numeratorNull);
+                jumpIfNull(v1, denominatorNull);
+                mv.visitVarInsn(DLOAD, v0);
+                mv.visitVarInsn(DLOAD, v1);
+                mv.visitInsn(DDIV);
+                mv.visitJumpInsn(GOTO, end);
+                mv.visitLabel(denominatorNull);
+                mv.visitLdcInsn(Double.POSITIVE_INFINITY);
+                mv.visitJumpInsn(GOTO, end);
+                mv.visitLabel(numeratorNull);
+                pushNull();
+                break;
+            }
+            default:
+                throw Util.unexpected(b.op());
+            }
+            mv.visitLabel(end);
+        }
+
+        private void emitComparison(Binary b) {
+            final int v0 = emitToLocal(b.left());
+            final int v1 = emitToLocal(b.right());
+            final Label isFalse = new Label();
+            final Label end = new Label();
+            // NaN or null operand gives false (FunUtil.BOOLEAN_NULL).
+            jumpIfNaN(v0, isFalse);
+            jumpIfNaN(v1, isFalse);
+            jumpIfNull(v0, isFalse);
+            jumpIfNull(v1, isFalse);
+            mv.visitVarInsn(DLOAD, v0);
+            mv.visitVarInsn(DLOAD, v1);
+            mv.visitInsn(DCMPL);
+            final int jumpIfFalse = switch (b.op()) {
+            case EQ -> IFNE;
+            case NE -> IFEQ;
+            case LT -> IFGE;
+            case LE -> IFGT;
+            case GT -> IFLE;
+            case GE -> IFLT;
+            default -> throw Util.unexpected(b.op());
+            };
+            mv.visitJumpInsn(jumpIfFalse, isFalse);
+            mv.visitInsn(ICONST_1);
+            mv.visitJumpInsn(GOTO, end);
+            mv.visitLabel(isFalse);
+            mv.visitInsn(ICONST_0);
+            mv.visitLabel(end);
+        }
+
+        private void emitAndOr(Binary b, boolean and) {
+            // Short-circuit unless evaluating axes, so that all measures of
+            // the expression are requested in one pass.
+            emitBoolean(b.left());
+            final int b0 = newLocal(1);
+            mv.visitVarInsn(ISTORE, b0);
+            final Label decided = new Label();
+            final Label right = new Label();
+            final Label end = new Label();
+            mv.visitVarInsn(ALOAD, 1);
+            mv.visitMethodInsn(
+                INVOKEINTERFACE, EVALUATOR, "isEvalAxes", "()Z", true);
+            mv.visitJumpInsn(IFNE, right);
+            mv.visitVarInsn(ILOAD, b0);
+            mv.visitJumpInsn(and ? IFEQ : IFNE, decided);
+            mv.visitLabel(right);
+            emitBoolean(b.right());
+            final int b1 = newLocal(1);
+            mv.visitVarInsn(ISTORE, b1);
+            mv.visitVarInsn(ILOAD, b0);
+            mv.visitJumpInsn(and ? IFEQ : IFNE, decided);
+            mv.visitVarInsn(ILOAD, b1);
+            mv.visitJumpInsn(and ? IFEQ : IFNE, decided);
+            mv.visitInsn(and ? ICONST_1 : ICONST_0);
+            mv.visitJumpInsn(GOTO, end);
+            mv.visitLabel(decided);
+            mv.visitInsn(and ? ICONST_0 : ICONST_1);
+            mv.visitLabel(end);
+        }
+
+        private void emitCoalesce(Coalesce c) {
+            final Label end = new Label();
+            for (Node operand : c.operands()) {
+                final Label next = new Label();
+                if (operand instanceof Const) {
+                    // A constant is never null; later operands are never
+                    // evaluated.
+                    emitDouble(operand);
+                    mv.visitLabel(end);
+                    return;
+                }
+                if (operand instanceof Value || operand instanceof Lookup) {
+                    if (operand instanceof Value v) {
+                        emitEvaluate(v.index());
+                    } else {
+                        emitTuple(((Lookup) operand).index());
+                        mv.visitMethodInsn(
+                            INVOKESTATIC, GENERATOR, "tupleValue",
+                            TUPLE_VALUE_DESC, false);
+                    }
+                    final int o = newLocal(1);
+                    mv.visitVarInsn(ASTORE, o);
+                    mv.visitVarInsn(ALOAD, o);
+                    mv.visitJumpInsn(IFNULL, next);
+                    mv.visitVarInsn(ALOAD, 1);
+                    mv.visitVarInsn(ALOAD, o);
+                    mv.visitMethodInsn(
+                        INVOKESTATIC, GENERATOR, "toDouble", TO_DOUBLE_DESC,
+                        false);
+                } else {
+                    final int v = emitToLocal(operand);
+                    jumpIfNull(v, next);
+                    mv.visitVarInsn(DLOAD, v);
+                }
+                mv.visitJumpInsn(GOTO, end);
+                mv.visitLabel(next);
+            }
+            pushNull();
+            mv.visitLabel(end);
+        }
+    }
+}
@@ -0,0 +1,339 @@
+/*
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   SmartCity Jena - initial
+ */
+package mondrian.calc.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.eclipse.daanse.olap.api.model.Member;
+
+import mondrian.calc.Calc;
+import mondrian.calc.DoubleCalc;
+import mondrian.calc.ResultStyle;
+import mondrian.calc.impl.FusedCalcGenerator.Binary;
+import mondrian.calc.impl.FusedCalcGenerator.Coalesce;
+import mondrian.calc.impl.FusedCalcGenerator.Condition;
+import mondrian.calc.impl.FusedCalcGenerator.Const;
+import mondrian.calc.impl.FusedCalcGenerator.Iif;
+import mondrian.calc.impl.FusedCalcGenerator.Lookup;
+import mondrian.calc.impl.FusedCalcGenerator.Node;
+import mondrian.calc.impl.FusedCalcGenerator.Op;
+import mondrian.calc.impl.FusedCalcGenerator.Unary;
+import mondrian.calc.impl.FusedCalcGenerator.Value;
+import mondrian.mdx.ResolvedFunCall;
+import mondrian.olap.Category;
+import mondrian.olap.Evaluator;
+import mondrian.olap.Exp;
+import mondrian.olap.FunDef;
+import mondrian.olap.MondrianProperties;
+import mondrian.olap.Validator;
+import mondrian.olap.fun.BuiltinFunTable;
+import mondrian.olap.fun.CoalesceEmptyFunDef;
+import mondrian.olap.fun.IifFunDef;
+
+/**
+ * Expression compiler that fuses trees of scalar operators into generated
+ * calculations.
+ *
+ * <p>A tree of numeric operators ({@code +}, {@code -}, {@code *},
+ * {@code /}), numeric comparisons, {@code AND}, {@code OR}, {@code NOT},
+ * numeric {@code IIf} and numeric {@code CoalesceEmpty} is compiled to one
+ * calculation whose code evaluates the whole tree with primitive locals,
+ * rather than to a calculation for each operator. Operands that are not
+ * operators are compiled as usual; the values of constant members and
+ * tuples, such as {@code [Measures].[Unit Sales]}, are looked up by the
+ * generated code directly. The generated calculation returns the same
+ * values as the calculations it replaces.
+ *
+ * <p>To use it, set
+ * <blockquote><code>mondrian.calc.ExpCompiler.class=mondrian.calc.impl.FusingExpCompiler</code></blockquote>
+ *
+ * @see FusedCalcGenerator
+ */
+public class FusingExpCompiler extends BetterExpCompiler {
+    private static final int[] NUMERIC_NUMERIC =
+        {Category.NUMERIC, Category.NUMERIC};
+    private static final int[] LOGICAL_LOGICAL =
+        {Category.LOGICAL, Category.LOGICAL};
+    private static final int[] NUMERIC_IIF =
+        {Category.LOGICAL, Category.NUMERIC, Category.NUMERIC};
+
+    public FusingExpCompiler(Evaluator evaluator, Validator validator) {
+        super(evaluator, validator);
+    }
+
+    public FusingExpCompiler(
+        Evaluator evaluator,
+        Validator validator,
+        List<ResultStyle> resultStyles)
+    {
+        super(evaluator, validator, resultStyles);
+    }
+
+    @Override
+    public Calc compile(Exp exp) {
+        if (exp instanceof ResolvedFunCall call
+            && operator(call.getFunDef()) != null)
+        {
+            return new Fusion().fuse(call);
+        }
+        return super.compile(exp);
+    }
+
+    /**
+     * Returns the operator of a built-in function, or null if the function
+     * is not an operator that can be fused.
+     */
+    private static Op operator(FunDef funDef) {
+        if (funDef.getClass().getEnclosingClass() != BuiltinFunTable.class) {
+            return null;
+        }
+        final int[] categories = funDef.getParameterCategories();
+        switch (funDef.getSyntax()) {
+        case Infix:
+            if (Arrays.equals(categories, NUMERIC_NUMERIC)) {
+                return switch (funDef.getName()) {
+                case "+" -> Op.ADD;
+                case "-" -> Op.SUBTRACT;
+                case "*" -> Op.MULTIPLY;
+                case "/" ->
+                    MondrianProperties.instance().NullDenominatorProducesNull
+                        .get()
+                        ? Op.DIVIDE_NULL
+                        : Op.DIVIDE;
+                case "=" -> Op.EQ;
+                case "<>" -> Op.NE;
+                case "<" -> Op.LT;
+                case "<=" -> Op.LE;
+                case ">" -> Op.GT;
+                case ">=" -> Op.GE;
+                default -> null;
+                };
+            }
+            if (Arrays.equals(categories, LOGICAL_LOGICAL)) {
+                return switch (funDef.getName()) {
+                case "AND" -> Op.AND;
+                case "OR" -> Op.OR;
+                default -> null;
+                };
+            }
+            return null;
+        case Prefix:
+            if (categories.length != 1) {
+                return null;
+            }
+            if (categories[0] == Category.NUMERIC
+                && funDef.getName().equals("-"))
+            {
+                return Op.NEGATE;
+            }
+            if (categories[0] == Category.LOGICAL
+                && funDef.getName().equals("NOT"))
+            {
+                return Op.NOT;
+            }
+            return null;
+        default:
+            return null;
+        }
+    }
+
+    private static boolean isNumericIif(FunDef funDef) {
+        return funDef instanceof IifFunDef
+            && funDef.getReturnCategory() == Category.NUMERIC
+            && Arrays.equals(funDef.getParameterCategories(), NUMERIC_IIF);
+    }
+
+    private static boolean isNumericCoalesce(FunDef funDef) {
+        return funDef instanceof CoalesceEmptyFunDef
+            && funDef.getReturnCategory() == Category.NUMERIC;
+    }
+
+    /**
+     * Builds the tree of one fused calculation, compiling its leaves.
+     *
+     * <p>Each leaf is compiled with the same method of the compiler, and in
+     * the same order, as the function it belongs to would compile it.
+     */
+    private class Fusion {
+        private final List<Calc> operands = new ArrayList<>();
+        private final List<Double> constants = new ArrayList<>();
+        private final List<Member[]> tuples = new ArrayList<>();
+
+        Calc fuse(ResolvedFunCall call) {
+            final Node root =
+                operator(call.getFunDef()).isLogical()
+                    ? condition(call)
+                    : number(call);
+            final double[] constantArray = new double[constants.size()];
+            for (int i = 0; i < constantArray.length; i++) {
+                constantArray[i] = constants.get(i);
+            }
+            return FusedCalcGenerator.create(
+                call.getFunName(),
+                call.getType(),
+                root,
+                operands.toArray(new Calc[0]),
+                constantArray,
+                tuples.toArray(new Member[0][]),
+                getEvaluator().mightReturnNullForUnrelatedDimension());
+        }
+
+        /**
+         * Returns the node of an expression whose value a numeric operator
+         * uses, as compiled by {@link #compileDouble(Exp)}.
+         */
+        private Node number(Exp exp) {
+            final Node node = numericCall(exp);
+            return node != null ? node : leaf(compileDouble(exp));
+        }
+
+        /**
+         * Returns the node of an argument of {@code IIf}, as compiled by
+         * {@link #compileScalar(Exp, boolean)}.
+         */
+        private Node scalar(Exp exp) {
+            final Node node = numericCall(exp);
+            return node != null ? node : leaf(compileScalar(exp, true));
+        }
+
+        private Node numericCall(Exp exp) {
+            if (!(exp instanceof ResolvedFunCall call)) {
+                return null;
+            }
+            final FunDef funDef = call.getFunDef();
+            final Op op = operator(funDef);
+            if (op != null && !op.isLogical()) {
+                if (op == Op.NEGATE) {
+                    return new Unary(op, number(call.getArg(0)));
+                }
+                final Node left = number(call.getArg(0));
+                return new Binary(op, left, number(call.getArg(1)));
+            }
+            if (isNumericIif(funDef)) {
+                final Node condition = condition(call.getArg(0));
+                final Node ifTrue = scalar(call.getArg(1));
+                return new Iif(condition, ifTrue, scalar(call.getArg(2)));
+            }
+            if (isNumericCoalesce(funDef)) {
+                return coalesce(call);
+            }
+            return null;
+        }
+
+        /**
+         * Returns the node of a logical expression, as compiled by
+         * {@link #compileBoolean(Exp)}.
+         */
+        private Node condition(Exp exp) {
+            if (exp instanceof ResolvedFunCall call) {
+                final Op op = operator(call.getFunDef());
+                if (op == Op.NOT) {
+                    return new Unary(op, condition(call.getArg(0)));
+                }
+                if (op == Op.AND || op == Op.OR) {
+                    final Node left = condition(call.getArg(0));
+                    return new Binary(op, left, condition(call.getArg(1)));
+                }
+                if (op != null && op.isLogical()) {
+                    final Node left = number(call.getArg(0));
+                    return new Binary(op, left, number(call.getArg(1)));
+                }
+            }
+            return new Condition(operand(compileBoolean(exp)));
+        }
+
+        private Node coalesce(ResolvedFunCall call) {
+            final List<Node> list = new ArrayList<>();
+            for (Exp arg : call.getArgs()) {
+                if (arg instanceof ResolvedFunCall argCall) {
+                    final Op op = operator(argCall.getFunDef());
+                    if (op != null && !op.isLogical()) {
+                        list.add(number(arg));
+                        continue;
+                    }
+                }
+                final Calc calc = compileScalar(arg, true);
+                if (calc instanceof ConstantCalc) {
+                    final Object o = calc.evaluate(null);
+                    if (o == null) {
+                        // Never chosen.
+                        continue;
+                    }
+                    if (o instanceof Number number) {
+                        // Always chosen; later arguments are compiled but
+                        // never evaluated.
+                        list.add(constant(number.doubleValue()));
+                        continue;
+                    }
+                }
+                final Node node = lookup(calc);
+                list.add(node != null ? node : new Value(operand(calc), true));
+            }
+            return new Coalesce(list);
+        }
+
+        private Node leaf(Calc calc) {
+            if (calc instanceof ConstantCalc) {
+                final Object o = calc.evaluate(null);
+                if (o == null || o instanceof Number) {
+                    return constant(
+                        GenericCalc.numberToDouble((Number) o));
+                }
+            }
+            final Node node = lookup(calc);
+            if (node != null) {
+                return node;
+            }
+            return new Value(operand(calc), !(calc instanceof DoubleCalc));
+        }
+
+        /**
+         * Returns a lookup if a calculation is the value of a constant member
+         * or tuple, otherwise null.
+         */
+        private Node lookup(Calc calc) {
+            if (!(calc instanceof MemberValueCalc
+                || calc instanceof MemberArrayValueCalc))
+            {
+                return null;
+            }
+            final Calc[] memberCalcs = ((AbstractCalc) calc).getCalcs();
+            final Member[] members = new Member[memberCalcs.length];
+            for (int i = 0; i < memberCalcs.length; i++) {
+                if (!(memberCalcs[i] instanceof ConstantCalc)
+                    || !(memberCalcs[i].evaluate(null) instanceof Member member))
+                {
+                    return null;
+                }
+                members[i] = member;
+            }
+            // The calculation is not evaluated, but its dependencies are
+            // those of the fused calculation.
+            operand(calc);
+            tuples.add(members);
+            return new Lookup(tuples.size() - 1);
+        }
+
+        private Node constant(double d) {
+            constants.add(d);
+            return new Const(constants.size() - 1);
+        }
+
+        private int operand(Calc calc) {
+            operands.add(calc);
+            return operands.size() - 1;
+        }
+    }
+}
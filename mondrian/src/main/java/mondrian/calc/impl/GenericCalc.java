@@ -75,7 +75,7 @@ VoidCalc, MemberCalc, LevelCalc, HierarchyCalc, DimensionCalc
         return (Member[]) evaluate(evaluator);
     }
 
-    private String msg(TypeEnum expectedType, Object o) {
+    private static String msg(TypeEnum expectedType, Object o) {
         final TypeEnum actualType = GenericCalc.actualType(o);
         return new StringBuilder("Expected value of type ").append(expectedType).append("; got value '").append(o)
                 .append("' (").append((actualType == null ? o.getClass() : actualType)).append(")").toString();
@@ -131,7 +131,18 @@ VoidCalc, MemberCalc, LevelCalc, HierarchyCalc, DimensionCalc
 
     @Override
     public double evaluateDouble(Evaluator evaluator) {
-        final Object o = evaluate(evaluator);
+        return GenericCalc.toDouble(evaluator, evaluate(evaluator));
+    }
+
+    /**
+     * Converts the value of a calculation to a double, as
+     * {@link #evaluateDouble(Evaluator)} does.
+     *
+     * @param evaluator Evaluator
+     * @param o Value
+     * @return Value as a double, or {@link FunUtil#DOUBLE_NULL} if null
+     */
+    static double toDouble(Evaluator evaluator, Object o) {
         try {
             final Number number = (Number) o;
             return GenericCalc.numberToDouble(number);
@@ -0,0 +1,445 @@
+/*
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   SmartCity Jena - initial
+ */
+package mondrian.calc.impl;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.daanse.olap.api.model.Member;
+
+import mondrian.calc.TupleCursor;
+import mondrian.calc.TupleIterator;
+import mondrian.calc.TupleList;
+import mondrian.olap.Evaluator;
+import mondrian.olap.MondrianProperties;
+import mondrian.olap.Util;
+import mondrian.resource.MondrianResource;
+
+/**
+ * Implementation of {@link TupleList} that stores the members of each
+ * position of the tuples as ids in an {@code int} array, and the members
+ * themselves once in a dictionary per position.
+ *
+ * <p>All members of a position belong to the same hierarchy, so the
+ * dictionary of a position is a dictionary of the members of a hierarchy.
+ * A tuple costs {@code arity} ints rather than {@code arity} references, and
+ * the list is cheap to copy, sort and filter.
+ *
+ * <p>The dictionary gives every distinct member object its own id, so the
+ * list returns the very members it was given, for instance
+ * {@link mondrian.olap.fun.VisualTotalsFunDef.VisualTotalMember visual total
+ * members} rather than the regular members they are equal to. In addition,
+ * members that are {@link Object#equals(Object) equal} share a key, and
+ * {@link #key(int, int[])} gives the keys of a tuple, so that tuples can be
+ * compared and hashed as ints with an {@link OrdinalTupleSet}.
+ *
+ * <p>Lists created by {@link #cloneList(int)} share the dictionaries of this
+ * list, so keys of their tuples and tuples copied by
+ * {@link #addTuple(OrdinalTupleList, int)} need no lookup.
+ */
+public class OrdinalTupleList extends AbstractEndToEndTupleList {
+    private final int maxSize;
+    private final MemberDictionary[] dictionaries;
+    private int[][] ids;
+    private int size;
+    private final int cjMaxSize = MondrianProperties.instance().ResultLimit.get();
+
+    /**
+     * Creates an empty OrdinalTupleList with an initial capacity of 10 tuples.
+     *
+     * @param arity Arity
+     */
+    public OrdinalTupleList( int arity ) {
+        this( arity, 10 );
+    }
+
+    /**
+     * Creates an empty OrdinalTupleList.
+     *
+     * @param arity           Arity
+     * @param initialCapacity Initial capacity
+     */
+    public OrdinalTupleList( int arity, int initialCapacity ) {
+        this( newDictionaries( arity ), new int[ arity ][ initialCapacity ], 0 );
+    }
+
+    private OrdinalTupleList(
+        MemberDictionary[] dictionaries, int[][] ids, int size )
+    {
+        super( dictionaries.length );
+        assert dictionaries.length > 0;
+        this.dictionaries = dictionaries;
+        this.ids = ids;
+        this.size = size;
+        maxSize = cjMaxSize <= 0 ? Integer.MAX_VALUE : cjMaxSize;
+    }
+
+    private static MemberDictionary[] newDictionaries( int arity ) {
+        final MemberDictionary[] dictionaries = new MemberDictionary[ arity ];
+        for ( int i = 0; i < arity; i++ ) {
+            dictionaries[ i ] = new MemberDictionary();
+        }
+        return dictionaries;
+    }
+
+    /**
+     * Creates an OrdinalTupleList with the tuples of a given list.
+     *
+     * @param list List of tuples
+     * @return Copy of the list
+     */
+    public static OrdinalTupleList copyOf( TupleList list ) {
+        if ( list instanceof OrdinalTupleList ordinalTupleList ) {
+            return (OrdinalTupleList) ordinalTupleList.cloneList( -1 );
+        }
+        final OrdinalTupleList copy =
+            new OrdinalTupleList( list.getArity(), list.size() );
+        final TupleCursor cursor = list.tupleCursor();
+        while ( cursor.forward() ) {
+            copy.addCurrent( cursor );
+        }
+        return copy;
+    }
+
+    @Override
+    protected List<Member> backingList() {
+        return new AbstractList<>() {
+            @Override
+            public Member get( int index ) {
+                return OrdinalTupleList.this.get( index % arity, index / arity );
+            }
+
+            @Override
+            public Member set( int index, Member element ) {
+                assert mutable;
+                final int column = index % arity;
+                final int[] columnIds = ids[ column ];
+                final MemberDictionary dictionary = dictionaries[ column ];
+                final Member previous = dictionary.member( columnIds[ index / arity ] );
+                columnIds[ index / arity ] = dictionary.id( element );
+                return previous;
+            }
+
+            @Override
+            public int size() {
+                return size * arity;
+            }
+        };
+    }
+
+    @Override
+    public Member get( int slice, int index ) {
+        return dictionaries[ slice ].member( ids[ slice ][ index ] );
+    }
+
+    @Override
+    public List<Member> get( final int index ) {
+        final List<Member> list =
+            new AbstractList<>() {
+                @Override
+                public Member get( int column ) {
+                    return OrdinalTupleList.this.get( column, index );
+                }
+
+                @Override
+                public int size() {
+                    return arity;
+                }
+            };
+        if ( mutable ) {
+            return Util.flatList( list );
+        }
+        return list;
+    }
+
+    @Override
+    public List<Member> set( int index, List<Member> element ) {
+        assert mutable;
+        for ( int i = 0; i < arity; i++ ) {
+            ids[ i ][ index ] = dictionaries[ i ].id( element.get( i ) );
+        }
+        return null; // not compliant with List contract
+    }
+
+    @Override
+    public void addCurrent( TupleCursor tupleIter ) {
+        assert mutable;
+        ensureCapacity( size + 1 );
+        for ( int i = 0; i < arity; i++ ) {
+            ids[ i ][ size ] = dictionaries[ i ].id( tupleIter.member( i ) );
+        }
+        ++size;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean add( List<Member> members ) {
+        add( size, members );
+        return true;
+    }
+
+    @Override
+    public void add( int index, List<Member> members ) {
+        assert mutable;
+        if ( members.size() != arity ) {
+            throw new IllegalArgumentException(
+                "Tuple length does not match arity" );
+        }
+        ensureCapacity( size + 1 );
+        for ( int i = 0; i < arity; i++ ) {
+            final int[] columnIds = ids[ i ];
+            System.arraycopy( columnIds, index, columnIds, index + 1, size - index );
+            columnIds[ index ] = dictionaries[ i ].id( members.get( i ) );
+        }
+        ++size;
+    }
+
+    @Override
+    public boolean addAll( int index, Collection<? extends List<Member>> c ) {
+        assert mutable;
+        final int size1 = c.size();
+        ensureCapacity( size + size1 );
+        for ( final int[] columnIds : ids ) {
+            System.arraycopy(
+                columnIds, index, columnIds, index + size1, size - index );
+        }
+        int n = index;
+        for ( final List<Member> members : c ) {
+            for ( int i = 0; i < arity; i++ ) {
+                ids[ i ][ n ] = dictionaries[ i ].id( members.get( i ) );
+            }
+            n++;
+        }
+        size += size1;
+        return size1 > 0;
+    }
+
+    @Override
+    public void addTuple( Member... members ) {
+        assert mutable;
+        if ( members.length != arity ) {
+            throw new IllegalArgumentException(
+                "Tuple length does not match arity" );
+        }
+        ensureCapacity( size + 1 );
+        for ( int i = 0; i < arity; i++ ) {
+            ids[ i ][ size ] = dictionaries[ i ].id( members[ i ] );
+        }
+        ++size;
+    }
+
+    /**
+     * Appends a tuple of another list. If the list shares the dictionaries of
+     * this list, the ids of the tuple are copied without a lookup.
+     *
+     * @param list  List
+     * @param index Index of the tuple in the list
+     */
+    public void addTuple( OrdinalTupleList list, int index ) {
+        assert mutable;
+        if ( list.dictionaries != dictionaries ) {
+            add( list.get( index ) );
+            return;
+        }
+        ensureCapacity( size + 1 );
+        for ( int i = 0; i < arity; i++ ) {
+            ids[ i ][ size ] = list.ids[ i ][ index ];
+        }
+        ++size;
+    }
+
+    @Override
+    @SuppressWarnings( "squid:S1168" ) // null expected downstream.
+    public List<Member> remove( int index ) {
+        assert mutable;
+        for ( final int[] columnIds : ids ) {
+            System.arraycopy(
+                columnIds, index + 1, columnIds, index, size - index - 1 );
+        }
+        --size;
+        return null; // previous
+    }
+
+    @Override
+    public List<Member> slice( final int column ) {
+        if ( column < 0 || column >= arity ) {
+            throw new IllegalArgumentException();
+        }
+        return new AbstractList<>() {
+            @Override
+            public Member get( int index ) {
+                return OrdinalTupleList.this.get( column, index );
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    @Override
+    public TupleList cloneList( int capacity ) {
+        if ( capacity < 0 ) {
+            // copy of this list with the same contents
+            final int[][] copy = new int[ arity ][];
+            for ( int i = 0; i < arity; i++ ) {
+                copy[ i ] = ids[ i ].clone();
+            }
+            return new OrdinalTupleList( dictionaries, copy, size );
+        }
+        // empty copy of this list with given capacity
+        return new OrdinalTupleList(
+            dictionaries, new int[ arity ][ capacity ], 0 );
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>Returns a copy of this list, which shares its dictionaries.
+     */
+    @Override
+    public TupleList fix() {
+        return cloneList( -1 );
+    }
+
+    /**
+     * Writes the keys of a tuple of this list into an array. Tuples are equal
+     * if and only if their keys are equal.
+     *
+     * @param index Index of the tuple
+     * @param key   Array of length arity to write the keys to
+     */
+    public void key( int index, int[] key ) {
+        for ( int i = 0; i < arity; i++ ) {
+            key[ i ] = dictionaries[ i ].key( ids[ i ][ index ] );
+        }
+    }
+
+    /**
+     * Writes the keys that a tuple has in this list into an array, without
+     * adding its members to the dictionaries.
+     *
+     * @param tuple Tuple
+     * @param key   Array of length arity to write the keys to
+     * @return Whether all members of the tuple have a key; if not, the tuple
+     *   is not equal to any tuple of this list
+     */
+    public boolean key( List<Member> tuple, int[] key ) {
+        for ( int i = 0; i < arity; i++ ) {
+            final int k = dictionaries[ i ].find( tuple.get( i ) );
+            if ( k < 0 ) {
+                return false;
+            }
+            key[ i ] = k;
+        }
+        return true;
+    }
+
+    @Override
+    public TupleIterator tupleIteratorInternal() {
+        return new AbstractTupleListIterator() {
+            @Override public void setContext( Evaluator evaluator ) {
+                for ( int i = 0; i < arity; i++ ) {
+                    evaluator.setContext( get( i, lastRet ) );
+                }
+            }
+
+            @Override public Member member( int column ) {
+                return get( column, lastRet );
+            }
+
+            @Override public void currentToArray( Member[] members, int offset ) {
+                for ( int i = 0; i < arity; i++ ) {
+                    members[ offset + i ] = get( i, lastRet );
+                }
+            }
+        };
+    }
+
+    private void ensureCapacity( int minCapacity ) {
+        if ( minCapacity > maxSize ) {
+            throw MondrianResource.instance().LimitExceededDuringCrossjoin.ex(
+                minCapacity, cjMaxSize );
+        }
+        final int oldCapacity = ids[ 0 ].length;
+        if ( minCapacity > oldCapacity ) {
+            int newCapacity = oldCapacity * 3 / 2 + 1;
+            if ( newCapacity < minCapacity ) {
+                newCapacity = minCapacity;
+            }
+            newCapacity = Math.min( newCapacity, maxSize );
+            for ( int i = 0; i < arity; i++ ) {
+                ids[ i ] = Arrays.copyOf( ids[ i ], newCapacity );
+            }
+        }
+    }
+
+    /**
+     * Dictionary of the members of a position.
+     *
+     * <p>Ids are assigned by identity, keys by equality. Dictionaries are
+     * shared by the clones of a list, which may be used by several threads,
+     * so additions and lookups by member are synchronized. Arrays are
+     * replaced, never shrunk, when they grow, so an id read from a list is
+     * always valid in the arrays that a thread sees.
+     */
+    private static class MemberDictionary {
+        private final Map<Member, Integer> ids = new IdentityHashMap<>();
+        private final Map<Member, Integer> keys = new HashMap<>();
+        private volatile Member[] members = new Member[ 16 ];
+        private volatile int[] memberKeys = new int[ 16 ];
+
+        Member member( int id ) {
+            return members[ id ];
+        }
+
+        int key( int id ) {
+            return memberKeys[ id ];
+        }
+
+        synchronized int id( Member member ) {
+            final Integer id = ids.get( member );
+            if ( id != null ) {
+                return id;
+            }
+            final int n = ids.size();
+            Member[] newMembers = members;
+            int[] newKeys = memberKeys;
+            if ( n == newMembers.length ) {
+                newMembers = Arrays.copyOf( newMembers, n * 2 );
+                newKeys = Arrays.copyOf( newKeys, n * 2 );
+            }
+            newMembers[ n ] = member;
+            newKeys[ n ] = keys.computeIfAbsent( member, m -> keys.size() );
+            memberKeys = newKeys;
+            members = newMembers;
+            ids.put( member, n );
+            return n;
+        }
+
+        synchronized int find( Member member ) {
+            final Integer key = keys.get( member );
+            return key == null ? -1 : key;
+        }
+    }
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   SmartCity Jena - initial
+ */
+package mondrian.calc.impl;
+
+import java.util.Arrays;
+
+/**
+ * Hash map from the keys of tuples, as written by
+ * {@link OrdinalTupleList#key(int, int[])}, to non-negative ints, typically
+ * the index of a tuple in a list.
+ *
+ * <p>Keys are stored end-to-end in an {@code int} array and found by open
+ * addressing, so neither adding nor looking up a key allocates an object.
+ * The key array passed to a method may be reused by the caller afterwards.
+ */
+public class OrdinalTupleSet {
+    private final int arity;
+    private int[] keys;
+    private int[] values;
+    /** Entry number + 1 per slot, 0 for an empty slot. */
+    private int[] slots;
+    private int size;
+
+    /**
+     * Creates an empty OrdinalTupleSet.
+     *
+     * @param arity        Number of ints per key
+     * @param expectedSize Expected number of keys
+     */
+    public OrdinalTupleSet( int arity, int expectedSize ) {
+        this.arity = arity;
+        final int capacity = Math.max( expectedSize, 8 );
+        keys = new int[ capacity * arity ];
+        values = new int[ capacity ];
+        slots = new int[ Integer.highestOneBit( capacity * 2 - 1 ) << 1 ];
+    }
+
+    /**
+     * Returns the number of keys in this set.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Adds a key if it is not present.
+     *
+     * @param key Key
+     * @return Whether the key was not present
+     */
+    public boolean add( int[] key ) {
+        final int slot = slot( key );
+        if ( slots[ slot ] != 0 ) {
+            return false;
+        }
+        insert( slot, key, 0 );
+        return true;
+    }
+
+    /**
+     * Returns whether a key is present.
+     */
+    public boolean contains( int[] key ) {
+        return slots[ slot( key ) ] != 0;
+    }
+
+    /**
+     * Associates a value with a key, replacing any previous value, as
+     * {@link java.util.Map#put(Object, Object)} does.
+     *
+     * @param key   Key
+     * @param value Value, not negative
+     * @return Previous value, or -1 if the key was not present
+     */
+    public int put( int[] key, int value ) {
+        assert value >= 0;
+        final int slot = slot( key );
+        final int entry = slots[ slot ] - 1;
+        if ( entry >= 0 ) {
+            final int previous = values[ entry ];
+            values[ entry ] = value;
+            return previous;
+        }
+        insert( slot, key, value );
+        return -1;
+    }
+
+    /**
+     * Returns the value of a key.
+     *
+     * @param key Key
+     * @return Value, or -1 if the key is not present
+     */
+    public int get( int[] key ) {
+        final int entry = slots[ slot( key ) ] - 1;
+        return entry < 0 ? -1 : values[ entry ];
+    }
+
+    private void insert( int slot, int[] key, int value ) {
+        if ( size == values.length ) {
+            values = Arrays.copyOf( values, size * 2 );
+            keys = Arrays.copyOf( keys, size * 2 * arity );
+        }
+        System.arraycopy( key, 0, keys, size * arity, arity );
+        values[ size ] = value;
+        slots[ slot ] = ++size;
+        if ( size * 2 > slots.length ) {
+            rehash();
+        }
+    }
+
+    private void rehash() {
+        slots = new int[ slots.length * 2 ];
+        final int mask = slots.length - 1;
+        for ( int entry = 0; entry < size; entry++ ) {
+            int slot = hash( keys, entry * arity ) & mask;
+            while ( slots[ slot ] != 0 ) {
+                slot = ( slot + 1 ) & mask;
+            }
+            slots[ slot ] = entry + 1;
+        }
+    }
+
+    /**
+     * Returns the slot that holds a key, or the empty slot where it belongs.
+     */
+    private int slot( int[] key ) {
+        final int mask = slots.length - 1;
+        int slot = hash( key, 0 ) & mask;
+        while ( true ) {
+            final int entry = slots[ slot ] - 1;
+            if ( entry < 0 || equal( key, entry * arity ) ) {
+                return slot;
+            }
+            slot = ( slot + 1 ) & mask;
+        }
+    }
+
+    private boolean equal( int[] key, int offset ) {
+        for ( int i = 0; i < arity; i++ ) {
+            if ( keys[ offset + i ] != key[ i ] ) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int hash( int[] key, int offset ) {
+        int h = 1;
+        for ( int i = 0; i < arity; i++ ) {
+            h = 31 * h + key[ offset + i ];
+        }
+        h *= 0x9E3779B9;
+        return h ^ ( h >>> 16 );
+    }
+}
@@ -14,7 +14,7 @@ package mondrian.olap;
 import org.eclipse.daanse.olap.api.Connection;
 import org.slf4j.Logger;
 
-import mondrian.parser.JavaccParserValidatorImpl;
+import mondrian.parser.CongoccParserValidatorImpl;
 import mondrian.parser.MdxParserValidator;
 import mondrian.resource.MondrianResource;
 import mondrian.server.Statement;
@@ -85,6 +85,8 @@ public abstract class ConnectionBase implements Connection {
         MdxParserValidator parser = createParser();
         boolean debug = false;
 
+        final ParsedQueryCache parsedQueryCache =
+            funTable == null ? getParsedQueryCache() : null;
         if (funTable == null) {
             funTable = getSchema().getFunTable();
         }
@@ -95,6 +97,10 @@ public abstract class ConnectionBase implements Connection {
         }
 
         try {
+            if (parsedQueryCache != null) {
+                return parsedQueryCache.parse(
+                    statement, query, debug, funTable, strictValidation);
+            }
             return
                 parser.parseInternal(
                     statement, query, debug, funTable, strictValidation);
@@ -104,6 +110,16 @@ public abstract class ConnectionBase implements Connection {
     }
 
     protected MdxParserValidator createParser() {
-        return new JavaccParserValidatorImpl();
+        return new CongoccParserValidatorImpl();
+    }
+
+    /**
+     * Returns the cache of parsed queries to use when parsing statements with
+     * the schema's function table, or null if queries are not to be cached.
+     *
+     * @return Parsed query cache, or null
+     */
+    protected ParsedQueryCache getParsedQueryCache() {
+        return null;
     }
 }
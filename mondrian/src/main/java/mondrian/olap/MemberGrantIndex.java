@@ -0,0 +1,187 @@
+/*
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   SmartCity Jena - initial
+ */
+package mondrian.olap;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.daanse.olap.api.access.Access;
+import org.eclipse.daanse.olap.api.model.Member;
+
+/**
+ * Compiled form of the member grants of a role on one hierarchy.
+ *
+ * <p>The grants are indexed by the depth of the level of the granted member,
+ * so that an access check looks up only the member and those ancestors
+ * whose levels carry grants, and stops as soon as it has passed the
+ * highest level with a grant. The index also records, for each member, whether
+ * any of its descendants (or the member itself) is denied, and for each
+ * member granted {@link Access#CUSTOM} access, those of its children that
+ * are granted some access. The latter are the only children such a member
+ * shows, which allows a member reader to ask the database for just those
+ * children.</p>
+ *
+ * <p>An index also holds a memo of the access computed for each member. It is
+ * bounded by {@link #MEMO_LIMIT}; when the limit is reached, the memo is
+ * cleared.</p>
+ *
+ * <p>An index is immutable, apart from its memo, and is thread-safe. When
+ * grants change, a new index must be built.</p>
+ */
+class MemberGrantIndex {
+    /**
+     * Maximum number of members whose access is memoized.
+     */
+    static final int MEMO_LIMIT = 10000;
+
+    private final Map<String, Access> grants;
+    private final boolean[] levelHasGrants;
+    private final int minGrantDepth;
+    private final Set<String> restrictedMembers;
+    private final Map<String, List<Member>> accessibleChildren;
+    private final Map<String, Access> memo = new ConcurrentHashMap<>();
+
+    /**
+     * Creates an index.
+     *
+     * @param memberGrants Access granted to each member
+     */
+    MemberGrantIndex(Map<Member, Access> memberGrants) {
+        final Map<String, Access> grantMap = new HashMap<>();
+        final Set<String> restricted = new HashSet<>();
+        final Map<String, List<Member>> children = new HashMap<>();
+        int maxDepth = -1;
+        int minDepth = Integer.MAX_VALUE;
+        for (Map.Entry<Member, Access> entry : memberGrants.entrySet()) {
+            final Member member = entry.getKey();
+            final Access access = entry.getValue();
+            final int depth = member.getLevel().getDepth();
+            maxDepth = Math.max(maxDepth, depth);
+            minDepth = Math.min(minDepth, depth);
+            grantMap.put(member.getUniqueName(), access);
+            if (access == Access.NONE || access == Access.CUSTOM) {
+                for (Member m = member; m != null; m = m.getParentMember()) {
+                    if (!restricted.add(m.getUniqueName())) {
+                        break;
+                    }
+                }
+            }
+            final Member parent = member.getParentMember();
+            if (access != Access.NONE && parent != null) {
+                children.computeIfAbsent(
+                    parent.getUniqueName(), k -> new ArrayList<>())
+                    .add(member);
+            }
+        }
+        this.levelHasGrants = new boolean[maxDepth + 1];
+        for (Member member : memberGrants.keySet()) {
+            levelHasGrants[member.getLevel().getDepth()] = true;
+        }
+        this.grants = grantMap;
+        this.minGrantDepth = minDepth;
+        this.restrictedMembers = restricted;
+        this.accessibleChildren = children;
+    }
+
+    /**
+     * Returns the number of member grants.
+     */
+    int size() {
+        return grants.size();
+    }
+
+    /**
+     * Returns the access explicitly granted to a member, or null.
+     *
+     * @param member Member
+     * @return Access granted to member, or null if there is no grant
+     */
+    Access getGrant(Member member) {
+        final int depth = member.getLevel().getDepth();
+        if (depth >= levelHasGrants.length || !levelHasGrants[depth]) {
+            return null;
+        }
+        return grants.get(member.getUniqueName());
+    }
+
+    /**
+     * Returns whether a member's level is above every level that has grants.
+     * Neither the member nor any of its ancestors can have a grant.
+     *
+     * @param member Member
+     * @return whether member is above all grants
+     */
+    boolean isAboveGrants(Member member) {
+        return member.getLevel().getDepth() < minGrantDepth;
+    }
+
+    /**
+     * Returns whether a member, or any of its descendants, is granted
+     * {@link Access#NONE} or {@link Access#CUSTOM} access.
+     *
+     * @param member Member
+     * @return whether some descendant may be inaccessible
+     */
+    boolean hasRestrictedDescendants(Member member) {
+        return restrictedMembers.contains(member.getUniqueName());
+    }
+
+    /**
+     * Returns the children of a member that are granted access, if the
+     * member is granted {@link Access#CUSTOM} access. Those are the only
+     * children of the member that are accessible.
+     *
+     * @param parent Parent member
+     * @return Accessible children, or null if the member is not granted
+     *   CUSTOM access
+     */
+    List<Member> getAccessibleChildren(Member parent) {
+        if (getGrant(parent) != Access.CUSTOM) {
+            return null;
+        }
+        final List<Member> children =
+            accessibleChildren.get(parent.getUniqueName());
+        return children == null
+            ? Collections.emptyList()
+            : Collections.unmodifiableList(children);
+    }
+
+    /**
+     * Returns the memoized access of a member, or null.
+     *
+     * @param member Member
+     * @return Memoized access, or null
+     */
+    Access getMemoizedAccess(Member member) {
+        return memo.get(member.getUniqueName());
+    }
+
+    /**
+     * Memoizes the access of a member.
+     *
+     * @param member Member
+     * @param access Access
+     */
+    void memoizeAccess(Member member, Access access) {
+        if (memo.size() >= MEMO_LIMIT) {
+            memo.clear();
+        }
+        memo.put(member.getUniqueName(), access);
+    }
+}
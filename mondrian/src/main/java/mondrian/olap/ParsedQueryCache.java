@@ -0,0 +1,285 @@
+/*
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   SmartCity Jena - initial
+ */
+package mondrian.olap;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import mondrian.parser.CongoccParserValidatorImpl;
+import mondrian.rolap.RolapConnection;
+import mondrian.server.Statement;
+import mondrian.server.monitor.ParsedQueryCacheEvent;
+
+/**
+ * Cache of parsed MDX queries, for the statements of one schema.
+ *
+ * <p>Only parsing is saved; validation and compilation still run on every
+ * execution. A query that is found in the cache is not parsed again: its
+ * parse tree is copied, and the copy is validated and compiled for the
+ * statement, as if the parser had just created it.</p>
+ *
+ * <p>Compiled queries are not cached. A {@link Query} belongs to the
+ * {@link Statement} that created it, and its compiled calcs refer to the
+ * query, to the calculated members and named sets defined in its WITH
+ * clause, and to the members that were accessible to the role when it was
+ * validated. The cache holds the parse tree as the parser produced it,
+ * before validation, which depends on none of these, so it can be shared by
+ * all roles, and remains valid if calculated members are added to or removed
+ * from a cube.</p>
+ *
+ * <p>The key is the text of the query with the white space between its
+ * tokens collapsed, so that queries that differ only in layout share an
+ * entry. Only SELECT statements that are parsed with the schema's function
+ * table are cached, and not those whose FROM clause is a sub-select.</p>
+ *
+ * <p>The number of entries is limited by
+ * {@link MondrianProperties#ParsedQueryCacheSize}; when the limit is reached,
+ * the least recently used entry is removed. Each lookup sends a
+ * {@link ParsedQueryCacheEvent} to the server's monitor.</p>
+ *
+ * <p>All methods are thread-safe.</p>
+ */
+public class ParsedQueryCache {
+    private final Map<Key, Template> map =
+        new LinkedHashMap<>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(
+                Map.Entry<Key, Template> eldest)
+            {
+                return size()
+                    > MondrianProperties.instance().ParsedQueryCacheSize.get();
+            }
+        };
+
+    /**
+     * Creates a ParsedQueryCache.
+     */
+    public ParsedQueryCache() {
+        // empty
+    }
+
+    /**
+     * Returns whether the cache is enabled.
+     */
+    public static boolean isEnabled() {
+        return MondrianProperties.instance().ParsedQueryCacheSize.get() > 0;
+    }
+
+    /**
+     * Parses an MDX statement, or creates it from the parse tree of an
+     * identical query in the cache.
+     *
+     * @param statement Statement
+     * @param queryString MDX statement
+     * @param debug Whether to print debug messages while parsing
+     * @param funTable Function table of the schema
+     * @param strictValidation If true, do not ignore invalid members
+     * @return Query, or other kind of statement
+     */
+    public QueryPart parse(
+        Statement statement,
+        String queryString,
+        boolean debug,
+        FunTable funTable,
+        boolean strictValidation)
+    {
+        final Key key = new Key(normalize(queryString), strictValidation);
+        final Template template;
+        synchronized (this) {
+            template = map.get(key);
+        }
+        sendEvent(statement, template != null);
+        if (template != null) {
+            return template.createQuery(statement, strictValidation);
+        }
+        final RecordingFactory factory = new RecordingFactory();
+        final QueryPart queryPart =
+            new CongoccParserValidatorImpl(factory).parseInternal(
+                statement, queryString, debug, funTable, strictValidation);
+        if (factory.template != null
+            && queryPart == factory.query
+            && queryPart.getClass() == Query.class)
+        {
+            synchronized (this) {
+                map.put(key, factory.template);
+            }
+        }
+        return queryPart;
+    }
+
+    /**
+     * Returns the number of queries in the cache.
+     */
+    public synchronized int size() {
+        return map.size();
+    }
+
+    /**
+     * Removes all queries from the cache.
+     */
+    public synchronized void clear() {
+        map.clear();
+    }
+
+    private static void sendEvent(Statement statement, boolean hit) {
+        final RolapConnection connection = statement.getMondrianConnection();
+        if (connection == null || connection.getServer() == null) {
+            return;
+        }
+        connection.getServer().getMonitor().sendEvent(
+            new ParsedQueryCacheEvent(
+                System.currentTimeMillis(),
+                connection.getServer().getId(),
+                connection.getId(),
+                statement.getId(),
+                hit));
+    }
+
+    /**
+     * Collapses the white space between the tokens of an MDX statement.
+     *
+     * <p>White space inside string literals and bracketed identifiers is
+     * kept. If the statement contains a comment, which may end at a line
+     * break, only leading and trailing white space is removed.</p>
+     *
+     * @param queryString MDX statement
+     * @return Normalized statement
+     */
+    static String normalize(String queryString) {
+        final String s = queryString.trim();
+        final StringBuilder buf = new StringBuilder(s.length());
+        char quote = 0;
+        boolean space = false;
+        for (int i = 0; i < s.length(); i++) {
+            final char c = s.charAt(i);
+            if (quote != 0) {
+                buf.append(c);
+                if (c == quote) {
+                    if (i + 1 < s.length() && s.charAt(i + 1) == quote) {
+                        // Doubled quote or bracket is an escape.
+                        buf.append(quote);
+                        ++i;
+                    } else {
+                        quote = 0;
+                    }
+                }
+                continue;
+            }
+            if (Character.isWhitespace(c)) {
+                space = true;
+                continue;
+            }
+            final char next = i + 1 < s.length() ? s.charAt(i + 1) : 0;
+            if ((c == '-' || c == '/') && (next == c || c == '/' && next == '*'))
+            {
+                return s;
+            }
+            if (space) {
+                buf.append(' ');
+                space = false;
+            }
+            buf.append(c);
+            switch (c) {
+            case '[':
+                quote = ']';
+                break;
+            case '"':
+            case '\'':
+                quote = c;
+                break;
+            default:
+                break;
+            }
+        }
+        return buf.toString();
+    }
+
+    /**
+     * Key of a query in the cache.
+     *
+     * @param queryString Normalized MDX statement
+     * @param strictValidation Whether invalid members are not ignored
+     */
+    private record Key(String queryString, boolean strictValidation) {
+    }
+
+    /**
+     * Parse tree of a query, from which a query can be created for any
+     * statement. The template holds its own copy of the tree, which is never
+     * validated.
+     */
+    private static class Template {
+        private final Formula[] formulas;
+        private final QueryAxis[] axes;
+        private final Subcube subcube;
+        private final Exp slicer;
+        private final QueryPart[] cellProps;
+
+        Template(
+            Formula[] formulas,
+            QueryAxis[] axes,
+            Subcube subcube,
+            Exp slicer,
+            QueryPart[] cellProps)
+        {
+            this.formulas = Formula.cloneArray(formulas);
+            this.axes = QueryAxis.cloneArray(axes);
+            this.subcube = subcube;
+            this.slicer = slicer == null ? null : slicer.cloneExp();
+            this.cellProps = cellProps;
+        }
+
+        Query createQuery(Statement statement, boolean strictValidation) {
+            return new Parser.FactoryImpl().makeQuery(
+                statement,
+                Formula.cloneArray(formulas),
+                QueryAxis.cloneArray(axes),
+                subcube,
+                slicer == null ? null : slicer.cloneExp(),
+                cellProps,
+                strictValidation);
+        }
+    }
+
+    /**
+     * Factory that records the parse tree of the query it creates, before
+     * the query validates it.
+     */
+    private static class RecordingFactory extends Parser.FactoryImpl {
+        private Template template;
+        private Query query;
+
+        @Override
+        public Query makeQuery(
+            Statement statement,
+            Formula[] formulae,
+            QueryAxis[] axes,
+            Subcube subcube,
+            Exp slicer,
+            QueryPart[] cellProps,
+            boolean strictValidation)
+        {
+            template =
+                subcube == null || subcube.getAxisExps().isEmpty()
+                    ? new Template(formulae, axes, subcube, slicer, cellProps)
+                    : null;
+            query =
+                super.makeQuery(
+                    statement, formulae, axes, subcube, slicer, cellProps,
+                    strictValidation);
+            return query;
+        }
+    }
+}
@@ -11,8 +11,11 @@
 package mondrian.olap;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.WeakHashMap;
@@ -659,6 +662,37 @@ public class RoleImpl implements Role {
             hierarchy, Access.ALL, null, null, RollupPolicy.FULL);
     }
 
+    /**
+     * Returns the children of a member that a role allows to be seen, if the
+     * role allows only children that are explicitly granted access;
+     * otherwise null.
+     *
+     * <p>A member reader can use the keys of these members to restrict the
+     * SQL that reads the children of the member. It must still check the
+     * access of each member it reads.
+     *
+     * @param role Role
+     * @param parent Parent member
+     * @return Accessible children, or null if the role does not restrict
+     *   the children to a known set
+     */
+    public static Collection<Member> getAccessibleChildren(
+        Role role,
+        Member parent)
+    {
+        if (role instanceof RoleImpl roleImpl) {
+            final HierarchyAccessImpl hierarchyAccess =
+                roleImpl.hierarchyGrants.get(parent.getHierarchy());
+            return hierarchyAccess == null
+                ? null
+                : hierarchyAccess.getAccessibleChildren(parent);
+        }
+        if (role instanceof UnionRoleImpl unionRole) {
+            return unionRole.getAccessibleChildren(parent);
+        }
+        return null;
+    }
+
     /**
      * Returns a role that is the union of the given roles.
      *
@@ -710,9 +744,14 @@ public class RoleImpl implements Role {
         private final Access access;
         private final Level bottomLevel;
         private final Map<String, MemberAccess> memberGrants =
-            new HashMap<>();
+            new LinkedHashMap<>();
         private final RollupPolicy rollupPolicy;
         private final Role role;
+        /**
+         * Compiled form of {@link #memberGrants}; built on first use, and
+         * discarded when a member is granted access.
+         */
+        private volatile MemberGrantIndex grantIndex;
 
         /**
          * Creates a <code>HierarchyAccessImpl</code>.
@@ -764,6 +803,7 @@ public class RoleImpl implements Role {
          */
         void grant(RoleImpl role, Member member, Access access) {
             Util.assertTrue(member.getHierarchy() == hierarchy);
+            grantIndex = null;
 
             // Remove any existing grants to descendants of "member"
             for (Iterator<MemberAccess> memberIter =
@@ -884,9 +924,26 @@ public class RoleImpl implements Role {
             if (this.access != Access.CUSTOM) {
                 return this.access;
             }
-            MemberAccess mAccess =
-                memberGrants.get(member.getUniqueName());
-            Access accessInner = mAccess == null ? null : mAccess.access;
+            final MemberGrantIndex index = grantIndex();
+            // Access can only be memoized once the role can no longer
+            // change; it also depends on grants outside this hierarchy.
+            final boolean memoize =
+                role instanceof RoleImpl roleImpl && !roleImpl.isMutable();
+            if (memoize) {
+                final Access memoized = index.getMemoizedAccess(member);
+                if (memoized != null) {
+                    return memoized;
+                }
+            }
+            final Access accessInner = computeAccess(index, member);
+            if (memoize) {
+                index.memoizeAccess(member, accessInner);
+            }
+            return accessInner;
+        }
+
+        private Access computeAccess(MemberGrantIndex index, Member member) {
+            Access accessInner = index.getGrant(member);
             // Check for an explicit deny.
             if (accessInner == Access.NONE) {
                 LOGGER.trace(
@@ -919,16 +976,13 @@ public class RoleImpl implements Role {
                 return Access.NONE;
             }
             // Nothing was explicitly defined for this member.
-            // Check for grants on its parents
+            // Check for grants on its parents, up to the highest level
+            // that has grants.
             for (Member m = member.getParentMember();
-                m != null;
+                m != null && !index.isAboveGrants(m);
                 m = m.getParentMember())
             {
-                MemberAccess pAccess =
-                    memberGrants.get(m.getUniqueName());
-                final Access parentAccess = pAccess == null
-                    ? null
-                    : pAccess.access;
+                final Access parentAccess = index.getGrant(m);
                 if (parentAccess == null) {
                     // No explicit rules for this parent
                     continue;
@@ -961,7 +1015,7 @@ public class RoleImpl implements Role {
             // topLevel/bottomLevel attributes. If there are no explicit
             // member grants defined at this level but the member fits
             // those bounds, we give access.
-            if (memberGrants.size() == 0) {
+            if (index.size() == 0) {
                 LOGGER.trace(
                     "Access level ALL granted to member {} because it lies between the permitted level bounds and there are no explicit member grants defined in hierarchy {}",
                     member.getUniqueName(), member.getHierarchy().getUniqueName());
@@ -995,17 +1049,39 @@ public class RoleImpl implements Role {
          */
         @Override
 		public boolean hasInaccessibleDescendants(Member member) {
-            for (MemberAccess accessInner : memberGrants.values()) {
-                if ((Access.NONE.equals(accessInner.access)
-                    || Access.CUSTOM.equals(accessInner.access))
-                    && accessInner.isSubGrant(member)) {
-                    // At least one of the limited member is
-                    // part of the descendants of this member.
-                    return true;
+            return grantIndex().hasRestrictedDescendants(member);
+        }
+
+        /**
+         * Returns the children of a member that this access allows to be
+         * seen, if it allows only children that are explicitly granted;
+         * otherwise null.
+         *
+         * @param parent Parent member
+         * @return Accessible children, or null if unknown
+         */
+        List<Member> getAccessibleChildren(Member parent) {
+            switch (access) {
+            case NONE:
+                return Collections.emptyList();
+            case CUSTOM:
+                return grantIndex().getAccessibleChildren(parent);
+            default:
+                return null;
+            }
+        }
+
+        private MemberGrantIndex grantIndex() {
+            MemberGrantIndex index = grantIndex;
+            if (index == null) {
+                final Map<Member, Access> grants = new LinkedHashMap<>();
+                for (MemberAccess mAccess : memberGrants.values()) {
+                    grants.put(mAccess.member, mAccess.access);
                 }
+                index = new MemberGrantIndex(grants);
+                grantIndex = index;
             }
-            // All descendants are accessible.
-            return false;
+            return index;
         }
     }
 
@@ -1017,13 +1093,7 @@ public class RoleImpl implements Role {
     private static class MemberAccess {
         private final Member member;
         private final Access access;
-        // We use a weak hash map so that it naturally clears
-        // when more memory is required by other parts.
-        // This cache is useful for optimization, but cannot be
-        // let to grow indefinitely. This would cause problems
-        // on high cardinality dimensions.
-        private final Map<String, Boolean> parentsCache =
-            new WeakHashMap<>();
+
         public MemberAccess(
             Member member,
             Access access)
@@ -1032,35 +1102,6 @@ public class RoleImpl implements Role {
                 this.access = access;
         }
 
-        /**
-         * Tells whether the member concerned by this grant object
-         * is a children of a given member. The result of the computation
-         * is cached for faster results, since this might get called
-         * very often.
-         */
-        private boolean isSubGrant(Member parentMember) {
-            if (parentsCache.containsKey(parentMember.getUniqueName())) {
-                return parentsCache.get(parentMember.getUniqueName());
-            }
-            for (Member m = member; m != null; m = m.getParentMember()) {
-                if (m.equals(parentMember)) {
-                    // We have proved that this granted member is a
-                    // descendant of 'member'. Cache it and return.
-                    parentsCache.put(
-                        parentMember.getUniqueName(), Boolean.TRUE);
-                    return true;
-                }
-            }
-            // Not a parent. Cache it and return.
-            if (MondrianProperties.instance()
-                .EnableRolapCubeMemberCache.get())
-            {
-                parentsCache.put(
-                    parentMember.getUniqueName(), Boolean.FALSE);
-            }
-            return false;
-        }
-
         @Override
 		public String toString() {
             return
@@ -1145,10 +1186,10 @@ public class RoleImpl implements Role {
         extends DelegatingHierarchyAccess
     {
         private final Map<Member, Access> memberAccessMap =
-            new WeakHashMap<>();
+            Collections.synchronizedMap(new WeakHashMap<>());
         private RollupPolicy rollupPolicy;
         private Map<Member, Boolean> inaccessibleDescendantsMap =
-            new WeakHashMap<>();
+            Collections.synchronizedMap(new WeakHashMap<>());
         private Integer topLevelDepth;
         private Integer bottomLevelDepth;
 
@@ -10,7 +10,14 @@
 package mondrian.olap;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.eclipse.daanse.olap.api.access.Access;
 import org.eclipse.daanse.olap.api.access.AllHierarchyAccess;
@@ -42,6 +49,13 @@ class UnionRoleImpl implements Role {
         LoggerFactory.getLogger(UnionRoleImpl.class);
     private final List<Role> roleList;
 
+    /**
+     * Access details of each hierarchy, computed on first use. Null if the
+     * constituent roles can still change, in which case access details are
+     * computed on each call.
+     */
+    private final Map<Hierarchy, Optional<HierarchyAccess>> accessDetailsMap;
+
     /**
      * Creates a UnionRoleImpl.
      *
@@ -49,6 +63,25 @@ class UnionRoleImpl implements Role {
      */
     UnionRoleImpl(List<Role> roleList) {
         this.roleList = new ArrayList<>(roleList);
+        this.accessDetailsMap =
+            isImmutable(this.roleList) ? new ConcurrentHashMap<>() : null;
+    }
+
+    private static boolean isImmutable(List<Role> roleList) {
+        for (Role role : roleList) {
+            if (role instanceof RoleImpl roleImpl) {
+                if (roleImpl.isMutable()) {
+                    return false;
+                }
+            } else if (role instanceof UnionRoleImpl unionRole) {
+                if (unionRole.accessDetailsMap == null) {
+                    return false;
+                }
+            } else {
+                return false;
+            }
+        }
+        return true;
     }
 
     @Override
@@ -155,6 +188,15 @@ class UnionRoleImpl implements Role {
 
     @Override
 	public HierarchyAccess getAccessDetails(final Hierarchy hierarchy) {
+        if (accessDetailsMap == null) {
+            return computeAccessDetails(hierarchy);
+        }
+        return accessDetailsMap.computeIfAbsent(
+            hierarchy, h -> Optional.ofNullable(computeAccessDetails(h)))
+            .orElse(null);
+    }
+
+    private HierarchyAccess computeAccessDetails(Hierarchy hierarchy) {
         List<HierarchyAccess> list = new ArrayList<>();
         for (Role role : roleList) {
             final HierarchyAccess accessDetails =
@@ -221,6 +263,29 @@ class UnionRoleImpl implements Role {
         return access;
     }
 
+    /**
+     * Returns the children of a member that this role allows to be seen, if
+     * each constituent role allows only children that are explicitly granted
+     * access; otherwise null.
+     *
+     * @param parent Parent member
+     * @return Accessible children, or null if unknown
+     *
+     * @see RoleImpl#getAccessibleChildren(Role, Member)
+     */
+    Collection<Member> getAccessibleChildren(Member parent) {
+        final Set<Member> children = new LinkedHashSet<>();
+        for (Role role : roleList) {
+            final Collection<Member> roleChildren =
+                RoleImpl.getAccessibleChildren(role, parent);
+            if (roleChildren == null) {
+                return null;
+            }
+            children.addAll(roleChildren);
+        }
+        return Collections.unmodifiableSet(children);
+    }
+
     @Override
 	public boolean canAccess(OlapElement olapElement) {
         for (Role role : roleList) {
@@ -13,6 +13,7 @@ package mondrian.olap.fun;
 import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -62,6 +63,7 @@ import mondrian.olap.type.TupleType;
 import mondrian.olap.type.Type;
 import mondrian.resource.MondrianResource;
 import mondrian.rolap.RolapEvaluator;
+import mondrian.rolap.SegmentCrossJoin;
 import mondrian.rolap.SqlConstraintUtils;
 import mondrian.server.Execution;
 import mondrian.server.Locus;
@@ -767,9 +769,26 @@ public Calc compileCall( final ResolvedFunCall call, ExpCompiler compiler ) {
     if ( list.isEmpty() ) {
       return list;
     }
+    return nonEmptyCrossJoin( evaluator, Collections.singletonList( list ), call );
+  }
 
-    TupleList result = TupleCollections.createList( list.getArity(), ( list.size() + 2 ) >> 1 );
-
+  /**
+   * Returns the elements of the crossjoin of lists that have evaluated to non-null, as
+   * {@link #nonEmptyList(Evaluator, TupleList, ResolvedFunCall)} of the crossjoin does.
+   *
+   * <p>
+   * If {@link MondrianProperties#CrossJoinFromSegments} is set, and the data is of stored measures, the non-empty
+   * elements are read from the cells of a segment which covers the crossjoin, and the crossjoin is not built.
+   *
+   * @param evaluator
+   *          Evaluator
+   * @param lists
+   *          Lists of members or tuples, not empty
+   * @param call
+   *          Calling ResolvedFunCall used to determine what Measures to use
+   * @return List of elements from the crossjoin of the lists that have evaluated to non-null.
+   */
+  protected TupleList nonEmptyCrossJoin( Evaluator evaluator, List<TupleList> lists, ResolvedFunCall call ) {
     // Get all of the Measures
     final Query query = evaluator.getQuery();
 
@@ -808,7 +827,7 @@ public Calc compileCall( final ResolvedFunCall call, ExpCompiler compiler ) {
         for ( Formula f : formula ) {
           if ( SqlConstraintUtils.containsValidMeasure( f.getExpression() ) ) {
             // short circuit if VM is present.
-            return list;
+            return crossJoin( lists );
           }
           f.accept( measureVisitor );
         }
@@ -829,15 +848,15 @@ public Calc compileCall( final ResolvedFunCall call, ExpCompiler compiler ) {
       //
       Member[] evalMembers = evaluator.getMembers().clone();
 
-      List<Member> listMembers = list.get( 0 );
-
       // Remove listMembers from evalMembers and independentSlicerMembers
-      for ( Member lm : listMembers ) {
-        Hierarchy h = lm.getHierarchy();
-        for ( int i = 0; i < evalMembers.length; i++ ) {
-          Member em = evalMembers[i];
-          if ( ( em != null ) && h.equals( em.getHierarchy() ) ) {
-            evalMembers[i] = null;
+      for ( TupleList list : lists ) {
+        for ( Member lm : list.get( 0 ) ) {
+          Hierarchy h = lm.getHierarchy();
+          for ( int i = 0; i < evalMembers.length; i++ ) {
+            Member em = evalMembers[i];
+            if ( ( em != null ) && h.equals( em.getHierarchy() ) ) {
+              evalMembers[i] = null;
+            }
           }
         }
       }
@@ -943,6 +962,17 @@ public Calc compileCall( final ResolvedFunCall call, ExpCompiler compiler ) {
     final int savepoint = evaluator.savepoint();
     try {
       evaluator.setContext( allMemberList );
+      if ( MondrianProperties.instance().CrossJoinFromSegments.get() && memberSet.isEmpty()
+          && nonAllMembers.length == 0 && evaluator instanceof RolapEvaluator rolapEvaluator ) {
+        // Read the non-empty elements from the cells of a segment, if they
+        // are loaded or can be loaded.
+        final TupleList result = SegmentCrossJoin.nonEmpty( rolapEvaluator, lists, measureSet );
+        if ( result != null ) {
+          return result;
+        }
+      }
+      final TupleList list = crossJoin( lists );
+      final TupleList result = TupleCollections.createList( list.getArity(), ( list.size() + 2 ) >> 1 );
       // Iterate over elements of the input list. If for any
       // combination of
       // Measure and non-All Members evaluation is non-null, then
@@ -975,6 +1005,14 @@ public Calc compileCall( final ResolvedFunCall call, ExpCompiler compiler ) {
     }
   }
 
+  private static TupleList crossJoin( List<TupleList> lists ) {
+    TupleList list = lists.get( 0 );
+    for ( int i = 1; i < lists.size(); i++ ) {
+      list = mutableCrossJoin( list, lists.get( i ) );
+    }
+    return list;
+  }
+
   private boolean tupleContainsCalcs( List<Member> current ) {
     return current.stream().anyMatch( Member::isCalculated );
   }
@@ -20,6 +20,8 @@ import mondrian.calc.ExpCompiler;
 import mondrian.calc.ListCalc;
 import mondrian.calc.TupleList;
 import mondrian.calc.impl.AbstractListCalc;
+import mondrian.calc.impl.OrdinalTupleList;
+import mondrian.calc.impl.OrdinalTupleSet;
 import mondrian.mdx.ResolvedFunCall;
 import mondrian.olap.Evaluator;
 
@@ -60,6 +62,9 @@ class DistinctFunDef extends FunDefBase {
         @Override
 		public TupleList evaluateList(Evaluator evaluator) {
             TupleList list = listCalc.evaluateList(evaluator);
+            if (list instanceof OrdinalTupleList ordinalTupleList) {
+                return distinct(ordinalTupleList);
+            }
             Set<List<Member>> set = new HashSet<>(list.size());
             TupleList result = list.cloneList(list.size());
             for (List<Member> element : list) {
@@ -69,5 +74,21 @@ class DistinctFunDef extends FunDefBase {
             }
             return result;
         }
+
+        private static TupleList distinct(OrdinalTupleList list) {
+            final int size = list.size();
+            final OrdinalTupleSet set =
+                new OrdinalTupleSet(list.getArity(), size);
+            final OrdinalTupleList result =
+                (OrdinalTupleList) list.cloneList(size);
+            final int[] key = new int[list.getArity()];
+            for (int i = 0; i < size; i++) {
+                list.key(i, key);
+                if (set.add(key)) {
+                    result.addTuple(list, i);
+                }
+            }
+            return result;
+        }
     }
 }
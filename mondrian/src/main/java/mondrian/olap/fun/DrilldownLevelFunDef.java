@@ -14,6 +14,7 @@ package mondrian.olap.fun;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 
 import org.eclipse.daanse.olap.api.model.Hierarchy;
@@ -124,6 +125,10 @@ class DrilldownLevelFunDef extends FunDefBase {
                     TupleList result = TupleCollections.createList(arity);
                     final SchemaReader schemaReader =
                             evaluator.getSchemaReader();
+                    prefetchChildren(
+                        schemaReader,
+                        new ArrayList<>(
+                            new LinkedHashSet<>(list.slice(index))));
                     final Member[] tupleClone = new Member[arity];
                     for (List<Member> tuple : list) {
                         result.add(tuple);
@@ -219,6 +224,7 @@ class DrilldownLevelFunDef extends FunDefBase {
             }
         }
 
+        prefetchChildren(evaluator.getSchemaReader(), parentMembers);
         for(Member parentMember: parentMembers) {
             List<Member> childMembers =
                     evaluator.getSchemaReader().getMemberChildren(parentMember);
@@ -235,4 +241,21 @@ class DrilldownLevelFunDef extends FunDefBase {
 
         return drilledSet;
     }
+
+    /**
+     * Reads the children of several parents at once, so that the member
+     * reader can fetch them with one SQL statement rather than one per
+     * parent; the children are then in cache when each parent is drilled.
+     *
+     * @param schemaReader Schema reader
+     * @param parentMembers Parents, all of the same hierarchy
+     */
+    private static void prefetchChildren(
+        SchemaReader schemaReader,
+        List<Member> parentMembers)
+    {
+        if (parentMembers.size() > 1) {
+            schemaReader.getMemberChildren(parentMembers);
+        }
+    }
 }
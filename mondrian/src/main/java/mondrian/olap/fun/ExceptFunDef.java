@@ -21,6 +21,8 @@ import mondrian.calc.ListCalc;
 import mondrian.calc.TupleList;
 import mondrian.calc.impl.AbstractListCalc;
 import mondrian.calc.impl.ArrayTupleList;
+import mondrian.calc.impl.OrdinalTupleList;
+import mondrian.calc.impl.OrdinalTupleSet;
 import mondrian.mdx.ResolvedFunCall;
 import mondrian.olap.Evaluator;
 import mondrian.olap.FunDef;
@@ -61,6 +63,9 @@ class ExceptFunDef extends FunDefBase {
                 if (list1.isEmpty()) {
                     return list0;
                 }
+                if (list0 instanceof OrdinalTupleList ordinalTupleList) {
+                    return except(ordinalTupleList, list1);
+                }
                 final Set<List<Member>> set1 = new HashSet<>(list1);
                 final TupleList result =
                     new ArrayTupleList(list0.getArity(), list0.size());
@@ -73,4 +78,29 @@ class ExceptFunDef extends FunDefBase {
             }
         };
     }
+
+    /**
+     * Evaluates Except with the keys of the first list: tuples of the second
+     * list with a member that the first list lacks are left out of the set,
+     * they cannot be equal to a tuple of the first list.
+     */
+    private static TupleList except(OrdinalTupleList list0, TupleList list1) {
+        final int[] key = new int[list0.getArity()];
+        final OrdinalTupleSet set1 =
+            new OrdinalTupleSet(list0.getArity(), list1.size());
+        for (List<Member> tuple1 : list1) {
+            if (list0.key(tuple1, key)) {
+                set1.add(key);
+            }
+        }
+        final OrdinalTupleList result =
+            (OrdinalTupleList) list0.cloneList(list0.size());
+        for (int i = 0; i < list0.size(); i++) {
+            list0.key(i, key);
+            if (!set1.contains(key)) {
+                result.addTuple(list0, i);
+            }
+        }
+        return result;
+    }
 }
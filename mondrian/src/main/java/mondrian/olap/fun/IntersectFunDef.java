@@ -25,6 +25,8 @@ import mondrian.calc.ListCalc;
 import mondrian.calc.TupleCollections;
 import mondrian.calc.TupleList;
 import mondrian.calc.impl.AbstractListCalc;
+import mondrian.calc.impl.OrdinalTupleList;
+import mondrian.calc.impl.OrdinalTupleSet;
 import mondrian.mdx.ResolvedFunCall;
 import mondrian.olap.Evaluator;
 import mondrian.olap.FunDef;
@@ -76,6 +78,9 @@ class IntersectFunDef extends FunDefBase
                 if (rightList.isEmpty()) {
                     return rightList;
                 }
+                if (leftList instanceof OrdinalTupleList ordinalTupleList) {
+                    return intersect(ordinalTupleList, rightList);
+                }
 
                 // Set of members from the right side of the intersect.
                 // We use a RetrievableSet because distinct keys
@@ -109,6 +114,61 @@ class IntersectFunDef extends FunDefBase
                 return result;
             }
 
+            /**
+             * Evaluates Intersect with the keys of the left list. As above,
+             * the last of equal right tuples provides the visual totals
+             * members; right tuples with a member that the left list lacks
+             * cannot match and are left out.
+             */
+            private TupleList intersect(
+                OrdinalTupleList leftList, TupleList rightList)
+            {
+                final int[] key = new int[arity];
+                final OrdinalTupleSet rightSet =
+                    new OrdinalTupleSet(arity, rightList.size());
+                final boolean[] rightVisualTotals =
+                    new boolean[rightList.size()];
+                int rightIndex = 0;
+                for (List<Member> tuple : rightList) {
+                    if (leftList.key(tuple, key)) {
+                        rightSet.put(key, rightIndex);
+                        for (Member member : tuple) {
+                            if (member
+                                instanceof VisualTotalsFunDef.VisualTotalMember)
+                            {
+                                rightVisualTotals[rightIndex] = true;
+                            }
+                        }
+                    }
+                    rightIndex++;
+                }
+
+                final int capacity =
+                    Math.min(leftList.size(), rightList.size());
+                final OrdinalTupleList result =
+                    (OrdinalTupleList) leftList.cloneList(capacity);
+                final OrdinalTupleSet resultSet =
+                    all ? null : new OrdinalTupleSet(arity, capacity);
+                for (int i = 0; i < leftList.size(); i++) {
+                    leftList.key(i, key);
+                    final int right = rightSet.get(key);
+                    if (right < 0) {
+                        continue;
+                    }
+                    if (resultSet != null && !resultSet.add(key)) {
+                        continue;
+                    }
+                    if (rightVisualTotals[right]) {
+                        result.add(
+                            copyTupleWithVisualTotalsMembersOverriding(
+                                leftList.get(i), rightList.get(right)));
+                    } else {
+                        result.addTuple(leftList, i);
+                    }
+                }
+                return result;
+            }
+
             /**
              * Constructs a tuple consisting of members from
              * {@code leftTuple}, but overridden by any corresponding
@@ -10,6 +10,7 @@
 package mondrian.olap.fun;
 
 import org.eclipse.daanse.olap.api.model.Hierarchy;
+import org.eclipse.daanse.olap.api.model.Member;
 
 import mondrian.calc.Calc;
 import mondrian.calc.ExpCompiler;
@@ -52,6 +53,8 @@ public Calc compileCall( ResolvedFunCall call, ExpCompiler compiler ) {
     final ListCalc listCalc = compiler.compileList( call.getArg( 0 ) );
     final Calc calc =
         call.getArgCount() > 1 ? compiler.compileScalar( call.getArg( 1 ), true ) : new ValueCalc( call.getType() );
+    final Member measure = SetAggregatePushdown.storedMeasure( call.getArgCount() > 1 ? call.getArg( 1 ) : null );
+    final SetAggregatePushdown pushdown = max ? SetAggregatePushdown.MAX : SetAggregatePushdown.MIN;
     return new AbstractDoubleCalc( call.getFunName(),call.getType(), new Calc[] { listCalc, calc } ) {
       @Override
 	public double evaluateDouble( Evaluator evaluator ) {
@@ -60,6 +63,10 @@ public Calc compileCall( ResolvedFunCall call, ExpCompiler compiler ) {
         try {
           TupleList memberList = AbstractAggregateFunDef.evaluateCurrentList( listCalc, evaluator );
           evaluator.setNonEmpty( false );
+          final Object pushed = pushdown.evaluate( evaluator, memberList, calc, measure );
+          if ( pushed != null ) {
+            return (Double) pushed;
+          }
           return (Double) ( max ? FunUtil.max( evaluator, memberList, calc ) : FunUtil.min( evaluator, memberList, calc ) );
         } finally {
           evaluator.restore( savepoint );
@@ -12,6 +12,8 @@
 
 package mondrian.olap.fun;
 
+import java.util.Arrays;
+
 import org.eclipse.daanse.olap.api.model.Hierarchy;
 import org.eclipse.daanse.olap.api.model.Member;
 
@@ -101,11 +103,13 @@ public class NonEmptyCrossJoinFunDef extends CrossJoinFunDef {
                         return list1;
                     }
                     final TupleList list2 = listCalc2.evaluateList(evaluator);
-                    TupleList result = CrossJoinFunDef.mutableCrossJoin(list1, list2);
+                    if (list2.isEmpty()) {
+                        return CrossJoinFunDef.mutableCrossJoin(list1, list2);
+                    }
 
                     // remove any remaining empty crossings from the result
-                    result = nonEmptyList(evaluator, result, call);
-                    return result;
+                    return nonEmptyCrossJoin(
+                        evaluator, Arrays.asList(list1, list2), call);
                 } finally {
                     evaluator.restore(savepoint);
                 }
@@ -0,0 +1,266 @@
+/*
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   SmartCity Jena - initial
+ */
+package mondrian.olap.fun;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.eclipse.daanse.olap.api.model.Dimension;
+import org.eclipse.daanse.olap.api.model.Level;
+import org.eclipse.daanse.olap.api.model.Member;
+
+import mondrian.calc.Calc;
+import mondrian.calc.TupleList;
+import mondrian.calc.impl.ValueCalc;
+import mondrian.mdx.MemberExpr;
+import mondrian.olap.Evaluator;
+import mondrian.olap.Exp;
+import mondrian.olap.MondrianProperties;
+import mondrian.olap.Util;
+import mondrian.rolap.RolapAggregator;
+import mondrian.rolap.RolapCube;
+import mondrian.rolap.RolapEvaluator;
+import mondrian.rolap.RolapLevel;
+import mondrian.rolap.RolapMember;
+import mondrian.rolap.RolapStoredMeasure;
+
+/**
+ * Evaluates <code>Sum</code>, <code>Min</code> and <code>Max</code> of a
+ * stored measure over a set of members with one cell request, rather than one
+ * cell request for each tuple of the set.
+ *
+ * <p>The tuples of the set become a compound predicate, as
+ * <code>Aggregate</code> does for distinct-count measures, and the database
+ * rolls the measure up with its own aggregator. This gives the same result as
+ * evaluating each tuple if:<ul>
+ * <li>the measure is stored, and its aggregator agrees with the function:
+ *     <code>sum</code> or <code>count</code> for <code>Sum</code>,
+ *     <code>min</code> for <code>Min</code>, <code>max</code> for
+ *     <code>Max</code>;</li>
+ * <li>the members of the set are stored members, and the members in each
+ *     position of the tuples belong to one level that is not parent-child,
+ *     so that no cell of the fact table falls under two of them;</li>
+ * <li>for <code>Sum</code>, no tuple occurs twice; and</li>
+ * <li>the context has no calculated members, and no compound predicate on a
+ *     hierarchy of the set.</li>
+ * </ul>
+ * Otherwise, or if the set has fewer tuples than
+ * {@link MondrianProperties#SetAggregatePushdownMinSize}, the caller
+ * evaluates each tuple.
+ *
+ * <p>A set with more tuples than {@link MondrianProperties#MaxConstraints} is
+ * split into chunks, one cell request for each, whose results are combined.
+ */
+final class SetAggregatePushdown {
+    private static final Set<RolapAggregator> SUM_AGGREGATORS =
+        Set.of(RolapAggregator.Sum, RolapAggregator.Count);
+
+    private final Set<RolapAggregator> aggregators;
+    private final boolean distinct;
+
+    private SetAggregatePushdown(
+        Set<RolapAggregator> aggregators,
+        boolean distinct)
+    {
+        this.aggregators = aggregators;
+        this.distinct = distinct;
+    }
+
+    static final SetAggregatePushdown SUM =
+        new SetAggregatePushdown(SUM_AGGREGATORS, true);
+    static final SetAggregatePushdown MIN =
+        new SetAggregatePushdown(Set.of(RolapAggregator.Min), false);
+    static final SetAggregatePushdown MAX =
+        new SetAggregatePushdown(Set.of(RolapAggregator.Max), false);
+
+    /**
+     * Returns the stored measure that an expression evaluates, or null if it
+     * is not a stored measure.
+     *
+     * @param exp Numeric expression of the function, or null if the function
+     *   evaluates the current measure
+     */
+    static Member storedMeasure(Exp exp) {
+        if (exp instanceof MemberExpr memberExpr) {
+            final Member member = memberExpr.getMember();
+            if (member instanceof RolapStoredMeasure && !member.isCalculated()) {
+                return member;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Evaluates the function over a list of tuples with one cell request for
+     * each chunk of the list, if possible.
+     *
+     * @param evaluator Evaluator
+     * @param list List of tuples
+     * @param calc Numeric expression of the function
+     * @param measure Stored measure of the numeric expression, or null
+     * @return Value, or null if the caller must evaluate each tuple
+     */
+    Object evaluate(
+        Evaluator evaluator,
+        TupleList list,
+        Calc calc,
+        Member measure)
+    {
+        final int minSize =
+            MondrianProperties.instance().SetAggregatePushdownMinSize.get();
+        if (minSize <= 0 || list.size() < minSize) {
+            return null;
+        }
+        if (measure == null && calc instanceof ValueCalc) {
+            // The function evaluates the current measure.
+            measure = evaluator.getMembers()[0];
+        }
+        if (!(measure instanceof RolapStoredMeasure storedMeasure)
+            || measure.isCalculated()
+            || !aggregators.contains(storedMeasure.getAggregator())
+            || !(evaluator instanceof RolapEvaluator rolapEvaluator)
+            || !isDisjoint(list)
+            || !isContextStored(rolapEvaluator, list)
+            || !joins(storedMeasure.getCube(), list))
+        {
+            return null;
+        }
+        final int chunkSize =
+            Math.max(1, MondrianProperties.instance().MaxConstraints.get());
+        Object result = null;
+        for (int start = 0; start < list.size(); start += chunkSize) {
+            final TupleList chunk =
+                list.subList(start, Math.min(list.size(), start + chunkSize));
+            final Object value = evaluateChunk(evaluator, chunk, measure);
+            if (value != null && !(value instanceof Number)) {
+                // An error, or a value the caller should see per tuple.
+                return null;
+            }
+            result = combine(result, (Number) value);
+        }
+        return result == null ? Util.nullValue : result;
+    }
+
+    private static Object evaluateChunk(
+        Evaluator evaluator,
+        TupleList chunk,
+        Member measure)
+    {
+        final int savepoint = evaluator.savepoint();
+        try {
+            evaluator.setContext(measure);
+            final Evaluator evaluator2 = evaluator.pushAggregation(chunk);
+            evaluator2.setNonEmpty(false);
+            final Object value = evaluator2.evaluateCurrent();
+            return Util.isNull(value) ? null : value;
+        } finally {
+            evaluator.restore(savepoint);
+        }
+    }
+
+    private Object combine(Object result, Number value) {
+        if (value == null) {
+            return result;
+        }
+        if (result == null) {
+            return value.doubleValue();
+        }
+        final double d = (Double) result;
+        if (this == SUM) {
+            return d + value.doubleValue();
+        }
+        if (this == MIN) {
+            return Math.min(d, value.doubleValue());
+        }
+        return Math.max(d, value.doubleValue());
+    }
+
+    /**
+     * Returns whether no cell falls under two tuples of a list.
+     */
+    private boolean isDisjoint(TupleList list) {
+        final Level[] levels = new Level[list.getArity()];
+        for (List<Member> tuple : list) {
+            for (int i = 0; i < levels.length; i++) {
+                final Member member = tuple.get(i);
+                if (!(member instanceof RolapMember)
+                    || member.isCalculated()
+                    || member.isNull())
+                {
+                    return false;
+                }
+                final Level level = member.getLevel();
+                if (levels[i] == null) {
+                    if (level instanceof RolapLevel rolapLevel
+                        && rolapLevel.isParentChild())
+                    {
+                        return false;
+                    }
+                    levels[i] = level;
+                } else if (!levels[i].equals(level)) {
+                    return false;
+                }
+            }
+        }
+        if (distinct) {
+            final Set<List<Member>> tuples = new HashSet<>();
+            for (List<Member> tuple : list) {
+                if (!tuples.add(tuple)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns whether the context has only stored members, and no compound
+     * predicate on a hierarchy of a list.
+     */
+    private static boolean isContextStored(
+        RolapEvaluator evaluator,
+        TupleList list)
+    {
+        for (Member member : evaluator.getNonAllMembers()) {
+            if (member.isCalculated() && !member.isMeasure()) {
+                return false;
+            }
+        }
+        final List<Member> first = list.get(0);
+        for (List<List<Member>> aggregationList
+            : evaluator.getAggregationLists())
+        {
+            for (Member member : aggregationList.get(0)) {
+                for (Member setMember : first) {
+                    if (member.getHierarchy().equals(setMember.getHierarchy())) {
+                        return false;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns whether the dimensions of a list join to the cube of a
+     * measure.
+     */
+    private static boolean joins(RolapCube cube, TupleList list) {
+        final Set<Dimension> dimensions = new HashSet<>();
+        for (Member member : list.get(0)) {
+            dimensions.add(member.getDimension());
+        }
+        return cube.nonJoiningDimensions(dimensions).isEmpty();
+    }
+}
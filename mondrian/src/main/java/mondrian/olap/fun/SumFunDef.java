@@ -10,6 +10,7 @@
 package mondrian.olap.fun;
 
 import org.eclipse.daanse.olap.api.model.Hierarchy;
+import org.eclipse.daanse.olap.api.model.Member;
 
 import mondrian.calc.Calc;
 import mondrian.calc.ExpCompiler;
@@ -95,6 +96,7 @@ public Calc compileCall( ResolvedFunCall call, ExpCompiler compiler ) {
   }
 
   protected Calc genIterCalc( final ResolvedFunCall call, final IterCalc iterCalc, final Calc calc ) {
+    final Member measure = SetAggregatePushdown.storedMeasure( call.getArgCount() > 1 ? call.getArg( 1 ) : null );
     return new AbstractDoubleCalc( call.getFunName(),call.getType(), new Calc[] { iterCalc, calc } ) {
       @Override
 	public double evaluateDouble( Evaluator evaluator ) {
@@ -102,6 +104,12 @@ public Calc compileCall( ResolvedFunCall call, ExpCompiler compiler ) {
         final int savepoint = evaluator.savepoint();
         try {
           TupleIterable iterable = evaluateCurrentIterable( iterCalc, evaluator );
+          if ( iterable instanceof TupleList ) {
+            final Object pushed = SetAggregatePushdown.SUM.evaluate( evaluator, (TupleList) iterable, calc, measure );
+            if ( pushed != null ) {
+              return ( (Number) pushed ).doubleValue();
+            }
+          }
           return FunUtil.sumDouble( evaluator, iterable, calc );
         } finally {
           evaluator.restore( savepoint );
@@ -117,6 +125,7 @@ public Calc compileCall( ResolvedFunCall call, ExpCompiler compiler ) {
   }
 
   protected Calc genListCalc( final ResolvedFunCall call, final ListCalc listCalc, final Calc calc ) {
+    final Member measure = SetAggregatePushdown.storedMeasure( call.getArgCount() > 1 ? call.getArg( 1 ) : null );
     return new AbstractDoubleCalc( call.getFunName(),call.getType(), new Calc[] { listCalc, calc } ) {
       @Override
 	public double evaluateDouble( Evaluator evaluator ) {
@@ -125,6 +134,10 @@ public Calc compileCall( ResolvedFunCall call, ExpCompiler compiler ) {
         try {
           TupleList memberList = AbstractAggregateFunDef.evaluateCurrentList( listCalc, evaluator );
           evaluator.setNonEmpty( false );
+          final Object pushed = SetAggregatePushdown.SUM.evaluate( evaluator, memberList, calc, measure );
+          if ( pushed != null ) {
+            return ( (Number) pushed ).doubleValue();
+          }
           return FunUtil.sumDouble( evaluator, memberList, calc );
         } finally {
           evaluator.restore( savepoint );
@@ -0,0 +1,336 @@
+/*
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   SmartCity Jena - initial
+ */
+package mondrian.olap.fun.sort;
+
+import static mondrian.olap.fun.FunUtil.DOUBLE_NULL;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+import org.eclipse.daanse.olap.api.model.Member;
+
+import mondrian.calc.Calc;
+import mondrian.calc.TupleList;
+import mondrian.olap.Evaluator;
+import mondrian.olap.Util;
+import mondrian.rolap.RolapUtil;
+import mondrian.server.Execution;
+import mondrian.util.CancellationChecker;
+
+/**
+ * Sort keys of a list of members or tuples, each evaluated once before the
+ * list is sorted, and the stable order of the list by these keys.
+ *
+ * <p>Keys compare as in {@link Sorter#compareValues(Object, Object)}, which is
+ * the order of {@link MemberComparator.BreakMemberComparator} and
+ * {@link TupleExpMemoComparator.BreakTupleComparator}. If all keys are
+ * numbers or nulls, they are encoded as longs whose signed order is that
+ * order, and the list is sorted by sorting primitive arrays with
+ * {@link Arrays#parallelSort(long[])}. Otherwise indexes are sorted by
+ * comparing the keys.
+ *
+ * <p>The keys are evaluated in the thread of the caller, as an
+ * {@link Evaluator} must not be used by several threads.
+ */
+class SortKeys {
+  /**
+   * Smallest list whose partial sort is split into stripes, one per
+   * worker thread.
+   */
+  private static final int PARALLEL_SELECT_MIN_SIZE = 1 << 16;
+
+  private static final long NOT_READY = Long.MIN_VALUE;
+  private static final long NULL = Long.MIN_VALUE + 1;
+  private static final long NEGATIVE_INFINITY = Long.MIN_VALUE + 2;
+  private static final long DOUBLE_NULL_KEY = Long.MIN_VALUE + 3;
+  private static final long NAN = Long.MAX_VALUE - 1;
+  private static final long POSITIVE_INFINITY = Long.MAX_VALUE;
+
+  private final Object[] values;
+  /** Encoded keys, or null if some key is neither a number nor null. */
+  private final long[] keys;
+
+  SortKeys( Object[] values ) {
+    this.values = values;
+    this.keys = encode( values );
+  }
+
+  /**
+   * Evaluates an expression for each member of a list.
+   */
+  static SortKeys ofMembers(
+    Evaluator evaluator, Calc exp, List<Member> members )
+  {
+    final Execution execution = execution( evaluator );
+    final Object[] values = new Object[ members.size() ];
+    final int savepoint = evaluator.savepoint();
+    try {
+      int i = 0;
+      for ( Member member : members ) {
+        CancellationChecker.checkCancelOrTimeout( i, execution );
+        evaluator.setContext( member );
+        values[ i++ ] = evaluate( evaluator, exp );
+      }
+    } finally {
+      evaluator.restore( savepoint );
+    }
+    return new SortKeys( values );
+  }
+
+  /**
+   * Evaluates an expression for each tuple of a list. As in
+   * {@link TupleExpMemoComparator}, only the members of hierarchies that the
+   * expression depends on are set, and tuples that agree on these members
+   * are evaluated once.
+   */
+  static SortKeys ofTuples(
+    Evaluator evaluator, Calc exp, TupleList tuples )
+  {
+    final Execution execution = execution( evaluator );
+    final Object[] values = new Object[ tuples.size() ];
+    final int[] dependents = dependents( exp, tuples.get( 0 ) );
+    final Map<List<Member>, Object> memo = new HashMap<>();
+    final int savepoint = evaluator.savepoint();
+    try {
+      int i = 0;
+      for ( List<Member> tuple : tuples ) {
+        CancellationChecker.checkCancelOrTimeout( i, execution );
+        final List<Member> key = new ArrayList<>( dependents.length );
+        for ( int dependent : dependents ) {
+          key.add( tuple.get( dependent ) );
+        }
+        Object value = memo.get( key );
+        if ( value == null ) {
+          evaluator.setContext( key );
+          value = evaluate( evaluator, exp );
+          memo.put( key, value );
+        }
+        values[ i++ ] = value;
+      }
+    } finally {
+      evaluator.restore( savepoint );
+    }
+    return new SortKeys( values );
+  }
+
+  private static Execution execution( Evaluator evaluator ) {
+    return evaluator.getQuery().getStatement().getCurrentExecution();
+  }
+
+  private static Object evaluate( Evaluator evaluator, Calc exp ) {
+    final Object value = exp.evaluate( evaluator );
+    return value == null ? Util.nullValue : value;
+  }
+
+  private static int[] dependents( Calc exp, List<Member> tuple ) {
+    return IntStream.range( 0, tuple.size() )
+      .filter( i -> exp.dependsOn( tuple.get( i ).getHierarchy() ) )
+      .toArray();
+  }
+
+  /**
+   * Returns the indexes of the elements in sorted order. Elements with
+   * equal keys keep their order.
+   *
+   * @param desc Whether to sort descending
+   */
+  int[] order( boolean desc ) {
+    if ( keys == null ) {
+      return head( sortedIndexes( desc ), values.length );
+    }
+    final long[] packed = pack( desc );
+    Arrays.parallelSort( packed );
+    return unpack( packed, packed.length );
+  }
+
+  /**
+   * Returns the indexes of the first {@code limit} elements in sorted
+   * order, without sorting the other elements.
+   *
+   * @param limit Number of elements, at most the size of the list
+   * @param desc  Whether to sort descending
+   */
+  int[] top( int limit, boolean desc ) {
+    assert limit <= values.length;
+    if ( keys == null ) {
+      return head( sortedIndexes( desc ), limit );
+    }
+    final long[] packed = pack( desc );
+    final int stripes = ForkJoinPool.getCommonPoolParallelism();
+    final long[] candidates;
+    if ( packed.length >= PARALLEL_SELECT_MIN_SIZE
+      && stripes > 1
+      && (long) limit * stripes * 2 < packed.length )
+    {
+      // select the head of each stripe in parallel, then the head of
+      // the heads
+      final int stripeSize = ( packed.length + stripes - 1 ) / stripes;
+      candidates = IntStream.range( 0, stripes )
+        .parallel()
+        .mapToObj( s -> {
+          final int from = Math.min( s * stripeSize, packed.length );
+          final int to = Math.min( from + stripeSize, packed.length );
+          final int n = Math.min( limit, to - from );
+          select( packed, from, to, n );
+          return Arrays.copyOfRange( packed, from, from + n );
+        } )
+        .flatMapToLong( Arrays::stream )
+        .toArray();
+    } else {
+      candidates = packed;
+    }
+    select( candidates, 0, candidates.length, limit );
+    Arrays.sort( candidates, 0, limit );
+    return unpack( candidates, limit );
+  }
+
+  /**
+   * Replaces each key by its rank among the distinct keys, reversed if
+   * descending, and packs rank and index into a long. The packed longs
+   * order as the elements do, ties broken by index.
+   */
+  private long[] pack( boolean desc ) {
+    final long[] distinct = keys.clone();
+    Arrays.parallelSort( distinct );
+    int n = 0;
+    for ( int i = 0; i < distinct.length; i++ ) {
+      if ( i == 0 || distinct[ i ] != distinct[ n - 1 ] ) {
+        distinct[ n++ ] = distinct[ i ];
+      }
+    }
+    final int distinctCount = n;
+    final long[] packed = new long[ keys.length ];
+    IntStream.range( 0, keys.length )
+      .parallel()
+      .forEach( i -> {
+        int rank = Arrays.binarySearch( distinct, 0, distinctCount, keys[ i ] );
+        if ( desc ) {
+          rank = distinctCount - 1 - rank;
+        }
+        packed[ i ] = ( (long) rank << 32 ) | i;
+      } );
+    return packed;
+  }
+
+  private static int[] unpack( long[] packed, int limit ) {
+    final int[] indexes = new int[ limit ];
+    for ( int i = 0; i < limit; i++ ) {
+      indexes[ i ] = (int) packed[ i ];
+    }
+    return indexes;
+  }
+
+  private Integer[] sortedIndexes( boolean desc ) {
+    final Integer[] indexes = new Integer[ values.length ];
+    Arrays.setAll( indexes, i -> i );
+    // parallelSort of objects is stable
+    Arrays.parallelSort(
+      indexes,
+      ( i, j ) -> {
+        final int c = Sorter.compareValues( values[ i ], values[ j ] );
+        return desc ? -c : c;
+      } );
+    return indexes;
+  }
+
+  private static int[] head( Integer[] indexes, int limit ) {
+    final int[] head = new int[ limit ];
+    for ( int i = 0; i < limit; i++ ) {
+      head[ i ] = indexes[ i ];
+    }
+    return head;
+  }
+
+  /**
+   * Rearranges {@code a[from, to)} so that its {@code n} smallest longs
+   * come first, in no particular order.
+   */
+  static void select( long[] a, int from, int to, int n ) {
+    int lo = from;
+    int hi = to - 1;
+    final int k = from + n - 1;
+    while ( lo < hi && n > 0 ) {
+      final int mid = ( lo + hi ) >>> 1;
+      final long pivot = median( a[ lo ], a[ mid ], a[ hi ] );
+      int i = lo;
+      int j = hi;
+      while ( i <= j ) {
+        while ( a[ i ] < pivot ) {
+          i++;
+        }
+        while ( a[ j ] > pivot ) {
+          j--;
+        }
+        if ( i <= j ) {
+          final long t = a[ i ];
+          a[ i ] = a[ j ];
+          a[ j ] = t;
+          i++;
+          j--;
+        }
+      }
+      if ( k <= j ) {
+        hi = j;
+      } else if ( k >= i ) {
+        lo = i;
+      } else {
+        return;
+      }
+    }
+  }
+
+  private static long median( long a, long b, long c ) {
+    return Math.max( Math.min( a, b ), Math.min( Math.max( a, b ), c ) );
+  }
+
+  private static long[] encode( Object[] values ) {
+    final long[] keys = new long[ values.length ];
+    for ( int i = 0; i < values.length; i++ ) {
+      final Object value = values[ i ];
+      if ( value == RolapUtil.valueNotReadyException ) {
+        keys[ i ] = NOT_READY;
+      } else if ( value == Util.nullValue ) {
+        keys[ i ] = NULL;
+      } else if ( value instanceof Number number ) {
+        keys[ i ] = encode( number.doubleValue() );
+      } else {
+        return null;
+      }
+    }
+    return keys;
+  }
+
+  /**
+   * Encodes a double as a long whose signed order is the order of
+   * {@link Sorter#compareValues(double, double)}.
+   */
+  static long encode( double d ) {
+    if ( Double.isNaN( d ) ) {
+      return NAN;
+    } else if ( d == Double.POSITIVE_INFINITY ) {
+      return POSITIVE_INFINITY;
+    } else if ( d == Double.NEGATIVE_INFINITY ) {
+      return NEGATIVE_INFINITY;
+    } else if ( d == DOUBLE_NULL ) {
+      return DOUBLE_NULL_KEY;
+    }
+    // adding 0.0 turns -0.0 into 0.0, they compare equal
+    final long bits = Double.doubleToLongBits( d + 0.0 );
+    return bits ^ ( ( bits >> 63 ) & Long.MAX_VALUE );
+  }
+}
@@ -24,6 +24,7 @@ import java.util.Comparator;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
+import java.util.ListIterator;
 import java.util.Map;
 import java.util.Objects;
 import java.util.PriorityQueue;
@@ -60,6 +61,12 @@ public class Sorter {
 
   private static final Logger LOGGER = LoggerFactory.getLogger( Sorter.class );
 
+  /**
+   * Smallest list that hierarchize sorts with {@link Arrays#parallelSort(Object[], Comparator)}; below, the sort is
+   * done in place.
+   */
+  private static final int PARALLEL_SORT_MIN_SIZE = 1 << 13;
+
   /**
    * For each member in a list, evaluates an expression and creates a map from members to values.
    *
@@ -178,6 +185,26 @@ public class Sorter {
     boolean timingEval = true;
     boolean timingSort = false;
     try {
+      if ( brk ) {
+        // evaluate the keys once, then sort indexes by key
+        if ( memberList == null ) {
+          memberList = new ArrayList<>();
+          for ( Member member : memberIter ) {
+            memberList.add( member );
+          }
+        }
+        final SortKeys keys = SortKeys.ofMembers( evaluator, exp, memberList );
+        evaluator.getTiming().markEnd( SORT_EVAL_TIMING_NAME );
+        timingEval = false;
+        evaluator.getTiming().markStart( SORT_TIMING_NAME );
+        timingSort = true;
+        final int[] order = keys.order( desc );
+        final Member[] members = memberList.toArray( new Member[ 0 ] );
+        for ( int i = 0; i < order.length; i++ ) {
+          memberList.set( i, members[ order[ i ] ] );
+        }
+        return memberList;
+      }
       // REVIEW mberkowitz 1/09: test whether precomputing
       // values saves time.
       Map<Member, Object> mapMemberToValue;
@@ -191,12 +218,8 @@ public class Sorter {
           evaluator, exp, memberIter, null, parentsToo );
       }
 
-      MemberComparator comp;
-      if ( brk ) {
-        comp = new MemberComparator.BreakMemberComparator( evaluator, exp, desc );
-      } else {
-        comp = new MemberComparator.HierarchicalMemberComparator( evaluator, exp, desc );
-      }
+      MemberComparator comp =
+        new MemberComparator.HierarchicalMemberComparator( evaluator, exp, desc );
       comp.preloadValues( mapMemberToValue );
       evaluator.getTiming().markEnd( SORT_EVAL_TIMING_NAME );
       timingEval = false;
@@ -297,7 +320,7 @@ public class Sorter {
     // as fully as sortMembers. This is because sortMembers evaluates all
     // sort expressions up front. There, it is efficient to unravel the
     // iterator and evaluate the sort expressions at the same time.
-    List<List<Member>> tupleArrayList;
+    TupleList tupleArrayList;
     if ( tupleList == null ) {
       final TupleCursor cursor = tupleIterable.tupleCursor();
       tupleArrayList = iterableToList( evaluator, cursor );
@@ -316,24 +339,26 @@ public class Sorter {
     @SuppressWarnings( { "unchecked" } )
     List<Member>[] tuples =
       tupleArrayList.toArray( new List[ tupleArrayList.size() ] );
-    final DelegatingTupleList result =
-      new DelegatingTupleList(
-        tupleIterable.getArity(),
-        Arrays.asList( tuples ) );
 
-    Comparator<List<Member>> comparator;
     if ( brk ) {
-      comparator =
-        new TupleExpMemoComparator.BreakTupleComparator( evaluator, exp, arity );
-      if ( desc ) {
-        comparator = Collections.reverseOrder( comparator );
+      // evaluate the keys once, then sort indexes by key
+      final int[] order =
+        SortKeys.ofTuples( evaluator, exp, tupleArrayList ).order( desc );
+      @SuppressWarnings( { "unchecked" } )
+      final List<Member>[] sorted = new List[ tuples.length ];
+      for ( int i = 0; i < order.length; i++ ) {
+        sorted[ i ] = tuples[ order[ i ] ];
       }
+      tuples = sorted;
     } else {
-      comparator =
-        new HierarchicalTupleComparator( evaluator, exp, arity, desc );
-
+      Arrays.sort(
+        tuples,
+        new HierarchicalTupleComparator( evaluator, exp, arity, desc ) );
     }
-    Arrays.sort( tuples, comparator );
+    final DelegatingTupleList result =
+      new DelegatingTupleList(
+        tupleIterable.getArity(),
+        Arrays.asList( tuples ) );
     logTuples( tupleList, "Sorter.sortTuples" );
     return result;
   }
@@ -376,16 +401,17 @@ public class Sorter {
     boolean timingEval = true;
     boolean timingSort = false;
     try {
-      MemberComparator comp =
-        new MemberComparator.BreakMemberComparator( evaluator, exp, desc );
-      Map<Member, Object> valueMap =
-        evaluateMembers( evaluator, exp, list, null, false );
+      final SortKeys keys = SortKeys.ofMembers( evaluator, exp, list );
       evaluator.getTiming().markEnd( SORT_EVAL_TIMING_NAME );
       timingEval = false;
       evaluator.getTiming().markStart( SORT_TIMING_NAME );
       timingSort = true;
-      comp.preloadValues( valueMap );
-      return stablePartialSort( list, comp.wrap(), limit );
+      final int[] top = keys.top( limit, desc );
+      final Member[] members = new Member[ top.length ];
+      for ( int i = 0; i < top.length; i++ ) {
+        members[ i ] = list.get( top[ i ] );
+      }
+      return Arrays.asList( members );
     } finally {
       if ( timingEval ) {
         evaluator.getTiming().markEnd( SORT_EVAL_TIMING_NAME );
@@ -483,12 +509,13 @@ public class Sorter {
     boolean desc ) {
     assert !list.isEmpty();
     assert limit <= list.size();
-    Comparator<List<Member>> comp =
-      new TupleExpMemoComparator.BreakTupleComparator( evaluator, exp, list.getArity() );
-    if ( desc ) {
-      comp = Collections.reverseOrder( comp );
+    final int[] top = SortKeys.ofTuples( evaluator, exp, list ).top( limit, desc );
+    @SuppressWarnings( { "unchecked" } )
+    final List<Member>[] tuples = new List[ top.length ];
+    for ( int i = 0; i < top.length; i++ ) {
+      tuples[ i ] = list.get( top[ i ] );
     }
-    return stablePartialSort( list, comp, limit );
+    return Arrays.asList( tuples );
   }
 
   /**
@@ -513,7 +540,7 @@ public class Sorter {
       return;
     }
     Comparator<Member> comparator = new HierarchizeComparator( post );
-    memberList.sort( comparator );
+    sort( memberList, comparator );
   }
 
   /**
@@ -537,13 +564,32 @@ public class Sorter {
     Comparator<List<Member>> comparator =
       new HierarchizeTupleComparator( fixedList.getArity(), post );
 
-    fixedList.sort( comparator );
+    sort( fixedList, comparator );
 
     logTuples( fixedList, "hierarchizeTupleList" );
 
     return fixedList;
   }
 
+  /**
+   * Sorts a list in place, stable. Large lists are sorted by several threads, so the comparator must not depend on
+   * state of the calling thread, such as an {@link Evaluator}.
+   */
+  private static <T> void sort( List<T> list, Comparator<? super T> comparator ) {
+    if ( list.size() < PARALLEL_SORT_MIN_SIZE ) {
+      list.sort( comparator );
+      return;
+    }
+    @SuppressWarnings( { "unchecked" } )
+    final T[] elements = (T[]) list.toArray();
+    Arrays.parallelSort( elements, comparator );
+    final ListIterator<T> iterator = list.listIterator();
+    for ( T element : elements ) {
+      iterator.next();
+      iterator.set( element );
+    }
+  }
+
   /**
    * Compares double-precision values according to MDX semantics.
    *
@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   SmartCity Jena - initial
+ */
+package mondrian.parser;
+
+import org.eclipse.daanse.mdx.model.api.MdxStatement;
+import org.eclipse.daanse.mdx.parser.api.MdxParserException;
+import org.eclipse.daanse.mdx.parser.api.MdxParserProvider;
+import org.eclipse.daanse.mdx.parser.ccc.MdxParserProviderImpl;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import mondrian.olap.Exp;
+import mondrian.olap.FunTable;
+import mondrian.olap.Parser;
+import mondrian.olap.QueryPart;
+import mondrian.server.Statement;
+
+/**
+ * Implementation of {@link MdxParserValidator} that parses statements with the
+ * CongoCC parser of {@code org.eclipse.daanse.mdx.parser.ccc} and converts the
+ * resulting {@link org.eclipse.daanse.mdx.model.api MDX model} directly into
+ * the parse tree, without a second pass over the text.
+ *
+ * <p>Statements that the CongoCC parser does not parse, or that cannot be
+ * converted to exactly the parse tree of {@link JavaccParserValidatorImpl}
+ * (for example DMV, REFRESH, UPDATE and CREATE statements), are parsed by a
+ * fallback {@link JavaccParserValidatorImpl}; therefore syntax errors are
+ * reported the same way as before. Expressions are parsed by the fallback,
+ * because the {@link org.eclipse.daanse.mdx.parser.api.MdxParser} API does not
+ * check that the whole text is an expression.
+ */
+public class CongoccParserValidatorImpl implements MdxParserValidator {
+    private static final Logger LOGGER =
+        LoggerFactory.getLogger(CongoccParserValidatorImpl.class);
+
+    private final MdxParserProvider provider;
+    private final QueryPartFactory factory;
+    private final MdxParserValidator fallback;
+
+    /**
+     * Creates a CongoccParserValidatorImpl.
+     */
+    public CongoccParserValidatorImpl() {
+        this(new Parser.FactoryImpl());
+    }
+
+    /**
+     * Creates a CongoccParserValidatorImpl with an explicit factory for parse
+     * tree nodes.
+     *
+     * @param factory Factory for parse tree nodes
+     */
+    public CongoccParserValidatorImpl(QueryPartFactory factory) {
+        this(
+            new MdxParserProviderImpl(),
+            factory,
+            new JavaccParserValidatorImpl(factory));
+    }
+
+    /**
+     * Creates a CongoccParserValidatorImpl with an explicit parser provider,
+     * factory and fallback.
+     *
+     * @param provider Provider of CongoCC parsers
+     * @param factory Factory for parse tree nodes
+     * @param fallback Parser for statements that cannot be converted
+     */
+    public CongoccParserValidatorImpl(
+        MdxParserProvider provider,
+        QueryPartFactory factory,
+        MdxParserValidator fallback)
+    {
+        this.provider = provider;
+        this.factory = factory;
+        this.fallback = fallback;
+    }
+
+    @Override
+    public QueryPart parseInternal(
+        Statement statement,
+        String queryString,
+        boolean debug,
+        FunTable funTable,
+        boolean strictValidation)
+    {
+        final MdxAstConverter converter =
+            new MdxAstConverter(
+                provider,
+                factory,
+                statement,
+                queryString,
+                funTable,
+                strictValidation);
+        try {
+            // Like MdxParserImpl, end the text with a line break, so that a
+            // trailing single-line comment is terminated.
+            final MdxStatement mdxStatement =
+                provider.newParser(term(queryString)).parseMdxStatement();
+            return converter.toQueryPart(mdxStatement);
+        } catch (MdxParserException
+            | MdxAstConverter.UnsupportedSyntaxException e)
+        {
+            LOGGER.debug("Parsing with JavaCC: {}", e.getMessage());
+        }
+        return fallback.parseInternal(
+            statement, queryString, debug, funTable, strictValidation);
+    }
+
+    @Override
+    public Exp parseExpression(
+        Statement statement,
+        String queryString,
+        boolean debug,
+        FunTable funTable)
+    {
+        return fallback.parseExpression(
+            statement, queryString, debug, funTable);
+    }
+
+    private static String term(String s) {
+        return s.endsWith("\n") ? s : (s + "\n");
+    }
+}
@@ -0,0 +1,620 @@
+/*
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   SmartCity Jena - initial
+ */
+package mondrian.parser;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import org.eclipse.daanse.mdx.model.api.DrillthroughStatement;
+import org.eclipse.daanse.mdx.model.api.ExplainStatement;
+import org.eclipse.daanse.mdx.model.api.MdxStatement;
+import org.eclipse.daanse.mdx.model.api.ReturnItem;
+import org.eclipse.daanse.mdx.model.api.SelectStatement;
+import org.eclipse.daanse.mdx.model.api.expression.CallExpression;
+import org.eclipse.daanse.mdx.model.api.expression.CompoundId;
+import org.eclipse.daanse.mdx.model.api.expression.Expression;
+import org.eclipse.daanse.mdx.model.api.expression.KeyObjectIdentifier;
+import org.eclipse.daanse.mdx.model.api.expression.NameObjectIdentifier;
+import org.eclipse.daanse.mdx.model.api.expression.NullLiteral;
+import org.eclipse.daanse.mdx.model.api.expression.NumericLiteral;
+import org.eclipse.daanse.mdx.model.api.expression.ObjectIdentifier;
+import org.eclipse.daanse.mdx.model.api.expression.StringLiteral;
+import org.eclipse.daanse.mdx.model.api.expression.SymbolLiteral;
+import org.eclipse.daanse.mdx.model.api.select.CreateMemberBodyClause;
+import org.eclipse.daanse.mdx.model.api.select.CreateSetBodyClause;
+import org.eclipse.daanse.mdx.model.api.select.MemberPropertyDefinition;
+import org.eclipse.daanse.mdx.model.api.select.SelectCellPropertyListClause;
+import org.eclipse.daanse.mdx.model.api.select.SelectDimensionPropertyListClause;
+import org.eclipse.daanse.mdx.model.api.select.SelectQueryAsteriskClause;
+import org.eclipse.daanse.mdx.model.api.select.SelectQueryAxesClause;
+import org.eclipse.daanse.mdx.model.api.select.SelectQueryAxisClause;
+import org.eclipse.daanse.mdx.model.api.select.SelectQueryClause;
+import org.eclipse.daanse.mdx.model.api.select.SelectSlicerAxisClause;
+import org.eclipse.daanse.mdx.model.api.select.SelectSubcubeClause;
+import org.eclipse.daanse.mdx.model.api.select.SelectSubcubeClauseName;
+import org.eclipse.daanse.mdx.model.api.select.SelectSubcubeClauseStatement;
+import org.eclipse.daanse.mdx.model.api.select.SelectWithClause;
+import org.eclipse.daanse.mdx.parser.api.MdxParserException;
+import org.eclipse.daanse.mdx.parser.api.MdxParserProvider;
+
+import mondrian.mdx.UnresolvedFunCall;
+import mondrian.olap.AxisOrdinal;
+import mondrian.olap.CellProperty;
+import mondrian.olap.Exp;
+import mondrian.olap.Formula;
+import mondrian.olap.FunTable;
+import mondrian.olap.Id;
+import mondrian.olap.Literal;
+import mondrian.olap.MemberProperty;
+import mondrian.olap.Query;
+import mondrian.olap.QueryAxis;
+import mondrian.olap.QueryPart;
+import mondrian.olap.Subcube;
+import mondrian.olap.Syntax;
+import mondrian.server.Statement;
+
+/**
+ * Converts the statements of the
+ * {@link org.eclipse.daanse.mdx.model.api MDX model} into the parse tree that
+ * {@link MdxParserImpl} builds for the same text.
+ *
+ * <p>Where the model does not carry enough information to build exactly that
+ * parse tree, or where the CongoCC grammar accepts text that the JavaCC
+ * grammar rejects, the converter throws {@link UnsupportedSyntaxException}
+ * before it calls the {@link MdxParserValidator.QueryPartFactory factory}, so
+ * that the caller can parse the statement again with the JavaCC parser.
+ */
+class MdxAstConverter {
+    /**
+     * "CALCULATED MEMBER", possibly with comments in between; the word alone
+     * may be part of a name such as "[Calculated Child]".
+     */
+    private static final Pattern CALCULATED_MEMBER =
+        Pattern.compile(
+            "\\bCALCULATED(\\s|/\\*.*?\\*/|--[^\\n]*|//[^\\n]*)*MEMBER\\b",
+            Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+
+    private static final Exp[] EMPTY_EXP_ARRAY = new Exp[0];
+    private static final Id[] EMPTY_ID_ARRAY = new Id[0];
+
+    private final MdxParserProvider provider;
+    private final MdxParserValidator.QueryPartFactory factory;
+    private final Statement statement;
+    private final String queryString;
+    private final FunTable funTable;
+    private final boolean strictValidation;
+    private QuotedStrings strings;
+
+    MdxAstConverter(
+        MdxParserProvider provider,
+        MdxParserValidator.QueryPartFactory factory,
+        Statement statement,
+        String queryString,
+        FunTable funTable,
+        boolean strictValidation)
+    {
+        this.provider = provider;
+        this.factory = factory;
+        this.statement = statement;
+        this.queryString = queryString;
+        this.funTable = funTable;
+        this.strictValidation = strictValidation;
+    }
+
+    QueryPart toQueryPart(MdxStatement mdxStatement) {
+        if (mdxStatement instanceof SelectStatement selectStatement) {
+            return toQuery(selectStatement);
+        } else if (mdxStatement instanceof DrillthroughStatement drillthrough) {
+            return toDrillThrough(drillthrough);
+        } else if (mdxStatement instanceof ExplainStatement explain) {
+            return factory.makeExplain(toQueryPart(explain.mdxStatement()));
+        }
+        throw new UnsupportedSyntaxException(mdxStatement);
+    }
+
+    private QueryPart toDrillThrough(DrillthroughStatement drillthrough) {
+        // Convert the return items first, so that nothing is unsupported
+        // once the factory has made the query.
+        List<Exp> returnList = null;
+        if (drillthrough.returnItems() != null) {
+            returnList = new ArrayList<>(drillthrough.returnItems().size());
+            for (ReturnItem returnItem : drillthrough.returnItems()) {
+                returnList.add(toId(returnItem.compoundId()));
+            }
+        }
+        Query query = toQuery(drillthrough.selectStatement());
+        return factory.makeDrillThrough(
+            query,
+            drillthrough.maxRows().orElse(0),
+            drillthrough.firstRowSet().orElse(0),
+            returnList);
+    }
+
+    private Query toQuery(SelectStatement select) {
+        List<? extends SelectWithClause> withClauses =
+            select.selectWithClauses();
+        if (!withClauses.isEmpty()
+            && CALCULATED_MEMBER.matcher(queryString).find())
+        {
+            // "WITH CALCULATED MEMBER" is not in the JavaCC grammar, and the
+            // model does not say whether the keyword was there.
+            throw new UnsupportedSyntaxException("CALCULATED");
+        }
+        Formula[] formulae = new Formula[withClauses.size()];
+        int i = 0;
+        for (SelectWithClause withClause : withClauses) {
+            formulae[i++] = toFormula(withClause);
+        }
+        if (select.selectQueryClause() instanceof SelectQueryAsteriskClause) {
+            throw new UnsupportedSyntaxException("SELECT *");
+        }
+        QueryAxis[] axes = toAxes(select.selectQueryClause());
+        Subcube subcube = toSubcube(select.selectSubcubeClause());
+        Exp slicer = toSlicer(select.selectSlicerAxisClause());
+        QueryPart[] cellProps = toCellProps(select.selectCellPropertyListClause());
+        return factory.makeQuery(
+            statement,
+            formulae,
+            axes,
+            subcube,
+            slicer,
+            cellProps,
+            strictValidation);
+    }
+
+    private Formula toFormula(SelectWithClause withClause) {
+        if (withClause instanceof CreateMemberBodyClause member) {
+            Id id = toId(member.compoundId());
+            Exp exp = toFormulaExp(member.expression());
+            List<? extends MemberPropertyDefinition> definitions =
+                member.memberPropertyDefinitions();
+            MemberProperty[] memberProperties =
+                new MemberProperty[definitions.size()];
+            int i = 0;
+            for (MemberPropertyDefinition definition : definitions) {
+                if (!(definition.objectIdentifier()
+                    instanceof NameObjectIdentifier name))
+                {
+                    throw new UnsupportedSyntaxException(definition);
+                }
+                memberProperties[i++] = new MemberProperty(
+                    toNameSegment(name).getName(),
+                    toExp(definition.expression()));
+            }
+            return new Formula(id, exp, memberProperties);
+        } else if (withClause instanceof CreateSetBodyClause set) {
+            return new Formula(
+                toId(set.compoundId()), toFormulaExp(set.expression()));
+        }
+        throw new UnsupportedSyntaxException(withClause);
+    }
+
+    /**
+     * Converts the expression of a member or set definition.
+     *
+     * <p>The JavaCC grammar parses an unaliased expression here, and parses
+     * the content of a single-quoted string again as an expression (the
+     * archaic "WITH MEMBER m AS ' expr '" syntax), but keeps a double-quoted
+     * string as a literal. The model has neither the alias distinction nor the
+     * quote character, so the latter is found in the query text.
+     */
+    private Exp toFormulaExp(Expression expression) {
+        if (expression instanceof CallExpression call
+            && call.type() == CallExpression.Type.TERM_INFIX
+            && "AS".equals(call.name()))
+        {
+            throw new UnsupportedSyntaxException(call);
+        }
+        if (expression instanceof StringLiteral string) {
+            boolean singleQuoted = isSingleQuoted(string);
+            boolean doubleQuoted =
+                strings().doubleQuoted.contains(string.value());
+            if (singleQuoted == doubleQuoted) {
+                throw new UnsupportedSyntaxException(string);
+            }
+            if (singleQuoted) {
+                try {
+                    return toExp(
+                        provider.newParser(string.value()).parseExpression());
+                } catch (MdxParserException e) {
+                    throw new UnsupportedSyntaxException(e);
+                }
+            }
+        } else {
+            StringLiteral first = leadingString(expression);
+            if (first != null && isSingleQuoted(first)) {
+                // JavaCC would take the string as the whole formula
+                throw new UnsupportedSyntaxException(expression);
+            }
+        }
+        return toExp(expression);
+    }
+
+    private boolean isSingleQuoted(StringLiteral string) {
+        return strings().singleQuoted.contains(string.value());
+    }
+
+    private QuotedStrings strings() {
+        if (strings == null) {
+            strings = new QuotedStrings(queryString);
+        }
+        return strings;
+    }
+
+    /**
+     * Returns the string literal that an expression starts with, if any.
+     */
+    private static StringLiteral leadingString(Expression expression) {
+        while (expression instanceof CallExpression call) {
+            switch (call.type()) {
+            case PROPERTY, PROPERTY_QUOTED, PROPERTY_AMPERS_AND_QUOTED,
+                METHOD, TERM_INFIX, TERM_POSTFIX:
+                expression = call.expressions().get(0);
+                break;
+            default:
+                return null;
+            }
+        }
+        return expression instanceof StringLiteral string ? string : null;
+    }
+
+    private QueryAxis[] toAxes(SelectQueryClause queryClause) {
+        if (!(queryClause instanceof SelectQueryAxesClause axesClause)) {
+            // empty, or "*" in a sub-select
+            return new QueryAxis[0];
+        }
+        List<? extends SelectQueryAxisClause> axisClauses =
+            axesClause.selectQueryAxisClauses();
+        QueryAxis[] axes = new QueryAxis[axisClauses.size()];
+        int i = 0;
+        for (SelectQueryAxisClause axisClause : axisClauses) {
+            axes[i++] = new QueryAxis(
+                axisClause.nonEmpty(),
+                toExp(axisClause.expression()),
+                AxisOrdinal.StandardAxisOrdinal.forLogicalOrdinal(
+                    axisClause.axis().ordinal()),
+                QueryAxis.SubtotalVisibility.Undefined,
+                toDimensionProperties(
+                    axisClause.selectDimensionPropertyListClause()));
+        }
+        return axes;
+    }
+
+    private Id[] toDimensionProperties(
+        SelectDimensionPropertyListClause propertyListClause)
+    {
+        if (propertyListClause == null
+            || propertyListClause.properties().isEmpty())
+        {
+            return EMPTY_ID_ARRAY;
+        }
+        List<? extends CompoundId> properties =
+            propertyListClause.properties();
+        Id[] ids = new Id[properties.size()];
+        int i = 0;
+        for (CompoundId property : properties) {
+            ids[i++] = toId(property);
+        }
+        return ids;
+    }
+
+    private Subcube toSubcube(SelectSubcubeClause subcubeClause) {
+        if (subcubeClause instanceof SelectSubcubeClauseName name) {
+            return new Subcube(
+                toNameSegment(name.cubeName()).getName(),
+                null,
+                new QueryAxis[0],
+                null);
+        } else if (subcubeClause instanceof SelectSubcubeClauseStatement sub) {
+            QueryAxis[] axes = toAxes(sub.selectQueryClause());
+            Subcube subcube = toSubcube(sub.selectSubcubeClause());
+            Exp w = toSlicer(sub.selectSlicerAxisClause());
+            QueryAxis slicerAxis =
+                w == null
+                    ? null
+                    : new QueryAxis(
+                        false, w, AxisOrdinal.StandardAxisOrdinal.SLICER,
+                        QueryAxis.SubtotalVisibility.Undefined,
+                        EMPTY_ID_ARRAY);
+            return new Subcube(null, subcube, axes, slicerAxis);
+        }
+        throw new UnsupportedSyntaxException(subcubeClause);
+    }
+
+    private Exp toSlicer(Optional<SelectSlicerAxisClause> slicerAxisClause) {
+        return slicerAxisClause
+            .map(clause -> toExp(clause.expression()))
+            .orElse(null);
+    }
+
+    private QueryPart[] toCellProps(
+        Optional<SelectCellPropertyListClause> cellPropertyListClause)
+    {
+        if (cellPropertyListClause.isEmpty()) {
+            return new QueryPart[0];
+        }
+        List<String> properties = cellPropertyListClause.get().properties();
+        QueryPart[] cellProps = new QueryPart[properties.size()];
+        int i = 0;
+        for (String property : properties) {
+            cellProps[i++] = new CellProperty(
+                Collections.singletonList(
+                    new Id.NameSegment(property, Id.Quoting.UNQUOTED)));
+        }
+        return cellProps;
+    }
+
+    /**
+     * Converts an expression. Follows {@code MdxParserImpl.createCall} for
+     * members, properties and methods.
+     */
+    Exp toExp(Expression expression) {
+        if (expression instanceof CompoundId compoundId) {
+            return toId(compoundId);
+        } else if (expression instanceof CallExpression call) {
+            return toExp(call);
+        } else if (expression instanceof NumericLiteral numeric) {
+            return Literal.create(numeric.value());
+        } else if (expression instanceof StringLiteral string) {
+            return Literal.createString(string.value());
+        } else if (expression instanceof SymbolLiteral symbol) {
+            // only the type of a CAST
+            return Literal.createSymbol(toName(symbol.value()));
+        } else if (expression instanceof NullLiteral) {
+            return Literal.nullValue;
+        }
+        throw new UnsupportedSyntaxException(expression);
+    }
+
+    private Exp toExp(CallExpression call) {
+        List<? extends Expression> expressions = call.expressions();
+        switch (call.type()) {
+        case PROPERTY: {
+            // "x.foo", where foo is unquoted; a member unless foo is a property
+            String name = normalize(call.name());
+            Exp left = toExp(expressions.get(0));
+            if (left instanceof Id id && !funTable.isProperty(name)) {
+                return id.append(
+                    new Id.NameSegment(name, Id.Quoting.UNQUOTED));
+            }
+            return new UnresolvedFunCall(
+                name, Syntax.Property, new Exp[] {left});
+        }
+        case PROPERTY_QUOTED: {
+            Exp left = toExp(expressions.get(0));
+            if (left instanceof Id id) {
+                return id.append(
+                    new Id.NameSegment(call.name(), Id.Quoting.QUOTED));
+            }
+            return new UnresolvedFunCall(
+                call.name(), Syntax.QuotedProperty, new Exp[] {left});
+        }
+        case METHOD:
+            if (call.name() == null) {
+                // "x.&foo()"
+                throw new UnsupportedSyntaxException(call);
+            }
+            // "x.foo()" has the arguments [x, EMPTY] in the model
+            if (expressions.size() == 2
+                && expressions.get(1) instanceof CallExpression arg
+                && arg.type() == CallExpression.Type.EMPTY)
+            {
+                expressions = expressions.subList(0, 1);
+            }
+            return new UnresolvedFunCall(
+                toName(call.name()), Syntax.Method, toExps(expressions));
+        case FUNCTION:
+            return new UnresolvedFunCall(
+                toName(call.name()), Syntax.Function, toExps(expressions));
+        case BRACES:
+            return new UnresolvedFunCall(
+                call.name(), Syntax.Braces, toExps(expressions));
+        case PARENTHESES:
+            return new UnresolvedFunCall(
+                call.name(), Syntax.Parentheses, toExps(expressions));
+        case EMPTY:
+            return new UnresolvedFunCall(
+                call.name(), Syntax.Empty, EMPTY_EXP_ARRAY);
+        case TERM_PREFIX:
+            return new UnresolvedFunCall(
+                call.name(), Syntax.Prefix, toExps(expressions));
+        case TERM_POSTFIX:
+            return new UnresolvedFunCall(
+                call.name(), Syntax.Postfix, toExps(expressions));
+        case TERM_INFIX:
+            return new UnresolvedFunCall(
+                call.name(), Syntax.Infix, toExps(expressions));
+        case TERM_CASE:
+            return new UnresolvedFunCall(
+                call.name(), Syntax.Case, toExps(expressions));
+        case CAST:
+            return new UnresolvedFunCall(
+                call.name(), Syntax.Cast, toExps(expressions));
+        default:
+            // PROPERTY_AMPERS_AND_QUOTED has lost its key, INTERNAL is
+            // never parsed
+            throw new UnsupportedSyntaxException(call);
+        }
+    }
+
+    private Exp[] toExps(List<? extends Expression> expressions) {
+        if (expressions.isEmpty()) {
+            return EMPTY_EXP_ARRAY;
+        }
+        Exp[] exps = new Exp[expressions.size()];
+        int i = 0;
+        for (Expression expression : expressions) {
+            exps[i++] = toExp(expression);
+        }
+        return exps;
+    }
+
+    /**
+     * Converts the name of a function, method or type. The model does not say
+     * whether it was quoted, so a keyword in other than its usual spelling,
+     * such as "PROPERTIES", is converted only if it is not quoted anywhere in
+     * the query.
+     */
+    private String toName(String name) {
+        String keyword = normalize(name);
+        if (!keyword.equals(name)
+            && queryString.contains("[" + name + "]"))
+        {
+            throw new UnsupportedSyntaxException(name);
+        }
+        return keyword;
+    }
+
+    private Id toId(CompoundId compoundId) {
+        List<? extends ObjectIdentifier> identifiers =
+            compoundId.objectIdentifiers();
+        List<Id.Segment> segments = new ArrayList<>(identifiers.size());
+        for (ObjectIdentifier identifier : identifiers) {
+            segments.add(toSegment(identifier));
+        }
+        return new Id(segments);
+    }
+
+    private static Id.Segment toSegment(ObjectIdentifier identifier) {
+        if (identifier instanceof NameObjectIdentifier name) {
+            return toNameSegment(name);
+        } else if (identifier instanceof KeyObjectIdentifier key) {
+            List<? extends NameObjectIdentifier> names =
+                key.nameObjectIdentifiers();
+            List<Id.NameSegment> keyParts = new ArrayList<>(names.size());
+            for (NameObjectIdentifier name : names) {
+                keyParts.add(
+                    new Id.NameSegment(name.name(), toQuoting(name)));
+            }
+            return new Id.KeySegment(keyParts);
+        }
+        throw new UnsupportedSyntaxException(identifier);
+    }
+
+    /**
+     * Converts a name, spelling the keywords that may be used as names the way
+     * {@code MdxParserImpl.keyword()} does.
+     */
+    private static Id.NameSegment toNameSegment(NameObjectIdentifier name) {
+        Id.Quoting quoting = toQuoting(name);
+        return new Id.NameSegment(
+            quoting == Id.Quoting.UNQUOTED ? normalize(name.name()) : name.name(),
+            quoting);
+    }
+
+    private static Id.Quoting toQuoting(NameObjectIdentifier name) {
+        switch (name.quoting()) {
+        case UNQUOTED:
+            return Id.Quoting.UNQUOTED;
+        case QUOTED:
+            return Id.Quoting.QUOTED;
+        default:
+            throw new UnsupportedSyntaxException(name);
+        }
+    }
+
+    private static String normalize(String name) {
+        if ("Dimension".equalsIgnoreCase(name)) {
+            return "Dimension";
+        } else if ("Properties".equalsIgnoreCase(name)) {
+            return "Properties";
+        }
+        return name;
+    }
+
+    /**
+     * Thrown if a statement cannot be converted exactly; the statement is then
+     * parsed by the JavaCC parser.
+     */
+    /**
+     * The values of the single- and of the double-quoted strings in a query.
+     * The model does not say how a string was quoted, and a single-quoted
+     * formula is parsed again; scanning the text once keeps the conversion
+     * linear in the length of the query.
+     */
+    private static class QuotedStrings {
+        final Set<String> singleQuoted = new HashSet<>();
+        final Set<String> doubleQuoted = new HashSet<>();
+        private final String text;
+
+        QuotedStrings(String text) {
+            this.text = text;
+            int i = 0;
+            while (i < text.length()) {
+                char c = text.charAt(i);
+                if (c == '[') {
+                    i = read(i, ']', null);
+                } else if (c == '\'') {
+                    i = read(i, '\'', singleQuoted);
+                } else if (c == '"') {
+                    i = read(i, '"', doubleQuoted);
+                } else if (text.startsWith("--", i)
+                    || text.startsWith("//", i))
+                {
+                    i = skipTo("\n", i + 2);
+                } else if (text.startsWith("/*", i)) {
+                    i = skipTo("*/", i + 2);
+                } else {
+                    i++;
+                }
+            }
+        }
+
+        /**
+         * Reads a quoted string or identifier, in which the quote is escaped
+         * by doubling it, and returns the position after it.
+         */
+        private int read(int start, char quote, Set<String> values) {
+            StringBuilder buf = values == null ? null : new StringBuilder();
+            int i = start + 1;
+            while (i < text.length()) {
+                char c = text.charAt(i++);
+                if (c == quote) {
+                    if (i == text.length() || text.charAt(i) != quote) {
+                        break;
+                    }
+                    i++;
+                }
+                if (buf != null) {
+                    buf.append(c);
+                }
+            }
+            if (buf != null) {
+                values.add(buf.toString());
+            }
+            return i;
+        }
+
+        private int skipTo(String end, int start) {
+            int i = text.indexOf(end, start);
+            return i < 0 ? text.length() : i + end.length();
+        }
+    }
+
+    static class UnsupportedSyntaxException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        UnsupportedSyntaxException(Object syntax) {
+            super(String.valueOf(syntax));
+        }
+
+        UnsupportedSyntaxException(Throwable cause) {
+            super(cause);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   SmartCity Jena - initial
+ */
+package mondrian.rolap;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import mondrian.rolap.aggmatcher.AggStar;
+import mondrian.rolap.sql.SqlQuery;
+
+/**
+ * Constraint which restricts the children of a member to those whose keys
+ * a role grants access to. Used by {@link RestrictedMemberReader} so that
+ * the children a role cannot see are not read from the database.
+ *
+ * @see mondrian.olap.RoleImpl#getAccessibleChildren
+ */
+class AccessibleChildrenConstraint extends DefaultMemberChildrenConstraint {
+    private final int childDepth;
+    private final Set<Object> keys;
+    private final Object cacheKey;
+
+    /**
+     * Creates an <code>AccessibleChildrenConstraint</code>.
+     *
+     * @param childDepth Depth of the level of the children
+     * @param keys Keys of accessible children
+     */
+    AccessibleChildrenConstraint(int childDepth, Set<Object> keys) {
+        this.childDepth = childDepth;
+        this.keys = new HashSet<>(keys);
+        this.cacheKey = Arrays.asList(
+            AccessibleChildrenConstraint.class, childDepth, this.keys);
+    }
+
+    @Override
+    public int hashCode() {
+        return getCacheKey().hashCode();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof AccessibleChildrenConstraint that
+            && getCacheKey().equals(that.getCacheKey());
+    }
+
+    @Override
+	public void addLevelConstraint(
+        SqlQuery query,
+        RolapCube baseCube,
+        AggStar aggStar,
+        RolapLevel level)
+    {
+        super.addLevelConstraint(query, baseCube, aggStar, level);
+        if (level.getDepth() != childDepth) {
+            return;
+        }
+        final String where =
+            SqlConstraintUtils.constrainLevelKeys(
+                level, query, baseCube, aggStar, keys);
+        if (where != null) {
+            query.addWhere(where);
+        }
+    }
+
+    @Override
+	public String toString() {
+        return new StringBuilder("AccessibleChildrenConstraint(")
+            .append(keys).append(")").toString();
+    }
+
+    @Override
+	public Object getCacheKey() {
+        return cacheKey;
+    }
+}
@@ -0,0 +1,215 @@
+/*
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   SmartCity Jena - initial
+ */
+package mondrian.rolap;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import mondrian.olap.MondrianProperties;
+import mondrian.olap.Util;
+import mondrian.util.ByteString;
+import mondrian.util.Pair;
+
+/**
+ * Cache of the contents of catalogs, keyed by catalog URL, so that
+ * {@link RolapSchemaPool} does not read the catalog each time a connection is
+ * opened.
+ *
+ * <p>A catalog is read again only when it may have changed. A catalog that is
+ * a local file is read again when the file's modification time or size
+ * changes, which costs one call to the file system. Any other catalog, for
+ * example one read over HTTP, is read again when it has been in the cache for
+ * longer than {@link MondrianProperties#XmlaSchemaRefreshInterval}, the
+ * interval at which the repository refreshes its list of catalogs. An entry
+ * can also be removed explicitly by calling {@link #invalidate}.</p>
+ *
+ * <p>Only catalogs that are read from their URL are cached. A catalog whose
+ * content is given in the connect string, or which is produced by a
+ * {@link mondrian.spi.DynamicSchemaProcessor}, may differ between
+ * connections.</p>
+ *
+ * <p>All methods are thread-safe, and {@link #get} takes no lock. If several
+ * threads find the same stale entry, each of them reads the catalog.</p>
+ */
+class CatalogContentCache {
+    private final Map<String, Content> map = new ConcurrentHashMap<>();
+    private final Reader reader;
+
+    /**
+     * Creates a <code>CatalogContentCache</code>.
+     *
+     * @param reader Reads the content of a catalog
+     */
+    CatalogContentCache(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * Returns the content of a catalog, reading it if it is not in the cache
+     * or may have changed since it was read.
+     *
+     * @param catalogUrl URL of catalog
+     * @return Content of catalog
+     * @throws IOException if the catalog cannot be read
+     */
+    Content get(String catalogUrl) throws IOException {
+        final File file = toLocalFile(catalogUrl);
+        final Stamp stamp = file == null ? null : Stamp.of(file);
+        final Content content = map.get(catalogUrl);
+        if (content != null && content.isCurrent(stamp)) {
+            return content;
+        }
+        final Content newContent =
+            new Content(
+                catalogUrl,
+                reader.read(catalogUrl),
+                stamp,
+                System.currentTimeMillis());
+        map.put(catalogUrl, newContent);
+        return newContent;
+    }
+
+    /**
+     * Removes a catalog from the cache, so that the next call to
+     * {@link #get} reads it.
+     *
+     * @param catalogUrl URL of catalog
+     */
+    void invalidate(String catalogUrl) {
+        if (catalogUrl != null) {
+            map.remove(catalogUrl);
+        }
+    }
+
+    /**
+     * Removes all catalogs from the cache.
+     */
+    void clear() {
+        map.clear();
+    }
+
+    /**
+     * Returns the file that a catalog URL refers to, or null if the URL is
+     * not a local file, or cannot be converted to a file name without the
+     * help of the virtual file system.
+     *
+     * <p>The conversion strips the same prefixes as
+     * {@link Util#readVirtualFile(String)}.</p>
+     *
+     * @param catalogUrl URL of catalog
+     * @return File, or null
+     */
+    static File toLocalFile(String catalogUrl) {
+        String s = catalogUrl;
+        if (s.startsWith("file://localhost")) {
+            s = s.substring("file://localhost".length());
+        } else if (s.startsWith("file:")) {
+            s = s.substring("file:".length());
+        }
+        final int colon = s.indexOf(':');
+        if (s.indexOf('%') >= 0
+            || colon > 1
+            || colon == 1 && File.separatorChar != '\\')
+        {
+            // Another scheme (http:, res:, ...), or an encoded character
+            // which only the virtual file system decodes. A single letter
+            // before the colon is a drive letter on Windows.
+            return null;
+        }
+        return new File(s).getAbsoluteFile();
+    }
+
+    /**
+     * Reads the content of a catalog.
+     */
+    interface Reader {
+        String read(String catalogUrl) throws IOException;
+    }
+
+    /**
+     * Modification time and size of a file.
+     */
+    private record Stamp(long lastModified, long size) {
+        static Stamp of(File file) {
+            try {
+                final BasicFileAttributes attributes =
+                    Files.readAttributes(
+                        file.toPath(), BasicFileAttributes.class);
+                return new Stamp(
+                    attributes.lastModifiedTime().toMillis(),
+                    attributes.size());
+            } catch (IOException e) {
+                // The file is missing or cannot be read. Stamps of missing
+                // files never match, so the reader reports the error.
+                return new Stamp(-1, -1);
+            }
+        }
+    }
+
+    /**
+     * Content of a catalog, and what is derived from it.
+     */
+    static class Content {
+        final String catalogStr;
+        final SchemaContentKey schemaContentKey;
+        private final Stamp stamp;
+        private final long readTime;
+        private volatile ByteString checksum;
+
+        private Content(
+            String catalogUrl,
+            String catalogStr,
+            Stamp stamp,
+            long readTime)
+        {
+            this.catalogStr = catalogStr;
+            this.schemaContentKey =
+                SchemaContentKey.create(
+                    new Util.PropertyList(), catalogUrl, catalogStr);
+            this.stamp = stamp;
+            this.readTime = readTime;
+        }
+
+        /**
+         * Returns the checksum of the catalog, computing it the first time it
+         * is needed.
+         */
+        ByteString getChecksum() {
+            ByteString checksum = this.checksum;
+            if (checksum == null) {
+                checksum = new ByteString(Util.digestSHA(catalogStr));
+                this.checksum = checksum;
+            }
+            return checksum;
+        }
+
+        private boolean isCurrent(Stamp currentStamp) {
+            if (currentStamp != null) {
+                return currentStamp.lastModified >= 0
+                    && currentStamp.equals(stamp);
+            }
+            final Pair<Long, TimeUnit> interval =
+                Util.parseInterval(
+                    MondrianProperties.instance()
+                        .XmlaSchemaRefreshInterval.get(),
+                    TimeUnit.MILLISECONDS);
+            return System.currentTimeMillis() - readTime
+                < interval.right.toMillis(interval.left);
+        }
+    }
+}
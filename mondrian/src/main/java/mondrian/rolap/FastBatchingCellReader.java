@@ -36,6 +36,7 @@ import mondrian.olap.MondrianProperties;
 import mondrian.olap.Util;
 import mondrian.rolap.agg.AggregationKey;
 import mondrian.rolap.agg.AggregationManager;
+import mondrian.rolap.agg.CellBatchSizer;
 import mondrian.rolap.agg.CellRequest;
 import mondrian.rolap.agg.CellRequestQuantumExceededException;
 import mondrian.rolap.agg.ListColumnPredicate;
@@ -71,7 +72,20 @@ import mondrian.util.Pair;
  */
 public class FastBatchingCellReader implements CellReader {
 
-    private final int cellRequestLimit;
+    private static final Logger LOGGER =
+        LoggerFactory.getLogger(FastBatchingCellReader.class);
+
+    /**
+     * Number of cell requests to collect before signalling that they should
+     * be loaded. Fixed if {@link MondrianProperties#CellBatchSize} is set,
+     * otherwise chosen by {@link #cellBatchSizer} before each batch.
+     */
+    private int cellRequestLimit;
+
+    /**
+     * Sizer for adaptive batches, or null if the batch size is fixed.
+     */
+    private final CellBatchSizer cellBatchSizer;
 
     private final RolapCube cube;
 
@@ -94,6 +108,11 @@ public class FastBatchingCellReader implements CellReader {
      */
     private int pendingCount;
 
+    /**
+     * Number of times that cell requests were loaded.
+     */
+    private int loadCount;
+
     private final AggregationManager aggMgr;
 
     private final boolean cacheEnabled;
@@ -134,10 +153,15 @@ public class FastBatchingCellReader implements CellReader {
         pinnedSegments = this.aggMgr.createPinSet();
         cacheEnabled = !MondrianProperties.instance().DisableCaching.get();
 
-        cellRequestLimit =
-            MondrianProperties.instance().CellBatchSize.get() <= 0
-                ? 100000 // TODO Make this logic into a pluggable algorithm.
-                : MondrianProperties.instance().CellBatchSize.get();
+        final int cellBatchSize =
+            MondrianProperties.instance().CellBatchSize.get();
+        if (cellBatchSize > 0) {
+            cellBatchSizer = null;
+            cellRequestLimit = cellBatchSize;
+        } else {
+            cellBatchSizer = aggMgr.getCellBatchSizer();
+            cellRequestLimit = cellBatchSizer.getCellRequestLimit();
+        }
     }
 
     @Override
@@ -197,6 +221,14 @@ public class FastBatchingCellReader implements CellReader {
         return pendingCount;
     }
 
+    /**
+     * Returns the number of times that cell requests were loaded, that is,
+     * the number of round trips between evaluation and the cache manager.
+     */
+    public int getLoadCount() {
+        return loadCount;
+    }
+
     public final void recordCellRequest(CellRequest request) {
         if (request.isUnsatisfiable()) {
             throw new IllegalArgumentException("request.isUnsatisfiable is true");
@@ -269,6 +301,8 @@ public class FastBatchingCellReader implements CellReader {
 
         final List<CellRequest> cellRequests1 =
             new ArrayList<>(cellRequests);
+        final long startNanos = System.nanoTime();
+        final int sqlQueryCountBefore = execution.getSqlQueryCount();
 
         preloadColumnCardinality(cellRequests1);
 
@@ -475,6 +509,20 @@ public class FastBatchingCellReader implements CellReader {
             // set of cell requests.
         }
 
+        final long elapsedNanos = System.nanoTime() - startNanos;
+        ++loadCount;
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug(
+                "load #{}: {} cell requests, {} SQL statements, {} millis",
+                loadCount, cellRequests.size(),
+                execution.getSqlQueryCount() - sqlQueryCountBefore,
+                elapsedNanos / 1000000);
+        }
+        if (cellBatchSizer != null) {
+            cellBatchSizer.recordLoad(cellRequests.size(), elapsedNanos);
+            cellRequestLimit = cellBatchSizer.getCellRequestLimit();
+        }
+
         dirty = false;
         cellRequests.clear();
         return true;
@@ -1087,8 +1135,14 @@ class BatchLoader {
                 new GroupingSetsCollector(true);
             this.detailedBatch.loadAggregation(batchCollector, segmentFutures);
 
+            // The grouping sets share one SELECT list, so every summary batch
+            // must load the measures of the detailed batch. A summary batch
+            // whose measures are a subset gets the others for free. The
+            // grouped batches are left as they are.
             int cellRequestCount = 0;
-            for (Batch batch : summaryBatches) {
+            for (Batch summaryBatch : summaryBatches) {
+                final Batch batch =
+                    summaryBatch.withMeasures(detailedBatch.measuresList);
                 batch.loadAggregation(batchCollector, segmentFutures);
                 cellRequestCount += batch.cellRequestCount;
             }
@@ -1213,6 +1267,20 @@ class BatchLoader {
             batchKey = new AggregationKey(request);
         }
 
+        /**
+         * Creates a copy of a batch with the same cell requests.
+         *
+         * @param batch Batch to copy
+         */
+        private Batch(Batch batch) {
+            columns = batch.columns;
+            measuresList.addAll(batch.measuresList);
+            valueSets = batch.valueSets;
+            batchKey = batch.batchKey;
+            cellRequestCount = batch.cellRequestCount;
+            tuples = batch.tuples;
+        }
+
         @Override
 		public String toString() {
             if (string == null) {
@@ -1251,6 +1319,28 @@ class BatchLoader {
             }
         }
 
+        /**
+         * Returns a batch with the cell requests of this batch that also
+         * loads the given measures, so that it loads the same measures as a
+         * batch that it is grouped with. This batch is not modified.
+         *
+         * @param measures Measures to add, if not already present
+         * @return This batch, if it loads all the measures, otherwise a new
+         *   batch
+         */
+        final Batch withMeasures(List<RolapStar.Measure> measures) {
+            if (measuresList.containsAll(measures)) {
+                return this;
+            }
+            final Batch batch = new Batch(this);
+            for (RolapStar.Measure measure : measures) {
+                if (!batch.measuresList.contains(measure)) {
+                    batch.measuresList.add(measure);
+                }
+            }
+            return batch;
+        }
+
         /**
          * Returns the RolapStar associated with the Batch's first Measure.
          *
@@ -1532,13 +1622,15 @@ class BatchLoader {
          *     and
          * <li>both have same Fact Table; and
          * <li>matching columns of this and other batch has the same value; and
-         * <li>non matching columns of this batch have ALL VALUES
+         * <li>non matching columns of this batch have ALL VALUES; and
+         * <li>measures of this batch are a super set of the other batch's
+         *     measures; the other batch will load the additional measures
          * </ul>
          */
         boolean canBatch(Batch other) {
             return hasOverlappingBitKeys(other)
                 && constraintsMatch(other)
-                && hasSameMeasureList(other)
+                && hasSuperSetMeasureList(other)
                 && !hasDistinctCountMeasure()
                 && !other.hasDistinctCountMeasure()
                 && haveSameStarAndAggregation(other)
@@ -1602,9 +1694,8 @@ class BatchLoader {
                 !=  measuresList.size();
         }
 
-        private boolean hasSameMeasureList(Batch other) {
-            return this.measuresList.size() == other.measuresList.size()
-                   && this.measuresList.containsAll(other.measuresList);
+        private boolean hasSuperSetMeasureList(Batch other) {
+            return this.measuresList.containsAll(other.measuresList);
         }
 
         boolean hasOverlappingBitKeys(Batch other) {
@@ -1660,8 +1751,12 @@ class BatchLoader {
             boolean[] rollup = {false};
             boolean[] otherRollup = {false};
 
+            // The other batch will load this batch's measures, so both must
+            // be answered by the same aggregate table for those measures.
+            final BitKey measureBitKey = makeMeasureBitKey();
             boolean hasSameAggregation =
-                getAgg(rollup) == other.getAgg(otherRollup);
+                getAgg(rollup, measureBitKey)
+                    == other.getAgg(otherRollup, measureBitKey);
             boolean hasSameRollupOption = rollup[0] == otherRollup[0];
 
             boolean hasSameStar = getStar().equals(other.getStar());
@@ -1698,13 +1793,14 @@ class BatchLoader {
 
         /**
          * @param rollup Out parameter
+         * @param measureBitKey Measures to load
          * @return AggStar
          */
-        private AggStar getAgg(boolean[] rollup) {
+        private AggStar getAgg(boolean[] rollup, BitKey measureBitKey) {
             return AggregationManager.findAgg(
                 getStar(),
                 getConstrainedColumnsBitKey(),
-                makeMeasureBitKey(),
+                measureBitKey,
                 rollup);
         }
 
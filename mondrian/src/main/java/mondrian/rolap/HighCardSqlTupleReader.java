@@ -88,7 +88,7 @@ protected void prepareTuples(
             "HighCardSqlTupleReader.readTuples " + partialTargets,
             message,
             SqlStatementEvent.Purpose.TUPLES, 0 ),
-          -1, -1, null );
+          -1, -1, null, true );
       }
 
       for ( TargetBase target : targets ) {
@@ -64,6 +64,21 @@ interface MemberCache {
      */
     Object putMember(Object key, RolapMember member);
 
+    /**
+     * Returns a number that changes whenever the cache is flushed or members
+     * are removed from it. A member source that keeps data derived from the
+     * members, such as a {@link ParentChildIndex}, compares it to the number
+     * it saw when it built the data, to tell whether the data is stale.
+     *
+     * <p>The default implementation returns 0, for caches that never remove
+     * members.
+     *
+     * @return Generation of the cache
+     */
+    default long getGeneration() {
+        return 0;
+    }
+
     /**
      * Returns whether the cache supports removing selected items. If it does,
      * it is valid to call the {@link #removeMember(Object)} and
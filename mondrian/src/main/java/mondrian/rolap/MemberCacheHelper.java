@@ -60,6 +60,9 @@ public class MemberCacheHelper implements MemberCache {
     RolapHierarchy rolapHierarchy;
     DataSourceChangeListener changeListener;
 
+    /** Incremented whenever members are flushed or removed. */
+    private volatile long generation;
+
     /** maps a level to its members */
     public final SmartMemberListCache<RolapLevel, List<RolapMember>>
         mapLevelToMembers;
@@ -250,6 +253,7 @@ public class MemberCacheHelper implements MemberCache {
 
     // Must sync here because we want the three maps to be modified together.
     public synchronized void flushCache() {
+        ++generation;
         mapMemberToChildren.clear();
         mapKeyToMember.clear();
         mapLevelToMembers.clear();
@@ -270,6 +274,11 @@ public class MemberCacheHelper implements MemberCache {
         changeListener = listener;
     }
 
+    @Override
+    public long getGeneration() {
+        return generation;
+    }
+
     @Override
 	public boolean isMutable()
     {
@@ -279,6 +288,7 @@ public class MemberCacheHelper implements MemberCache {
     @Override
 	public synchronized RolapMember removeMember(Object key)
     {
+        ++generation;
         // Flush entries from the level-to-members map
         // for member's level and all child levels.
         // Important: Do this even if the member is apparently not in the cache.
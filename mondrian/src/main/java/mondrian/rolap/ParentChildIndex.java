@@ -0,0 +1,171 @@
+/*
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   SmartCity Jena - initial
+ */
+package mondrian.rolap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * In-memory copy of the parent-child relation of a parent-child level.
+ *
+ * <p>The rows of the level's table are read once, and numbered in the order
+ * of a depth-first walk of the tree which visits the children of a member in
+ * the order of the level's ordinal expression. Every member then has an
+ * interval of ordinals: the member's own ordinal, followed by the ordinals of
+ * all of its descendants. The children of a member are found by stepping
+ * from the start of one child's interval to the start of the next, without
+ * looking at the members below them.</p>
+ *
+ * <p>Rows whose parent is neither the null parent value nor the key of another
+ * row, and rows which are part of a cycle, are not reachable from a root, and
+ * are not in the index; the SQL queries which read one parent's children never
+ * return them either.</p>
+ *
+ * <p>An index is immutable, and can be read by several threads.</p>
+ *
+ * @see SqlMemberSource
+ */
+class ParentChildIndex {
+    /** Rows in the order of the walk. */
+    private final Object[][] rows;
+    /** Ordinal of the last descendant of each row, or its own ordinal. */
+    private final int[] ends;
+    private final Map<Object, Integer> ordinals;
+
+    /**
+     * Creates a <code>ParentChildIndex</code>.
+     *
+     * @param rows Rows of the level, in the order of its ordinal expression
+     * @param keyColumn Column which holds the key of a member
+     * @param parentColumn Column which holds the key of its parent
+     * @param nullParent Whether a parent value means that a member is a root
+     */
+    ParentChildIndex(
+        List<Object[]> rows,
+        int keyColumn,
+        int parentColumn,
+        Predicate<Object> nullParent)
+    {
+        final int n = rows.size();
+        // Children of each row, and roots, as linked lists in row order.
+        final Map<Object, Integer> rowOfKey = new HashMap<>();
+        for (int i = 0; i < n; i++) {
+            rowOfKey.putIfAbsent(rows.get(i)[keyColumn], i);
+        }
+        final int[] firstChild = new int[n];
+        final int[] lastChild = new int[n];
+        final int[] nextSibling = new int[n];
+        Arrays.fill(firstChild, -1);
+        Arrays.fill(nextSibling, -1);
+        final List<Integer> roots = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            final Object[] row = rows.get(i);
+            if (rowOfKey.get(row[keyColumn]) != i) {
+                // Duplicate key; the first row wins.
+                continue;
+            }
+            final Object parentKey = row[parentColumn];
+            if (nullParent.test(parentKey)) {
+                roots.add(i);
+                continue;
+            }
+            final Integer parent = rowOfKey.get(parentKey);
+            if (parent == null || parent == i) {
+                continue;
+            }
+            if (firstChild[parent] < 0) {
+                firstChild[parent] = i;
+            } else {
+                nextSibling[lastChild[parent]] = i;
+            }
+            lastChild[parent] = i;
+        }
+
+        // Walk the tree depth-first, without recursion; deep trees are common.
+        // The walk consumes the lists of children.
+        final Object[][] tourRows = new Object[n][];
+        final int[] tourEnds = new int[n];
+        final int[] ordinalOfRow = new int[n];
+        final int[] stack = new int[n];
+        int size = 0;
+        for (int root : roots) {
+            int top = 0;
+            stack[top++] = root;
+            ordinalOfRow[root] = size;
+            tourRows[size] = rows.get(root);
+            ++size;
+            while (top > 0) {
+                final int row = stack[top - 1];
+                final int child = firstChild[row];
+                if (child < 0) {
+                    tourEnds[ordinalOfRow[row]] = size - 1;
+                    --top;
+                    continue;
+                }
+                firstChild[row] = nextSibling[child];
+                ordinalOfRow[child] = size;
+                tourRows[size] = rows.get(child);
+                ++size;
+                stack[top++] = child;
+            }
+        }
+
+        this.rows = Arrays.copyOf(tourRows, size);
+        this.ends = Arrays.copyOf(tourEnds, size);
+        this.ordinals = new HashMap<>(size * 2);
+        for (int i = 0; i < size; i++) {
+            ordinals.put(this.rows[i][keyColumn], i);
+        }
+    }
+
+    /**
+     * Returns the number of members in the index.
+     */
+    int size() {
+        return rows.length;
+    }
+
+    /**
+     * Returns the rows of the members which have no parent.
+     */
+    List<Object[]> getRootRows() {
+        final List<Object[]> list = new ArrayList<>();
+        for (int i = 0; i < rows.length; i = ends[i] + 1) {
+            list.add(rows[i]);
+        }
+        return list;
+    }
+
+    /**
+     * Returns the rows of the children of a member, or an empty list if the
+     * member is not in the index.
+     *
+     * @param key Key of the parent member
+     */
+    List<Object[]> getChildRows(Object key) {
+        final Integer ordinal = ordinals.get(key);
+        if (ordinal == null) {
+            return Collections.emptyList();
+        }
+        final List<Object[]> list = new ArrayList<>();
+        for (int i = ordinal + 1; i <= ends[ordinal]; i = ends[i] + 1) {
+            list.add(rows[i]);
+        }
+        return list;
+    }
+}
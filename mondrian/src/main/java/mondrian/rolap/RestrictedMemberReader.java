@@ -11,10 +11,13 @@
 package mondrian.rolap;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.eclipse.daanse.olap.api.access.Access;
 import org.eclipse.daanse.olap.api.access.HierarchyAccess;
@@ -22,6 +25,7 @@ import org.eclipse.daanse.olap.api.access.Role;
 import org.eclipse.daanse.olap.api.model.Member;
 
 import mondrian.olap.Evaluator;
+import mondrian.olap.MondrianProperties;
 import mondrian.olap.RoleImpl;
 import mondrian.resource.MondrianResource;
 import mondrian.rolap.sql.MemberChildrenConstraint;
@@ -112,7 +116,9 @@ public class RestrictedMemberReader extends DelegatingMemberReader {
     {
         List<RolapMember> fullChildren = new ArrayList<>();
         memberReader.getMemberChildren
-          (parentMember, fullChildren, constraint);
+          (parentMember, fullChildren,
+              restrictChildren(
+                  Collections.singletonList(parentMember), constraint));
         return processMemberChildren(fullChildren, children, constraint);
     }
 
@@ -133,10 +139,63 @@ public class RestrictedMemberReader extends DelegatingMemberReader {
         MemberChildrenConstraint constraint)
     {
         List<RolapMember> fullChildren = new ArrayList<>();
-        memberReader.getMemberChildren(parentMembers, fullChildren, constraint);
+        memberReader.getMemberChildren(
+            parentMembers, fullChildren,
+            restrictChildren(parentMembers, constraint));
         return processMemberChildren(fullChildren, children, constraint);
     }
 
+    /**
+     * Returns a constraint that reads only the children of the given members
+     * that the role can see, if the role allows only children it explicitly
+     * grants access to; otherwise returns the given constraint.
+     *
+     * <p>The children read must still be filtered; the constraint only saves
+     * reading children that would be filtered out.</p>
+     *
+     * @param parentMembers Parent members
+     * @param constraint Constraint
+     * @return Constraint restricted to accessible children, or the given
+     *   constraint
+     */
+    private MemberChildrenConstraint restrictChildren(
+        List<RolapMember> parentMembers,
+        MemberChildrenConstraint constraint)
+    {
+        if (ragged
+            || parentMembers.isEmpty()
+            || constraint != DefaultMemberChildrenConstraint.instance()
+            || !MondrianProperties.instance().PushRoleRestrictionsToSql.get())
+        {
+            return constraint;
+        }
+        final Set<Object> keys = new HashSet<>();
+        int childDepth = -1;
+        for (RolapMember parentMember : parentMembers) {
+            final RolapLevel level = parentMember.getLevel();
+            if (level.isParentChild() || level.getChildLevel() == null) {
+                return constraint;
+            }
+            final int depth = level.getChildLevel().getDepth();
+            if (childDepth >= 0 && depth != childDepth) {
+                return constraint;
+            }
+            childDepth = depth;
+            final Collection<Member> accessibleChildren =
+                RoleImpl.getAccessibleChildren(role, parentMember);
+            if (accessibleChildren == null) {
+                return constraint;
+            }
+            for (Member child : accessibleChildren) {
+                if (!(child instanceof RolapMember rolapChild)) {
+                    return constraint;
+                }
+                keys.add(rolapChild.getKey());
+            }
+        }
+        return new AccessibleChildrenConstraint(childDepth, keys);
+    }
+
     Map<RolapMember, Access> processMemberChildren(
         List<RolapMember> fullChildren,
         List<RolapMember> children,
@@ -157,6 +157,28 @@ public class RolapCell implements Cell {
         List<OlapElement> fields,
         boolean extendedContext,
         int maxRowCount)
+    {
+        return getDrillThroughSQL(fields, extendedContext, maxRowCount, 0);
+    }
+
+    /**
+     * Generates the SQL which reads one page of the fact rows of this cell.
+     *
+     * @param fields Fields to return, or empty for all
+     * @param extendedContext Whether to add columns for levels below the
+     *   current members
+     * @param maxRowCount Ordinal of the last row to return, <= 0 if
+     *   unlimited
+     * @param firstRowOrdinal Number of rows to skip; only skipped in SQL if
+     *   there is a maximum row count and the dialect supports LIMIT and
+     *   OFFSET clauses
+     * @return SQL, or null if the cell cannot be drilled through
+     */
+    public String getDrillThroughSQL(
+        List<OlapElement> fields,
+        boolean extendedContext,
+        int maxRowCount,
+        int firstRowOrdinal)
     {
         if (!MondrianProperties.instance()
             .EnableDrillThrough.get())
@@ -184,6 +206,7 @@ public class RolapCell implements Cell {
             return null;
         }
         cellRequest.setMaxRowCount(maxRowCount);
+        cellRequest.setFirstRowOrdinal(firstRowOrdinal);
         final RolapConnection connection =
             result.getExecution().getMondrianStatement()
                 .getMondrianConnection();
@@ -531,8 +554,27 @@ public class RolapCell implements Cell {
             throw Util.newError("Cannot do DrillThrough operation on the cell");
         }
 
+        final Statement statement =
+            result.getExecution().getMondrianStatement();
+        final Execution execution = new Execution(statement, 0);
+
+        final Connection connection = statement.getMondrianConnection();
+        final Schema schema = statement.getSchema();
+        Dialect dialect = ((RolapSchema) schema).getDialect();
+
+        // If the dialect can, the database skips the rows before the page
+        // and stops after it; the statement then reads the page only.
+        final boolean pageInSql =
+            maxRowCount > 0 && dialect.supportsLimitOffset();
+        final int skipInSql =
+            pageInSql
+                ? Math.min(Math.max(firstRowOrdinal, 0), maxRowCount)
+                : 0;
+
         // Generate SQL.
-        String sql = getDrillThroughSQL(fields, extendedContext,  maxRowCount);
+        String sql =
+            getDrillThroughSQL(
+                fields, extendedContext, maxRowCount, skipInSql);
         if (logger != null && logger.isDebugEnabled()) {
             logger.debug("drill through sql: " + sql);
         }
@@ -540,18 +582,12 @@ public class RolapCell implements Cell {
         // Choose the appropriate scrollability. If we need to start from an
         // offset row, it is useful that the cursor is scrollable, but not
         // essential.
-        final Statement statement =
-            result.getExecution().getMondrianStatement();
-        final Execution execution = new Execution(statement, 0);
-
-        final Connection connection = statement.getMondrianConnection();
         int resultSetType = ResultSet.TYPE_SCROLL_INSENSITIVE;
         int resultSetConcurrency = ResultSet.CONCUR_READ_ONLY;
-        final Schema schema = statement.getSchema();
-        Dialect dialect = ((RolapSchema) schema).getDialect();
         if (!dialect.supportsResultSetConcurrency(
                 resultSetType, resultSetConcurrency)
-            || firstRowOrdinal <= 1)
+            || firstRowOrdinal <= 1
+            || pageInSql)
         {
             // downgrade to non-scroll cursor, since we can
             // fake absolute() via forward fetch
@@ -563,8 +599,8 @@ public class RolapCell implements Cell {
                 context,
                 sql,
                 null,
-                maxRowCount,
-                firstRowOrdinal,
+                maxRowCount - skipInSql,
+                pageInSql ? 0 : firstRowOrdinal,
                 new SqlStatement.StatementLocus(
                     execution,
                     "RolapCell.drillThrough",
@@ -53,6 +53,7 @@ import mondrian.olap.Query;
 import mondrian.olap.QueryAxis;
 import mondrian.olap.QueryCanceledException;
 import mondrian.olap.QueryPart;
+import mondrian.olap.ParsedQueryCache;
 import mondrian.olap.QueryTimeoutException;
 import mondrian.olap.ResourceLimitExceededException;
 import mondrian.olap.ResultBase;
@@ -636,6 +637,11 @@ public Role getRole() {
     return server;
   }
 
+  @Override
+  protected ParsedQueryCache getParsedQueryCache() {
+    return ParsedQueryCache.isEnabled() ? schema.getParsedQueryCache() : null;
+  }
+
   @Override
 public QueryPart parseStatement( String query ) {
     Statement statement = createInternalStatement( false );
@@ -22,6 +22,7 @@ import java.util.ListIterator;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.eclipse.daanse.olap.api.access.HierarchyAccess;
 import org.eclipse.daanse.olap.api.model.Dimension;
@@ -46,6 +47,8 @@ import mondrian.calc.impl.CacheCalc;
 import mondrian.calc.impl.DelegatingTupleList;
 import mondrian.calc.impl.GenericCalc;
 import mondrian.calc.impl.ListTupleList;
+import mondrian.calc.impl.OrdinalTupleList;
+import mondrian.calc.impl.OrdinalTupleSet;
 import mondrian.calc.impl.ValueCalc;
 import mondrian.mdx.DimensionExpr;
 import mondrian.mdx.HierarchyExpr;
@@ -1236,11 +1239,7 @@ public Cell getCell( int[] pos ) {
           if ( valueFormatter == null ) {
             cachedFormatString = revaluator.getFormatString();
             Locale locale = statement.getMondrianConnection().getLocale();
-            valueFormatter = formatValueFormatters.get( locale );
-            if ( valueFormatter == null ) {
-              valueFormatter = new FormatValueFormatter( locale );
-              formatValueFormatters.put( locale, valueFormatter );
-            }
+            valueFormatter = formatValueFormatters.computeIfAbsent( locale, FormatValueFormatter::new );
           }
 
           ci.formatString = cachedFormatString;
@@ -1902,11 +1901,10 @@ public Cell getCell( int[] pos ) {
   }
 
   /**
-   * Synchronized Map from Locale to ValueFormatter. It is expected that there will be only a small number of Locale's.
+   * Concurrent Map from Locale to ValueFormatter. It is expected that there will be only a small number of Locale's.
    * Should these be a WeakHashMap?
    */
-  protected static final Map<Locale, ValueFormatter> formatValueFormatters =
-      Collections.synchronizedMap( new HashMap<Locale, ValueFormatter>() );
+  protected static final Map<Locale, ValueFormatter> formatValueFormatters = new ConcurrentHashMap<>();
 
   /**
    * A CellInfo contains all of the information that a Cell requires. It is placed in the cellInfos map during
@@ -2256,6 +2254,9 @@ public Cell getCell( int[] pos ) {
     if ( axis1.isEmpty() && axis2 instanceof TupleList tupleList ) {
       return tupleList;
     }
+    if ( axis1 instanceof OrdinalTupleList ordinalTupleList ) {
+      return mergeAxes( ordinalTupleList, axis2, ordered );
+    }
     Set<List<Member>> set = new HashSet<>();
     TupleList list = TupleCollections.createList( axis2.getArity() );
     for ( List<Member> tuple : axis1 ) {
@@ -2279,6 +2280,35 @@ public Cell getCell( int[] pos ) {
     return list;
   }
 
+  /**
+   * Merges axes as above, comparing tuples by their keys in the ordinal list.
+   */
+  private static TupleList mergeAxes( OrdinalTupleList axis1, TupleIterable axis2, boolean ordered ) {
+    final int[] key = new int[ axis1.getArity() ];
+    final OrdinalTupleSet set = new OrdinalTupleSet( axis1.getArity(), axis1.size() );
+    OrdinalTupleList list = (OrdinalTupleList) axis1.cloneList( axis1.size() );
+    for ( int i = 0; i < axis1.size(); i++ ) {
+      axis1.key( i, key );
+      if ( set.add( key ) ) {
+        list.addTuple( axis1, i );
+      }
+    }
+    int halfWay = list.size();
+    for ( List<Member> tuple : axis2 ) {
+      // add first, so that new members get a key
+      list.add( tuple );
+      list.key( list.size() - 1, key );
+      if ( !set.add( key ) ) {
+        list.remove( list.size() - 1 );
+      }
+    }
+
+    if ( halfWay > 0 && halfWay < list.size() && !ordered ) {
+      return Sorter.hierarchizeTupleList( list, false );
+    }
+    return list;
+  }
+
   /**
    * Member which holds the AggregateCalc used when evaluating a compound slicer. This is used to better handle some
    * cases where calculated members elsewhere in the query can override the context of the slicer members. See
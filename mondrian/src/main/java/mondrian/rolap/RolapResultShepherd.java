@@ -32,6 +32,9 @@ import mondrian.olap.ResourceLimitExceededException;
 import mondrian.olap.Util;
 import mondrian.resource.MondrianResource;
 import mondrian.server.Execution;
+import mondrian.server.metrics.EngineMetrics;
+import mondrian.server.metrics.Metric;
+import mondrian.util.ExecutorFactory;
 import mondrian.util.Pair;
 
 /**
@@ -64,18 +67,24 @@ public class RolapResultShepherd {
     private final Timer timer =
         Util.newTimer("mondrian.rolap.RolapResultShepherd#timer", true);
 
-    public RolapResultShepherd() {
+    /**
+     * Gauges that report the saturation of {@link #executor}.
+     */
+    private final List<Metric> metrics;
+
+    /**
+     * Creates a RolapResultShepherd.
+     *
+     * @param owner Identifier of the owning server, used to label the
+     *   metrics of the executor
+     */
+    public RolapResultShepherd(String owner) {
         final IntegerProperty property =
             MondrianProperties.instance().RolapConnectionShepherdNbThreads;
         final int maximumPoolSize = property.get();
         executor =
-            Util.getExecutorService(
-                 // We use the same value for coreSize and maxSize
-                // because that's the behavior we want. All extra
-                // tasks will be put on an unbounded queue.
-                maximumPoolSize,
+            ExecutorFactory.getExecutorService(
                 maximumPoolSize,
-                1,
                 "mondrian.rolap.RolapResultShepherd$executor",
                 new RejectedExecutionHandler() {
                     @Override
@@ -88,6 +97,9 @@ public class RolapResultShepherd {
                             property.getPath());
                     }
                 });
+        metrics =
+            EngineMetrics.registerExecutor(
+                "rolapResultShepherd", owner, executor);
         final Pair<Long, TimeUnit> interval =
             Util.parseInterval(
                 String.valueOf(
@@ -220,6 +232,7 @@ public class RolapResultShepherd {
     public void shutdown() {
         this.timer.cancel();
         this.executor.shutdown();
+        EngineMetrics.unregister(metrics);
         this.tasks.clear();
     }
 }
@@ -72,6 +72,7 @@ import mondrian.olap.Id;
 import mondrian.olap.MondrianProperties;
 import mondrian.olap.MondrianServer;
 import mondrian.olap.Parameter;
+import mondrian.olap.ParsedQueryCache;
 import mondrian.olap.RoleImpl;
 import mondrian.olap.SchemaReader;
 import mondrian.olap.Syntax;
@@ -197,6 +198,11 @@ public class RolapSchema implements Schema {
 
     private DataSourceChangeListener dataSourceChangeListener;
 
+    /**
+     * Parsed MDX queries of statements against this schema.
+     */
+    private final ParsedQueryCache parsedQueryCache = new ParsedQueryCache();
+
     /**
      * List of warnings. Populated when a schema is created by a connection
      * that has
@@ -324,6 +330,8 @@ public class RolapSchema implements Schema {
 
         // Cleanup the agg JDBC cache
         flushJdbcSchema();
+
+        parsedQueryCache.clear();
     }
 
     @Override
@@ -1129,6 +1137,14 @@ public class RolapSchema implements Schema {
         return funTable;
     }
 
+    /**
+     * Returns the cache of parsed MDX queries of statements against this
+     * schema.
+     */
+    public ParsedQueryCache getParsedQueryCache() {
+        return parsedQueryCache;
+    }
+
     @Override
 	public Parameter[] getParameters() {
         return parameterList.toArray(
@@ -17,10 +17,10 @@ import static mondrian.rolap.RolapConnectionProperties.UseSchemaPool;
 import java.io.IOException;
 import java.lang.ref.Reference;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
 
 import javax.sql.DataSource;
 
@@ -31,6 +31,7 @@ import org.slf4j.LoggerFactory;
 import mondrian.olap.Util;
 import mondrian.resource.MondrianResource;
 import mondrian.rolap.aggmatcher.JdbcSchema;
+import mondrian.server.metrics.MetricRegistry;
 import mondrian.spi.DynamicSchemaProcessor;
 import mondrian.util.ByteString;
 import mondrian.util.ClassResolver;
@@ -42,6 +43,11 @@ import mondrian.util.ExpiringReference;
  *
  * <p>To lookup a schema, call
  * <code>RolapSchemaPool.{@link #instance}().{@link #get}</code>.</p>
+ *
+ * <p>Looking up a schema takes no lock; only creating and removing schemas
+ * are serialized. The content of a catalog that is read from its URL is held
+ * in a {@link CatalogContentCache}, and is read again only if it may have
+ * changed.</p>
  */
 public class RolapSchemaPool {
     static final Logger LOGGER = LoggerFactory.getLogger(RolapSchemaPool.class);
@@ -50,7 +56,7 @@ public class RolapSchemaPool {
 
     private final Map<SchemaKey, ExpiringReference<RolapSchema>>
         mapKeyToSchema =
-            new HashMap<>();
+            new ConcurrentHashMap<>();
 
     // REVIEW: This map is now considered unsafe. If two schemas have identical
     // metadata but a different underlying database connection, we should not
@@ -58,11 +64,18 @@ public class RolapSchemaPool {
     // definition, this field can probably be removed.
     private final Map<ByteString, ExpiringReference<RolapSchema>>
         mapMd5ToSchema =
-            new HashMap<>();
+            new ConcurrentHashMap<>();
+
+    private final CatalogContentCache catalogContents =
+        new CatalogContentCache(Util::readVirtualFileAsString);
 
-    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ReentrantLock lock = new ReentrantLock();
 
     private RolapSchemaPool() {
+        MetricRegistry.instance().gauge(
+            "mondrian_schema_pool_size",
+            "Schemas held by the schema pool",
+            this::size);
     }
 
     public static RolapSchemaPool instance() {
@@ -143,9 +156,18 @@ public class RolapSchemaPool {
                 dataSourceStr,
                 sessionId);
 
-        final String catalogStr = getSchemaContent(connectInfo, catalogUrl);
-        final SchemaContentKey schemaContentKey =
-            SchemaContentKey.create(connectInfo, catalogUrl, catalogStr);
+        final String catalogStr;
+        final SchemaContentKey schemaContentKey;
+        final CatalogContentCache.Content content =
+            getCachedSchemaContent(connectInfo, catalogUrl);
+        if (content != null) {
+            catalogStr = content.catalogStr;
+            schemaContentKey = content.schemaContentKey;
+        } else {
+            catalogStr = getSchemaContent(connectInfo, catalogUrl);
+            schemaContentKey =
+                SchemaContentKey.create(connectInfo, catalogUrl, catalogStr);
+        }
         final SchemaKey key =
             new SchemaKey(
                 schemaContentKey,
@@ -170,6 +192,9 @@ public class RolapSchemaPool {
                 connectInfo,
                 pinSchemaTimeout,
                 catalogStr,
+                content != null
+                    ? content.getChecksum()
+                    : new ByteString(Util.digestSHA(catalogStr)),
                 key);
         }
         return getByKey(
@@ -182,21 +207,16 @@ public class RolapSchemaPool {
         T key,
         String pinSchemaTimeout)
     {
-        lock.readLock().lock();
-        try {
-            ExpiringReference<RolapSchema> ref = map.get(key);
-            if (LOGGER.isDebugEnabled()) {
-                LOGGER.debug("get(key={}) returned {}", key, toString(ref));
-            }
+        ExpiringReference<RolapSchema> ref = map.get(key);
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("get(key={}) returned {}", key, toString(ref));
+        }
 
-            if (ref != null) {
-                RolapSchema schema = ref.get(pinSchemaTimeout);
-                if (schema != null) {
-                    return schema;
-                }
+        if (ref != null) {
+            RolapSchema schema = ref.get(pinSchemaTimeout);
+            if (schema != null) {
+                return schema;
             }
-        } finally {
-            lock.readLock().unlock();
         }
 
         return null;
@@ -215,10 +235,10 @@ public class RolapSchemaPool {
             return schema;
         }
 
-        lock.writeLock().lock();
+        lock.lock();
         try {
             // We need to check once again, now under
-            // write lock's protection, because it is possible,
+            // the lock's protection, because it is possible,
             // that another thread has already replaced old ref
             // with a new one, having the same key.
             // If the condition were not checked, then this thread
@@ -241,7 +261,7 @@ public class RolapSchemaPool {
             putSchema(schema, null, pinSchemaTimeout);
             return schema;
         } finally {
-            lock.writeLock().unlock();
+            lock.unlock();
         }
     }
 
@@ -251,15 +271,15 @@ public class RolapSchemaPool {
         Util.PropertyList connectInfo,
         String pinSchemaTimeout,
         String catalogStr,
+        ByteString sha512Bytes,
         SchemaKey key)
     {
-        final ByteString sha512Bytes = new ByteString(Util.digestSHA(catalogStr));
         RolapSchema schema = lookUp(mapMd5ToSchema, sha512Bytes, pinSchemaTimeout);
         if (schema != null) {
             return schema;
         }
 
-        lock.writeLock().lock();
+        lock.lock();
         try {
             // The motivation for repeating lookup attempt is the same
             // as described in getByKey()
@@ -287,7 +307,7 @@ public class RolapSchemaPool {
             putSchema(schema, sha512Bytes, pinSchemaTimeout);
             return schema;
         } finally {
-            lock.writeLock().unlock();
+            lock.unlock();
         }
     }
 
@@ -342,6 +362,31 @@ public class RolapSchemaPool {
         }
     }
 
+    /**
+     * Returns the cached content of a catalog that is read from its URL, or
+     * null if the content is given in the connect string or produced by a
+     * dynamic schema processor.
+     */
+    private CatalogContentCache.Content getCachedSchemaContent(
+        final Util.PropertyList connectInfo,
+        final String catalogUrl)
+    {
+        if (Util.isEmpty(catalogUrl)
+            || !Util.isEmpty(
+                connectInfo.get(RolapConnectionProperties.CatalogContent.name()))
+            || !Util.isEmpty(
+                connectInfo.get(
+                    RolapConnectionProperties.DynamicSchemaProcessor.name())))
+        {
+            return null;
+        }
+        try {
+            return catalogContents.get(catalogUrl);
+        } catch (IOException e) {
+            throw Util.newError(e, "loading schema from url " + catalogUrl);
+        }
+    }
+
     private static String getSchemaContent(
         final Util.PropertyList connectInfo,
         final String catalogUrl)
@@ -442,6 +487,7 @@ public class RolapSchemaPool {
                 new StringBuilder("Pool.remove: schema \"").append(catalogUrl)
                 .append("\" and datasource string \"").append(dataSourceStr).append("\"").toString());
         }
+        catalogContents.invalidate(catalogUrl);
         remove(key);
     }
 
@@ -469,6 +515,7 @@ public class RolapSchemaPool {
                 new StringBuilder("Pool.remove: schema \"").append(catalogUrl)
                 .append("\" and datasource object").toString());
         }
+        catalogContents.invalidate(catalogUrl);
         remove(key);
     }
 
@@ -484,7 +531,7 @@ public class RolapSchemaPool {
     }
 
     private void remove(SchemaKey key) {
-        lock.writeLock().lock();
+        lock.lock();
         RolapSchema schema = null;
         try {
             Reference<RolapSchema> ref = mapKeyToSchema.get(key);
@@ -496,7 +543,7 @@ public class RolapSchemaPool {
             }
             mapKeyToSchema.remove(key);
         } finally {
-            lock.writeLock().unlock();
+            lock.unlock();
         }
 
         if (schema != null) {
@@ -505,7 +552,7 @@ public class RolapSchemaPool {
     }
 
     public void clear() {
-        lock.writeLock().lock();
+        lock.lock();
         List<RolapSchema> schemas = new ArrayList<>();
         try {
             if (RolapSchema.LOGGER.isDebugEnabled()) {
@@ -523,8 +570,9 @@ public class RolapSchemaPool {
             }
             mapKeyToSchema.clear();
             mapMd5ToSchema.clear();
+            catalogContents.clear();
         } finally {
-            lock.writeLock().unlock();
+            lock.unlock();
         }
 
         for (RolapSchema schema : schemas) {
@@ -539,27 +587,27 @@ public class RolapSchemaPool {
      * @return List of schemas in this pool
      */
     public List<RolapSchema> getRolapSchemas() {
-        lock.readLock().lock();
-        try {
-            List<RolapSchema> list = new ArrayList<>();
-            for (RolapSchema schema : Util.GcIterator
-                .over(mapKeyToSchema.values()))
-            {
-                list.add(schema);
-            }
-            return list;
-        } finally {
-            lock.readLock().unlock();
+        List<RolapSchema> list = new ArrayList<>();
+        for (RolapSchema schema : Util.GcIterator
+            .over(mapKeyToSchema.values()))
+        {
+            list.add(schema);
         }
+        return list;
+    }
+
+    /**
+     * Returns the number of schemas in this pool, including those whose
+     * reference has been cleared but not yet removed.
+     *
+     * @return Number of schemas in this pool
+     */
+    public int size() {
+        return mapKeyToSchema.size();
     }
 
     boolean contains(RolapSchema rolapSchema) {
-        lock.readLock().lock();
-        try {
-            return mapKeyToSchema.containsKey(rolapSchema.key);
-        } finally {
-            lock.readLock().unlock();
-        }
+        return mapKeyToSchema.containsKey(rolapSchema.key);
     }
 
     private static <T> String toString(Reference<T> ref) {
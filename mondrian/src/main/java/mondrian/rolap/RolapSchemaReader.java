@@ -11,9 +11,11 @@
 */
 package mondrian.rolap;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
@@ -238,8 +240,29 @@ public class RolapSchemaReader
     {
         final List<RolapMember> rolapMemberList = Util.cast(list);
         list.add(dataMember);
-        ((RolapHierarchy) hierarchy).getMemberReader().getMemberChildren(
-            (RolapMember) dataMember, rolapMemberList);
+        final MemberReader memberReader =
+            ((RolapHierarchy) hierarchy).getMemberReader();
+        if (!MondrianProperties.instance().EnableParentChildIndex.get()) {
+            memberReader.getMemberChildren(
+                (RolapMember) dataMember, rolapMemberList);
+            return;
+        }
+        // Children are read from the parent-child index, without SQL. Add
+        // the data members of all descendants, so that their values are
+        // aggregated at once, rather than each child aggregating its own
+        // children.
+        final Deque<RolapMember> stack = new ArrayDeque<>();
+        stack.push((RolapMember) dataMember);
+        final List<RolapMember> children = new ArrayList<>();
+        while (!stack.isEmpty()) {
+            children.clear();
+            memberReader.getMemberChildren(stack.pop(), children);
+            for (RolapMember child : children) {
+                final Member childDataMember = child.getDataMember();
+                list.add(childDataMember == null ? child : childDataMember);
+                stack.push(child);
+            }
+        }
     }
 
     @Override
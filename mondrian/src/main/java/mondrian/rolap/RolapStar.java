@@ -210,6 +210,31 @@ public class RolapStar {
         return null;
     }
 
+    /**
+     * Returns the segment in the local cache that contains the cell of a
+     * request, as {@link #getCellFromCache(CellRequest, RolapAggregationManager.PinSet)}
+     * finds it.
+     *
+     * @param request Cell request
+     * @return Segment, or null if the cell is not in any segment in the
+     * local cache
+     */
+    public SegmentWithData getSegmentFromCache(CellRequest request) {
+        AggregationKey aggregationKey = new AggregationKey(request);
+        for (SegmentWithData segment
+            : Util.GcIterator.over(localBars.get().segmentRefs))
+        {
+            if (segment.getConstrainedColumnsBitKey().equals(
+                    request.getConstrainedColumnsBitKey())
+                && segment.matches(aggregationKey, request.getMeasure())
+                && segment.getCellValue(request.getSingleValues()) != null)
+            {
+                return segment;
+            }
+        }
+        return null;
+    }
+
     public Object getCellFromAllCaches(final CellRequest request, RolapConnection rolapConnection) {
         // First, try the local/thread cache.
         Object result = getCellFromCache(request, null);
@@ -62,6 +62,7 @@ import mondrian.olap.Util;
 import mondrian.olap.fun.FunUtil;
 import mondrian.resource.MondrianResource;
 import mondrian.rolap.RolapHierarchy.LimitedRollupMember;
+import mondrian.rolap.sql.ParameterizedSql;
 import mondrian.server.Execution;
 import mondrian.server.Locus;
 import mondrian.server.Statement;
@@ -336,8 +337,7 @@ public class RolapUtil {
         Locus locus)
     {
         return executeQuery(
-                context, sql, null, 0, 0, locus, -1, -1,
-            getDefaultCallback(locus));
+                context, sql, null, 0, 0, locus, -1, -1, null);
     }
 
     /**
@@ -362,7 +362,11 @@ public class RolapUtil {
      * @param locus Execution context of this statement
      * @param resultSetType Result set type, or -1 to use default
      * @param resultSetConcurrency Result set concurrency, or -1 to use default
+     * @param callback Called with the JDBC statement before it executes, or
+     *   null to register the statement with the execution
      * @return ResultSet
+     *
+     * @see SqlSingleFlight
      */
     public static SqlStatement executeQuery(
         Context context,
@@ -375,6 +379,70 @@ public class RolapUtil {
         int resultSetConcurrency,
         Consumer<java.sql.Statement> callback)
     {
+        return executeQuery(
+            context, sql, types, maxRowCount, firstRowOrdinal, locus,
+            resultSetType, resultSetConcurrency, callback, false);
+    }
+
+    /**
+     * Executes a query, as
+     * {@link #executeQuery(Context, String, List, int, int, Locus, int, int, Consumer)},
+     * and says whether the caller reads its rows lazily.
+     *
+     * <p>A statement joins an identical statement through
+     * {@link SqlSingleFlight} only if it has no callback, the default result
+     * set type and concurrency, and is not streamed, because a flight reads
+     * all rows into memory before the first one is returned, and hands out a
+     * scroll-insensitive, read-only copy of them.
+     *
+     * @param streaming Whether the caller reads the rows one at a time, as
+     *   it needs them, rather than all at once
+     */
+    public static SqlStatement executeQuery(
+        Context context,
+        String sql,
+        List<BestFitColumnType> types,
+        int maxRowCount,
+        int firstRowOrdinal,
+        Locus locus,
+        int resultSetType,
+        int resultSetConcurrency,
+        Consumer<java.sql.Statement> callback,
+        boolean streaming)
+    {
+        return executeQuery(
+            context, ParameterizedSql.of(sql), types, maxRowCount,
+            firstRowOrdinal, locus, resultSetType, resultSetConcurrency,
+            callback, streaming);
+    }
+
+    /**
+     * Executes a query whose values are bind parameters, as
+     * {@link #executeQuery(Context, String, List, int, int, Locus, int, int, Consumer, boolean)}.
+     *
+     * @param sql SQL with a '?' for each bind parameter, and the parameters
+     */
+    public static SqlStatement executeQuery(
+        Context context,
+        ParameterizedSql sql,
+        List<BestFitColumnType> types,
+        int maxRowCount,
+        int firstRowOrdinal,
+        Locus locus,
+        int resultSetType,
+        int resultSetConcurrency,
+        Consumer<java.sql.Statement> callback,
+        boolean streaming)
+    {
+        if (callback == null
+            && resultSetType == -1
+            && resultSetConcurrency == -1
+            && !streaming
+            && SqlSingleFlight.isEnabled(locus))
+        {
+            return SqlSingleFlight.instance().execute(
+                context, sql, types, maxRowCount, firstRowOrdinal, locus);
+        }
         SqlStatement stmt =
             new SqlStatement(
                     context, sql, types, maxRowCount, firstRowOrdinal, locus,
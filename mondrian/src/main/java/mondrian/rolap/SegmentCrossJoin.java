@@ -0,0 +1,436 @@
+/*
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   SmartCity Jena - initial
+ */
+package mondrian.rolap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.collections.CollectionUtils;
+import org.eclipse.daanse.olap.api.model.Member;
+
+import mondrian.calc.TupleCollections;
+import mondrian.calc.TupleList;
+import mondrian.calc.impl.OrdinalTupleSet;
+import mondrian.rolap.agg.CellRequest;
+import mondrian.rolap.agg.SegmentWithData;
+import mondrian.server.Execution;
+import mondrian.util.CancellationChecker;
+
+/**
+ * Finds the non-empty tuples of a crossjoin of stored measures from the
+ * non-null cells of a segment which covers the crossjoin, rather than by
+ * evaluating each tuple of the crossjoin.
+ *
+ * <p>The crossjoin is given by its factors, the lists whose product it is.
+ * The cell request of a tuple of the crossjoin constrains the columns of the
+ * context and, for each factor, the columns of the factor's tuple. So the
+ * column values of every tuple follow from one request per tuple of each
+ * factor.
+ *
+ * <p>If the segment is not loaded yet, one cell is requested for each
+ * position of the longest factor, the i-th tuple of each factor together.
+ * The batch which loads these cells has every value of every column, so the
+ * segment it loads covers the crossjoin. Once loaded, only the non-null
+ * cells of the segment are visited, and the cost is in proportion to the
+ * number of non-empty cells and the sizes of the factors, not to the size
+ * of the crossjoin.
+ *
+ * @see mondrian.olap.fun.CrossJoinFunDef
+ */
+public class SegmentCrossJoin {
+  private final RolapEvaluator evaluator;
+  private final List<TupleList> factors;
+  private final Execution execution;
+  /** Indexes of non-empty tuples in the crossjoin, in no order. */
+  private long[] found = new long[ 16 ];
+  private int foundCount;
+  private boolean pending;
+  private int iteration;
+
+  private SegmentCrossJoin( RolapEvaluator evaluator, List<TupleList> factors ) {
+    this.evaluator = evaluator;
+    this.factors = factors;
+    this.execution = evaluator.getQuery().getStatement().getCurrentExecution();
+  }
+
+  /**
+   * Returns the tuples of a crossjoin for which some measure is not null, in
+   * the order of the crossjoin.
+   *
+   * <p>The context of the evaluator, apart from the hierarchies of the
+   * factors, is the context in which cells are read.
+   *
+   * @param evaluator Evaluator
+   * @param factors Lists whose crossjoin is to be filtered
+   * @param measures Stored measures
+   * @return Non-empty tuples; an empty list if cells had to be requested, to
+   * be read again after the evaluator loads them; or null if the cells
+   * cannot be read from a segment, and the tuples have to be evaluated
+   */
+  public static TupleList nonEmpty( RolapEvaluator evaluator, List<TupleList> factors, Collection<Member> measures ) {
+    if ( measures.isEmpty() || !CollectionUtils.isEmpty( evaluator.getAggregationLists() ) ) {
+      return null;
+    }
+    int arity = 0;
+    long size = 1;
+    for ( TupleList factor : factors ) {
+      arity += factor.getArity();
+      if ( factor.isEmpty() ) {
+        size = 0;
+      } else if ( size > Long.MAX_VALUE / factor.size() ) {
+        return null;
+      } else {
+        size *= factor.size();
+      }
+    }
+    if ( size == 0 ) {
+      return TupleCollections.emptyList( arity );
+    }
+    for ( Member measure : measures ) {
+      if ( measure.isCalculated() || !( measure instanceof RolapStoredMeasure ) ) {
+        return null;
+      }
+    }
+    for ( TupleList factor : factors ) {
+      for ( Member member : factor.get( 0 ) ) {
+        if ( !member.getHierarchy().hasAll() ) {
+          return null;
+        }
+      }
+      for ( List<Member> tuple : factor ) {
+        for ( Member member : tuple ) {
+          if ( member.isCalculated() ) {
+            return null;
+          }
+        }
+      }
+    }
+
+    final SegmentCrossJoin crossJoin = new SegmentCrossJoin( evaluator, factors );
+    final int savepoint = evaluator.savepoint();
+    try {
+      for ( Member measure : measures ) {
+        if ( !crossJoin.read( (RolapStoredMeasure) measure ) ) {
+          return null;
+        }
+      }
+    } finally {
+      evaluator.restore( savepoint );
+    }
+    if ( crossJoin.pending ) {
+      return TupleCollections.emptyList( arity );
+    }
+    return crossJoin.tuples( arity );
+  }
+
+  /**
+   * Adds the tuples which have a value of a measure.
+   *
+   * @return false if the cells cannot be read from a segment
+   */
+  private boolean read( RolapStoredMeasure measure ) {
+    evaluator.setContext( measure );
+    for ( TupleList factor : factors ) {
+      setAll( factor );
+    }
+    for ( Member member : evaluator.getMembers() ) {
+      if ( member.isCalculated() ) {
+        return false;
+      }
+    }
+    final CellRequest baseRequest = RolapAggregationManager.makeRequest( evaluator );
+    if ( baseRequest == null || baseRequest.isUnsatisfiable() ) {
+      // every cell of this measure is null
+      return true;
+    }
+    final Map<RolapStar.Column, Object> baseValues = new HashMap<>();
+    final RolapStar.Column[] baseColumns = baseRequest.getConstrainedColumns();
+    for ( int i = 0; i < baseColumns.length; i++ ) {
+      baseValues.put( baseColumns[i], baseRequest.getSingleValues()[i] );
+    }
+
+    // The columns and values of the tuples of each factor, in the context
+    // of the other factors at their 'all' members.
+    final FactorColumns[] factorColumns = new FactorColumns[factors.size()];
+    final Set<RolapStar.Column> usedColumns = new HashSet<>();
+    for ( int k = 0; k < factorColumns.length; k++ ) {
+      factorColumns[k] = new FactorColumns( factors.get( k ).size() );
+      for ( int i = 0; i < factors.get( k ).size(); i++ ) {
+        CancellationChecker.checkCancelOrTimeout( iteration++, execution );
+        evaluator.setContext( factors.get( k ).get( i ) );
+        if ( !factorColumns[k].add( i, RolapAggregationManager.makeRequest( evaluator ), baseValues ) ) {
+          return false;
+        }
+      }
+      setAll( factors.get( k ) );
+      if ( factorColumns[k].liveCount == 0 ) {
+        // every tuple of the factor is empty
+        return true;
+      }
+      if ( factorColumns[k].columns != null ) {
+        for ( RolapStar.Column column : factorColumns[k].columns ) {
+          if ( !usedColumns.add( column ) ) {
+            return false;
+          }
+        }
+      }
+    }
+
+    // Read the first cell. If it is not loaded, request one cell per
+    // position of the longest factor, and come back when they are loaded.
+    setDiagonal( factorColumns, 0 );
+    final Object value = evaluator.evaluateCurrent();
+    if ( value == RolapUtil.valueNotReadyException ) {
+      int count = 0;
+      for ( FactorColumns factor : factorColumns ) {
+        count = Math.max( count, factor.liveCount );
+      }
+      for ( int i = 1; i < count; i++ ) {
+        CancellationChecker.checkCancelOrTimeout( iteration++, execution );
+        setDiagonal( factorColumns, i );
+        evaluator.evaluateCurrent();
+      }
+      pending = true;
+      return true;
+    }
+    final CellRequest request = RolapAggregationManager.makeRequest( evaluator );
+    if ( request == null || request.isUnsatisfiable() ) {
+      return false;
+    }
+    final SegmentWithData segment = request.getMeasure().getStar().getSegmentFromCache( request );
+    if ( segment == null || !segment.getExcludedRegions().isEmpty() ) {
+      return false;
+    }
+    return read( segment, request, baseValues, factorColumns );
+  }
+
+  /**
+   * Adds the tuples which have a value in a segment.
+   */
+  private boolean read( SegmentWithData segment, CellRequest request, Map<RolapStar.Column, Object> baseValues,
+      FactorColumns[] factorColumns ) {
+    final RolapStar.Column[] segmentColumns = request.getConstrainedColumns();
+    // For each axis of the segment, the factor whose column it is, or -1,
+    // and the position of the column in the factor, or the ordinal of the
+    // context's value.
+    final int[] axisFactor = new int[segmentColumns.length];
+    final int[] axisPosition = new int[segmentColumns.length];
+    // For each factor, the axis of each of its columns.
+    final int[][] factorAxes = new int[factorColumns.length][];
+    for ( int k = 0; k < factorColumns.length; k++ ) {
+      factorAxes[k] = new int[factorColumns[k].columns == null ? 0 : factorColumns[k].columns.size()];
+    }
+    for ( int a = 0; a < segmentColumns.length; a++ ) {
+      axisFactor[a] = -1;
+      final Object baseValue = baseValues.get( segmentColumns[a] );
+      if ( baseValue != null ) {
+        final int offset = segment.getAxisOffset( a, baseValue );
+        if ( offset == -2 ) {
+          return false;
+        } else if ( offset == -1 ) {
+          // every cell of the context is null
+          return true;
+        }
+        axisPosition[a] = offset;
+        continue;
+      }
+      for ( int k = 0; k < factorColumns.length; k++ ) {
+        final int j = factorColumns[k].columns == null ? -1 : factorColumns[k].columns.indexOf( segmentColumns[a] );
+        if ( j >= 0 ) {
+          axisFactor[a] = k;
+          axisPosition[a] = j;
+          factorAxes[k][j] = a;
+        }
+      }
+      if ( axisFactor[a] < 0 ) {
+        return false;
+      }
+    }
+
+    // Index the tuples of each factor by the ordinals of their values.
+    final OrdinalTupleSet[] sets = new OrdinalTupleSet[factorColumns.length];
+    final int[][] next = new int[factorColumns.length][];
+    final int[][] keys = new int[factorColumns.length][];
+    for ( int k = 0; k < factorColumns.length; k++ ) {
+      final FactorColumns factor = factorColumns[k];
+      final int width = factorAxes[k].length;
+      sets[k] = new OrdinalTupleSet( width, factor.liveCount );
+      next[k] = new int[factor.values.length];
+      keys[k] = new int[width];
+      for ( int i = 0; i < factor.values.length; i++ ) {
+        if ( factor.values[i] == null ) {
+          continue;
+        }
+        boolean empty = false;
+        for ( int j = 0; j < width; j++ ) {
+          final int offset = segment.getAxisOffset( factorAxes[k][j], factor.values[i][j] );
+          if ( offset == -2 ) {
+            return false;
+          } else if ( offset == -1 ) {
+            empty = true;
+            break;
+          }
+          keys[k][j] = offset;
+        }
+        if ( !empty ) {
+          next[k][i] = sets[k].put( keys[k], i );
+        }
+      }
+    }
+
+    final int[] heads = new int[factorColumns.length];
+    for ( Map.Entry<CellKey, Object> entry : segment.getData() ) {
+      if ( entry.getValue() == null ) {
+        continue;
+      }
+      CancellationChecker.checkCancelOrTimeout( iteration++, execution );
+      final CellKey cellKey = entry.getKey();
+      boolean match = true;
+      for ( int a = 0; a < axisFactor.length && match; a++ ) {
+        final int ordinal = cellKey.getAxis( a );
+        if ( axisFactor[a] < 0 ) {
+          match = ordinal == axisPosition[a];
+        } else {
+          keys[axisFactor[a]][axisPosition[a]] = ordinal;
+        }
+      }
+      for ( int k = 0; k < factorColumns.length && match; k++ ) {
+        heads[k] = sets[k].get( keys[k] );
+        match = heads[k] >= 0;
+      }
+      if ( match ) {
+        addProduct( heads, next, 0, 0 );
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Adds the tuples of the crossjoin made of the tuples in the chains that
+   * start at {@code heads}, from factor {@code k} on.
+   */
+  private void addProduct( int[] heads, int[][] next, int k, long index ) {
+    if ( k == heads.length ) {
+      if ( foundCount == found.length ) {
+        found = Arrays.copyOf( found, foundCount * 2 );
+      }
+      found[foundCount++] = index;
+      return;
+    }
+    final long size = factors.get( k ).size();
+    for ( int i = heads[k]; i >= 0; i = next[k][i] ) {
+      addProduct( heads, next, k + 1, index * size + i );
+    }
+  }
+
+  private TupleList tuples( int arity ) {
+    Arrays.sort( found, 0, foundCount );
+    final TupleList result = TupleCollections.createList( arity, foundCount );
+    final Member[] members = new Member[arity];
+    for ( int n = 0; n < foundCount; n++ ) {
+      if ( n > 0 && found[n] == found[n - 1] ) {
+        continue;
+      }
+      long index = found[n];
+      int end = arity;
+      for ( int k = factors.size() - 1; k >= 0; k-- ) {
+        final TupleList factor = factors.get( k );
+        final List<Member> tuple = factor.get( (int) ( index % factor.size() ) );
+        index /= factor.size();
+        end -= factor.getArity();
+        for ( int j = 0; j < tuple.size(); j++ ) {
+          members[end + j] = tuple.get( j );
+        }
+      }
+      result.addTuple( members );
+    }
+    return result;
+  }
+
+  private void setAll( TupleList factor ) {
+    for ( Member member : factor.get( 0 ) ) {
+      evaluator.setContext( member.getHierarchy().getAllMember() );
+    }
+  }
+
+  /**
+   * Sets the context to the i-th live tuple of each factor, or the last
+   * one if the factor has fewer.
+   */
+  private void setDiagonal( FactorColumns[] factorColumns, int i ) {
+    for ( int k = 0; k < factorColumns.length; k++ ) {
+      final int[] live = factorColumns[k].live;
+      evaluator.setContext( factors.get( k ).get( live[Math.min( i, factorColumns[k].liveCount - 1 )] ) );
+    }
+  }
+
+  /**
+   * Columns of the tuples of a factor, and the values of each tuple.
+   */
+  private static class FactorColumns {
+    /** Columns which the tuples constrain, beyond the context's. */
+    List<RolapStar.Column> columns;
+    /** Values of each tuple, or null if its cells are all null. */
+    final Object[][] values;
+    /** Indexes of tuples whose cells are not all null. */
+    final int[] live;
+    int liveCount;
+
+    FactorColumns( int size ) {
+      values = new Object[size][];
+      live = new int[size];
+    }
+
+    /**
+     * Adds the request of a tuple.
+     *
+     * @return false if the tuple constrains other columns than the other
+     * tuples, or a column of the context
+     */
+    boolean add( int i, CellRequest request, Map<RolapStar.Column, Object> baseValues ) {
+      if ( request == null || request.isUnsatisfiable() ) {
+        return true;
+      }
+      final RolapStar.Column[] requestColumns = request.getConstrainedColumns();
+      final Object[] requestValues = request.getSingleValues();
+      final List<RolapStar.Column> tupleColumns = new ArrayList<>();
+      final Object[] tupleValues = new Object[requestColumns.length];
+      for ( int c = 0; c < requestColumns.length; c++ ) {
+        final Object baseValue = baseValues.get( requestColumns[c] );
+        if ( baseValue == null ) {
+          tupleValues[tupleColumns.size()] = requestValues[c];
+          tupleColumns.add( requestColumns[c] );
+        } else if ( !baseValue.equals( requestValues[c] ) ) {
+          return false;
+        }
+      }
+      if ( tupleColumns.size() + baseValues.size() != requestColumns.length ) {
+        return false;
+      }
+      if ( columns == null ) {
+        columns = tupleColumns;
+      } else if ( !columns.equals( tupleColumns ) ) {
+        return false;
+      }
+      values[i] = Arrays.copyOf( tupleValues, tupleColumns.size() );
+      live[liveCount++] = i;
+      return true;
+    }
+  }
+}
@@ -0,0 +1,390 @@
+/*
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   SmartCity Jena - initial
+ */
+package mondrian.rolap;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+import java.util.function.IntSupplier;
+
+import javax.sql.DataSource;
+
+import mondrian.olap.MondrianProperties;
+import mondrian.server.metrics.EngineMetrics;
+import mondrian.server.monitor.SqlStatementEvent.Purpose;
+
+/**
+ * Limits the number of SQL statements that run at the same time against one
+ * data source.
+ *
+ * <p>Each data source has its own limiter, so a slow database does not hold
+ * up statements against another one. The limit is at most
+ * {@link MondrianProperties#QueryLimit}. If
+ * {@link MondrianProperties#QueryLimitAdaptive} is true, the limit follows
+ * the latency of the statements: it grows by one for every <i>limit</i>
+ * statements whose latency is normal while the limit is in use, and shrinks
+ * by a tenth when the recent latency of a kind of statement rises well above
+ * its long-term average, which is the sign of a database that has more work
+ * than it can do.</p>
+ *
+ * <p>Statements wait in lanes, one for each {@link Purpose}, so that
+ * statements of one purpose, such as drill-throughs, do not keep statements of
+ * another purpose, such as cell loads, waiting. When a permit becomes free,
+ * the lanes that have waiting statements take turns; a lane that holds half
+ * of the limit or more gets no further permits while another lane is waiting.
+ * Within a lane, the sessions that have waiting statements take turns, and the
+ * statements of a session run in the order they arrived.</p>
+ *
+ * <p>The time statements wait is recorded in
+ * {@link EngineMetrics#sqlQueueSeconds}.</p>
+ *
+ * <p>All methods are thread-safe.</p>
+ */
+class SqlConcurrencyLimiter {
+    private static final Map<DataSource, SqlConcurrencyLimiter> LIMITERS =
+        Collections.synchronizedMap(new WeakHashMap<>());
+
+    /** Smallest adaptive limit. Statements that open another statement
+     * while they run need more than one permit. */
+    static final int MIN_LIMIT = 4;
+
+    /** Number of statements of a lane before its latency is judged. */
+    private static final int WARM_UP = 20;
+
+    /** Ratio of recent to long-term latency above which the limit
+     * shrinks. */
+    private static final double TOLERANCE = 2.0;
+
+    private final IntSupplier maxLimit;
+    private final BooleanSupplier adaptive;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Lane[] lanes;
+    private double limit;
+    private int inFlight;
+    private int queued;
+    private int nextLane;
+
+    /**
+     * Creates a <code>SqlConcurrencyLimiter</code>.
+     *
+     * @param maxLimit Maximum number of statements at the same time
+     * @param adaptive Whether the limit follows the latency of statements
+     */
+    SqlConcurrencyLimiter(IntSupplier maxLimit, BooleanSupplier adaptive) {
+        this.maxLimit = maxLimit;
+        this.adaptive = adaptive;
+        this.limit = Math.max(1, maxLimit.getAsInt());
+        this.lanes = new Lane[Purpose.values().length];
+        for (Purpose purpose : Purpose.values()) {
+            lanes[purpose.ordinal()] = new Lane(purpose);
+        }
+    }
+
+    /**
+     * Returns the limiter of a data source, creating it if necessary.
+     *
+     * @param dataSource Data source
+     * @return Limiter
+     */
+    static SqlConcurrencyLimiter forDataSource(DataSource dataSource) {
+        return LIMITERS.computeIfAbsent(
+            dataSource,
+            ds -> new SqlConcurrencyLimiter(
+                () -> MondrianProperties.instance().QueryLimit.get(),
+                () -> MondrianProperties.instance().QueryLimitAdaptive.get()));
+    }
+
+    /**
+     * Waits until a statement may run.
+     *
+     * <p>The caller must call {@link #release} exactly once, whether or not
+     * the statement ran successfully.</p>
+     *
+     * @param purpose Purpose of statement
+     * @param session Session that issues the statement; may be null
+     * @return Permit
+     * @throws InterruptedException if interrupted while waiting; the caller
+     *   then holds no permit
+     */
+    Permit acquire(Purpose purpose, Object session)
+        throws InterruptedException
+    {
+        final long start = System.nanoTime();
+        final Lane lane = lanes[purpose.ordinal()];
+        lock.lock();
+        try {
+            refreshLimit();
+            dispatch();
+            if (lane.queued == 0 && mayGrant(lane)) {
+                grant(lane);
+            } else {
+                final Waiter waiter = new Waiter(lock.newCondition());
+                lane.enqueue(session, waiter);
+                ++queued;
+                try {
+                    while (!waiter.granted) {
+                        waiter.condition.await();
+                    }
+                } catch (InterruptedException e) {
+                    if (waiter.granted) {
+                        releaseLocked(lane);
+                    } else {
+                        lane.remove(session, waiter);
+                        --queued;
+                        // This waiter may have kept another lane waiting.
+                        dispatch();
+                    }
+                    throw e;
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        final long queueNanos = System.nanoTime() - start;
+        EngineMetrics.sqlQueueSeconds(purpose)
+            .observe(queueNanos / 1_000_000_000d);
+        return new Permit(lane);
+    }
+
+    /**
+     * Returns a permit, and records the latency of the statement.
+     *
+     * @param permit Permit returned by {@link #acquire}
+     * @param executeNanos Time the statement took to execute, or a negative
+     *   value if it did not execute
+     */
+    void release(Permit permit, long executeNanos) {
+        lock.lock();
+        try {
+            if (permit.released) {
+                return;
+            }
+            permit.released = true;
+            if (executeNanos >= 0 && adaptive.getAsBoolean()) {
+                adapt(permit.lane, executeNanos);
+            }
+            releaseLocked(permit.lane);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the current limit.
+     */
+    int getLimit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of statements that hold a permit.
+     */
+    int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of statements that are waiting for a permit.
+     */
+    int getQueued() {
+        lock.lock();
+        try {
+            return queued;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void refreshLimit() {
+        final int max = Math.max(1, maxLimit.getAsInt());
+        if (!adaptive.getAsBoolean()) {
+            limit = max;
+        } else if (limit > max) {
+            limit = max;
+        }
+    }
+
+    private boolean mayGrant(Lane lane) {
+        if (inFlight >= (int) limit) {
+            return false;
+        }
+        if (lane.inFlight * 2 < (int) limit) {
+            return true;
+        }
+        for (Lane other : lanes) {
+            if (other != lane && other.queued > 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void grant(Lane lane) {
+        ++inFlight;
+        ++lane.inFlight;
+    }
+
+    private void releaseLocked(Lane lane) {
+        --inFlight;
+        --lane.inFlight;
+        dispatch();
+    }
+
+    /**
+     * Grants permits to waiting statements while the limit allows, the lanes
+     * taking turns.
+     */
+    private void dispatch() {
+        while (queued > 0 && inFlight < (int) limit) {
+            Lane chosen = null;
+            for (int i = 0; i < lanes.length; i++) {
+                final Lane lane = lanes[(nextLane + i) % lanes.length];
+                if (lane.queued > 0 && mayGrant(lane)) {
+                    chosen = lane;
+                    nextLane = (lane.purpose.ordinal() + 1) % lanes.length;
+                    break;
+                }
+            }
+            if (chosen == null) {
+                return;
+            }
+            final Waiter waiter = chosen.dequeue();
+            --queued;
+            grant(chosen);
+            waiter.granted = true;
+            waiter.condition.signal();
+        }
+    }
+
+    private void adapt(Lane lane, long executeNanos) {
+        final double nanos = executeNanos;
+        if (lane.samples++ == 0) {
+            lane.shortAverage = nanos;
+            lane.longAverage = nanos;
+            return;
+        }
+        lane.shortAverage += (nanos - lane.shortAverage) * 0.2;
+        lane.longAverage += (nanos - lane.longAverage) * 0.01;
+        if (lane.samples < WARM_UP) {
+            return;
+        }
+        final int max = Math.max(1, maxLimit.getAsInt());
+        if (lane.shortAverage > TOLERANCE * lane.longAverage) {
+            limit = Math.max(Math.min(MIN_LIMIT, max), limit * 0.9);
+            // Judge the new limit on new statements.
+            lane.shortAverage = lane.longAverage;
+        } else if (inFlight >= (int) limit - 1) {
+            limit = Math.min(max, limit + 1 / limit);
+        }
+    }
+
+    /**
+     * Permission for a statement to run.
+     */
+    static class Permit {
+        private final Lane lane;
+        private boolean released;
+
+        private Permit(Lane lane) {
+            this.lane = lane;
+        }
+    }
+
+    private static class Waiter {
+        private final Condition condition;
+        private boolean granted;
+
+        Waiter(Condition condition) {
+            this.condition = condition;
+        }
+    }
+
+    /**
+     * Statements of one purpose, their waiting queues by session, and their
+     * latency.
+     */
+    private static class Lane {
+        private final Purpose purpose;
+        private final Map<Object, ArrayDeque<Waiter>> waitersBySession =
+            new HashMap<>();
+        /** Sessions that have waiting statements, in the order in which they
+         * get their next permit. */
+        private final ArrayDeque<Object> sessions = new ArrayDeque<>();
+        private int queued;
+        private int inFlight;
+        private long samples;
+        private double shortAverage;
+        private double longAverage;
+
+        Lane(Purpose purpose) {
+            this.purpose = purpose;
+        }
+
+        void enqueue(Object session, Waiter waiter) {
+            final Object key = key(session);
+            ArrayDeque<Waiter> waiters = waitersBySession.get(key);
+            if (waiters == null) {
+                waiters = new ArrayDeque<>();
+                waitersBySession.put(key, waiters);
+                sessions.add(key);
+            }
+            waiters.add(waiter);
+            ++queued;
+        }
+
+        Waiter dequeue() {
+            final Object key = sessions.poll();
+            final ArrayDeque<Waiter> waiters = waitersBySession.get(key);
+            final Waiter waiter = waiters.poll();
+            if (waiters.isEmpty()) {
+                waitersBySession.remove(key);
+            } else {
+                // The session goes to the back of the line.
+                sessions.add(key);
+            }
+            --queued;
+            return waiter;
+        }
+
+        void remove(Object session, Waiter waiter) {
+            final Object key = key(session);
+            final ArrayDeque<Waiter> waiters = waitersBySession.get(key);
+            if (waiters != null && waiters.remove(waiter)) {
+                --queued;
+                if (waiters.isEmpty()) {
+                    waitersBySession.remove(key);
+                    sessions.remove(key);
+                }
+            }
+        }
+
+        private static Object key(Object session) {
+            return session == null ? Lane.class : session;
+        }
+    }
+}
@@ -499,7 +499,7 @@ private static final Logger LOG = LoggerFactory.getLogger( SqlConstraintUtils.cl
 
       // No extra slicers.... just use the = method
       final StringBuilder buf = new StringBuilder();
-      sqlQuery.getDialect().quote( buf, value, column.getDatatype() );
+      sqlQuery.quote( buf, value, column.getDatatype() );
       sqlQuery.addWhere( expr, " = ", buf.toString() );
     }
   }
@@ -1418,7 +1418,7 @@ private static final Logger LOG = LoggerFactory.getLogger( SqlConstraintUtils.cl
 
         }
         final StringBuilder buf = new StringBuilder();
-        query.getDialect().quote( buf, columnValue, datatype );
+        query.quote( buf, columnValue, datatype );
         CharSequence value = buf;
         if ( caseSensitive && datatype == Datatype.STRING) {
           // Some databases (like DB2) compare case-sensitive.
@@ -1492,11 +1492,85 @@ private static final Logger LOG = LoggerFactory.getLogger( SqlConstraintUtils.cl
       final StringBuilder buf = new StringBuilder();
       buf.append( columnString );
       buf.append( " = " );
-      query.getDialect().quote( buf, columnValue, datatype );
+      query.quote( buf, columnValue, datatype );
       return buf.toString();
     }
   }
 
+  /**
+   * Generates a sql expression constraining the key of a level to a set of values, or null if the set is too large to
+   * be written as an IN list for the dialect.
+   *
+   * @param level
+   *          the level
+   * @param query
+   *          the query that the sql expression will be added to
+   * @param baseCube
+   *          base cube for virtual levels
+   * @param aggStar
+   *          aggregate star if available
+   * @param keys
+   *          key values; {@link RolapUtil#sqlNullValue} stands for the null key
+   *
+   * @return generated expression, or null
+   */
+  public static String constrainLevelKeys( RolapLevel level, SqlQuery query, RolapCube baseCube, AggStar aggStar,
+      Collection<Object> keys ) {
+    if ( keys.isEmpty() ) {
+      return "(1 = 0)";
+    }
+    if ( keys.size() > MondrianProperties.instance().MaxConstraints.get()
+        && !query.getDialect().supportsUnlimitedValueList() ) {
+      return null;
+    }
+    // this method can be called within the context of shared members,
+    // outside of the normal rolap star, therefore we need to
+    // check the level to see if it is a shared or cube level.
+    RolapStar.Column column = null;
+    if ( level instanceof RolapCubeLevel rolapCubeLevel ) {
+      column = rolapCubeLevel.getBaseStarKeyColumn( baseCube );
+    }
+    final String columnString;
+    if ( column != null ) {
+      if ( aggStar != null ) {
+        AggStar.Table.Column aggColumn = aggStar.lookupColumn( column.getBitPosition() );
+        if ( aggColumn == null ) {
+          return null;
+        }
+        columnString = aggColumn.generateExprString( query );
+      } else {
+        columnString = column.generateExprString( query );
+      }
+    } else {
+      if ( aggStar != null ) {
+        return null;
+      }
+      columnString = getExpression( level.getKeyExp(), query );
+    }
+    final StringBuilder buf = new StringBuilder( "(" );
+    int valueCount = 0;
+    boolean containsNull = false;
+    for ( Object key : keys ) {
+      if ( key == RolapUtil.sqlNullValue ) {
+        containsNull = true;
+        continue;
+      }
+      buf.append( valueCount++ == 0 ? columnString + " IN (" : ", " );
+      query.quote( buf, key, level.getDatatype() );
+    }
+    if ( valueCount > 0 ) {
+      buf.append( ")" );
+    }
+    if ( containsNull ) {
+      if ( valueCount > 0 ) {
+        buf.append( " OR " );
+      }
+      buf.append( columnString ).append( " IS " ).append( RolapUtil.SQL_NULL_LITERAL );
+    }
+    return buf.append( ")" ).toString();
+  }
+
+
   /**
    * Generates a multi-value IN expression corresponding to a list of member expressions, and adds the expression to the
    * WHERE clause of a query, provided the member values are all non-null
@@ -1599,7 +1673,7 @@ private static final Logger LOG = LoggerFactory.getLogger( SqlConstraintUtils.cl
           memberBuf.append( ", " );
         }
 
-        sqlQuery.getDialect().quote( memberBuf, value, level.getDatatype() );
+        sqlQuery.quote( memberBuf, value, level.getDatatype() );
 
         // Only needs to compare up to the first(lowest) unique level.
         if ( p.getLevel() == fromLevel ) {
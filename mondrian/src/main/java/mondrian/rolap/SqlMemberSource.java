@@ -21,9 +21,13 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.function.Predicate;
 
 import mondrian.rolap.TupleReader.MemberBuilder;
 import org.eclipse.daanse.db.dialect.api.BestFitColumnType;
@@ -81,6 +85,9 @@ class SqlMemberSource
     private int lastOrdinal = 0;
     private boolean assignOrderKeys;
     private Map<Object, Object> valuePool;
+    private ParentChildIndex parentChildIndex;
+    /** Generation of the member cache when the index was read. */
+    private long parentChildIndexGeneration;
 
     SqlMemberSource(RolapHierarchy hierarchy) {
         this.hierarchy = hierarchy;
@@ -911,22 +918,121 @@ RME is this right
         RolapLevel childLevel =
             getCommonChildLevelForDescendants(parentMembers);
         if (childLevel != null) {
-            TupleConstraint lmc =
-                sqlConstraintFactory.getDescendantsConstraint(
-                    parentMembers, mcc);
-            List<RolapMember> list =
-                getMembersInLevel(childLevel, lmc);
-            children.addAll(list);
+            getMemberChildrenInLevel(
+                parentMembers, childLevel, children, mcc);
             return Util.toNullValuesMap(children);
         }
 
-        // fetch them one by one
+        // Parents are in different levels. Fetch the children of the parents
+        // in each level at once, and the others one by one, and return them
+        // in the order of their parents.
+        final Map<RolapLevel, List<RolapMember>> parentsByLevel =
+            new LinkedHashMap<>();
+        for (RolapMember parentMember : parentMembers) {
+            if (getChildLevelForDescendants(parentMember) != null) {
+                parentsByLevel.computeIfAbsent(
+                    parentMember.getLevel(), k -> new ArrayList<>())
+                    .add(parentMember);
+            }
+        }
+        final Map<RolapMember, List<RolapMember>> childrenByParent =
+            new HashMap<>();
+        for (List<RolapMember> parents : parentsByLevel.values()) {
+            if (parents.size() < 2) {
+                continue;
+            }
+            final List<RolapMember> list = new ArrayList<>();
+            getMemberChildrenInLevel(
+                parents, getChildLevelForDescendants(parents.get(0)), list,
+                mcc);
+            for (RolapMember parent : parents) {
+                childrenByParent.put(parent, new ArrayList<>());
+            }
+            for (RolapMember child : list) {
+                final List<RolapMember> siblings =
+                    childrenByParent.get(child.getParentMember());
+                if (siblings != null) {
+                    siblings.add(child);
+                }
+            }
+        }
         for (RolapMember parentMember : parentMembers) {
-            getMemberChildren(parentMember, children, mcc);
+            final List<RolapMember> list = childrenByParent.get(parentMember);
+            if (list != null) {
+                children.addAll(list);
+            } else {
+                getMemberChildren(parentMember, children, mcc);
+            }
         }
         return Util.toNullValuesMap(children);
     }
 
+    /**
+     * Reads the children of parents which all belong to the same level.
+     *
+     * <p>If the dialect limits the number of values in an IN list, the
+     * parents are split into chunks of at most
+     * {@link MondrianProperties#MaxConstraints} parents, and one statement
+     * is executed per chunk; unless the parents are at least half of the
+     * members of their level, in which case it is cheaper to read all
+     * members of the child level with one statement, and discard the
+     * children of other parents.</p>
+     *
+     * @param parentMembers Parents, all in the same level
+     * @param childLevel Child level
+     * @param children List to which to append children
+     * @param mcc Constraint
+     */
+    private void getMemberChildrenInLevel(
+        List<RolapMember> parentMembers,
+        RolapLevel childLevel,
+        List<RolapMember> children,
+        MemberChildrenConstraint mcc)
+    {
+        int chunkSize = parentMembers.size();
+        final int maxConstraints =
+            MondrianProperties.instance().MaxConstraints.get();
+        if (chunkSize > maxConstraints
+            && !context.getDialect().supportsUnlimitedValueList())
+        {
+            final RolapLevel parentLevel = parentMembers.get(0).getLevel();
+            final int parentCount =
+                hierarchy.getRolapSchema().getSchemaReader()
+                    .getLevelCardinality(parentLevel, true, false);
+            if (parentCount == Integer.MIN_VALUE
+                || parentMembers.size() * 2 < parentCount)
+            {
+                chunkSize = maxConstraints;
+            }
+        }
+        for (int i = 0; i < parentMembers.size(); i += chunkSize) {
+            final List<RolapMember> chunk =
+                parentMembers.subList(
+                    i, Math.min(parentMembers.size(), i + chunkSize));
+            if (chunk.size() == 1) {
+                getMemberChildren(chunk.get(0), children, mcc);
+                continue;
+            }
+            TupleConstraint lmc =
+                sqlConstraintFactory.getDescendantsConstraint(chunk, mcc);
+            List<RolapMember> list =
+                getMembersInLevel(childLevel, lmc);
+            if (chunk.size() > maxConstraints
+                && !context.getDialect().supportsUnlimitedValueList())
+            {
+                // The statement read the whole level.
+                final Set<RolapMember> parentSet = new HashSet<>(chunk);
+                for (RolapMember child : list) {
+                    if (parentSet.contains(child.getParentMember())) {
+                        children.add(child);
+                    }
+                }
+            } else {
+                children.addAll(list);
+            }
+        }
+    }
+
     @Override
 	public void getMemberChildren(
         RolapMember parentMember,
@@ -970,31 +1076,44 @@ RME is this right
         RolapLevel parentLevel = null;
         RolapLevel childLevel = null;
         for (RolapMember member : parents) {
-            // we can not fetch children of calc members
-            if (member.isCalculated()) {
-                return null;
-            }
             // first round?
             if (parentLevel == null) {
-                parentLevel = member.getLevel();
-                // check for parent/child
-                if (parentLevel.isParentChild()) {
-                    return null;
-                }
-                childLevel = (RolapLevel) parentLevel.getChildLevel();
+                childLevel = getChildLevelForDescendants(member);
                 if (childLevel == null) {
                     return null;
                 }
-                if (childLevel.isParentChild()) {
-                    return null;
-                }
-            } else if (parentLevel != member.getLevel()) {
+                parentLevel = member.getLevel();
+            } else if (parentLevel != member.getLevel()
+                || member.isCalculated())
+            {
                 return null;
             }
         }
         return childLevel;
     }
 
+    /**
+     * Returns the child level of a member, if the member's children can be
+     * fetched together with those of other members in its level; otherwise
+     * null.
+     */
+    private static RolapLevel getChildLevelForDescendants(RolapMember member) {
+        // we can not fetch children of calc members
+        if (member.isCalculated()) {
+            return null;
+        }
+        final RolapLevel parentLevel = member.getLevel();
+        // check for parent/child
+        if (parentLevel.isParentChild()) {
+            return null;
+        }
+        final RolapLevel childLevel = (RolapLevel) parentLevel.getChildLevel();
+        if (childLevel == null || childLevel.isParentChild()) {
+            return null;
+        }
+        return childLevel;
+    }
+
     @SuppressWarnings("java:S2201") // not remove call consolidate in ConcatenableList
     private void getMemberChildren2(
         RolapMember parentMember,
@@ -1009,6 +1128,10 @@ RME is this right
         final RolapLevel parentLevel = parentMember.getLevel();
         RolapLevel childLevel;
         if (parentLevel.isParentChild()) {
+            if (MondrianProperties.instance().EnableParentChildIndex.get()) {
+                getMemberChildrenFromIndex(parentMember, parentLevel, children);
+                return;
+            }
             pair = makeChildMemberSqlPC(parentMember);
             parentChild = true;
             childLevel = parentLevel;
@@ -1019,6 +1142,12 @@ RME is this right
                 return;
             }
             if (childLevel.isParentChild()) {
+                if (MondrianProperties.instance().EnableParentChildIndex.get())
+                {
+                    getMemberChildrenFromIndex(
+                        parentMember, childLevel, children);
+                    return;
+                }
                 pair = makeChildMemberSqlPCRoot(parentMember);
                 parentChild = true;
             } else {
@@ -1117,6 +1246,22 @@ RME is this right
         Object key,
         int columnOffset)
         throws SQLException
+    {
+        return makeMember(
+            parentMember, childLevel, value, captionValue, parentChild,
+            stmt.getAccessors(), key, columnOffset);
+    }
+
+    private RolapMember makeMember(
+        RolapMember parentMember,
+        RolapLevel childLevel,
+        Object value,
+        Object captionValue,
+        boolean parentChild,
+        List<SqlStatement.Accessor> accessors,
+        Object key,
+        int columnOffset)
+        throws SQLException
     {
         final RolapLevel rolapChildLevel;
         if (childLevel instanceof RolapCubeLevel rolapCubeLevel) {
@@ -1148,7 +1293,6 @@ RME is this right
                     parentMember, rolapChildLevel, value, member);
         }
         Property[] properties = childLevel.getProperties();
-        final List<SqlStatement.Accessor> accessors = stmt.getAccessors();
         if(assignOrderKeys && childLevel.getOrdinalExp() != null) {
             if (!childLevel.getOrdinalExp().equals(childLevel.getKeyExp())) {
                 Object orderKey = accessors.get(columnOffset).get();
@@ -1359,7 +1503,7 @@ RME is this right
         String parentId = getExpression(level.getParentExp(), sqlQuery);
 
         StringBuilder buf = new StringBuilder();
-        sqlQuery.getDialect().quote(buf, member.getKey(), level.getDatatype());
+        sqlQuery.quote(buf, member.getKey(), level.getDatatype());
         sqlQuery.addWhere(parentId, " = ", buf.toString());
 
         hierarchy.addToFrom(sqlQuery, level.getKeyExp());
@@ -1394,6 +1538,223 @@ RME is this right
         return sqlQuery.toSqlAndTypes();
     }
 
+    /**
+     * Reads the children of a member of a parent-child hierarchy, or the root
+     * members if the member is the 'all' member, from the
+     * {@link ParentChildIndex} of the parent-child level.
+     */
+    private void getMemberChildrenFromIndex(
+        RolapMember parentMember,
+        RolapLevel childLevel,
+        List<RolapMember> children)
+    {
+        final ParentChildIndex index = getParentChildIndex(childLevel);
+        final List<Object[]> rows =
+            parentMember.getLevel().isParentChild()
+                ? index.getChildRows(parentMember.getKey())
+                : index.getRootRows();
+        if (rows.isEmpty()) {
+            return;
+        }
+        final int limit = MondrianProperties.instance().ResultLimit.get();
+        if (limit > 0 && limit < rows.size()) {
+            // result limit exceeded, as if the rows were read by SQL
+            throw MondrianResource.instance().MemberFetchLimitExceeded
+                .ex(limit);
+        }
+        // Members are built from the rows as if they were read from a
+        // statement; accessor i returns column i of the current row.
+        final Object[][] current = new Object[1][];
+        final List<SqlStatement.Accessor> accessors = new ArrayList<>();
+        for (int i = 0; i < rows.get(0).length; i++) {
+            final int column = i;
+            accessors.add(() -> current[0][column]);
+        }
+        final RolapMember parentMember2 = RolapUtil.strip(parentMember);
+        boolean checkCacheStatus = true;
+        try {
+            for (Object[] row : rows) {
+                current[0] = row;
+                final Object value =
+                    row[0] == null ? RolapUtil.sqlNullValue : row[0];
+                Object captionValue = null;
+                int columnOffset = 1;
+                if (childLevel.hasCaptionColumn()) {
+                    captionValue = row[columnOffset++];
+                }
+                Object key = cache.makeKey(parentMember2, value);
+                RolapMember member = cache.getMember(key, checkCacheStatus);
+                checkCacheStatus = false; /* Only check the first time */
+                if (member == null) {
+                    member =
+                        makeMember(
+                            parentMember2, childLevel, value, captionValue,
+                            true, accessors, key, columnOffset);
+                }
+                children.add(member);
+            }
+        } catch (SQLException e) {
+            // Accessors over rows in memory do not throw
+            throw Util.newInternal(e, "while reading parent-child index");
+        }
+    }
+
+    /**
+     * Returns the index of the parent-child relation of a level, reading it
+     * from the database the first time, and again after the member cache has
+     * been flushed or members have been removed from it.
+     */
+    private synchronized ParentChildIndex getParentChildIndex(
+        RolapLevel level)
+    {
+        final long generation = cache.getGeneration();
+        if (parentChildIndex == null
+            || parentChildIndexGeneration != generation)
+        {
+            parentChildIndex = loadParentChildIndex(level);
+            parentChildIndexGeneration = generation;
+        }
+        return parentChildIndex;
+    }
+
+    private ParentChildIndex loadParentChildIndex(RolapLevel level) {
+        final Execution execution = Locus.peek().execution;
+        final Pair<String, List<BestFitColumnType>> pair =
+            makeParentChildIndexSql(level);
+        SqlStatement stmt =
+            RolapUtil.executeQuery(
+                context, pair.left, pair.right, 0, 0,
+                new SqlStatement.StatementLocus(
+                    execution,
+                    "SqlMemberSource.loadParentChildIndex",
+                    "while reading parent-child relation",
+                    SqlStatementEvent.Purpose.TUPLES, 0),
+                -1, -1, null);
+        try {
+            final List<SqlStatement.Accessor> accessors = stmt.getAccessors();
+            final ResultSet resultSet = stmt.getResultSet();
+            final List<Object[]> rows = new ArrayList<>();
+            while (resultSet.next()) {
+                CancellationChecker.checkCancelOrTimeout(
+                    ++stmt.rowCount, execution);
+                final Object[] row = new Object[accessors.size()];
+                for (int i = 0; i < row.length; i++) {
+                    row[i] = accessors.get(i).get();
+                }
+                rows.add(row);
+            }
+            final ParentChildIndex index =
+                new ParentChildIndex(
+                    rows, 0, accessors.size() - 1, nullParentTest(level));
+            LOGGER.debug(
+                "Read parent-child index of level {}: {} members",
+                level.getUniqueName(), index.size());
+            return index;
+        } catch (SQLException e) {
+            throw stmt.handle(e);
+        } finally {
+            stmt.close();
+        }
+    }
+
+    /**
+     * Returns a test for the value of the parent column of a root member,
+     * matching the condition of {@link #makeChildMemberSqlPCRoot}.
+     */
+    private static Predicate<Object> nullParentTest(RolapLevel level) {
+        final String nullParentValue = level.getNullParentValue();
+        if (nullParentValue == null
+            || nullParentValue.equalsIgnoreCase("NULL"))
+        {
+            return Objects::isNull;
+        }
+        Double number;
+        try {
+            number = Double.parseDouble(nullParentValue);
+        } catch (NumberFormatException e) {
+            number = null;
+        }
+        final Double nullParentNumber = number;
+        return value -> {
+            if (value instanceof Number n && nullParentNumber != null) {
+                return n.doubleValue() == nullParentNumber;
+            }
+            return value != null && nullParentValue.equals(value.toString());
+        };
+    }
+
+    /**
+     * Generates the SQL statement which reads all members of a parent-child
+     * level with their parents, for a {@link ParentChildIndex}. For example,
+     * <blockquote>
+     *
+     * <pre>SELECT "employee_id", "full_name", "supervisor_id"
+     * FROM "employee"
+     * GROUP BY "employee_id", "full_name", "supervisor_id"
+     * ORDER BY "employee_id"</pre>
+     * </blockquote>
+     *
+     * <p>The key, caption, ordinal and property columns are in the order in
+     * which {@link #getMemberChildren2} reads them, and are followed by the
+     * parent key.
+     */
+    private Pair<String, List<BestFitColumnType>> makeParentChildIndexSql(
+        RolapLevel level)
+    {
+        SqlQuery sqlQuery =
+            SqlQuery.newQuery(
+                context,
+                new StringBuilder("while generating query to read the ")
+                .append("parent-child relation of level ").append(level)
+                .toString());
+        Util.assertTrue(!level.isAll(), "all level cannot be parent-child");
+        Util.assertTrue(
+            level.isUnique(),
+            new StringBuilder("parent-child level '").append(level).append("' must be ").append("unique").toString());
+
+        hierarchy.addToFrom(sqlQuery, level.getKeyExp());
+        String childId = getExpression(level.getKeyExp(), sqlQuery);
+        String idAlias =
+            sqlQuery.addSelectGroupBy(childId, level.getInternalType());
+        if (level.hasCaptionColumn()) {
+            final Expression captionExp = level.getCaptionExp();
+            hierarchy.addToFrom(sqlQuery, captionExp);
+            sqlQuery.addSelectGroupBy(
+                getExpression(captionExp, sqlQuery), null);
+        }
+        hierarchy.addToFrom(sqlQuery, level.getOrdinalExp());
+        final String orderBy = getExpression(level.getOrdinalExp(), sqlQuery);
+        if (!orderBy.equals(childId)) {
+            String orderAlias = sqlQuery.addSelectGroupBy(orderBy, null);
+            sqlQuery.addOrderBy(
+                orderBy, orderAlias, true, false, true, true);
+        } else {
+            sqlQuery.addOrderBy(
+                childId, idAlias, true, false, true, true);
+        }
+
+        RolapProperty[] properties = level.getProperties();
+        for (RolapProperty property : properties) {
+            final Expression exp = property.getExp();
+            hierarchy.addToFrom(sqlQuery, exp);
+            final String s = getExpression(exp, sqlQuery);
+            String alias = sqlQuery.addSelect(s, null);
+            // Some dialects allow us to eliminate properties from the group by
+            // that are functionally dependent on the level value
+            if (!sqlQuery.getDialect().allowsSelectNotInGroupBy()
+                || !property.dependsOnLevelValue())
+            {
+                sqlQuery.addGroupBy(s, alias);
+            }
+        }
+
+        hierarchy.addToFrom(sqlQuery, level.getParentExp());
+        sqlQuery.addSelectGroupBy(
+            getExpression(level.getParentExp(), sqlQuery),
+            level.getInternalType());
+        return sqlQuery.toSqlAndTypes();
+    }
+
     // implement MemberReader
     @Override
 	public RolapMember getLeadMember(RolapMember member, int n) {
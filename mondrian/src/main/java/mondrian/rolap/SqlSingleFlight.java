@@ -0,0 +1,365 @@
+/*
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   SmartCity Jena - initial
+ */
+package mondrian.rolap;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import javax.sql.DataSource;
+import javax.sql.rowset.CachedRowSet;
+import javax.sql.rowset.RowSetProvider;
+
+import org.eclipse.daanse.db.dialect.api.BestFitColumnType;
+import org.eclipse.daanse.engine.api.Context;
+
+import mondrian.olap.MondrianProperties;
+import mondrian.olap.Util;
+import mondrian.resource.MondrianResource;
+import mondrian.rolap.sql.ParameterizedSql;
+import mondrian.server.Execution;
+import mondrian.server.Locus;
+import mondrian.util.ExecutorFactory;
+
+/**
+ * Runs identical SQL statements that arrive at the same time only once.
+ *
+ * <p>Concurrent MDX queries often need the same members, tuples or
+ * cardinalities, and each of them would send the same SQL to the database.
+ * The first statement with a given data source, SQL text, column types and row
+ * limits starts a <i>flight</i>, which executes the SQL on a thread of its own
+ * and reads all rows into a {@link CachedRowSet}; statements that arrive while
+ * the flight is running wait for it, and each reads the rows through its own
+ * cursor. The flight ends when its rows have been read, so a statement that
+ * arrives later executes the SQL again.</p>
+ *
+ * <p>The flight has an {@link Execution} of its own, so that canceling the
+ * query that started it does not cancel the rows other queries are waiting
+ * for. A statement that waits checks whether its own query has been canceled
+ * or has timed out; when the last statement stops waiting, the flight is
+ * canceled.</p>
+ *
+ * <p>Enabled by {@link MondrianProperties#EnableSqlSingleFlight}.</p>
+ */
+class SqlSingleFlight {
+    /** Interval at which a waiting statement checks whether its query has
+     * been canceled. */
+    private static final long POLL_MILLIS = 100;
+
+    private final Map<Key, Flight> flights = new ConcurrentHashMap<>();
+    private final Executor executor;
+
+    /**
+     * Creates a <code>SqlSingleFlight</code>.
+     *
+     * @param executor Executor that runs flights
+     */
+    SqlSingleFlight(Executor executor) {
+        this.executor = executor;
+    }
+
+    static SqlSingleFlight instance() {
+        return Holder.INSTANCE;
+    }
+
+    /**
+     * Returns whether a statement may share the rows of an identical
+     * statement.
+     *
+     * <p>Statements that load segments have their own deduplication in the
+     * segment cache, and drill-through statements stream their rows, so only
+     * statements that read members, tuples and statistics take part.
+     * {@link RolapUtil#executeQuery(Context, String, List, int, int, Locus,
+     * int, int, java.util.function.Consumer, boolean) RolapUtil.executeQuery}
+     * also keeps out statements that are streamed or have a callback, result
+     * set type or concurrency of their own.</p>
+     *
+     * @param locus Execution context of the statement
+     * @return Whether the statement may join a flight
+     */
+    static boolean isEnabled(Locus locus) {
+        if (!MondrianProperties.instance().EnableSqlSingleFlight.get()
+            || locus.execution.getMondrianStatement() == null)
+        {
+            return false;
+        }
+        switch (SqlStatement.getPurpose(locus)) {
+        case TUPLES:
+        case OTHER:
+            return true;
+        default:
+            return false;
+        }
+    }
+
+    /**
+     * Executes a query, or joins an identical query that is running, and
+     * returns a statement positioned before its first row.
+     *
+     * <p>The caller must call the {@link SqlStatement#close} method of the
+     * returned statement.</p>
+     *
+     * @see RolapUtil#executeQuery
+     */
+    SqlStatement execute(
+        final Context context,
+        final ParameterizedSql sql,
+        final List<BestFitColumnType> types,
+        final int maxRowCount,
+        final int firstRowOrdinal,
+        final Locus locus)
+    {
+        final Key key =
+            new Key(
+                context.getDataSource(), sql, types, maxRowCount,
+                firstRowOrdinal);
+        final CachedRowSet rows =
+            await(
+                key,
+                flight -> load(
+                    flight, context, sql, types, maxRowCount,
+                    firstRowOrdinal, locus),
+                locus.execution::checkCancelOrTimeout);
+        final SqlStatement stmt =
+            new SqlStatement(
+                context, sql, types, maxRowCount, firstRowOrdinal, locus,
+                -1, -1, null);
+        try {
+            stmt.replay(rows.createShared());
+        } catch (SQLException e) {
+            throw stmt.handle(e);
+        }
+        return stmt;
+    }
+
+    /**
+     * Joins the flight of a key, starting it if there is none, and waits
+     * for its rows.
+     *
+     * @param key Key
+     * @param loader Reads the rows, if this call starts the flight
+     * @param checkCancel Throws if the caller should stop waiting
+     * @return Rows, shared with the other statements of the flight
+     */
+    CachedRowSet await(Key key, Loader loader, Runnable checkCancel) {
+        Flight flight;
+        boolean leader;
+        for (;;) {
+            final Flight newFlight = new Flight();
+            flight = flights.putIfAbsent(key, newFlight);
+            leader = flight == null;
+            if (leader) {
+                flight = newFlight;
+            }
+            synchronized (flight) {
+                if (!flight.abandoned) {
+                    ++flight.waiters;
+                    break;
+                }
+            }
+            // The flight is being canceled; start another.
+            flights.remove(key, flight);
+        }
+        if (leader) {
+            start(key, flight, loader);
+        }
+        try {
+            for (;;) {
+                try {
+                    return flight.future.get(
+                        POLL_MILLIS, TimeUnit.MILLISECONDS);
+                } catch (TimeoutException e) {
+                    checkCancel.run();
+                }
+            }
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw Util.newError(cause, "while reading shared SQL rows");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw Util.newError(e, "while waiting for shared SQL rows");
+        } finally {
+            leave(key, flight);
+        }
+    }
+
+    private void start(final Key key, final Flight flight, final Loader loader) {
+        try {
+            executor.execute(() -> {
+                CachedRowSet rows = null;
+                Throwable error = null;
+                try {
+                    rows = loader.load(flight);
+                } catch (Throwable e) {
+                    error = e;
+                }
+                // Statements that arrive from now on execute the SQL again.
+                flights.remove(key, flight);
+                if (error != null) {
+                    flight.future.completeExceptionally(error);
+                } else {
+                    flight.future.complete(rows);
+                }
+            });
+        } catch (RuntimeException e) {
+            flights.remove(key, flight);
+            flight.future.completeExceptionally(e);
+        }
+    }
+
+    private void leave(Key key, Flight flight) {
+        final Runnable canceller;
+        synchronized (flight) {
+            if (--flight.waiters > 0 || flight.future.isDone()) {
+                return;
+            }
+            flight.abandoned = true;
+            canceller = flight.canceller;
+        }
+        flights.remove(key, flight);
+        if (canceller != null) {
+            canceller.run();
+        }
+    }
+
+    private static CachedRowSet load(
+        Flight flight,
+        Context context,
+        ParameterizedSql sql,
+        List<BestFitColumnType> types,
+        int maxRowCount,
+        int firstRowOrdinal,
+        Locus locus)
+        throws SQLException
+    {
+        // This runs on a thread of the executor, whose locus stack is
+        // empty, so the execution has no parent.
+        final Execution execution =
+            new Execution(locus.execution.getMondrianStatement(), 0);
+        if (!flight.setCanceller(execution::cancel)) {
+            return null;
+        }
+        final SqlStatement stmt =
+            new SqlStatement(
+                context, sql, types, maxRowCount, firstRowOrdinal,
+                new SqlStatement.StatementLocus(
+                    execution,
+                    locus.component,
+                    locus.message,
+                    SqlStatement.getPurpose(locus),
+                    0),
+                -1, -1, null);
+        try {
+            stmt.execute();
+            final CachedRowSet rows =
+                RowSetProvider.newFactory().createCachedRowSet();
+            rows.populate(stmt.getResultSet());
+            stmt.rowCount = rows.size();
+            return rows;
+        } catch (SQLException e) {
+            throw stmt.handle(e);
+        } finally {
+            stmt.close();
+            execution.end();
+        }
+    }
+
+    /**
+     * Returns the number of statements that wait for the flight of a key, or
+     * 0 if there is no flight.
+     */
+    int getWaiters(Key key) {
+        final Flight flight = flights.get(key);
+        if (flight == null) {
+            return 0;
+        }
+        synchronized (flight) {
+            return flight.waiters;
+        }
+    }
+
+    /**
+     * Reads the rows of a flight.
+     */
+    interface Loader {
+        CachedRowSet load(Flight flight) throws Exception;
+    }
+
+    /**
+     * Identifies statements whose rows are the same.
+     */
+    record Key(
+        DataSource dataSource,
+        ParameterizedSql sql,
+        List<BestFitColumnType> types,
+        int maxRowCount,
+        int firstRowOrdinal)
+    {
+    }
+
+    /**
+     * Execution of a statement whose rows one or more statements are
+     * waiting for.
+     */
+    static class Flight {
+        private final CompletableFuture<CachedRowSet> future =
+            new CompletableFuture<>();
+        private int waiters;
+        private boolean abandoned;
+        private Runnable canceller;
+
+        /**
+         * Sets the action that cancels the flight if every statement stops
+         * waiting for it.
+         *
+         * @param canceller Action that cancels the flight
+         * @return False if the flight has already been abandoned, and the
+         *   loader should not start
+         */
+        synchronized boolean setCanceller(Runnable canceller) {
+            if (abandoned) {
+                return false;
+            }
+            this.canceller = canceller;
+            return true;
+        }
+    }
+
+    /**
+     * Holds the instance, so that its executor is created on first use.
+     */
+    private static class Holder {
+        static final SqlSingleFlight INSTANCE =
+            new SqlSingleFlight(
+                ExecutorFactory.getExecutorService(
+                    MondrianProperties.instance()
+                        .SegmentCacheManagerNumberSqlThreads.get(),
+                    "mondrian.rolap.SqlSingleFlight$executor",
+                    (r, executor) -> {
+                        throw MondrianResource.instance()
+                            .SqlQueryLimitReached.ex();
+                    }));
+    }
+}
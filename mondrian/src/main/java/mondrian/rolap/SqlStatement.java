@@ -13,13 +13,13 @@ import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Proxy;
 import java.math.BigDecimal;
 import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.Semaphore;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
 
@@ -30,6 +30,7 @@ import org.eclipse.daanse.engine.api.Context;
 import mondrian.olap.MondrianProperties;
 import mondrian.olap.Util;
 import mondrian.resource.MondrianResource;
+import mondrian.rolap.sql.ParameterizedSql;
 import mondrian.server.Execution;
 import mondrian.server.Locus;
 import mondrian.server.monitor.SqlStatementEndEvent;
@@ -62,6 +63,11 @@ import mondrian.util.DelegatingInvocationHandler;
  * <p>The {@link #close()} method is idempotent. You are welcome to call it
  * more than once.
  *
+ * <p>If the SQL has bind parameters (see {@link ParameterizedSql}), the
+ * statement is executed as a {@link PreparedStatement}. Prepared statements
+ * are marked poolable, so that a connection pool or driver which caches
+ * statements per connection can reuse them.
+ *
  * <p>SqlStatement is not thread-safe.
  *
  * @author jhyde
@@ -73,20 +79,22 @@ public class SqlStatement {
   // used for SQL logging, allows for a SQL Statement UID
   private static final AtomicLong ID_GENERATOR = new AtomicLong();
 
-  private static final Semaphore querySemaphore = new Semaphore(
-    MondrianProperties.instance().QueryLimit.get(), true );
-
   private final Context context;
   private Connection jdbcConnection;
+  private Statement statement;
   private ResultSet resultSet;
   private final String sql;
+  private final ParameterizedSql parameterizedSql;
   private final List<BestFitColumnType> types;
   private final int maxRows;
   private final int firstRowOrdinal;
   private final Locus locus;
   private final int resultSetType;
   private final int resultSetConcurrency;
-  private boolean haveSemaphore;
+  private SqlConcurrencyLimiter limiter;
+  private SqlConcurrencyLimiter.Permit permit;
+  private long executeNanos = -1;
+  private boolean replayed;
   public int rowCount;
   private long startTimeMillis;
   private final List<Accessor> accessors = new ArrayList<>();
@@ -95,7 +103,7 @@ public class SqlStatement {
   private Consumer<Statement> callback;
 
   /**
-   * Creates a SqlStatement.
+   * Creates a SqlStatement for SQL without bind parameters.
    *
    * @param context              Context
    * @param sql                  SQL
@@ -117,10 +125,39 @@ public class SqlStatement {
     int resultSetType,
     int resultSetConcurrency,
     Consumer<Statement>  callback ) {
+    this(
+      context, ParameterizedSql.of( sql ), types, maxRows, firstRowOrdinal, locus, resultSetType,
+      resultSetConcurrency, callback );
+  }
+
+  /**
+   * Creates a SqlStatement.
+   *
+   * @param context              Context
+   * @param sql                  SQL, with a '?' for each bind parameter, and the parameters
+   * @param types                Suggested types of columns, or null; if present, must have one element for each SQL
+   *                             column; each not-null entry overrides deduced JDBC type of the column
+   * @param maxRows              Maximum rows; <= 0 means no maximum
+   * @param firstRowOrdinal      Ordinal of first row to skip to; <= 0 do not skip
+   * @param locus                Execution context of this statement
+   * @param resultSetType        Result set type
+   * @param resultSetConcurrency Result set concurrency
+   */
+  public SqlStatement(
+    Context context,
+    ParameterizedSql sql,
+    List<BestFitColumnType> types,
+    int maxRows,
+    int firstRowOrdinal,
+    Locus locus,
+    int resultSetType,
+    int resultSetConcurrency,
+    Consumer<Statement>  callback ) {
     this.callback = callback;
     this.id = ID_GENERATOR.getAndIncrement();
     this.context = context;
-    this.sql = sql;
+    this.parameterizedSql = sql;
+    this.sql = sql.getSql();
     this.types = types;
     this.maxRows = maxRows;
     this.firstRowOrdinal = firstRowOrdinal;
@@ -139,14 +176,15 @@ public class SqlStatement {
     Counters.SQL_STATEMENT_EXECUTE_COUNT.incrementAndGet();
     Counters.SQL_STATEMENT_EXECUTING_IDS.add( id );
     String status = "failed";
-    Statement statement = null;
     try {
       // Check execution state
       locus.execution.checkCancelOrTimeout();
 
+      // Wait for the data source before taking one of its connections, so
+      // that statements which are waiting do not hold connections.
+      limiter = SqlConcurrencyLimiter.forDataSource( context.getDataSource() );
+      permit = limiter.acquire( getPurpose(), getSession() );
       this.jdbcConnection = context.getDataSource().getConnection();
-      querySemaphore.acquire();
-      haveSemaphore = true;
       // Trace start of execution.
       if ( RolapUtil.SQL_LOGGER.isDebugEnabled() ) {
         StringBuilder sqllog = new StringBuilder();
@@ -161,6 +199,10 @@ public class SqlStatement {
         }
         sqllog.append( sql );
         sqllog.append( ']' );
+        if ( !parameterizedSql.getParameters().isEmpty() ) {
+          sqllog.append( " with parameters " )
+            .append( parameterizedSql.getParameters() );
+        }
         RolapUtil.SQL_LOGGER.debug( sqllog.toString() );
       }
 
@@ -176,7 +218,21 @@ public class SqlStatement {
       startTimeNanos = System.nanoTime();
       startTimeMillis = System.currentTimeMillis();
 
-      if ( resultSetType < 0 || resultSetConcurrency < 0 ) {
+      final boolean prepared = !parameterizedSql.getParameters().isEmpty();
+      if ( prepared ) {
+        final PreparedStatement preparedStatement;
+        if ( resultSetType < 0 || resultSetConcurrency < 0 ) {
+          preparedStatement = jdbcConnection.prepareStatement( sql );
+        } else {
+          preparedStatement = jdbcConnection.prepareStatement(
+            sql,
+            resultSetType,
+            resultSetConcurrency );
+        }
+        statement = preparedStatement;
+        preparedStatement.setPoolable( true );
+        parameterizedSql.bind( preparedStatement, context.getDialect() );
+      } else if ( resultSetType < 0 || resultSetConcurrency < 0 ) {
         statement = jdbcConnection.createStatement();
       } else {
         statement = jdbcConnection.createStatement(
@@ -186,6 +242,15 @@ public class SqlStatement {
       if ( maxRows > 0 ) {
         statement.setMaxRows( maxRows );
       }
+      if ( getPurpose() == Purpose.DRILL_THROUGH ) {
+        // Drill-through rows are streamed to the client; ask the driver not
+        // to read them all at once.
+        final int fetchSize =
+          MondrianProperties.instance().DrillThroughFetchSize.get();
+        if ( fetchSize > 0 ) {
+          statement.setFetchSize( fetchSize );
+        }
+      }
 
       // First make sure to register with the execution instance.
       if ( getPurpose() != Purpose.CELL_SEGMENT ) {
@@ -205,7 +270,9 @@ public class SqlStatement {
           getPurpose(),
           getCellRequestCount() ) );
 
-      this.resultSet = statement.executeQuery( sql );
+      this.resultSet = prepared
+        ? ( (PreparedStatement) statement ).executeQuery()
+        : statement.executeQuery( sql );
 
       // skip to first row specified in request
       this.state = State.ACTIVE;
@@ -226,7 +293,7 @@ public class SqlStatement {
 
       long timeMillis = System.currentTimeMillis();
       long timeNanos = System.nanoTime();
-      final long executeNanos = timeNanos - startTimeNanos;
+      executeNanos = timeNanos - startTimeNanos;
       final long executeMillis = executeNanos / 1000000;
       Util.addDatabaseTime( executeMillis );
       status = new StringBuilder(", exec ").append(executeMillis).append(" ms").toString();
@@ -256,6 +323,7 @@ public class SqlStatement {
       // This statement was leaked to us. It is our responsibility
       // to dispose of it.
       Util.close( null, statement, null );
+      statement = null;
 
       // Now handle this exception.
       throw handle( e );
@@ -272,6 +340,50 @@ public class SqlStatement {
     }
   }
 
+  /**
+   * Reads rows that another statement has fetched, instead of executing the
+   * SQL of this statement. The rows must be positioned before the first row
+   * this statement would have returned; they are not closed when this
+   * statement is closed.
+   *
+   * @param rows Rows
+   * @throws SQLException if the metadata of the rows cannot be read
+   *
+   * @see SqlSingleFlight
+   */
+  void replay( ResultSet rows ) throws SQLException {
+    assert state == State.FRESH : "cannot re-execute";
+    state = State.ACTIVE;
+    replayed = true;
+    Counters.SQL_STATEMENT_EXECUTE_COUNT.incrementAndGet();
+    Counters.SQL_STATEMENT_EXECUTING_IDS.add( id );
+    startTimeMillis = System.currentTimeMillis();
+    this.resultSet = rows;
+    accessors.clear();
+    for ( BestFitColumnType type : guessTypes() ) {
+      accessors.add( createAccessor( accessors.size(), type ) );
+    }
+    RolapUtil.SQL_LOGGER.debug(
+      new StringBuilder().append( id )
+        .append( ": " ).append( locus.component )
+        .append( ": shared rows of sql [" ).append( sql ).append( ']' )
+        .toString() );
+  }
+
+  /**
+   * Returns the identifier of the connection that issues this statement, or
+   * null; the limiter of the data source schedules the statements of
+   * different connections fairly.
+   */
+  private Object getSession() {
+    final mondrian.server.Statement statement =
+      locus.execution.getMondrianStatement();
+    if ( statement == null || statement.getMondrianConnection() == null ) {
+      return null;
+    }
+    return statement.getMondrianConnection().getId();
+  }
+
   /**
    * Closes all resources (statement, result set) held by this SqlStatement.
    *
@@ -287,17 +399,19 @@ public class SqlStatement {
     }
     state = State.CLOSED;
 
-    if ( haveSemaphore ) {
-      haveSemaphore = false;
-      querySemaphore.release();
+    if ( permit != null ) {
+      limiter.release( permit, executeNanos );
+      permit = null;
     }
 
     // According to the JDBC spec, closing a statement automatically closes
     // its result sets, and closing a connection automatically closes its
     // statements. But let's be conservative and close everything
     // explicitly.
-    SQLException ex = Util.close( resultSet, null, jdbcConnection );
+    SQLException ex =
+      Util.close( replayed ? null : resultSet, statement, jdbcConnection );
     resultSet = null;
+    statement = null;
     jdbcConnection = null;
 
     if ( ex != null ) {
@@ -338,6 +452,11 @@ public class SqlStatement {
         "SqlStatement closed that was never executed: " + id );
     }
 
+    if ( replayed ) {
+      // The statement that fetched the rows reports their SQL.
+      return;
+    }
+
     locus.getServer().getMonitor().sendEvent(
       new SqlStatementEndEvent(
         endTime,
@@ -518,6 +637,17 @@ public class SqlStatement {
   }
 
   private SqlStatementEvent.Purpose getPurpose() {
+    return getPurpose( locus );
+  }
+
+  /**
+   * Returns the purpose of the statements of a locus.
+   *
+   * @param locus Locus
+   * @return Purpose, or {@link SqlStatementEvent.Purpose#OTHER} if the locus
+   * is not a {@link StatementLocus}
+   */
+  static SqlStatementEvent.Purpose getPurpose( Locus locus ) {
     if ( locus instanceof StatementLocus statementLocus) {
       return statementLocus.purpose;
     } else {
@@ -43,6 +43,7 @@ import mondrian.calc.TupleCollections;
 import mondrian.calc.TupleList;
 import mondrian.calc.impl.ArrayTupleList;
 import mondrian.calc.impl.ListTupleList;
+import mondrian.calc.impl.OrdinalTupleList;
 import mondrian.calc.impl.UnaryTupleList;
 import mondrian.olap.Evaluator;
 import mondrian.olap.MondrianProperties;
@@ -653,6 +654,8 @@ public TupleList readTuples(
       targets,
       constraint.getEvaluator().getQuery() );
     List<TupleList> tupleLists = new ArrayList<>();
+    final boolean ordinal =
+      MondrianProperties.instance().OrdinalTupleLists.get();
 
     for ( List<TargetBase> targetGroup : targetGroups ) {
       boolean allTargetsAtAllLevel = targetGroup.stream()
@@ -671,6 +674,10 @@ public TupleList readTuples(
         TargetBase t = targetGroup.get( i );
         iter[ i ] = t.close().iterator();
       }
+      if ( ordinal && size > 1 && emptySets == 0 ) {
+        tupleLists.add( readOrdinalTuples( iter ) );
+        continue;
+      }
       List<Member> members = new ArrayList<>();
       while ( iter[ 0 ].hasNext() ) {
         for ( int i = 0; i < size; i++ ) {
@@ -687,9 +694,12 @@ public TupleList readTuples(
       return TupleCollections.emptyList( targets.size() );
     }
 
-    TupleList tupleList = CrossJoinFunDef.mutableCrossJoin( tupleLists );
+    TupleList tupleList =
+      tupleLists.size() == 1 && tupleLists.get( 0 ) instanceof OrdinalTupleList
+        ? tupleLists.get( 0 )
+        : CrossJoinFunDef.mutableCrossJoin( tupleLists );
     if ( !tupleList.isEmpty() && targetGroups.size() > 1 ) {
-      tupleList = projectTupleList( tupleList );
+      tupleList = projectTupleList( tupleList, ordinal );
     }
 
     // need to hierarchize the columns from the enumerated targets
@@ -703,14 +713,30 @@ public TupleList readTuples(
   }
 
   /**
-   * Projects the attributes using the original ordering in targets, then copies to a ArrayTupleList (the .project
-   * method returns a basic TupleList without support for methods like .remove, which may be needed downstream).
+   * Reads the members of a group of targets into an {@link OrdinalTupleList}, one tuple per row.
+   */
+  private static TupleList readOrdinalTuples( Iterator<Member>[] iter ) {
+    final OrdinalTupleList list = new OrdinalTupleList( iter.length );
+    final Member[] tuple = new Member[ iter.length ];
+    while ( iter[ 0 ].hasNext() ) {
+      for ( int i = 0; i < iter.length; i++ ) {
+        tuple[ i ] = iter[ i ].next();
+      }
+      list.addTuple( tuple );
+    }
+    return list;
+  }
+
+  /**
+   * Projects the attributes using the original ordering in targets, then copies to a ArrayTupleList, or an
+   * OrdinalTupleList if {@code ordinal} (the .project method returns a basic TupleList without support for methods
+   * like .remove, which may be needed downstream).
    */
-  private TupleList projectTupleList( TupleList tupleList ) {
+  private TupleList projectTupleList( TupleList tupleList, boolean ordinal ) {
     tupleList = tupleList.project( getLevelIndices( tupleList, targets ) );
-    TupleList arrayTupleList = new ArrayTupleList(
-      tupleList.getArity(),
-      tupleList.size() );
+    TupleList arrayTupleList = ordinal
+      ? new OrdinalTupleList( tupleList.getArity(), tupleList.size() )
+      : new ArrayTupleList( tupleList.getArity(), tupleList.size() );
     arrayTupleList.addAll( tupleList );
     return arrayTupleList;
   }
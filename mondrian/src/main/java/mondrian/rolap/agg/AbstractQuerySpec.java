@@ -19,10 +19,12 @@ import java.util.Map;
 import org.eclipse.daanse.db.dialect.api.BestFitColumnType;
 import org.eclipse.daanse.db.dialect.api.Dialect;
 
+import mondrian.olap.MondrianProperties;
 import mondrian.olap.Util;
 import mondrian.rolap.RolapStar;
 import mondrian.rolap.StarColumnPredicate;
 import mondrian.rolap.StarPredicate;
+import mondrian.rolap.sql.ParameterizedSql;
 import mondrian.rolap.sql.SqlQuery;
 import mondrian.util.Pair;
 
@@ -191,8 +193,10 @@ public abstract class AbstractQuerySpec implements QuerySpec {
     }
 
     @Override
-	public Pair<String, List<BestFitColumnType>> generateSqlQuery() {
+	public Pair<ParameterizedSql, List<BestFitColumnType>> generateSqlQuery() {
         SqlQuery sqlQuery = newSqlQuery();
+        sqlQuery.setBindParameters(
+            MondrianProperties.instance().GenerateParameterizedSql.get());
 
         int k = getDistinctMeasureCount();
         final Dialect dialect = sqlQuery.getDialect();
@@ -210,7 +214,7 @@ public abstract class AbstractQuerySpec implements QuerySpec {
             addGroupingFunction(sqlQuery);
             addGroupingSets(sqlQuery, groupingSetsAliases);
         }
-        return sqlQuery.toSqlAndTypes();
+        return sqlQuery.toParameterizedSqlAndTypes();
     }
 
     protected void addGroupingFunction(SqlQuery sqlQuery) {
@@ -282,6 +286,7 @@ public abstract class AbstractQuerySpec implements QuerySpec {
         // GREENPLUM not support InnerDistinct
         final SqlQuery innerSqlQuery = newSqlQuery();
         innerSqlQuery.setDistinct(dialect.allowsInnerDistinct());
+        innerSqlQuery.setBindParameters(outerSqlQuery.isBindParameters());
 
         // add constraining dimensions
         RolapStar.Column[] columns = getColumns();
@@ -19,9 +19,11 @@ import org.eclipse.daanse.db.dialect.api.BestFitColumnType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import mondrian.olap.MondrianProperties;
 import mondrian.rolap.RolapStar;
 import mondrian.rolap.StarColumnPredicate;
 import mondrian.rolap.aggmatcher.AggStar;
+import mondrian.rolap.sql.ParameterizedSql;
 import mondrian.rolap.sql.SqlQuery;
 import mondrian.util.Pair;
 
@@ -109,10 +111,12 @@ class AggQuerySpec {
         return segment0.predicates[i];
     }
 
-    public Pair<String, List<BestFitColumnType>> generateSqlQuery() {
+    public Pair<ParameterizedSql, List<BestFitColumnType>> generateSqlQuery() {
         SqlQuery sqlQuery = newSqlQuery();
+        sqlQuery.setBindParameters(
+            MondrianProperties.instance().GenerateParameterizedSql.get());
         generateSql(sqlQuery);
-        return sqlQuery.toSqlAndTypes();
+        return sqlQuery.toParameterizedSqlAndTypes();
     }
 
     private void addGroupingSets(SqlQuery sqlQuery) {
@@ -245,10 +245,13 @@ public class Aggregation {
                 continue;
             }
 
-            if (valueCount > maxConstraints) {
+            if (valueCount > maxConstraints
+                && newPredicate.getRangeTermCount() > maxConstraints)
+            {
                 // Some databases can handle only a limited number of elements
                 // in 'WHERE IN (...)'. This set is greater than this database
-                // can handle, so we drop this constraint. Hopefully there are
+                // can handle, even with runs of consecutive integers written
+                // as ranges, so we drop this constraint. Hopefully there are
                 // other constraints that will limit the result.
                 bloats[i] = 1.0; // will be optimized away
                 continue;
@@ -0,0 +1,269 @@
+/*
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   SmartCity Jena - initial
+ */
+package mondrian.rolap.agg;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import mondrian.rolap.BitKey;
+import mondrian.rolap.RolapStar;
+import mondrian.rolap.StarColumnPredicate;
+import mondrian.rolap.aggmatcher.AggStar;
+
+/**
+ * Estimates the cost of answering a cell request from the fact table or
+ * from one of the aggregate tables of a star.
+ *
+ * <p>The estimate is the number of rows the database has to read, weighted
+ * by the work done on them:</p>
+ *
+ * <ul>
+ * <li>Rows read is the row count of the table (from the
+ * {@link mondrian.rolap.RolapStatisticsCache statistics cache}) multiplied by
+ * the selectivity of the predicates that can be applied to the table itself,
+ * that is, predicates on columns of the fact table or on levels collapsed
+ * into the aggregate table. The selectivity of a predicate is the number of
+ * values it allows divided by the cardinality of the column.</li>
+ *
+ * <li>Predicates on columns that live in a joined dimension table do not
+ * reduce the rows read, but each joined table adds {@link #JOIN_COST} per
+ * row.</li>
+ *
+ * <li>If the table is not at the granularity of the request, the rows must
+ * be rolled up, which adds {@link #ROLLUP_COST} per row.</li>
+ * </ul>
+ *
+ * <p>Index information is not available from the statistics providers, so
+ * the model assumes that a predicate on a column of the table can be used to
+ * restrict the rows read.</p>
+ */
+public class AggregationCostModel {
+    /**
+     * Additional cost per row read for each dimension table that has to be
+     * joined.
+     */
+    static final double JOIN_COST = 0.5;
+
+    /**
+     * Additional cost per row read if rows have to be aggregated to the
+     * granularity of the request.
+     */
+    static final double ROLLUP_COST = 0.25;
+
+    /**
+     * Selectivity assumed for predicates whose number of values cannot be
+     * counted, such as ranges.
+     */
+    static final double DEFAULT_SELECTIVITY = 1d / 3d;
+
+    private final RolapStar star;
+    private final BitKey levelBitKey;
+    private final StarColumnPredicate[] predicates;
+
+    /**
+     * Creates a cost model for a request.
+     *
+     * @param star Star
+     * @param levelBitKey Columns of the request
+     * @param predicates Predicates of the request, indexed by bit position of
+     *   the constrained column; may be null or contain nulls
+     */
+    public AggregationCostModel(
+        RolapStar star,
+        BitKey levelBitKey,
+        StarColumnPredicate[] predicates)
+    {
+        this.star = star;
+        this.levelBitKey = levelBitKey;
+        this.predicates = predicates;
+    }
+
+    /**
+     * Creates an array of predicates indexed by the bit position of their
+     * constrained column, suitable for the constructor.
+     *
+     * @param star Star
+     * @param columns Constrained columns
+     * @param predicates Predicates, parallel to columns
+     * @return Predicates indexed by bit position
+     */
+    public static StarColumnPredicate[] indexPredicates(
+        RolapStar star,
+        RolapStar.Column[] columns,
+        StarColumnPredicate[] predicates)
+    {
+        final StarColumnPredicate[] indexed =
+            new StarColumnPredicate[star.getColumnCount()];
+        for (int i = 0; i < columns.length; i++) {
+            indexed[columns[i].getBitPosition()] = predicates[i];
+        }
+        return indexed;
+    }
+
+    /**
+     * Estimates the cost of reading the request from the fact table.
+     *
+     * @return Estimated cost; {@link Double#MAX_VALUE} if the row count of the
+     *   fact table is unknown
+     */
+    public double factCost() {
+        final RolapStar.Table factTable = star.getFactTable();
+        final long rowCount =
+            star.getStatisticsCache().getRelationCardinality(
+                factTable.getRelation(), factTable.getAlias(), -1);
+        double selectivity = 1d;
+        final Set<RolapStar.Table> joined = new HashSet<>();
+        for (int bitPos = levelBitKey.nextSetBit(0); bitPos >= 0;
+            bitPos = levelBitKey.nextSetBit(bitPos + 1))
+        {
+            final RolapStar.Column column = star.getColumn(bitPos);
+            if (column.getTable() == factTable) {
+                selectivity *= selectivity(column, bitPos);
+            } else {
+                joined.add(column.getTable());
+            }
+        }
+        // The fact table is always at a finer granularity than the request.
+        return cost(rowCount, selectivity, joined.size(), true);
+    }
+
+    /**
+     * Estimates the cost of reading the request from an aggregate table.
+     *
+     * @param aggStar Aggregate table
+     * @param rollup Whether the aggregate table must be rolled up
+     * @return Estimated cost; {@link Double#MAX_VALUE} if the row count of the
+     *   aggregate table is unknown
+     */
+    public double aggCost(AggStar aggStar, boolean rollup) {
+        final AggStar.FactTable factTable = aggStar.getFactTable();
+        double selectivity = 1d;
+        final Set<AggStar.Table> joined = new HashSet<>();
+        for (int bitPos = levelBitKey.nextSetBit(0); bitPos >= 0;
+            bitPos = levelBitKey.nextSetBit(bitPos + 1))
+        {
+            final AggStar.Table.Column column = aggStar.lookupColumn(bitPos);
+            if (column == null || column.getTable() == factTable) {
+                selectivity *= selectivity(star.getColumn(bitPos), bitPos);
+            } else {
+                joined.add(column.getTable());
+            }
+        }
+        return cost(
+            factTable.getNumberOfRows(), selectivity, joined.size(), rollup);
+    }
+
+    /**
+     * Returns the selectivity of the predicate on a column. The cardinality
+     * of the column, which may cost a query, is only looked up if the
+     * predicate allows a countable number of values.
+     */
+    private double selectivity(RolapStar.Column column, int bitPos) {
+        if (predicates == null || bitPos >= predicates.length) {
+            return 1d;
+        }
+        final StarColumnPredicate predicate = predicates[bitPos];
+        if (predicate instanceof ValueColumnPredicate
+            || predicate instanceof ListColumnPredicate)
+        {
+            return selectivity(predicate, column.getCardinality());
+        }
+        return selectivity(predicate, -1);
+    }
+
+    /**
+     * Returns the fraction of the rows of a column that satisfy a predicate.
+     *
+     * @param predicate Predicate, or null
+     * @param cardinality Number of distinct values of the column, or a
+     *   negative value if unknown
+     * @return Selectivity between 0 and 1
+     */
+    static double selectivity(
+        StarColumnPredicate predicate,
+        long cardinality)
+    {
+        if (predicate == null) {
+            return 1d;
+        }
+        if (predicate instanceof LiteralStarPredicate literal) {
+            return literal.getValue() ? 1d : 0d;
+        }
+        if (cardinality <= 0) {
+            return DEFAULT_SELECTIVITY;
+        }
+        if (predicate instanceof ValueColumnPredicate) {
+            return Math.min(1d, 1d / cardinality);
+        }
+        if (predicate instanceof ListColumnPredicate list) {
+            int valueCount = 0;
+            for (StarColumnPredicate child : list.getPredicates()) {
+                if (!(child instanceof ValueColumnPredicate)) {
+                    return DEFAULT_SELECTIVITY;
+                }
+                ++valueCount;
+            }
+            return Math.min(1d, (double) valueCount / cardinality);
+        }
+        return DEFAULT_SELECTIVITY;
+    }
+
+    /**
+     * Combines the factors of the model into a cost.
+     *
+     * @param rowCount Rows in the table, or a negative value if unknown
+     * @param selectivity Combined selectivity of predicates that restrict the
+     *   rows read
+     * @param joinCount Number of dimension tables to join
+     * @param rollup Whether rows must be aggregated
+     * @return Estimated cost
+     */
+    static double cost(
+        long rowCount,
+        double selectivity,
+        int joinCount,
+        boolean rollup)
+    {
+        if (rowCount < 0) {
+            return Double.MAX_VALUE;
+        }
+        final double rowsRead = rowCount * selectivity;
+        return rowsRead
+            * (1d + joinCount * JOIN_COST + (rollup ? ROLLUP_COST : 0d));
+    }
+
+    /**
+     * Describes the candidates considered, for logging.
+     */
+    static String describe(
+        RolapStar star,
+        double factCost,
+        List<AggStar> aggStars,
+        List<Double> aggCosts,
+        AggStar chosen)
+    {
+        final List<String> list = new ArrayList<>();
+        list.add(
+            star.getFactTable().getAlias() + "=" + factCost
+            + (chosen == null ? " (chosen)" : ""));
+        for (int i = 0; i < aggStars.size(); i++) {
+            final AggStar aggStar = aggStars.get(i);
+            list.add(
+                aggStar.getFactTable().getName() + "=" + aggCosts.get(i)
+                + (aggStar == chosen ? " (chosen)" : ""));
+        }
+        return list.toString();
+    }
+}
@@ -39,6 +39,7 @@ import mondrian.rolap.RolapStar;
 import mondrian.rolap.StarColumnPredicate;
 import mondrian.rolap.StarPredicate;
 import mondrian.rolap.aggmatcher.AggStar;
+import mondrian.rolap.sql.ParameterizedSql;
 import mondrian.server.Locus;
 import mondrian.util.Pair;
 
@@ -61,6 +62,8 @@ public class AggregationManager extends RolapAggregationManager {
 
     public final SegmentCacheManager cacheMgr;
 
+    private final CellBatchSizer cellBatchSizer;
+
     private MondrianServer server;
 
     /**
@@ -73,6 +76,18 @@ public class AggregationManager extends RolapAggregationManager {
                 "Property {} is obsolete; ignored.", properties.EnableCacheHitCounters.getPath());
         }
         this.cacheMgr = new SegmentCacheManager(server);
+        this.cellBatchSizer =
+            new CellBatchSizer(properties.CellBatchTargetMillis.get());
+    }
+
+    /**
+     * Returns the object that chooses how many cell requests to collect
+     * before loading them.
+     *
+     * @return Cell batch sizer
+     */
+    public CellBatchSizer getCellBatchSizer() {
+        return cellBatchSizer;
     }
 
     /**
@@ -231,14 +246,14 @@ public class AggregationManager extends RolapAggregationManager {
                 starPredicateSlicer,
                 fields,
                 countOnly);
-        Pair<String, List<BestFitColumnType>> pair = spec.generateSqlQuery();
+        Pair<ParameterizedSql, List<BestFitColumnType>> pair = spec.generateSqlQuery();
 
         if (getLogger().isDebugEnabled()) {
             getLogger().debug(
                 "DrillThroughSQL: {}{}" ,pair.left, Util.NL);
         }
 
-        return pair.left;
+        return pair.left.toString();
     }
 
     /**
@@ -248,7 +263,7 @@ public class AggregationManager extends RolapAggregationManager {
      * @return A pair consisting of a SQL statement and a list of suggested
      *     types of columns
      */
-    public static Pair<String, List<BestFitColumnType>> generateSql(
+    public static Pair<ParameterizedSql, List<BestFitColumnType>> generateSql(
         GroupingSetsList groupingSetsList,
         List<StarPredicate> compoundPredicateList)
     {
@@ -266,7 +281,12 @@ public class AggregationManager extends RolapAggregationManager {
              && !hasCompoundPredicates)
         {
             final boolean[] rollup = {false};
-            AggStar aggStar = findAgg(star, levelBitKey, measureBitKey, rollup);
+            AggStar aggStar = findAgg(
+                star, levelBitKey, measureBitKey, rollup,
+                AggregationCostModel.indexPredicates(
+                    star,
+                    groupingSetsList.getDefaultColumns(),
+                    groupingSetsList.getDefaultPredicates()));
 
             if (aggStar != null) {
                 // Got a match, hot damn
@@ -301,7 +321,8 @@ public class AggregationManager extends RolapAggregationManager {
                 AggQuerySpec aggQuerySpec =
                     new AggQuerySpec(
                         aggStar, rollup[0], groupingSetsList);
-                Pair<String, List<BestFitColumnType>> sql = aggQuerySpec.generateSqlQuery();
+                Pair<ParameterizedSql, List<BestFitColumnType>> sql =
+                    aggQuerySpec.generateSqlQuery();
 
                 if (LOGGER.isDebugEnabled()) {
                     LOGGER.debug(
@@ -340,7 +361,7 @@ public class AggregationManager extends RolapAggregationManager {
         SegmentArrayQuerySpec spec =
             new SegmentArrayQuerySpec(groupingSetsList, compoundPredicateList);
 
-        Pair<String, List<BestFitColumnType>> pair = spec.generateSqlQuery();
+        Pair<ParameterizedSql, List<BestFitColumnType>> pair = spec.generateSqlQuery();
 
         if (LOGGER.isDebugEnabled()) {
             LOGGER.debug(
@@ -371,6 +392,39 @@ public class AggregationManager extends RolapAggregationManager {
         final BitKey levelBitKey,
         final BitKey measureBitKey,
         boolean[] rollup)
+    {
+        return findAgg(star, levelBitKey, measureBitKey, rollup, null);
+    }
+
+    /**
+     * Finds an aggregate table in the given star which has the desired levels
+     * and measures, taking the predicates of the request into account.
+     * Returns null if no aggregate table is suitable, or if
+     * {@link MondrianProperties#ChooseAggregateByCost} is set and reading the
+     * fact table is estimated to be cheaper than any suitable aggregate table.
+     *
+     * <p>By default, returns the first suitable aggregate table; the
+     * aggregate tables of a star are ordered from smallest to largest. If
+     * {@link MondrianProperties#ChooseAggregateByCost} is set, estimates the
+     * cost of every suitable aggregate table and of the fact table using an
+     * {@link AggregationCostModel} and returns the cheapest.
+     *
+     * @param star Star
+     * @param levelBitKey Set of levels
+     * @param measureBitKey Set of measures
+     * @param rollup Out parameter, is set to true if the aggregate is not
+     *   an exact match
+     * @param predicates Predicates of the request, indexed by bit position of
+     *   the constrained column, or null if not known
+     * @return An aggregate, or null if none is suitable or the fact table is
+     *   cheaper
+     */
+    public static AggStar findAgg(
+        RolapStar star,
+        final BitKey levelBitKey,
+        final BitKey measureBitKey,
+        boolean[] rollup,
+        StarColumnPredicate[] predicates)
     {
         // If there is no distinct count measure, isDistinct == false,
         // then all we want is an AggStar whose BitKey is a superset
@@ -391,147 +445,209 @@ public class AggregationManager extends RolapAggregationManager {
         final BitKey expandedLevelBitKey = expandLevelBitKey(
             star, levelBitKey.copy());
 
-        // The AggStars are already ordered from smallest to largest so
-        // we need only find the first one and return it.
+        if (!MondrianProperties.instance().ChooseAggregateByCost.get()) {
+            // The AggStars are already ordered from smallest to largest so
+            // we need only find the first one and return it.
+            for (AggStar aggStar : star.getAggStars()) {
+                final Boolean aggRollup = matchAgg(
+                    aggStar, fullBitKey, levelBitKey, expandedLevelBitKey,
+                    measureBitKey);
+                if (aggRollup != null) {
+                    rollup[0] = aggRollup;
+                    return aggStar;
+                }
+            }
+            return null;
+        }
+
+        final AggregationCostModel costModel =
+            new AggregationCostModel(star, levelBitKey, predicates);
+        final double factCost = costModel.factCost();
+        final List<AggStar> candidates = new ArrayList<>();
+        final List<Double> costs = new ArrayList<>();
+        AggStar bestAggStar = null;
+        boolean bestRollup = false;
+        double bestCost = factCost;
         for (AggStar aggStar : star.getAggStars()) {
-            // superset match
-            if (!aggStar.superSetMatch(fullBitKey)) {
+            final Boolean aggRollup = matchAgg(
+                aggStar, fullBitKey, levelBitKey, expandedLevelBitKey,
+                measureBitKey);
+            if (aggRollup == null) {
                 continue;
             }
-            boolean isDistinct = measureBitKey.intersects(
-                aggStar.getDistinctMeasureBitKey());
-
-            // The AggStar has no "distinct count" measures so
-            // we can use it without looking any further.
-            if (!isDistinct) {
-                // Need to use SUM if the query levels don't match
-                // the agg stars levels, or if the agg star is not
-                // fully collapsed.
-                rollup[0] = !aggStar.isFullyCollapsed()
-                    || aggStar.hasIgnoredColumns()
-                    || (levelBitKey.isEmpty()
-                    || !aggStar.getLevelBitKey().equals(levelBitKey));
-                return aggStar;
-            } else if (aggStar.hasIgnoredColumns()) {
-                // we cannot safely pull a distinct count from an agg
-                // table if ignored columns are present since granularity
-                // may not be at the level of the dc measure
-                LOGGER.info("{} cannot be used for distinct-count measures since it has unused or ignored columns.",
-                    aggStar.getFactTable().getName());
-                continue;
+            final double cost = costModel.aggCost(aggStar, aggRollup);
+            candidates.add(aggStar);
+            costs.add(cost);
+            // On a tie, keep the first candidate: an aggregate table is
+            // preferred to the fact table, and the aggregate tables are
+            // ordered from smallest to largest. When row counts are unknown,
+            // all costs are equal and the smallest aggregate table is used.
+            if (bestAggStar == null ? cost <= bestCost : cost < bestCost) {
+                bestAggStar = aggStar;
+                bestRollup = aggRollup;
+                bestCost = cost;
             }
+        }
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug(
+                "Aggregate costs for levels {}, measures {}: {}",
+                levelBitKey, measureBitKey,
+                AggregationCostModel.describe(
+                    star, factCost, candidates, costs, bestAggStar));
+        }
+        if (bestAggStar != null) {
+            rollup[0] = bestRollup;
+        }
+        return bestAggStar;
+    }
 
-            // If there are distinct measures, we can only rollup in limited
-            // circumstances.
-
-            // No foreign keys (except when its used as a distinct count
-            //   measure).
-            // Level key exact match.
-            // Measure superset match.
-
-            // Compute the core levels -- those which can be safely
-            // rolled up to. For example,
-            // if the measure is 'distinct customer count',
-            // and the agg table has levels customer_id,
-            // then gender is a core level.
-            final BitKey distinctMeasuresBitKey =
-                measureBitKey.and(aggStar.getDistinctMeasureBitKey());
-            final BitSet distinctMeasures = distinctMeasuresBitKey.toBitSet();
-            BitKey combinedLevelBitKey = null;
-            for (int k = distinctMeasures.nextSetBit(0); k >= 0;
-                k = distinctMeasures.nextSetBit(k + 1))
-            {
-                final AggStar.FactTable.Measure distinctMeasure =
-                    aggStar.lookupMeasure(k);
-                BitKey rollableLevelBitKey =
-                    distinctMeasure.getRollableLevelBitKey();
-                if (combinedLevelBitKey == null) {
-                    combinedLevelBitKey = rollableLevelBitKey;
-                } else {
-                    // TODO use '&=' to remove unnecessary copy
-                    combinedLevelBitKey =
-                        combinedLevelBitKey.and(rollableLevelBitKey);
-                }
+    /**
+     * Checks whether an aggregate table can answer a request.
+     *
+     * @return Whether the aggregate table must be rolled up, or null if it
+     *   cannot answer the request
+     */
+    private static Boolean matchAgg(
+        AggStar aggStar,
+        BitKey fullBitKey,
+        BitKey levelBitKey,
+        BitKey expandedLevelBitKey,
+        BitKey measureBitKey)
+    {
+        // superset match
+        if (!aggStar.superSetMatch(fullBitKey)) {
+            return null;
+        }
+        boolean isDistinct = measureBitKey.intersects(
+            aggStar.getDistinctMeasureBitKey());
+
+        // The AggStar has no "distinct count" measures so
+        // we can use it without looking any further.
+        if (!isDistinct) {
+            // Need to use SUM if the query levels don't match
+            // the agg stars levels, or if the agg star is not
+            // fully collapsed.
+            return !aggStar.isFullyCollapsed()
+                || aggStar.hasIgnoredColumns()
+                || (levelBitKey.isEmpty()
+                || !aggStar.getLevelBitKey().equals(levelBitKey));
+        } else if (aggStar.hasIgnoredColumns()) {
+            // we cannot safely pull a distinct count from an agg
+            // table if ignored columns are present since granularity
+            // may not be at the level of the dc measure
+            LOGGER.info("{} cannot be used for distinct-count measures since it has unused or ignored columns.",
+                aggStar.getFactTable().getName());
+            return null;
+        }
+
+        // If there are distinct measures, we can only rollup in limited
+        // circumstances.
+
+        // No foreign keys (except when its used as a distinct count
+        //   measure).
+        // Level key exact match.
+        // Measure superset match.
+
+        // Compute the core levels -- those which can be safely
+        // rolled up to. For example,
+        // if the measure is 'distinct customer count',
+        // and the agg table has levels customer_id,
+        // then gender is a core level.
+        final BitKey distinctMeasuresBitKey =
+            measureBitKey.and(aggStar.getDistinctMeasureBitKey());
+        final BitSet distinctMeasures = distinctMeasuresBitKey.toBitSet();
+        BitKey combinedLevelBitKey = null;
+        for (int k = distinctMeasures.nextSetBit(0); k >= 0;
+            k = distinctMeasures.nextSetBit(k + 1))
+        {
+            final AggStar.FactTable.Measure distinctMeasure =
+                aggStar.lookupMeasure(k);
+            BitKey rollableLevelBitKey =
+                distinctMeasure.getRollableLevelBitKey();
+            if (combinedLevelBitKey == null) {
+                combinedLevelBitKey = rollableLevelBitKey;
+            } else {
+                // TODO use '&=' to remove unnecessary copy
+                combinedLevelBitKey =
+                    combinedLevelBitKey.and(rollableLevelBitKey);
             }
+        }
 
-            if (aggStar.hasForeignKeys()) {
+        if (aggStar.hasForeignKeys()) {
 /*
-                    StringBuilder buf = new StringBuilder(256);
-                    buf.append("");
-                    buf.append(star.getFactTable().getAlias());
-                    buf.append(Util.nl);
-                    buf.append("foreign =");
-                    buf.append(levelBitKey);
-                    buf.append(Util.nl);
-                    buf.append("measure =");
-                    buf.append(measureBitKey);
-                    buf.append(Util.nl);
-                    buf.append("aggstar =");
-                    buf.append(aggStar.getBitKey());
-                    buf.append(Util.nl);
-                    buf.append("distinct=");
-                    buf.append(aggStar.getDistinctMeasureBitKey());
+                StringBuilder buf = new StringBuilder(256);
+                buf.append("");
+                buf.append(star.getFactTable().getAlias());
+                buf.append(Util.nl);
+                buf.append("foreign =");
+                buf.append(levelBitKey);
+                buf.append(Util.nl);
+                buf.append("measure =");
+                buf.append(measureBitKey);
+                buf.append(Util.nl);
+                buf.append("aggstar =");
+                buf.append(aggStar.getBitKey());
+                buf.append(Util.nl);
+                buf.append("distinct=");
+                buf.append(aggStar.getDistinctMeasureBitKey());
+                buf.append(Util.nl);
+                buf.append("AggStar=");
+                buf.append(aggStar.getFactTable().getName());
+                buf.append(Util.nl);
+                for (Iterator columnIter =
+                        aggStar.getFactTable().getColumns().iterator();
+                     columnIter.hasNext();) {
+                    AggStar.Table.Column column =
+                            (AggStar.Table.Column) columnIter.next();
+                    buf.append("   ");
+                    buf.append(column);
                     buf.append(Util.nl);
-                    buf.append("AggStar=");
-                    buf.append(aggStar.getFactTable().getName());
-                    buf.append(Util.nl);
-                    for (Iterator columnIter =
-                            aggStar.getFactTable().getColumns().iterator();
-                         columnIter.hasNext();) {
-                        AggStar.Table.Column column =
-                                (AggStar.Table.Column) columnIter.next();
-                        buf.append("   ");
-                        buf.append(column);
-                        buf.append(Util.nl);
-                    }
+                }
 System.out.println(buf.toString());
 */
-                // This is a little pessimistic. If the measure is
-                // 'count(distinct customer_id)' and one of the foreign keys is
-                // 'customer_id' then it is OK to roll up.
-
-                // Some of the measures in this query are distinct count.
-                // Get all of the foreign key columns.
-                // For each such measure, is it based upon a foreign key.
-                // Are there any foreign keys left over. No, can use AggStar.
-                BitKey fkBitKey = aggStar.getForeignKeyBitKey().copy();
-                for (AggStar.FactTable.Measure measure
-                    : aggStar.getFactTable().getMeasures())
-                {
-                    if (measure.isDistinct()) {
-                        if (measureBitKey.get(measure.getBitPosition())) {
-                            fkBitKey.clear(measure.getBitPosition());
-                        }
+            // This is a little pessimistic. If the measure is
+            // 'count(distinct customer_id)' and one of the foreign keys is
+            // 'customer_id' then it is OK to roll up.
+
+            // Some of the measures in this query are distinct count.
+            // Get all of the foreign key columns.
+            // For each such measure, is it based upon a foreign key.
+            // Are there any foreign keys left over. No, can use AggStar.
+            BitKey fkBitKey = aggStar.getForeignKeyBitKey().copy();
+            for (AggStar.FactTable.Measure measure
+                : aggStar.getFactTable().getMeasures())
+            {
+                if (measure.isDistinct()) {
+                    if (measureBitKey.get(measure.getBitPosition())) {
+                        fkBitKey.clear(measure.getBitPosition());
                     }
                 }
-                if (!fkBitKey.isEmpty()) {
-                    // there are foreign keys left so we can not use this
-                    // AggStar.
-                    continue;
-                }
             }
-
-            // We can use the expandedLevelBitKey here because
-            // presence of parent level columns won't effect granularity,
-            // so will still be an allowable agg match
-            if (!aggStar.select(
-                    expandedLevelBitKey, combinedLevelBitKey, measureBitKey))
-            {
-                continue;
+            if (!fkBitKey.isEmpty()) {
+                // there are foreign keys left so we can not use this
+                // AggStar.
+                return null;
             }
+        }
 
-            if (expandedLevelBitKey.isEmpty()) {
-                // We won't be able to resolve a distinct count measure like
-                // this. We need to resolve the distinct values but we don't
-                // have any levels for which we constraint on. This would
-                // result in either a bloated value (non-distinct) or
-                // only the first (non-rolled-up) to be returned.
-                continue;
-            }
-            rollup[0] = !aggStar.getLevelBitKey().equals(expandedLevelBitKey);
-            return aggStar;
+        // We can use the expandedLevelBitKey here because
+        // presence of parent level columns won't effect granularity,
+        // so will still be an allowable agg match
+        if (!aggStar.select(
+                expandedLevelBitKey, combinedLevelBitKey, measureBitKey))
+        {
+            return null;
+        }
+
+        if (expandedLevelBitKey.isEmpty()) {
+            // We won't be able to resolve a distinct count measure like
+            // this. We need to resolve the distinct values but we don't
+            // have any levels for which we constraint on. This would
+            // result in either a bloated value (non-distinct) or
+            // only the first (non-rolled-up) to be returned.
+            return null;
         }
-        return null;
+        return !aggStar.getLevelBitKey().equals(expandedLevelBitKey);
     }
 
     /**
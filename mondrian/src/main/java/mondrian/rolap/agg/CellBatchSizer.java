@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   SmartCity Jena - initial
+ */
+package mondrian.rolap.agg;
+
+/**
+ * Chooses how many cell requests a
+ * {@link mondrian.rolap.FastBatchingCellReader} collects before it loads
+ * them.
+ *
+ * <p>The sizer observes how long it takes to load a batch of cell requests
+ * (the SQL round trips and the time spent waiting for segments) and keeps a
+ * moving average of the load throughput, in cells per millisecond. The limit
+ * it returns is the number of cells that can be loaded within the target
+ * time at that throughput, bounded by {@link #MIN_LIMIT} and
+ * {@link #MAX_LIMIT}. Fast databases and small grids therefore get large
+ * batches and few round trips; slow loads get smaller batches, so that
+ * evaluation can continue with the cells already loaded.</p>
+ *
+ * <p>Until the first load has been observed, the limit is
+ * {@link #MAX_LIMIT}, which is the limit used when no sizing is
+ * configured.</p>
+ *
+ * <p>Instances are thread-safe. A sizer is shared by all statements of a
+ * server; it is held by the {@link AggregationManager}.</p>
+ */
+public class CellBatchSizer {
+    /**
+     * Smallest limit returned.
+     */
+    static final int MIN_LIMIT = 1000;
+
+    /**
+     * Largest limit returned; also the limit before any load is observed.
+     */
+    static final int MAX_LIMIT = 100000;
+
+    /**
+     * Weight of a new observation in the moving average of throughput.
+     */
+    static final double ALPHA = 0.25;
+
+    /**
+     * Loads smaller than this carry too little information about throughput
+     * and are ignored.
+     */
+    static final int MIN_OBSERVED_CELLS = 10;
+
+    private final long targetMillis;
+
+    /**
+     * Moving average of cells loaded per millisecond; 0 until the first
+     * observation.
+     */
+    private double throughput;
+
+    /**
+     * Creates a sizer.
+     *
+     * @param targetMillis Desired elapsed time of a load, in milliseconds;
+     *   if not positive, the sizer always returns {@link #MAX_LIMIT}
+     */
+    public CellBatchSizer(long targetMillis) {
+        this.targetMillis = targetMillis;
+    }
+
+    /**
+     * Returns the number of cell requests to collect before loading them.
+     *
+     * @return Cell request limit
+     */
+    public synchronized int getCellRequestLimit() {
+        if (targetMillis <= 0 || throughput <= 0d) {
+            return MAX_LIMIT;
+        }
+        final double limit = throughput * targetMillis;
+        if (limit >= MAX_LIMIT) {
+            return MAX_LIMIT;
+        }
+        return Math.max(MIN_LIMIT, (int) limit);
+    }
+
+    /**
+     * Records a completed load.
+     *
+     * @param cellRequestCount Number of cell requests loaded
+     * @param elapsedNanos Elapsed time of the load, in nanoseconds
+     */
+    public synchronized void recordLoad(
+        int cellRequestCount,
+        long elapsedNanos)
+    {
+        if (targetMillis <= 0 || cellRequestCount < MIN_OBSERVED_CELLS) {
+            return;
+        }
+        // Avoid division by zero for loads answered entirely from cache.
+        final double elapsedMillis = Math.max(elapsedNanos / 1e6d, 1d);
+        final double observed = cellRequestCount / elapsedMillis;
+        throughput =
+            throughput <= 0d
+                ? observed
+                : ALPHA * observed + (1d - ALPHA) * throughput;
+    }
+}
@@ -50,6 +50,21 @@ public class DrillThroughCellRequest extends CellRequest {
         return this.maxRowCount;
     }
 
+    private int firstRowOrdinal;
+
+    /**
+     * Sets the number of rows to skip. Only honored together with a
+     * {@link #setMaxRowCount maximum row count}, and only by dialects which
+     * support LIMIT and OFFSET clauses.
+     */
+    public void setFirstRowOrdinal(int firstRowOrdinal) {
+        this.firstRowOrdinal = firstRowOrdinal;
+    }
+
+    public int getFirstRowOrdinal() {
+        return this.firstRowOrdinal;
+    }
+
     public void addDrillThroughColumn(RolapStar.Column column) {
         this.drillThroughColumns.add(column);
     }
@@ -25,6 +25,7 @@ import mondrian.rolap.RolapStar;
 import mondrian.rolap.RolapStar.Column;
 import mondrian.rolap.StarColumnPredicate;
 import mondrian.rolap.StarPredicate;
+import mondrian.rolap.sql.ParameterizedSql;
 import mondrian.rolap.sql.SqlQuery;
 import mondrian.util.Pair;
 
@@ -201,14 +202,18 @@ class DrillThroughQuerySpec extends AbstractQuerySpec {
     }
 
     @Override
-	public Pair<String, List<BestFitColumnType>> generateSqlQuery() {
+	public Pair<ParameterizedSql, List<BestFitColumnType>> generateSqlQuery() {
         SqlQuery sqlQuery = newSqlQuery();
         nonDistinctGenerateSql(sqlQuery);
         appendInapplicableFields(sqlQuery);
-        if(this.request.getMaxRowCount() > 0) {
+        if (this.request.getMaxRowCount() > 0
+            && !sqlQuery.addRowLimit(
+                this.request.getFirstRowOrdinal(),
+                this.request.getMaxRowCount()))
+        {
             sqlQuery.addRowLimit(this.request.getMaxRowCount());
         }
-        return sqlQuery.toSqlAndTypes();
+        return sqlQuery.toParameterizedSqlAndTypes();
     }
 
     /**
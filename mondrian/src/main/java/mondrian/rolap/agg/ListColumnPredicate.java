@@ -9,14 +9,20 @@
 
 package mondrian.rolap.agg;
 
+import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
 
+import org.eclipse.daanse.db.dialect.api.Datatype;
+
+import mondrian.olap.MondrianProperties;
 import mondrian.olap.Util;
 import mondrian.rolap.RolapStar;
 import mondrian.rolap.RolapUtil;
@@ -58,6 +64,18 @@ public class ListColumnPredicate extends AbstractColumnPredicate {
      */
     private int hashValue;
 
+    /**
+     * Minimum number of consecutive integer values that are written as a
+     * range when the list is too long for an IN list.
+     */
+    static final int MIN_RANGE_LENGTH = 3;
+
+    /**
+     * Runs of consecutive integer values, each an array {low, high}; the
+     * empty list if the values are not all integers. Computed lazily.
+     */
+    private List<long[]> runs;
+
     /**
      * Creates a ListColumnPredicate
      *
@@ -322,6 +340,89 @@ public class ListColumnPredicate extends AbstractColumnPredicate {
             cloneListWithColumn(column, children));
     }
 
+    /**
+     * Returns the number of terms needed to write this predicate in SQL if
+     * runs of at least {@link #MIN_RANGE_LENGTH} consecutive integer values
+     * are written as ranges: one per range plus one per remaining value.
+     *
+     * <p>If the column is not an {@link Datatype#INTEGER} column, or the
+     * values are not all integers, returns the number of child predicates.
+     *
+     * @return Number of terms
+     */
+    public int getRangeTermCount() {
+        final List<long[]> runs = getRuns();
+        if (runs.isEmpty()) {
+            return children.size();
+        }
+        int termCount = 0;
+        for (long[] run : runs) {
+            final long length = run[1] - run[0] + 1;
+            termCount += length >= MIN_RANGE_LENGTH ? 1 : (int) length;
+        }
+        return termCount;
+    }
+
+    private List<long[]> getRuns() {
+        if (runs == null) {
+            runs = computeRuns();
+        }
+        return runs;
+    }
+
+    private List<long[]> computeRuns() {
+        final RolapStar.Column column = getConstrainedColumn();
+        // Only an integer column has no values between two consecutive
+        // integers; on a NUMERIC column, "x between 1 and 2" matches 1.5.
+        if (values == null
+            || column == null
+            || column.getDatatype() != Datatype.INTEGER)
+        {
+            return Collections.emptyList();
+        }
+        final long[] longs = new long[values.size()];
+        int n = 0;
+        for (Object value : values) {
+            if (value == RolapUtil.sqlNullValue) {
+                continue;
+            }
+            final Long l = toLong(value);
+            if (l == null) {
+                return Collections.emptyList();
+            }
+            longs[n++] = l;
+        }
+        Arrays.sort(longs, 0, n);
+        final List<long[]> list = new ArrayList<>();
+        for (int i = 0; i < n;) {
+            int j = i;
+            while (j + 1 < n && longs[j + 1] == longs[j] + 1) {
+                ++j;
+            }
+            list.add(new long[] {longs[i], longs[j]});
+            i = j + 1;
+        }
+        return list;
+    }
+
+    private static Long toLong(Object value) {
+        if (value instanceof Integer
+            || value instanceof Long
+            || value instanceof Short
+            || value instanceof Byte)
+        {
+            return ((Number) value).longValue();
+        }
+        if (value instanceof BigDecimal bigDecimal) {
+            try {
+                return bigDecimal.longValueExact();
+            } catch (ArithmeticException e) {
+                return null;
+            }
+        }
+        return null;
+    }
+
     @Override
 	public void toSql(SqlQuery sqlQuery, StringBuilder buf) {
         List<StarColumnPredicate> predicates = getPredicates();
@@ -330,75 +431,116 @@ public class ListColumnPredicate extends AbstractColumnPredicate {
             return;
         }
 
-        int notNullCount = 0;
+        // Some databases limit the number of elements of an IN list. If the
+        // list is too long, write runs of consecutive integers as ranges.
+        if (predicates.size()
+                > MondrianProperties.instance().MaxConstraints.get()
+            && getRangeTermCount() < predicates.size())
+        {
+            rangesToSql(sqlQuery, buf);
+            return;
+        }
+
+        // Count the values first, so that each value is quoted once: a
+        // query with bind parameters keeps the value of every placeholder
+        // it writes.
         final RolapStar.Column column = getConstrainedColumn();
         final String expr = column.generateExprString(sqlQuery);
-        final int marker = buf.length(); // to allow backtrack later
-        buf.append(expr);
-        ValueColumnPredicate firstNotNull = null;
-        buf.append(" in (");
+        final List<Object> notNullKeys = new ArrayList<>(predicates.size());
         for (StarColumnPredicate predicate1 : predicates) {
             final ValueColumnPredicate predicate2 =
                 (ValueColumnPredicate) predicate1;
             Object key = predicate2.getValue();
-            if (key == RolapUtil.sqlNullValue) {
-                continue;
-            }
-            if (notNullCount > 0) {
-                buf.append(", ");
-            } else {
-                firstNotNull = predicate2;
+            if (key != RolapUtil.sqlNullValue) {
+                notNullKeys.add(key);
             }
-            ++notNullCount;
-            sqlQuery.getDialect().quote(buf, key, column.getDatatype());
         }
-        buf.append(')');
+        final int notNullCount = notNullKeys.size();
+        final boolean containsNull = notNullCount < predicates.size();
 
-        // If all of the predicates were non-null, return what we've got, for
-        // example, "x in (1, 2, 3)".
-        if (notNullCount >= predicates.size()) {
-            return;
-        }
-
-        // There was at least one null. Reset the buffer to how we
-        // originally found it, and generate a more concise expression.
-        switch (notNullCount) {
-        case 0:
+        if (notNullCount == 0) {
             // Special case -- there were no values besides null.
             // Return, for example, "x is null".
-            buf.setLength(marker);
             buf.append(expr);
             buf.append(" is null");
-            break;
-
-        case 1:
+            return;
+        }
+        if (notNullCount == 1 && containsNull) {
             // Special case -- one not-null value, and null, for
             // example "(x = 1 or x is null)".
-            assert firstNotNull != null;
-            buf.setLength(marker);
             buf.append('(');
             buf.append(expr);
             buf.append(" = ");
-            sqlQuery.getDialect().quote(
-                buf,
-                firstNotNull.getValue(),
-                column.getDatatype());
+            sqlQuery.quote(buf, notNullKeys.get(0), column.getDatatype());
             buf.append(" or ");
             buf.append(expr);
             buf.append(" is null)");
-            break;
+            return;
+        }
 
-        default:
-            // Nulls and values, for example,
-            // "(x in (1, 2) or x IS NULL)".
-            String save = buf.substring(marker);
-            buf.setLength(marker); // backtrack
+        // If all of the predicates were non-null, write, for example,
+        // "x in (1, 2, 3)"; if there were nulls too,
+        // "(x in (1, 2) or x IS NULL)".
+        if (containsNull) {
             buf.append('(');
-            buf.append(save);
+        }
+        buf.append(expr);
+        buf.append(" in (");
+        for (int i = 0; i < notNullCount; i++) {
+            if (i > 0) {
+                buf.append(", ");
+            }
+            sqlQuery.quote(buf, notNullKeys.get(i), column.getDatatype());
+        }
+        buf.append(')');
+        if (containsNull) {
             buf.append(" or ");
             buf.append(expr);
             buf.append(" is null)");
-            break;
         }
     }
+
+    /**
+     * Writes this predicate as a disjunction of ranges and an IN list, for
+     * example "(x between 1 and 500 or x in (503, 507) or x is null)".
+     */
+    private void rangesToSql(SqlQuery sqlQuery, StringBuilder buf) {
+        final RolapStar.Column column = getConstrainedColumn();
+        final String expr = column.generateExprString(sqlQuery);
+        final List<Long> singles = new ArrayList<>();
+        buf.append('(');
+        int termCount = 0;
+        for (long[] run : getRuns()) {
+            if (run[1] - run[0] + 1 < MIN_RANGE_LENGTH) {
+                for (long l = run[0]; l <= run[1]; l++) {
+                    singles.add(l);
+                }
+                continue;
+            }
+            if (termCount++ > 0) {
+                buf.append(" or ");
+            }
+            buf.append(expr).append(" between ");
+            sqlQuery.quote(buf, run[0], column.getDatatype());
+            buf.append(" and ");
+            sqlQuery.quote(buf, run[1], column.getDatatype());
+        }
+        if (!singles.isEmpty()) {
+            if (termCount++ > 0) {
+                buf.append(" or ");
+            }
+            buf.append(expr).append(" in (");
+            for (int i = 0; i < singles.size(); i++) {
+                if (i > 0) {
+                    buf.append(", ");
+                }
+                sqlQuery.quote(buf, singles.get(i), column.getDatatype());
+            }
+            buf.append(')');
+        }
+        if (values.contains(RolapUtil.sqlNullValue)) {
+            buf.append(" or ").append(expr).append(" is null");
+        }
+        buf.append(')');
+    }
 }
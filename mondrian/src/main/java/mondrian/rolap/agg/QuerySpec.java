@@ -19,6 +19,7 @@ import org.eclipse.daanse.db.dialect.api.BestFitColumnType;
 
 import mondrian.rolap.RolapStar;
 import mondrian.rolap.StarColumnPredicate;
+import mondrian.rolap.sql.ParameterizedSql;
 import mondrian.util.Pair;
 
 /**
@@ -47,5 +48,9 @@ public interface QuerySpec {
      */
     StarColumnPredicate getColumnPredicate(int i);
 
-    Pair<String, List<BestFitColumnType>> generateSqlQuery();
+    /**
+     * Generates the SQL statement, with the values of a segment load as
+     * bind parameters if they are enabled, and the types of its columns.
+     */
+    Pair<ParameterizedSql, List<BestFitColumnType>> generateSqlQuery();
 }
@@ -46,6 +46,8 @@ import mondrian.rolap.cache.SegmentCacheIndex;
 import mondrian.rolap.cache.SegmentCacheIndexImpl;
 import mondrian.server.Execution;
 import mondrian.server.Locus;
+import mondrian.server.metrics.EngineMetrics;
+import mondrian.server.metrics.Metric;
 import mondrian.server.monitor.CellCacheEvent;
 import mondrian.server.monitor.CellCacheSegmentCreateEvent;
 import mondrian.server.monitor.CellCacheSegmentDeleteEvent;
@@ -55,6 +57,7 @@ import mondrian.spi.SegmentCache;
 import mondrian.spi.SegmentColumn;
 import mondrian.spi.SegmentHeader;
 import mondrian.util.BlockingHashMap;
+import mondrian.util.ExecutorFactory;
 import mondrian.util.MDCUtil;
 import mondrian.util.Pair;
 
@@ -265,21 +268,16 @@ public class SegmentCacheManager {
       } );
 
   /**
-   * Executor with which to execute SQL requests.
+   * Executor with which to execute SQL requests. See {@link ExecutorFactory}
+   * for the kind of threads it uses.
    *
-   * <p>TODO: create using factory and/or configuration parameters. Executor
-   * should be shared within MondrianServer or target JDBC database.
+   * <p>TODO: Executor should be shared within MondrianServer or target JDBC
+   * database.
    */
   public final ExecutorService sqlExecutor =
-    Util.getExecutorService(
-      // We use the same value for coreSize and maxSize
-      // because that's the behavior we want. All extra
-      // tasks will be put on an unbounded queue.
-      MondrianProperties.instance()
-        .SegmentCacheManagerNumberSqlThreads.get(),
+    ExecutorFactory.getExecutorService(
       MondrianProperties.instance()
         .SegmentCacheManagerNumberSqlThreads.get(),
-      1,
       "mondrian.rolap.agg.SegmentCacheManager$sqlExecutor",
       ( r, executor ) -> {
         throw MondrianResource.instance()
@@ -294,6 +292,12 @@ public class SegmentCacheManager {
   public final SegmentCache compositeCache;
   private final SegmentCacheIndexRegistry indexRegistry;
 
+  /**
+   * Gauges that report the state of {@link #cacheExecutor} and
+   * {@link #sqlExecutor}; removed on {@link #shutdown()}.
+   */
+  private final List<Metric> executorMetrics = new ArrayList<>();
+
   private static final Logger LOGGER =
     LoggerFactory.getLogger( AggregationManager.class );
   private final MondrianServer server;
@@ -307,6 +311,15 @@ public class SegmentCacheManager {
     thread.setDaemon( true );
     thread.start();
 
+    final String owner =
+      server == null ? "" : String.valueOf( server.getId() );
+    executorMetrics.addAll(
+      EngineMetrics.registerExecutor(
+        "segmentCacheManagerCache", owner, cacheExecutor ) );
+    executorMetrics.addAll(
+      EngineMetrics.registerExecutor(
+        "segmentCacheManagerSql", owner, sqlExecutor ) );
+
     // Create the index registry.
     this.indexRegistry = new SegmentCacheIndexRegistry();
 
@@ -530,6 +543,7 @@ public class SegmentCacheManager {
     execute( new ShutdownCommand() );
     cacheExecutor.shutdown();
     sqlExecutor.shutdown();
+    EngineMetrics.unregister( executorMetrics );
   }
 
   public SegmentBuilder.SegmentConverter getConverter(
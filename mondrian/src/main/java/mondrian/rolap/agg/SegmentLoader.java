@@ -42,6 +42,7 @@ import mondrian.rolap.SqlStatement;
 import mondrian.rolap.StarPredicate;
 import mondrian.rolap.agg.SegmentCacheManager.AbortException;
 import mondrian.rolap.cache.SegmentCacheIndex;
+import mondrian.rolap.sql.ParameterizedSql;
 import mondrian.server.Execution;
 import mondrian.server.Locus;
 import mondrian.server.monitor.SqlStatementEvent;
@@ -187,6 +188,7 @@ public class SegmentLoader {
         // Nothing to do. We're done here.
         return segmentMap;
       }
+      Locus.peek().execution.incrementSqlQueryCount();
 
       boolean[] axisContainsNull = new boolean[arity];
 
@@ -453,7 +455,7 @@ public class SegmentLoader {
   SqlStatement createExecuteSql( int cellRequestCount, final GroupingSetsList groupingSetsList,
       List<StarPredicate> compoundPredicateList ) {
     RolapStar star = groupingSetsList.getStar();
-    Pair<String, List<BestFitColumnType>> pair =
+    Pair<ParameterizedSql, List<BestFitColumnType>> pair =
         AggregationManager.generateSql( groupingSetsList, compoundPredicateList );
     final Locus locus =
         new SqlStatement.StatementLocus( Locus.peek().execution, "Segment.load", "Error while loading segment",
@@ -510,7 +512,7 @@ public class SegmentLoader {
       return RolapUtil.executeQuery( star.getContext(), pair.left, pair.right, 0, 0, locus, -1, -1,
           // Only one of the two callbacks are required, depending if we
           // cache the segments or not.
-          MondrianProperties.instance().DisableCaching.get() ? callbackNoCaching : callbackWithCaching );
+          MondrianProperties.instance().DisableCaching.get() ? callbackNoCaching : callbackWithCaching, false );
     } catch ( Throwable t ) {
       if ( Util.getMatchingCause( t, AbortException.class ) != null ) {
         return null;
@@ -192,6 +192,26 @@ public class SegmentWithData extends Segment {
         }
     }
 
+    /**
+     * Returns the ordinal of a key on an axis, that is, the value of
+     * {@link CellKey#getAxis(int)} for the cells with that key.
+     *
+     * <p>Returns -1 if the axis would contain the key but no cell has it
+     * (so every cell with the key is null), and -2 if the key is outside
+     * this segment.</p>
+     *
+     * @param axis Axis, the position of the column in the request
+     * @param key Column value
+     * @return Ordinal of key, or -1 or -2
+     */
+    public int getAxisOffset(int axis, Object key) {
+        final int offset = axes[axis].getOffset((Comparable) key);
+        if (offset >= 0) {
+            return offset;
+        }
+        return axes[axis].wouldContain(key) ? -1 : -2;
+    }
+
     /**
      * Returns whether the given set of key values will be in this segment
      * when it finishes loading.
@@ -0,0 +1,194 @@
+/*
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   SmartCity Jena - initial
+ */
+package mondrian.rolap.sql;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+import org.eclipse.daanse.db.dialect.api.Datatype;
+import org.eclipse.daanse.db.dialect.api.Dialect;
+
+/**
+ * SQL text with a '?' for each value that is passed to the database as a
+ * bind parameter, and the values, in the order of the placeholders.
+ *
+ * <p>A {@link SqlQuery} that {@link SqlQuery#setBindParameters(boolean) uses
+ * bind parameters} writes a placeholder for each value and keeps the value
+ * in a list next to the clause that contains it;
+ * {@link SqlQuery#toParameterizedSqlAndTypes()} returns both, to be executed
+ * by {@link mondrian.rolap.SqlStatement}. Queries that differ only in their
+ * values then have the same text, and the database can reuse the plan of a
+ * previous execution.</p>
+ *
+ * <p>{@link #toString()} returns the SQL with the values written as literals,
+ * for logs and messages.</p>
+ */
+public final class ParameterizedSql {
+    private final String sql;
+    private final List<Parameter> parameters;
+
+    /**
+     * Creates a ParameterizedSql.
+     *
+     * @param sql SQL text, with a '?' for each parameter
+     * @param parameters Parameters, in the order they occur in the SQL text
+     */
+    public ParameterizedSql(String sql, List<Parameter> parameters) {
+        this.sql = Objects.requireNonNull(sql);
+        this.parameters = List.copyOf(parameters);
+    }
+
+    /**
+     * Creates a ParameterizedSql for SQL text without parameters.
+     *
+     * @param sql SQL text
+     * @return SQL without parameters
+     */
+    public static ParameterizedSql of(String sql) {
+        return new ParameterizedSql(sql, Collections.emptyList());
+    }
+
+    /**
+     * Returns the SQL text, with a '?' for each parameter.
+     */
+    public String getSql() {
+        return sql;
+    }
+
+    /**
+     * Returns the parameters, in the order they occur in the SQL text.
+     */
+    public List<Parameter> getParameters() {
+        return parameters;
+    }
+
+    /**
+     * Sets the parameters of a statement prepared from {@link #getSql()}.
+     *
+     * @param statement Prepared statement
+     * @param dialect Dialect
+     * @throws SQLException if a value cannot be set
+     */
+    public void bind(PreparedStatement statement, Dialect dialect)
+        throws SQLException
+    {
+        for (int i = 0; i < parameters.size(); i++) {
+            final Parameter parameter = parameters.get(i);
+            dialect.bindParameter(
+                statement, i + 1, parameter.value(), parameter.datatype());
+        }
+    }
+
+    /**
+     * Returns the SQL text with the parameters written as literals.
+     */
+    @Override
+    public String toString() {
+        if (parameters.isEmpty()) {
+            return sql;
+        }
+        final StringBuilder buf = new StringBuilder(sql.length() + 16);
+        appendLiterals(buf, sql, parameters);
+        return buf.toString();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj == this
+            || obj instanceof ParameterizedSql that
+            && sql.equals(that.sql)
+            && parameters.equals(that.parameters);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(sql, parameters);
+    }
+
+    /**
+     * Returns the number of placeholders in a fragment of SQL text. A '?'
+     * inside a quoted literal or identifier is not a placeholder.
+     *
+     * @param sql SQL text
+     * @return number of placeholders
+     */
+    static int countPlaceholders(CharSequence sql) {
+        int count = 0;
+        for (int i = nextPlaceholder(sql, 0); i >= 0;
+            i = nextPlaceholder(sql, i + 1))
+        {
+            ++count;
+        }
+        return count;
+    }
+
+    /**
+     * Appends a fragment of SQL text to a buffer, replacing its placeholders
+     * with the literals of the parameters.
+     *
+     * @param buf Buffer
+     * @param sql SQL text
+     * @param parameters Parameters of the placeholders in the text
+     */
+    static void appendLiterals(
+        StringBuilder buf,
+        String sql,
+        List<Parameter> parameters)
+    {
+        int start = 0;
+        for (Parameter parameter : parameters) {
+            final int i = nextPlaceholder(sql, start);
+            assert i >= 0 : "more parameters than placeholders in " + sql;
+            buf.append(sql, start, i).append(parameter.literal());
+            start = i + 1;
+        }
+        buf.append(sql, start, sql.length());
+    }
+
+    private static int nextPlaceholder(CharSequence sql, int start) {
+        char close = 0;
+        for (int i = start; i < sql.length(); i++) {
+            final char c = sql.charAt(i);
+            if (close != 0) {
+                if (c == close) {
+                    close = 0;
+                }
+            } else if (c == '?') {
+                return i;
+            } else if (c == '\'' || c == '"' || c == '`') {
+                close = c;
+            } else if (c == '[') {
+                close = ']';
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Value of a bind parameter.
+     *
+     * @param value Value
+     * @param datatype Datatype
+     * @param literal The value as a SQL literal, per
+     *     {@link Dialect#quote(StringBuilder, Object, Datatype)}
+     */
+    public record Parameter(Object value, Datatype datatype, String literal) {
+        @Override
+        public String toString() {
+            return literal;
+        }
+    }
+}
@@ -20,6 +20,7 @@ import static mondrian.rolap.util.TableUtil.getHintMap;
 import static mondrian.rolap.util.ViewUtil.getCodeSet;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -27,6 +28,7 @@ import java.util.Map;
 import java.util.Set;
 
 import org.eclipse.daanse.db.dialect.api.BestFitColumnType;
+import org.eclipse.daanse.db.dialect.api.Datatype;
 import org.eclipse.daanse.db.dialect.api.Dialect;
 import org.eclipse.daanse.engine.api.Context;
 import org.eclipse.daanse.olap.rolap.dbmapper.model.api.InlineTable;
@@ -116,6 +118,16 @@ public class SqlQuery {
     /** Is query supported by database vendor. Default is true*/
     private boolean isSupported = true;
 
+    /** Whether values are written as bind parameters. Default is false. */
+    private boolean bindParameters;
+
+    /**
+     * Bind parameters written by {@link #quote} whose text has not yet been
+     * added to a clause.
+     */
+    private final List<ParameterizedSql.Parameter> pendingParameters =
+        new ArrayList<>();
+
     /**
      * This list is used to keep track of what aliases have been  used in the
      * FROM clause. One might think that a java.util.Set would be a more
@@ -200,7 +212,9 @@ public class SqlQuery {
      */
     public SqlQuery cloneEmpty()
     {
-        return new SqlQuery(dialect);
+        final SqlQuery query = new SqlQuery(dialect);
+        query.setBindParameters(bindParameters);
+        return query;
     }
 
     public void setDistinct(final boolean distinct) {
@@ -234,6 +248,16 @@ public class SqlQuery {
         final String query,
         final String alias,
         final boolean failIfExists)
+    {
+        return addFromQuery(
+            query, takeParameters(query), alias, failIfExists);
+    }
+
+    private boolean addFromQuery(
+        final String query,
+        final List<ParameterizedSql.Parameter> parameters,
+        final String alias,
+        final boolean failIfExists)
     {
         assert alias != null;
         assert alias.length() > 0;
@@ -260,7 +284,7 @@ public class SqlQuery {
         dialect.quoteIdentifier(alias, buf);
         fromAliases.add(alias);
 
-        from.add(buf.toString());
+        from.add(buf.toString(), parameters);
         return true;
     }
 
@@ -328,7 +352,9 @@ public class SqlQuery {
         final String alias,
         final boolean failIfExists)
     {
-        addFromQuery(sqlQuery.toString(), alias, failIfExists);
+        final ParameterizedSql subquery = sqlQuery.toParameterizedSql();
+        addFromQuery(
+            subquery.getSql(), subquery.getParameters(), alias, failIfExists);
     }
 
     /**
@@ -543,7 +569,7 @@ public class SqlQuery {
             dialect.quoteIdentifier(alias, buf);
         }
 
-        select.add(buf.toString());
+        select.add(buf.toString(), takeParameters(expression));
         addType(type);
         columnAliases.put(expression.toString(), alias);
         return alias;
@@ -582,13 +608,13 @@ public class SqlQuery {
     public void addWhere(final String expression)
     {
         assert expression != null && !expression.equals("");
-        where.add(expression);
+        where.add(expression, takeParameters(expression));
     }
 
     public void addGroupBy(final String expression)
     {
         assert expression != null && !expression.equals("");
-        groupBy.add(expression);
+        groupBy.add(expression, takeParameters(expression));
     }
 
     public void addGroupBy(final String expression, final String alias) {
@@ -602,7 +628,7 @@ public class SqlQuery {
     public void addHaving(final String expression)
     {
         assert expression != null && !expression.equals("");
-        having.add(expression);
+        having.add(expression, takeParameters(expression));
     }
 
     /**
@@ -648,13 +674,19 @@ public class SqlQuery {
                 nullable,
                 ascending,
                 collateNullsLast).toString();
+        final List<ParameterizedSql.Parameter> parameters =
+            takeParameters(orderExpr);
         if (prepend) {
-            orderBy.add(0, orderExpr);
+            orderBy.add(0, orderExpr, parameters);
         } else {
-            orderBy.add(orderExpr);
+            orderBy.add(orderExpr, parameters);
         }
     }
 
+    /**
+     * Returns the SQL of this query, with bind parameters written as
+     * literals.
+     */
     @Override
 	public String toString()
     {
@@ -663,27 +695,70 @@ public class SqlQuery {
         return buf.toString();
     }
 
+    /**
+     * Returns the SQL of this query, with a '?' for each bind parameter, and
+     * the parameters.
+     *
+     * @see #setBindParameters(boolean)
+     */
+    public ParameterizedSql toParameterizedSql() {
+        if (!pendingParameters.isEmpty()) {
+            throw Util.newInternal(
+                new StringBuilder("bind parameters ")
+                    .append(pendingParameters)
+                    .append(" were not added to query ").append(this)
+                    .toString());
+        }
+        final List<ParameterizedSql.Parameter> parameters = new ArrayList<>();
+        buf.setLength(0);
+        toBuffer(buf, "", parameters);
+        return new ParameterizedSql(buf.toString(), parameters);
+    }
+
     /**
      * Writes this SqlQuery to a StringBuilder with each clause on a separate
-     * line, and with the specified indentation prefix.
+     * line, and with the specified indentation prefix. Bind parameters are
+     * written as literals.
      *
      * @param buf String builder
      * @param prefix Prefix for each line
      */
     public void toBuffer(StringBuilder buf, String prefix) {
+        toBuffer(buf, prefix, null);
+    }
+
+    /**
+     * Writes this SqlQuery to a StringBuilder.
+     *
+     * @param buf String builder
+     * @param prefix Prefix for each line
+     * @param parameters List to which to add the bind parameters, in order,
+     *   writing a '?' for each; or null to write them as literals
+     */
+    private void toBuffer(
+        StringBuilder buf,
+        String prefix,
+        List<ParameterizedSql.Parameter> parameters)
+    {
         final String first = distinct ? "select distinct " : "select ";
-        select.toBuffer(buf, generateFormattedSql, prefix, first, ", ", "", "");
+        select.toBuffer(
+            buf, parameters, generateFormattedSql, prefix, first, ", ", "",
+            "");
         groupingFunctionsToBuffer(buf, prefix);
         from.toBuffer(
-            buf, generateFormattedSql, prefix, " from ", ", ", "", "");
+            buf, parameters, generateFormattedSql, prefix, " from ", ", ", "",
+            "");
         where.toBuffer(
-            buf, generateFormattedSql, prefix, " where ", " and ", "", "");
+            buf, parameters, generateFormattedSql, prefix, " where ", " and ",
+            "", "");
         if (groupingSets.isEmpty()) {
             groupBy.toBuffer(
-                buf, generateFormattedSql, prefix, " group by ", ", ", "", "");
+                buf, parameters, generateFormattedSql, prefix, " group by ",
+                ", ", "", "");
         } else {
             ClauseList.listToBuffer(
                 buf,
+                parameters,
                 groupingSets,
                 generateFormattedSql,
                 prefix,
@@ -692,11 +767,13 @@ public class SqlQuery {
                 ")");
         }
         having.toBuffer(
-            buf, generateFormattedSql, prefix, " having ", " and ", "", "");
+            buf, parameters, generateFormattedSql, prefix, " having ", " and ",
+            "", "");
         orderBy.toBuffer(
-            buf, generateFormattedSql, prefix, " order by ", ", ", "", "");
+            buf, parameters, generateFormattedSql, prefix, " order by ", ", ",
+            "", "");
         rowLimit.toBuffer(
-                buf, generateFormattedSql, prefix, " ", ", ", "", "");
+            buf, parameters, generateFormattedSql, prefix, " ", ", ", "", "");
     }
 
     private void groupingFunctionsToBuffer(StringBuilder buf, String prefix) {
@@ -725,10 +802,91 @@ public class SqlQuery {
     }
 
     public static SqlQuery newQuery(Context context, String err) {
-
         return new SqlQuery(context.getDialect());
     }
 
+    /**
+     * Sets whether this query writes values as bind parameters.
+     *
+     * <p>The SQL text of such a query, as returned by
+     * {@link #toParameterizedSql()}, has a '?' for each value. Its values
+     * must be passed to the statement that executes it; {@link #toString()}
+     * writes them as literals.
+     *
+     * <p>A value written by {@link #quote} belongs to the clause next added
+     * to this query, so the caller must add the text it was written to,
+     * exactly once, before quoting further values.
+     *
+     * @param bindParameters Whether to write values as bind parameters
+     *
+     * @see ParameterizedSql
+     */
+    public void setBindParameters(boolean bindParameters) {
+        this.bindParameters = bindParameters;
+    }
+
+    /**
+     * Returns whether this query writes values as bind parameters.
+     */
+    public boolean isBindParameters() {
+        return bindParameters;
+    }
+
+    /**
+     * Appends a value to a buffer, as a literal or as a bind parameter.
+     *
+     * <p>The value is written as a bind parameter if this query
+     * {@link #setBindParameters(boolean) uses bind parameters} and the
+     * dialect can bind values of the datatype; otherwise as a literal, per
+     * {@link Dialect#quote(StringBuilder, Object, Datatype)}.
+     *
+     * @param buf Buffer to append to
+     * @param value Value
+     * @param datatype Datatype of value
+     */
+    public void quote(StringBuilder buf, Object value, Datatype datatype) {
+        final int length = buf.length();
+        // Generate the literal even if the value is bound. It validates the
+        // value; some callers expect a NumberFormatException for malformed
+        // values.
+        dialect.quote(buf, value, datatype);
+        if (!bindParameters
+            || value == null
+            || !dialect.allowsBindParameter(datatype))
+        {
+            return;
+        }
+        final String literal = buf.substring(length);
+        buf.setLength(length);
+        buf.append('?');
+        pendingParameters.add(
+            new ParameterizedSql.Parameter(value, datatype, literal));
+    }
+
+    /**
+     * Removes and returns the pending bind parameters whose placeholders are
+     * in a piece of text that is being added to a clause.
+     */
+    private List<ParameterizedSql.Parameter> takeParameters(
+        CharSequence text)
+    {
+        if (pendingParameters.isEmpty()) {
+            return Collections.emptyList();
+        }
+        final int count = ParameterizedSql.countPlaceholders(text);
+        if (count > pendingParameters.size()) {
+            throw Util.newInternal(
+                new StringBuilder("no bind parameter for placeholder in '")
+                    .append(text).append("'").toString());
+        }
+        final List<ParameterizedSql.Parameter> taken =
+            pendingParameters.subList(0, count);
+        final List<ParameterizedSql.Parameter> parameters =
+            List.copyOf(taken);
+        taken.clear();
+        return parameters;
+    }
+
     public void addGroupingSet(List<String> groupingColumnsExpr) {
         ClauseList groupingList = new ClauseList(false);
         for (String columnExp : groupingColumnsExpr) {
@@ -757,6 +915,22 @@ public class SqlQuery {
         return Pair.of(toString(), types);
     }
 
+    /**
+     * Returns the SQL of this query, with a '?' for each bind parameter and
+     * the parameters, and the types of its columns.
+     *
+     * @see #toParameterizedSql()
+     */
+    public Pair<ParameterizedSql, List<BestFitColumnType>>
+        toParameterizedSqlAndTypes()
+    {
+        assert types.size() == select.size() + groupingFunctions.size()
+            : new StringBuilder(types.size()).append(" types, ")
+            .append((select.size() + groupingFunctions.size()))
+            .append(" select items in query ").append(this).toString();
+        return Pair.of(toParameterizedSql(), types);
+    }
+
     public void registerRootRelation(RelationOrJoin root) {
         // REVIEW: In this method, we are building data structures about the
         // structure of a star schema. These should be built into the schema,
@@ -910,6 +1084,10 @@ public class SqlQuery {
     static class ClauseList extends ArrayList<String> {
         protected final boolean allowDups;
 
+        /** Bind parameters of each element, in the same order. */
+        private final List<List<ParameterizedSql.Parameter>> parameterLists =
+            new ArrayList<>();
+
         ClauseList(final boolean allowDups) {
             this.allowDups = allowDups;
         }
@@ -924,14 +1102,67 @@ public class SqlQuery {
          */
         @Override
 		public boolean add(final String element) {
-            if (allowDups || !contains(element)) {
+            return add(element, Collections.emptyList());
+        }
+
+        /**
+         * Adds an element and the bind parameters of its placeholders to
+         * this ClauseList if either duplicates are allowed or if it has not
+         * already been added with the same parameters.
+         *
+         * @param element Element to add
+         * @param parameters Bind parameters
+         * @return whether element was added
+         */
+        boolean add(
+            final String element,
+            final List<ParameterizedSql.Parameter> parameters)
+        {
+            if (allowDups || indexOf(element, parameters) < 0) {
+                parameterLists.add(parameters);
                 return super.add(element);
             }
             return false;
         }
 
+        @Override
+        public void add(final int index, final String element) {
+            add(index, element, Collections.emptyList());
+        }
+
+        /**
+         * Inserts an element and the bind parameters of its placeholders
+         * into this ClauseList if either duplicates are allowed or if it has
+         * not already been added with the same parameters.
+         */
+        void add(
+            final int index,
+            final String element,
+            final List<ParameterizedSql.Parameter> parameters)
+        {
+            if (allowDups || indexOf(element, parameters) < 0) {
+                parameterLists.add(index, parameters);
+                super.add(index, element);
+            }
+        }
+
+        private int indexOf(
+            String element,
+            List<ParameterizedSql.Parameter> parameters)
+        {
+            for (int i = 0; i < size(); i++) {
+                if (get(i).equals(element)
+                    && parameterLists.get(i).equals(parameters))
+                {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
         final void toBuffer(
             StringBuilder buf,
+            List<ParameterizedSql.Parameter> parameters,
             boolean generateFormattedSql,
             String prefix,
             String first,
@@ -945,7 +1176,7 @@ public class SqlQuery {
             }
             first = foo(generateFormattedSql, prefix, first);
             sep = foo(generateFormattedSql, prefix, sep);
-            toBuffer(buf, first, sep, last);
+            toBuffer(buf, parameters, first, sep, last);
         }
 
         static String foo(
@@ -973,23 +1204,34 @@ public class SqlQuery {
 
         final void toBuffer(
             final StringBuilder buf,
+            final List<ParameterizedSql.Parameter> parameters,
             final String first,
             final String sep,
             final String last)
         {
-            int n = 0;
             buf.append(first);
-            for (String s : this) {
-                if (n++ > 0) {
+            for (int i = 0; i < size(); i++) {
+                if (i > 0) {
                     buf.append(sep);
                 }
-                buf.append(s);
+                final String s = get(i);
+                final List<ParameterizedSql.Parameter> elementParameters =
+                    parameterLists.get(i);
+                if (elementParameters.isEmpty()) {
+                    buf.append(s);
+                } else if (parameters != null) {
+                    buf.append(s);
+                    parameters.addAll(elementParameters);
+                } else {
+                    ParameterizedSql.appendLiterals(buf, s, elementParameters);
+                }
             }
             buf.append(last);
         }
 
         static void listToBuffer(
             StringBuilder buf,
+            List<ParameterizedSql.Parameter> parameters,
             List<ClauseList> clauseListList,
             boolean generateFormattedSql,
             String prefix,
@@ -1006,7 +1248,7 @@ public class SqlQuery {
                     buf.append(sep);
                 }
                 clauseList.toBuffer(
-                    buf, false, prefix, "(", ", ", ")", "()");
+                    buf, parameters, false, prefix, "(", ", ", ")", "()");
             }
             buf.append(last);
         }
@@ -1067,4 +1309,26 @@ public class SqlQuery {
             this.rowLimit.add("LIMIT " + Integer.toString(maxRowCount));
         }
     }
+
+    /**
+     * Restricts the rows of the query to one page, if the dialect
+     * {@link Dialect#supportsLimitOffset() supports LIMIT and OFFSET clauses}.
+     *
+     * @param firstRowOrdinal Number of rows to skip
+     * @param maxRowCount Ordinal of the last row of the page; the page holds
+     *   {@code maxRowCount - firstRowOrdinal} rows
+     * @return Whether the rows are restricted in SQL
+     */
+    public boolean addRowLimit(int firstRowOrdinal, int maxRowCount) {
+        if (!this.dialect.supportsLimitOffset()) {
+            return false;
+        }
+        final StringBuilder buf = new StringBuilder("LIMIT ")
+            .append(Math.max(0, maxRowCount - firstRowOrdinal));
+        if (firstRowOrdinal > 0) {
+            buf.append(" OFFSET ").append(firstRowOrdinal);
+        }
+        this.rowLimit.add(buf.toString());
+        return true;
+    }
 }
@@ -14,6 +14,7 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
 import mondrian.olap.MemoryLimitExceededException;
@@ -25,6 +26,7 @@ import mondrian.olap.Util;
 import mondrian.resource.MondrianResource;
 import mondrian.rolap.RolapConnection;
 import mondrian.rolap.agg.SegmentCacheManager;
+import mondrian.server.metrics.EngineMetrics;
 import mondrian.server.monitor.ExecutionEndEvent;
 import mondrian.server.monitor.ExecutionPhaseEvent;
 import mondrian.server.monitor.ExecutionStartEvent;
@@ -81,6 +83,7 @@ public class Execution {
   private int cellCachePendingCount;
   private int expCacheHitCount;
   private int expCacheMissCount;
+  private final AtomicInteger sqlQueryCount = new AtomicInteger();
 
   /**
    * Execution id, global within this JVM instance.
@@ -394,6 +397,10 @@ public class Execution {
   }
 
   private void fireExecutionEndEvent() {
+    if ( startTimeMillis > 0 ) {
+      EngineMetrics.EXECUTION_SECONDS.observe( getElapsedMillis() / 1000d );
+      EngineMetrics.EXECUTION_SQL_QUERIES.observe( sqlQueryCount.get() );
+    }
     final RolapConnection connection = statement.getMondrianConnection();
     final MondrianServer server = connection.getServer();
     server.getMonitor().sendEvent( new ExecutionEndEvent( this.startTimeMillis, server.getId(), connection.getId(),
@@ -420,6 +427,21 @@ public class Execution {
     this.cellCachePendingCount = cellCachePendingCount;
   }
 
+  /**
+   * Records that a SQL statement was executed to load cells for this execution. Called by the segment loader, on
+   * the thread that runs the statement.
+   */
+  public void incrementSqlQueryCount() {
+    sqlQueryCount.incrementAndGet();
+  }
+
+  /**
+   * Returns the number of SQL statements executed to load cells for this execution.
+   */
+  public int getSqlQueryCount() {
+    return sqlQueryCount.get();
+  }
+
   public void setExpCacheCounts( int hitCount, int missCount ) {
     this.expCacheHitCount = hitCount;
     this.expCacheMissCount = missCount;
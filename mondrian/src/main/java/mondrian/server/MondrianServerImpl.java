@@ -201,7 +201,7 @@ class MondrianServerImpl
 
         this.aggMgr = new AggregationManager(this);
 
-        this.shepherd = new RolapResultShepherd();
+        this.shepherd = new RolapResultShepherd(String.valueOf(id));
 
         if (LOGGER.isDebugEnabled()) {
             LOGGER.debug("new MondrianServer: id=" + id);
@@ -23,6 +23,7 @@ import org.slf4j.LoggerFactory;
 import mondrian.olap.MondrianProperties;
 import mondrian.olap.Util;
 import mondrian.rolap.RolapUtil;
+import mondrian.server.metrics.EngineMetrics;
 import mondrian.server.monitor.CellCacheSegmentCreateEvent;
 import mondrian.server.monitor.CellCacheSegmentDeleteEvent;
 import mondrian.server.monitor.ConnectionEndEvent;
@@ -36,6 +37,7 @@ import mondrian.server.monitor.ExecutionStartEvent;
 import mondrian.server.monitor.Message;
 import mondrian.server.monitor.Monitor;
 import mondrian.server.monitor.MonitorMXBean;
+import mondrian.server.monitor.ParsedQueryCacheEvent;
 import mondrian.server.monitor.ServerInfo;
 import mondrian.server.monitor.SqlStatementEndEvent;
 import mondrian.server.monitor.SqlStatementExecuteEvent;
@@ -245,6 +247,8 @@ public List<SqlStatementInfo> getSqlStatements() {
     private final MutableExecutionInfo aggExec = new MutableExecutionInfo( null, -1, null );
     private final MutableStatementInfo aggStmt = new MutableStatementInfo( null, -1, null );
     private final MutableConnectionInfo aggConn = new MutableConnectionInfo( null );
+    private int parsedQueryCacheHitCount;
+    private int parsedQueryCacheMissCount;
     private final String stack;
 
     public MutableServerInfo( String stack ) {
@@ -261,7 +265,8 @@ public List<SqlStatementInfo> getSqlStatements() {
                   - aggExec.cellCacheSegmentDeleteCount ), aggExec.cellCacheSegmentCreateCount,
           aggExec.cellCacheSegmentCreateViaExternalCount, aggExec.cellCacheSegmentDeleteViaExternalCount,
           aggExec.cellCacheSegmentCreateViaRollupCount, aggExec.cellCacheSegmentCreateViaSqlCount,
-          aggExec.cellCacheSegmentCellCount, aggExec.cellCacheSegmentCoordinateSum );
+          aggExec.cellCacheSegmentCellCount, aggExec.cellCacheSegmentCoordinateSum, parsedQueryCacheHitCount,
+          parsedQueryCacheMissCount );
     }
   }
 
@@ -637,6 +642,9 @@ public List<SqlStatementInfo> getSqlStatements() {
 
     @Override
 	public Object visit( ExecutionEndEvent event ) {
+      EngineMetrics.CELL_CACHE_HITS.add( event.cellCacheHitCount );
+      EngineMetrics.CELL_CACHE_MISSES.add( event.cellCacheMissCount );
+      EngineMetrics.CELL_CACHE_PENDING.add( event.cellCachePendingCount );
       final MutableExecutionInfo exec = executionMap.remove( event.executionId );
       if ( exec == null ) {
         return missing( event );
@@ -675,6 +683,7 @@ public List<SqlStatementInfo> getSqlStatements() {
 
     @Override
 	public Object visit( CellCacheSegmentCreateEvent event ) {
+      EngineMetrics.segmentCreated( event.actualCellCount, event.coordinateCount );
       MutableExecutionInfo exec = executionMap.get( event.executionId );
       if ( exec == null ) {
         // Cache events can sometimes arrive after the execution has
@@ -713,6 +722,7 @@ public List<SqlStatementInfo> getSqlStatements() {
 
     @Override
 	public Object visit( CellCacheSegmentDeleteEvent event ) {
+      EngineMetrics.segmentDeleted( event.coordinateCount );
       final MutableExecutionInfo exec = executionMap.get( event.executionId );
       if ( exec == null ) {
         return missing( event );
@@ -733,6 +743,16 @@ public List<SqlStatementInfo> getSqlStatements() {
       }
     }
 
+    @Override
+	public Object visit( ParsedQueryCacheEvent event ) {
+      if ( event.hit ) {
+        ++server.parsedQueryCacheHitCount;
+      } else {
+        ++server.parsedQueryCacheMissCount;
+      }
+      return null;
+    }
+
     @Override
 	public Object visit( SqlStatementStartEvent event ) {
       final MutableStatementInfo stmt = statementMap.get( event.getStatementId() );
@@ -760,6 +780,7 @@ public List<SqlStatementInfo> getSqlStatements() {
 
     @Override
 	public Object visit( SqlStatementExecuteEvent event ) {
+      EngineMetrics.SQL_EXECUTE_SECONDS.observe( event.executeNanos / 1e9 );
       final MutableSqlStatementInfo sql = sqlStatementMap.get( event.sqlStatementId );
       if ( sql == null ) {
         return missing( event );
@@ -777,6 +798,10 @@ public List<SqlStatementInfo> getSqlStatements() {
 
     @Override
 	public Object visit( SqlStatementEndEvent event ) {
+      EngineMetrics.SQL_ROWS.add( event.rowFetchCount );
+      if ( event.canceled || event.throwable != null ) {
+        EngineMetrics.SQL_FAILURES.inc();
+      }
       final MutableSqlStatementInfo sql = sqlStatementMap.remove( event.sqlStatementId );
       if ( sql == null ) {
         return missing( event );
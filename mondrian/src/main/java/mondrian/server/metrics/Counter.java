@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   SmartCity Jena - initial
+ */
+package mondrian.server.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Monotonically increasing counter.
+ *
+ * <p>Backed by a {@link LongAdder}, so concurrent increments from many
+ * threads do not contend.</p>
+ */
+public class Counter extends Metric {
+    private final LongAdder value = new LongAdder();
+
+    public Counter(String name, String help, String labels) {
+        super(name, help, labels);
+    }
+
+    public void inc() {
+        value.increment();
+    }
+
+    public void add(long amount) {
+        if (amount > 0) {
+            value.add(amount);
+        }
+    }
+
+    public long get() {
+        return value.sum();
+    }
+
+    @Override
+    public String getType() {
+        return "counter";
+    }
+
+    @Override
+    public void writeSamples(StringBuilder buf) {
+        writeSample(buf, getName() + "_total", null, get());
+    }
+}
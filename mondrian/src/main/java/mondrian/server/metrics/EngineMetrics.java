@@ -0,0 +1,251 @@
+/*
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   SmartCity Jena - initial
+ */
+package mondrian.server.metrics;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import mondrian.server.monitor.SqlStatementEvent.Purpose;
+import mondrian.util.CountingExecutorService;
+
+/**
+ * Metrics about the internals of the engine: cell cache, segment cache, SQL
+ * and thread pools.
+ *
+ * <p>Counters are updated by the monitor thread as it processes
+ * {@link mondrian.server.monitor.Event events}, so instrumenting them costs
+ * nothing on query threads. Gauges are evaluated only when scraped.</p>
+ */
+public final class EngineMetrics {
+    private static final Logger LOGGER =
+        LoggerFactory.getLogger(EngineMetrics.class);
+    private static final MetricRegistry REGISTRY = MetricRegistry.instance();
+
+    public static final Counter CELL_CACHE_HITS =
+        REGISTRY.counter(
+            "mondrian_cell_cache_hits",
+            "Cell requests answered from the cell cache");
+
+    public static final Counter CELL_CACHE_MISSES =
+        REGISTRY.counter(
+            "mondrian_cell_cache_misses",
+            "Cell requests that required loading a segment");
+
+    public static final Counter CELL_CACHE_PENDING =
+        REGISTRY.counter(
+            "mondrian_cell_cache_pending",
+            "Cell requests that waited for a segment already being loaded");
+
+    public static final Gauge CELL_CACHE_HIT_RATIO =
+        REGISTRY.gauge(
+            "mondrian_cell_cache_hit_ratio",
+            "Ratio of cell cache hits to all cell requests since start",
+            EngineMetrics::cellCacheHitRatio);
+
+    public static final Counter SEGMENTS_CREATED =
+        REGISTRY.counter(
+            "mondrian_segments_created",
+            "Segments added to the segment cache");
+
+    public static final Counter SEGMENTS_DELETED =
+        REGISTRY.counter(
+            "mondrian_segments_deleted",
+            "Segments removed from the segment cache");
+
+    public static final Counter SEGMENT_CELLS =
+        REGISTRY.counter(
+            "mondrian_segment_cells",
+            "Cells in segments added to the segment cache");
+
+    private static final LongAdder SEGMENT_COORDINATES = new LongAdder();
+
+    public static final Gauge SEGMENTS =
+        REGISTRY.gauge(
+            "mondrian_segments",
+            "Segments currently in the segment cache",
+            () -> (double) SEGMENTS_CREATED.get() - SEGMENTS_DELETED.get());
+
+    public static final Gauge SEGMENT_COORDINATES_GAUGE =
+        REGISTRY.gauge(
+            "mondrian_segment_coordinates",
+            "Sum of axis coordinates of segments currently cached",
+            SEGMENT_COORDINATES::sum);
+
+    public static final Histogram SQL_EXECUTE_SECONDS =
+        REGISTRY.histogram(
+            "mondrian_sql_execute_seconds",
+            "Time to execute SQL statements, excluding fetch",
+            Histogram.LATENCY_SECONDS);
+
+    public static final Counter SQL_ROWS =
+        REGISTRY.counter(
+            "mondrian_sql_rows",
+            "Rows fetched by SQL statements");
+
+    public static final Counter SQL_FAILURES =
+        REGISTRY.counter(
+            "mondrian_sql_failures",
+            "SQL statements that ended with an error or were canceled");
+
+    private static final Map<Purpose, Histogram> SQL_QUEUE_SECONDS =
+        new EnumMap<>(Purpose.class);
+
+    static {
+        for (Purpose purpose : Purpose.values()) {
+            SQL_QUEUE_SECONDS.put(
+                purpose,
+                REGISTRY.register(
+                    new Histogram(
+                        "mondrian_sql_queue_seconds",
+                        "Time SQL statements waited for the data source's"
+                            + " concurrency limit",
+                        Metric.label("purpose", purpose.name()),
+                        Histogram.LATENCY_SECONDS)));
+        }
+    }
+
+    public static final Histogram EXECUTION_SECONDS =
+        REGISTRY.histogram(
+            "mondrian_execution_seconds",
+            "Elapsed time of MDX statement executions",
+            Histogram.LATENCY_SECONDS);
+
+    public static final Histogram EXECUTION_SQL_QUERIES =
+        REGISTRY.histogram(
+            "mondrian_execution_sql_queries",
+            "SQL statements issued to load cells per MDX statement execution",
+            new double[] {0, 1, 2, 5, 10, 20, 50, 100});
+
+    private EngineMetrics() {
+    }
+
+    private static double cellCacheHitRatio() {
+        final long hits = CELL_CACHE_HITS.get();
+        final long total =
+            hits + CELL_CACHE_MISSES.get() + CELL_CACHE_PENDING.get();
+        return total == 0 ? Double.NaN : (double) hits / total;
+    }
+
+    /**
+     * Returns the histogram of the time SQL statements of a given purpose
+     * waited before they ran.
+     *
+     * @param purpose Purpose of statements
+     * @return Histogram
+     */
+    public static Histogram sqlQueueSeconds(Purpose purpose) {
+        return SQL_QUEUE_SECONDS.get(purpose);
+    }
+
+    public static void segmentCreated(int cellCount, int coordinateCount) {
+        SEGMENTS_CREATED.inc();
+        SEGMENT_CELLS.add(cellCount);
+        SEGMENT_COORDINATES.add(coordinateCount);
+    }
+
+    public static void segmentDeleted(int coordinateCount) {
+        SEGMENTS_DELETED.inc();
+        SEGMENT_COORDINATES.add(-coordinateCount);
+    }
+
+    /**
+     * Registers gauges for the queue depth, active threads and pool size of
+     * a {@link ThreadPoolExecutor}, or for the submitted, active and completed
+     * tasks of a {@link CountingExecutorService}. For other executors no
+     * gauges are available, which is logged.
+     *
+     * @param name Name of the executor, used as the "executor" label
+     * @param owner Identifier of the owner (e.g. server id), used as the
+     *   "owner" label so that executors of different owners do not replace
+     *   each other
+     * @param executorService Executor
+     * @return Registered gauges; pass to {@link #unregister(List)} when the
+     *   executor is shut down
+     */
+    public static List<Metric> registerExecutor(
+        String name,
+        String owner,
+        ExecutorService executorService)
+    {
+        final List<Metric> list = new ArrayList<>();
+        final String labels =
+            Metric.label("executor", name) + ","
+            + Metric.label("owner", owner);
+        if (executorService instanceof ThreadPoolExecutor executor) {
+            list.add(
+                REGISTRY.register(
+                    new Gauge(
+                        "mondrian_executor_queue_depth",
+                        "Tasks waiting in the executor queue",
+                        labels,
+                        () -> executor.getQueue().size())));
+            list.add(
+                REGISTRY.register(
+                    new Gauge(
+                        "mondrian_executor_active_threads",
+                        "Threads of the executor running a task",
+                        labels,
+                        executor::getActiveCount)));
+            list.add(
+                REGISTRY.register(
+                    new Gauge(
+                        "mondrian_executor_pool_size",
+                        "Maximum number of threads of the executor",
+                        labels,
+                        executor::getMaximumPoolSize)));
+        } else if (executorService
+            instanceof CountingExecutorService executor)
+        {
+            list.add(
+                REGISTRY.register(
+                    new Gauge(
+                        "mondrian_executor_submitted_tasks",
+                        "Tasks submitted to the executor",
+                        labels,
+                        executor::getSubmittedCount)));
+            list.add(
+                REGISTRY.register(
+                    new Gauge(
+                        "mondrian_executor_active_threads",
+                        "Threads of the executor running a task",
+                        labels,
+                        executor::getActiveCount)));
+            list.add(
+                REGISTRY.register(
+                    new Gauge(
+                        "mondrian_executor_completed_tasks",
+                        "Tasks completed by the executor",
+                        labels,
+                        executor::getCompletedCount)));
+        } else {
+            LOGGER.info(
+                "No metrics are available for executor {} of type {}",
+                name, executorService.getClass().getName());
+        }
+        return list;
+    }
+
+    public static void unregister(List<Metric> metrics) {
+        for (Metric metric : metrics) {
+            REGISTRY.unregister(metric);
+        }
+    }
+}
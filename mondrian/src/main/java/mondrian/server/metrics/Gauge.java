@@ -0,0 +1,46 @@
+/*
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   SmartCity Jena - initial
+ */
+package mondrian.server.metrics;
+
+import java.util.function.DoubleSupplier;
+
+/**
+ * Gauge whose value is computed when the metrics are scraped.
+ */
+public class Gauge extends Metric {
+    private final DoubleSupplier supplier;
+
+    public Gauge(
+        String name,
+        String help,
+        String labels,
+        DoubleSupplier supplier)
+    {
+        super(name, help, labels);
+        this.supplier = supplier;
+    }
+
+    public double get() {
+        return supplier.getAsDouble();
+    }
+
+    @Override
+    public String getType() {
+        return "gauge";
+    }
+
+    @Override
+    public void writeSamples(StringBuilder buf) {
+        writeSample(buf, getName(), null, get());
+    }
+}
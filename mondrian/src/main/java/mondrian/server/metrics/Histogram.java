@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   SmartCity Jena - initial
+ */
+package mondrian.server.metrics;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histogram with fixed bucket upper bounds.
+ *
+ * <p>Each bucket is a {@link LongAdder}; buckets are stored
+ * non-cumulatively and accumulated only when written.</p>
+ */
+public class Histogram extends Metric {
+    /**
+     * Default bounds, in seconds, for latency histograms.
+     */
+    public static final double[] LATENCY_SECONDS = {
+        .001, .005, .01, .025, .05, .1, .25, .5, 1, 2.5, 5, 10, 30, 60
+    };
+
+    private final double[] bounds;
+    private final LongAdder[] buckets;
+    private final DoubleAdder sum = new DoubleAdder();
+
+    public Histogram(String name, String help, String labels, double[] bounds) {
+        super(name, help, labels);
+        this.bounds = bounds.clone();
+        Arrays.sort(this.bounds);
+        // One extra bucket for +Inf.
+        this.buckets = new LongAdder[this.bounds.length + 1];
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Records an observation.
+     *
+     * @param value Observed value
+     */
+    public void observe(double value) {
+        int i = Arrays.binarySearch(bounds, value);
+        if (i < 0) {
+            i = -i - 1;
+        }
+        buckets[i].increment();
+        sum.add(value);
+    }
+
+    public long getCount() {
+        long count = 0;
+        for (LongAdder bucket : buckets) {
+            count += bucket.sum();
+        }
+        return count;
+    }
+
+    public double getSum() {
+        return sum.sum();
+    }
+
+    @Override
+    public String getType() {
+        return "histogram";
+    }
+
+    @Override
+    public void writeSamples(StringBuilder buf) {
+        final String bucketName = getName() + "_bucket";
+        long cumulative = 0;
+        for (int i = 0; i < bounds.length; i++) {
+            cumulative += buckets[i].sum();
+            StringBuilder le = new StringBuilder("le=\"");
+            appendValue(le, bounds[i]);
+            writeSample(buf, bucketName, le.append('"').toString(), cumulative);
+        }
+        cumulative += buckets[bounds.length].sum();
+        writeSample(buf, bucketName, "le=\"+Inf\"", cumulative);
+        writeSample(buf, getName() + "_count", null, cumulative);
+        writeSample(buf, getName() + "_sum", null, getSum());
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   SmartCity Jena - initial
+ */
+package mondrian.server.metrics;
+
+/**
+ * A named metric that can write its samples in OpenMetrics text format.
+ *
+ * <p>Metrics with the same name form a family; they differ only in their
+ * labels. Sub-classes must be thread-safe and must not take locks on the
+ * update path.</p>
+ */
+public abstract class Metric {
+    private final String name;
+    private final String help;
+    private final String labels;
+
+    /**
+     * Creates a Metric.
+     *
+     * @param name Family name, e.g. "mondrian_sql_execute_seconds"
+     * @param help Description of the family
+     * @param labels Rendered label set, e.g. {@code executor="sql"}, or
+     *   empty string
+     */
+    protected Metric(String name, String help, String labels) {
+        this.name = name;
+        this.help = help;
+        this.labels = labels == null ? "" : labels;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getHelp() {
+        return help;
+    }
+
+    public String getLabels() {
+        return labels;
+    }
+
+    /**
+     * Returns the OpenMetrics type of this metric, e.g. "counter".
+     */
+    public abstract String getType();
+
+    /**
+     * Appends the sample lines of this metric.
+     *
+     * @param buf Buffer
+     */
+    public abstract void writeSamples(StringBuilder buf);
+
+    protected void writeSample(
+        StringBuilder buf,
+        String sampleName,
+        String extraLabel,
+        double value)
+    {
+        buf.append(sampleName);
+        if (!labels.isEmpty() || extraLabel != null) {
+            buf.append('{').append(labels);
+            if (extraLabel != null) {
+                if (!labels.isEmpty()) {
+                    buf.append(',');
+                }
+                buf.append(extraLabel);
+            }
+            buf.append('}');
+        }
+        buf.append(' ');
+        appendValue(buf, value);
+        buf.append('\n');
+    }
+
+    static void appendValue(StringBuilder buf, double value) {
+        if (value == Double.POSITIVE_INFINITY) {
+            buf.append("+Inf");
+        } else if (value == Double.NEGATIVE_INFINITY) {
+            buf.append("-Inf");
+        } else if (Double.isNaN(value)) {
+            buf.append("NaN");
+        } else if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            buf.append((long) value);
+        } else {
+            buf.append(value);
+        }
+    }
+
+    /**
+     * Renders a single label pair, escaping the value.
+     *
+     * @param name Label name
+     * @param value Label value
+     * @return Rendered label, e.g. {@code executor="sql"}
+     */
+    public static String label(String name, String value) {
+        StringBuilder buf = new StringBuilder(name).append("=\"");
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+            case '\\':
+                buf.append("\\\\");
+                break;
+            case '"':
+                buf.append("\\\"");
+                break;
+            case '\n':
+                buf.append("\\n");
+                break;
+            default:
+                buf.append(c);
+            }
+        }
+        return buf.append('"').toString();
+    }
+}
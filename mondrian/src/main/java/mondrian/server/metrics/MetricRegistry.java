@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   SmartCity Jena - initial
+ */
+package mondrian.server.metrics;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Collection of metrics, written in
+ * <a href="https://openmetrics.io">OpenMetrics</a> text format.
+ *
+ * <p>Registration is rare and may copy; updating a registered metric never
+ * touches the registry.</p>
+ *
+ * <p>To obtain the registry used by the engine, call
+ * <code>MetricRegistry.{@link #instance}()</code>.</p>
+ */
+public class MetricRegistry {
+    public static final String CONTENT_TYPE =
+        "application/openmetrics-text; version=1.0.0; charset=utf-8";
+
+    private static final MetricRegistry INSTANCE = new MetricRegistry();
+
+    private final Map<String, List<Metric>> families =
+        new ConcurrentSkipListMap<>();
+
+    public static MetricRegistry instance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Registers a metric. If a metric with the same name and labels is
+     * already registered, it is replaced.
+     *
+     * @param metric Metric
+     * @return The metric
+     */
+    public <T extends Metric> T register(T metric) {
+        final List<Metric> family =
+            families.computeIfAbsent(
+                metric.getName(), k -> new CopyOnWriteArrayList<>());
+        family.removeIf(m -> m.getLabels().equals(metric.getLabels()));
+        family.add(metric);
+        return metric;
+    }
+
+    /**
+     * Removes a metric, if registered.
+     *
+     * @param metric Metric
+     */
+    public void unregister(Metric metric) {
+        final List<Metric> family = families.get(metric.getName());
+        if (family != null) {
+            family.remove(metric);
+        }
+    }
+
+    public Counter counter(String name, String help) {
+        return register(new Counter(name, help, null));
+    }
+
+    public Gauge gauge(String name, String help, DoubleSupplier supplier) {
+        return register(new Gauge(name, help, null, supplier));
+    }
+
+    public Histogram histogram(String name, String help, double[] bounds) {
+        return register(new Histogram(name, help, null, bounds));
+    }
+
+    /**
+     * Writes all registered metrics in OpenMetrics text format, terminated
+     * by the {@code # EOF} marker.
+     *
+     * @param buf Buffer
+     */
+    public void write(StringBuilder buf) {
+        for (Map.Entry<String, List<Metric>> entry : families.entrySet()) {
+            final List<Metric> family = entry.getValue();
+            if (family.isEmpty()) {
+                continue;
+            }
+            final Metric first = family.get(0);
+            buf.append("# TYPE ").append(entry.getKey()).append(' ')
+                .append(first.getType()).append('\n');
+            buf.append("# HELP ").append(entry.getKey()).append(' ')
+                .append(first.getHelp()).append('\n');
+            for (Metric metric : family) {
+                metric.writeSamples(buf);
+            }
+        }
+        buf.append("# EOF\n");
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder buf = new StringBuilder();
+        write(buf);
+        return buf.toString();
+    }
+}
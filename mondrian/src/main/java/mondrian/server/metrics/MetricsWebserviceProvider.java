@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   SmartCity Jena - initial
+ */
+package mondrian.server.metrics;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.eclipse.daanse.ws.api.whiteboard.annotations.RequireSoapWhiteboard;
+import org.eclipse.daanse.ws.api.whiteboard.prototypes.SOAPWhiteboardEndpoint;
+import org.osgi.service.component.annotations.Component;
+
+import jakarta.activation.DataSource;
+import jakarta.xml.ws.BindingType;
+import jakarta.xml.ws.Provider;
+import jakarta.xml.ws.Service;
+import jakarta.xml.ws.ServiceMode;
+import jakarta.xml.ws.WebServiceProvider;
+import jakarta.xml.ws.http.HTTPBinding;
+
+/**
+ * Exposes the {@link MetricRegistry} in OpenMetrics text format, so that a
+ * Prometheus server can scrape it.
+ *
+ * <p>Published through the SOAP whiteboard with the plain HTTP binding; a
+ * {@code GET} on the context path returns the current metrics.</p>
+ */
+@WebServiceProvider()
+@ServiceMode(value = Service.Mode.MESSAGE)
+@BindingType(HTTPBinding.HTTP_BINDING)
+@RequireSoapWhiteboard
+@Component(service = Provider.class, name = "org.eclipse.daanse.emondrian.metrics")
+@SOAPWhiteboardEndpoint(contextpath = "metrics")
+public class MetricsWebserviceProvider implements Provider<DataSource> {
+
+    @Override
+    public DataSource invoke(DataSource request) {
+        final StringBuilder buf = new StringBuilder(4096);
+        MetricRegistry.instance().write(buf);
+        return new MetricsDataSource(
+            buf.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Read-only data source that holds the metrics text in memory.
+     */
+    private static class MetricsDataSource implements DataSource {
+        private final byte[] bytes;
+
+        MetricsDataSource(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        @Override
+        public InputStream getInputStream() {
+            return new ByteArrayInputStream(bytes);
+        }
+
+        @Override
+        public OutputStream getOutputStream() throws IOException {
+            throw new IOException("metrics are read-only");
+        }
+
+        @Override
+        public String getContentType() {
+            return MetricRegistry.CONTENT_TYPE;
+        }
+
+        @Override
+        public String getName() {
+            return "metrics";
+        }
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   SmartCity Jena - initial
+ */
+package mondrian.server.monitor;
+
+/**
+ * Event created when a statement looks up an MDX query in the parsed query
+ * cache of a schema.
+ *
+ * @see mondrian.olap.ParsedQueryCache
+ */
+public class ParsedQueryCacheEvent extends StatementEvent {
+    /**
+     * Whether the query was found in the cache.
+     */
+    public final boolean hit;
+
+    /**
+     * Creates a ParsedQueryCacheEvent.
+     *
+     * @param timestamp Timestamp
+     * @param serverId Server id
+     * @param connectionId Connection id
+     * @param statementId Statement id
+     * @param hit Whether the query was found in the cache
+     */
+    public ParsedQueryCacheEvent(
+        long timestamp,
+        int serverId,
+        int connectionId,
+        long statementId,
+        boolean hit)
+    {
+        super(timestamp, serverId, connectionId, statementId);
+        this.hit = hit;
+    }
+
+    @Override
+    public String toString() {
+        return new StringBuilder("ParsedQueryCacheEvent(").append(statementId)
+            .append(", ").append(hit ? "hit" : "miss").append(")").toString();
+    }
+
+    @Override
+    public <T> T accept(Visitor<T> visitor) {
+        return visitor.visit(this);
+    }
+}
@@ -102,6 +102,18 @@ public class ServerInfo extends Info {
      */
     public final int cellCoordinateCount;
 
+    /**
+     * The number of MDX queries that were found in the parsed query cache of
+     * their schema.
+     */
+    public final int parsedQueryCacheHitCount;
+
+    /**
+     * The number of MDX queries that were looked up in the parsed query cache
+     * of their schema but not found, and were therefore parsed.
+     */
+    public final int parsedQueryCacheMissCount;
+
     public ServerInfo(
         String stack,
         int connectionStartCount,
@@ -130,7 +142,9 @@ public class ServerInfo extends Info {
         int segmentCreateViaRollupCount,
         int segmentCreateViaSqlCount,
         int cellCount,
-        int cellCoordinateCount)
+        int cellCoordinateCount,
+        int parsedQueryCacheHitCount,
+        int parsedQueryCacheMissCount)
     {
         super(stack);
         this.connectionStartCount = connectionStartCount;
@@ -160,6 +174,8 @@ public class ServerInfo extends Info {
         this.segmentCreateViaSqlCount = segmentCreateViaSqlCount;
         this.cellCount = cellCount;
         this.cellCoordinateCount = cellCoordinateCount;
+        this.parsedQueryCacheHitCount = parsedQueryCacheHitCount;
+        this.parsedQueryCacheMissCount = parsedQueryCacheMissCount;
     }
 
     public int getCellCacheMissCount() {
@@ -297,4 +313,12 @@ public class ServerInfo extends Info {
     public int getCellCoordinateCount() {
         return cellCoordinateCount;
     }
+
+    public int getParsedQueryCacheHitCount() {
+        return parsedQueryCacheHitCount;
+    }
+
+    public int getParsedQueryCacheMissCount() {
+        return parsedQueryCacheMissCount;
+    }
 }
@@ -25,4 +25,5 @@ public interface Visitor<T> {
     T visit(SqlStatementEndEvent event);
     T visit(CellCacheSegmentCreateEvent event);
     T visit(CellCacheSegmentDeleteEvent event);
+    T visit(ParsedQueryCacheEvent event);
 }
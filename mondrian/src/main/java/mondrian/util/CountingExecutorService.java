@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   SmartCity Jena - initial
+ */
+package mondrian.util;
+
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Executor service that counts the tasks submitted to, running in and
+ * completed by another executor service, for executors that, unlike
+ * {@link java.util.concurrent.ThreadPoolExecutor}, do not report them
+ * themselves, such as the virtual thread executor.
+ */
+public class CountingExecutorService extends AbstractExecutorService {
+    private final ExecutorService delegate;
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder active = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+
+    public CountingExecutorService(ExecutorService delegate) {
+        this.delegate = delegate;
+    }
+
+    /** Returns the number of tasks submitted. */
+    public long getSubmittedCount() {
+        return submitted.sum();
+    }
+
+    /** Returns the number of tasks running. */
+    public long getActiveCount() {
+        return active.sum();
+    }
+
+    /** Returns the number of tasks completed, normally or not. */
+    public long getCompletedCount() {
+        return completed.sum();
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        submitted.increment();
+        try {
+            delegate.execute(() -> {
+                active.increment();
+                try {
+                    command.run();
+                } finally {
+                    active.decrement();
+                    completed.increment();
+                }
+            });
+        } catch (RuntimeException e) {
+            submitted.decrement();
+            throw e;
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        delegate.shutdown();
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        return delegate.shutdownNow();
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return delegate.isShutdown();
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return delegate.isTerminated();
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit)
+        throws InterruptedException
+    {
+        return delegate.awaitTermination(timeout, unit);
+    }
+}
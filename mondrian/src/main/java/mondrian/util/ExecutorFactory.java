@@ -0,0 +1,177 @@
+/*
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   SmartCity Jena - initial
+ */
+package mondrian.util;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import mondrian.olap.MondrianProperties;
+import mondrian.olap.Util;
+
+/**
+ * Creates the executors that run tasks which spend most of their time
+ * waiting for the database: MDX statements, and SQL statements that load
+ * segments.
+ *
+ * <p>If {@link MondrianProperties#ExecutorThreads} is "virtual" and the JVM
+ * supports virtual threads (JDK 21 and later), each task runs on a new virtual
+ * thread, and the maximum pool size is ignored. The number of statements that
+ * run against a database at the same time is then limited by
+ * {@link MondrianProperties#QueryLimit}, not by the number of threads.
+ * Otherwise, or if the JVM does not support virtual threads, tasks run on a
+ * pool of platform threads created by
+ * {@link Util#getExecutorService}.</p>
+ *
+ * <p>Virtual threads are created by reflection, so that this class can be
+ * compiled for, and run on, earlier JDKs.</p>
+ */
+public final class ExecutorFactory {
+    private static final Logger LOGGER =
+        LoggerFactory.getLogger(ExecutorFactory.class);
+
+    /** Value of {@link MondrianProperties#ExecutorThreads} for platform
+     * threads. */
+    public static final String PLATFORM = "platform";
+
+    /** Value of {@link MondrianProperties#ExecutorThreads} for virtual
+     * threads. */
+    public static final String VIRTUAL = "virtual";
+
+    private ExecutorFactory() {
+    }
+
+    /**
+     * Creates an executor for tasks that block on the database.
+     *
+     * @param maximumPoolSize Number of platform threads, if the executor uses
+     *   platform threads
+     * @param name The name of the threads
+     * @param rejectionPolicy The rejection policy of a pool of platform
+     *   threads
+     * @return Executor
+     */
+    public static ExecutorService getExecutorService(
+        int maximumPoolSize,
+        String name,
+        RejectedExecutionHandler rejectionPolicy)
+    {
+        final String threads =
+            MondrianProperties.instance().ExecutorThreads.get();
+        if (VIRTUAL.equalsIgnoreCase(threads)) {
+            if (isVirtualThreadSupported()) {
+                return newVirtualThreadExecutor(name);
+            }
+            LOGGER.warn(
+                "Virtual threads are not supported by this JVM; executor {}"
+                    + " uses {} platform threads",
+                name, maximumPoolSize);
+        } else if (!PLATFORM.equalsIgnoreCase(threads)) {
+            LOGGER.warn(
+                "Unknown value '{}' of property {}; executor {} uses"
+                    + " platform threads",
+                threads,
+                MondrianProperties.instance().ExecutorThreads.getPath(),
+                name);
+        }
+        // We use the same value for coreSize and maxSize
+        // because that's the behavior we want. All extra
+        // tasks will be put on an unbounded queue.
+        return Util.getExecutorService(
+            maximumPoolSize,
+            maximumPoolSize,
+            1,
+            name,
+            rejectionPolicy);
+    }
+
+    /**
+     * Returns whether the JVM supports virtual threads.
+     */
+    public static boolean isVirtualThreadSupported() {
+        return VirtualThreads.NEW_EXECUTOR != null;
+    }
+
+    /**
+     * Creates an executor that starts a new virtual thread for each task.
+     * It counts its tasks, so that
+     * {@link mondrian.server.metrics.EngineMetrics#registerExecutor} can
+     * report them.
+     *
+     * @param name Prefix of the names of the threads
+     * @return Executor
+     * @throws UnsupportedOperationException if the JVM does not support
+     *   virtual threads
+     */
+    public static ExecutorService newVirtualThreadExecutor(String name) {
+        if (!isVirtualThreadSupported()) {
+            throw new UnsupportedOperationException(
+                "virtual threads are not supported by this JVM");
+        }
+        try {
+            Object builder = VirtualThreads.OF_VIRTUAL.invoke(null);
+            builder = VirtualThreads.NAME.invoke(builder, name + '_', 1L);
+            final ThreadFactory factory =
+                (ThreadFactory) VirtualThreads.FACTORY.invoke(builder);
+            return new CountingExecutorService(
+                (ExecutorService)
+                    VirtualThreads.NEW_EXECUTOR.invoke(null, factory));
+        } catch (ReflectiveOperationException e) {
+            throw Util.newInternal(e, "while creating virtual thread executor");
+        }
+    }
+
+    /**
+     * Methods of the virtual thread API, or nulls if the JVM does not have
+     * them.
+     */
+    private static class VirtualThreads {
+        static final Method OF_VIRTUAL;
+        static final Method NAME;
+        static final Method FACTORY;
+        static final Method NEW_EXECUTOR;
+
+        static {
+            Method ofVirtual = null;
+            Method name = null;
+            Method factory = null;
+            Method newExecutor = null;
+            try {
+                final Class<?> builderClass =
+                    Class.forName("java.lang.Thread$Builder");
+                ofVirtual = Thread.class.getMethod("ofVirtual");
+                // Throws if virtual threads are a preview feature which
+                // is not enabled.
+                ofVirtual.invoke(null);
+                name =
+                    builderClass.getMethod("name", String.class, long.class);
+                factory = builderClass.getMethod("factory");
+                newExecutor =
+                    Executors.class.getMethod(
+                        "newThreadPerTaskExecutor", ThreadFactory.class);
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                // JDK 20 or earlier.
+                newExecutor = null;
+            }
+            OF_VIRTUAL = ofVirtual;
+            NAME = name;
+            FACTORY = factory;
+            NEW_EXECUTOR = newExecutor;
+        }
+    }
+}
@@ -28,11 +28,13 @@ import java.util.Calendar;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
-import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Queue;
 import java.util.StringTokenizer;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 import static org.eigenbase.xom.XOMUtil.discard;
 
@@ -89,15 +91,24 @@ public class Format {
     /**
      * Maps (formatString, locale) pairs to {@link Format} objects.
      *
-     * <p>If the number of entries in the cache exceeds 1000,
+     * <p>Lookups do not lock. If the number of entries in the cache exceeds
+     * {@link #CACHE_LIMIT}, the eldest entries are removed, in the order
+     * recorded in {@link #cacheKeys}.
      */
-    private static final Map<String, Format> cache =
-        new LinkedHashMap<>() {
-            @Override
-			public boolean removeEldestEntry(Map.Entry<String, Format> entry) {
-                return size() > CACHE_LIMIT;
-            }
-        };
+    private static final Map<CacheKey, Format> cache =
+        new ConcurrentHashMap<>();
+
+    /**
+     * Keys of {@link #cache}, in the order they were added.
+     */
+    private static final Queue<CacheKey> cacheKeys =
+        new ConcurrentLinkedQueue<>();
+
+    /**
+     * Scratch arrays of the current thread for formatting numbers.
+     */
+    private static final ThreadLocal<FormatBuffers> FORMAT_BUFFERS =
+        ThreadLocal.withInitial(FormatBuffers::new);
 
     static final char THOUSAND_SEPARATOR_EN = ',';
     static final char DECIMAL_PLACEHOLDER_EN = '.';
@@ -127,15 +138,19 @@ public class Format {
      * "en", or "" for the default) to a {@link Format.FormatLocale}.
      */
     private static final Map<String, FormatLocale> mapLocaleToFormatLocale =
-        new HashMap<>();
+        new ConcurrentHashMap<>();
 
     /**
      * Cache of parsed format strings and their thousand separator
      * tokens length. Used so we don't have to tokenize a format string
      * over and over again.
+     *
+     * <p>The lengths are ordered from the rightmost group of digits to the
+     * leftmost; the last length is re-applied if the number has more digits
+     * than the format string.
      */
-    private static final Map<String, ArrayStack<Integer>>
-        thousandSeparatorTokenMap = new HashMap<>();
+    private static final Map<String, int[]>
+        thousandSeparatorTokenMap = new ConcurrentHashMap<>();
 
     /**
      * Locale for US English, also the default for English and for all
@@ -739,7 +754,11 @@ public class Format {
         final boolean useDecimal;
         final boolean useThouSep;
 
-        final ArrayStack<Integer> cachedThousandSeparatorPositions;
+        /**
+         * Lengths of the groups of digits between thousand separators,
+         * rightmost first. Shared between threads; never modified.
+         */
+        final int[] thousandSeparatorPositions;
 
         NumericFormat(
             FormatLocale locale,
@@ -787,9 +806,10 @@ public class Format {
             // an actual format string.
             formatString = MacroToken.expand(locale, formatString);
 
-            if (thousandSeparatorTokenMap.containsKey(formatString)) {
-                cachedThousandSeparatorPositions =
-                    thousandSeparatorTokenMap.get(formatString);
+            final int[] cachedPositions =
+                thousandSeparatorTokenMap.get(formatString);
+            if (cachedPositions != null) {
+                thousandSeparatorPositions = cachedPositions;
             } else {
                 // To provide backwards compatibility, we apply the old
                 // formatting rules if there are less than 2 thousand
@@ -808,7 +828,7 @@ public class Format {
                     countOccurrences(
                         formatStringBuffer,
                         getFormatToken(FORMAT_THOUSEP).charAt(0));
-                cachedThousandSeparatorPositions = new ArrayStack<>();
+                final List<Integer> positions = new ArrayList<>();
                 if (nbThousandSeparators > 1) {
                     // Extract the whole part of the format string
                     final int decimalPos =
@@ -837,15 +857,19 @@ public class Format {
                         // list will be re-applied if the number is
                         // longer than the format string.
                         while (st.hasMoreTokens()) {
-                            cachedThousandSeparatorPositions.push(
-                                st.nextToken().length());
+                            positions.add(0, st.nextToken().length());
                         }
                 } else if (nbThousandSeparators == 1) {
                     // Use old style formatting.
-                    cachedThousandSeparatorPositions.add(3);
+                    positions.add(3);
+                }
+                final int[] newPositions = new int[positions.size()];
+                for (int i = 0; i < newPositions.length; i++) {
+                    newPositions[i] = positions.get(i);
                 }
-                thousandSeparatorTokenMap.put(
-                    formatString, cachedThousandSeparatorPositions);
+                thousandSeparatorTokenMap.putIfAbsent(
+                    formatString, newPositions);
+                thousandSeparatorPositions = newPositions;
             }
         }
 
@@ -854,11 +878,6 @@ public class Format {
             return FormatType.NUMERIC;
         }
 
-        private ArrayStack<Integer> getThousandSeparatorPositions() {
-            // Defensive copy
-            return new ArrayStack<>(cachedThousandSeparatorPositions);
-        }
-
         private int countOccurrences(final String s, final char c) {
             final char[] chars = s.toCharArray();
             int count = 0;
@@ -894,7 +913,7 @@ public class Format {
                 zeroesRightOfExp,
                 useThouSep ? locale.thousandSeparator : '\0',
                 useDecimal,
-                getThousandSeparatorPositions());
+                thousandSeparatorPositions);
         }
 
         @Override
@@ -941,7 +960,7 @@ public class Format {
                 zeroesRightOfExp,
                 useThouSep ? locale.thousandSeparator : '\0',
                 useDecimal,
-                getThousandSeparatorPositions());
+                thousandSeparatorPositions);
         }
     }
 
@@ -2172,20 +2191,39 @@ public class Format {
      * @return format for given format string in given locale
      */
     public static Format get(String formatString, Locale locale) {
-        String key = formatString + "@@@" + locale;
+        final CacheKey key = new CacheKey(formatString, locale);
         Format format = cache.get(key);
-        if (format == null) {
-            synchronized (cache) {
-                format = cache.get(key);
-                if (format == null) {
-                    format = new Format(formatString, locale);
-                    cache.put(key, format);
-                }
+        if (format != null) {
+            return format;
+        }
+        // Several threads may parse the same format string concurrently;
+        // the first one to register its format wins. Parsing is cheap
+        // compared to contention on a lock held by every caller.
+        format = new Format(formatString, locale);
+        final Format existing = cache.putIfAbsent(key, format);
+        if (existing != null) {
+            return existing;
+        }
+        cacheKeys.add(key);
+        while (cache.size() > CACHE_LIMIT) {
+            final CacheKey eldest = cacheKeys.poll();
+            if (eldest == null) {
+                break;
             }
+            cache.remove(eldest);
         }
         return format;
     }
 
+    /**
+     * Key of the format cache.
+     *
+     * @param formatString Format string
+     * @param locale Locale, or null
+     */
+    private record CacheKey(String formatString, Locale locale) {
+    }
+
     /**
      * Create a {@link FormatLocale} object characterized by the given
      * properties.
@@ -2349,7 +2387,7 @@ public class Format {
      * Returns the best {@link FormatLocale} for a given {@link Locale}.
      * Never returns null, even if <code>locale</code> is null.
      */
-    public static synchronized FormatLocale getBestFormatLocale(Locale locale)
+    public static FormatLocale getBestFormatLocale(Locale locale)
     {
         FormatLocale formatLocale;
         if (locale == null) {
@@ -2364,8 +2402,12 @@ public class Format {
             if (formatLocale == null) {
                 formatLocale = locale_US;
             }
-            // Add to cache.
-            mapLocaleToFormatLocale.put(key, formatLocale);
+            // Add to cache, unless another thread got there first.
+            final FormatLocale existing =
+                mapLocaleToFormatLocale.putIfAbsent(key, formatLocale);
+            if (existing != null) {
+                formatLocale = existing;
+            }
         }
         return formatLocale;
     }
@@ -2908,7 +2950,17 @@ public class Format {
         return buf.toString();
     }
 
-    private StringBuilder format(Object o, StringBuilder buf) {
+    /**
+     * Formats a value, appending to a buffer.
+     *
+     * <p>Callers that format many values, such as the cells of a result,
+     * can reuse the buffer to avoid allocating one per value.
+     *
+     * @param o Value to format
+     * @param buf Buffer to append to
+     * @return The buffer
+     */
+    public StringBuilder format(Object o, StringBuilder buf) {
         if (o == null) {
             formatValue.formatNull(buf);
         } else {
@@ -2978,7 +3030,7 @@ public class Format {
         int minExpDigits, // minimum digits in exponent
         char thousandChar, // ',' or '.', or 0
         boolean useDecimal,
-        ArrayStack<Integer> thousandSeparatorPositions)
+        int[] thousandSeparatorPositions)
     {
         // char result[] = new char[nDigits + 10]; // crashes for 1.000.000,00
         // the result length does *not* depend from nDigits
@@ -2993,9 +3045,11 @@ public class Format {
                 Math.abs(fd.decExponent),
                 minDigitsLeftOfDecimal) * 4 / 3
             + maxDigitsRightOfDecimal;
-        char[] result = new char[resultLen];
+        final FormatBuffers buffers = FORMAT_BUFFERS.get();
+        final char[] result = buffers.result(resultLen);
         int i = formatFd1(
             fd,
+            buffers,
             result,
             0,
             minDigitsLeftOfDecimal,
@@ -3014,6 +3068,7 @@ public class Format {
     /** Formats a floating decimal to a given char array. */
     private static int formatFd1(
         MondrianFloatingDecimal fd,
+        FormatBuffers buffers,
         char[] result,
         int i,
         int minDigitsLeftOfDecimal,
@@ -3025,7 +3080,7 @@ public class Format {
         int minExpDigits, // minimum digits in exponent
         char thousandChar, // ',' or '.' or 0
         boolean useDecimal,
-        ArrayStack<Integer> thousandSeparatorPositions)
+        int[] thousandSeparatorPositions)
     {
         if (expChar != 0) {
             // Print the digits left of the 'E'.
@@ -3035,6 +3090,7 @@ public class Format {
             fd.isNegative = false;
             i = formatFd2(
                 fd,
+                buffers,
                 result,
                 i,
                 minDigitsLeftOfDecimal,
@@ -3053,6 +3109,7 @@ public class Format {
         } else {
             return formatFd2(
                 fd,
+                buffers,
                 result,
                 i,
                 minDigitsLeftOfDecimal,
@@ -3067,6 +3124,7 @@ public class Format {
 
     static int formatFd2(
         MondrianFloatingDecimal fd,
+        FormatBuffers buffers,
         char[] result,
         int i,
         int minDigitsLeftOfDecimal,
@@ -3075,7 +3133,7 @@ public class Format {
         int maxDigitsRightOfDecimal,
         char thousandChar, // ',' or '.' or 0
         boolean useDecimal,
-        ArrayStack<Integer> thousandSeparatorPositions)
+        int[] thousandSeparatorPositions)
     {
         if (fd.isNegative) {
             result[i++] = '-';
@@ -3099,7 +3157,8 @@ public class Format {
         int fractionDigits = Math.max(
                 fd.nDigits - fd.decExponent, minDigitsRightOfDecimal);
         int totalDigits = wholeDigits + fractionDigits;
-        char[] digits2 = new char[totalDigits];
+        // One more digit, in case rounding carries into a new leading digit.
+        final char[] digits2 = buffers.digits(totalDigits + 1);
         for (int j = 0; j < totalDigits; j++) {
             digits2[j] = '0';
         }
@@ -3120,7 +3179,7 @@ public class Format {
             // We need to truncate -- also round if the trailing digits are
             // 5000... or greater.
             int m = totalDigits;
-            if ( digits2.length >= lastDigit && lastDigit != 0 ) {
+            if ( totalDigits >= lastDigit && lastDigit != 0 ) {
               while ( digits2[lastDigit - 1] < '0' || digits2[lastDigit - 1] > '9' ) {
                 // BACKLOG-15504
                 lastDigit--;
@@ -3129,15 +3188,13 @@ public class Format {
             while (true) {
                 m--;
                 if (m < 0) {
-                    // The entire number was 9s.  Re-allocate, so we can
-                    // prepend a '1'.
+                    // The entire number was 9s.  Shift the digits right,
+                    // so we can prepend a '1'.
+                    System.arraycopy(digits2, 0, digits2, 1, totalDigits);
+                    digits2[0] = '1';
                     wholeDigits++;
                     totalDigits++;
                     lastDigit++;
-                    char[] old = digits2;
-                    digits2 = new char[totalDigits];
-                    digits2[0] = '1';
-                    System.arraycopy(old, 0, digits2, 1, old.length);
                     break;
                 } else if (m == lastDigit) {
                     char d = digits2[m];
@@ -3182,37 +3239,41 @@ public class Format {
         }
 
         if (thousandChar != '\0'
-            && !thousandSeparatorPositions.isEmpty())
+            && thousandSeparatorPositions.length > 0)
         {
             // Now print the number. That will happen backwards, so we
-            // store it temporarily and then invert.
-            ArrayStack<Character> formattedWholeDigits =
-                new ArrayStack<>();
+            // store it temporarily at the end of a scratch array and then
+            // copy it to the result. There is at most one separator per
+            // digit.
+            final int length = 2 * (wholeDigits - firstDigitToPrint);
+            final char[] formattedWholeDigits =
+                buffers.formattedWholeDigits(length);
+            int k = length;
             // We need to keep track of how many digits we printed in the
-            // current token.
+            // current token, and which token we are in.
             int nbInserted = 0;
+            int token = 0;
             for (int j = wholeDigits - 1; j >= firstDigitToPrint; j--) {
                 // Check if we need to insert another thousand separator
-                if (nbInserted % thousandSeparatorPositions.peek() == 0
-                    && nbInserted > 0)
+                if (nbInserted > 0
+                    && nbInserted % thousandSeparatorPositions[token] == 0)
                 {
-                    formattedWholeDigits.push(thousandChar);
+                    formattedWholeDigits[--k] = thousandChar;
                     nbInserted = 0;
                     // The last format token is kept because we re-apply it
                     // until the end of the digits.
-                    if (thousandSeparatorPositions.size() > 1) {
-                        thousandSeparatorPositions.pop();
+                    if (token < thousandSeparatorPositions.length - 1) {
+                        token++;
                     }
                 }
                 // Insert the next digit.
-                formattedWholeDigits.push(digits2[j]);
+                formattedWholeDigits[--k] = digits2[j];
                 nbInserted++;
             }
-            // We're done. Invert the print out and add it to
-            // the result array.
-            while (!formattedWholeDigits.isEmpty()) {
-                result[i++] = formattedWholeDigits.pop();
-            }
+            // We're done. Add the digits to the result array.
+            final int n = length - k;
+            System.arraycopy(formattedWholeDigits, k, result, i, n);
+            i += n;
         } else {
             // There are no thousand separators. Just put the
             // digits in the results array.
@@ -3233,6 +3294,38 @@ public class Format {
         return i;
     }
 
+    /**
+     * Scratch arrays used to format a number, grown as needed. Each thread
+     * has its own, in {@link #FORMAT_BUFFERS}, so that formatting a number
+     * does not allocate them on every call.
+     */
+    static class FormatBuffers {
+        private char[] result = new char[64];
+        private char[] digits = new char[64];
+        private char[] formattedWholeDigits = new char[64];
+
+        char[] result(int length) {
+            if (result.length < length) {
+                result = new char[length];
+            }
+            return result;
+        }
+
+        char[] digits(int length) {
+            if (digits.length < length) {
+                digits = new char[length];
+            }
+            return digits;
+        }
+
+        char[] formattedWholeDigits(int length) {
+            if (formattedWholeDigits.length < length) {
+                formattedWholeDigits = new char[length];
+            }
+            return formattedWholeDigits;
+        }
+    }
+
     private enum FormatType {
         STRING,
         DATE,
@@ -1724,7 +1724,14 @@ public class XmlaHandler {
                     tabFields,
                     rowCountSlot);
             int rowCount = enableRowCount ? rowCountSlot[0] : -1;
-            return new TabularRowSet(resultSet, rowCount);
+            // The row set streams the rows, and closes the result set,
+            // statement and connection when the response has been written.
+            final TabularRowSet rowSet =
+                new TabularRowSet(resultSet, rowCount, statement, connection);
+            resultSet = null;
+            statement = null;
+            connection = null;
+            return rowSet;
         } catch (XmlaException xex) {
             throw xex;
         } catch (SQLException sqle) {
@@ -1741,27 +1748,7 @@ public class XmlaHandler {
                 HSB_DRILL_THROUGH_SQL_FAULT_FS,
                 e);
         } finally {
-            if (resultSet != null) {
-                try {
-                    resultSet.close();
-                } catch (SQLException e) {
-                    // ignore
-                }
-            }
-            if (statement != null) {
-                try {
-                    statement.close();
-                } catch (SQLException e) {
-                    // ignore
-                }
-            }
-            if (connection != null) {
-                try {
-                    connection.close();
-                } catch (SQLException e) {
-                    // ignore
-                }
-            }
+            Util.close(resultSet, statement, connection);
         }
     }
 
@@ -1786,22 +1773,31 @@ public class XmlaHandler {
         private List<Column> columns = new ArrayList<>();
         private List<Object[]> rows;
         private int totalCount;
+        private ResultSet resultSet;
+        private java.sql.Statement statement;
+        private java.sql.Connection connection;
 
         /**
          * Creates a TabularRowSet based upon a SQL statement result.
          *
-         * <p>Does not close the ResultSet, on success or failure. Client
-         * must do it.
+         * <p>The rows are not read until {@link #unparse} writes them, one at
+         * a time, so they are never all in memory. The row set owns the
+         * result set, statement and connection, and {@link #close} closes
+         * them, whether or not the rows have been written.
          *
          * @param rs Result set
          * @param totalCount Total number of rows. If >= 0, writes the
          *   "totalCount" attribute into the XMLA response.
+         * @param statement Statement which produced the result set, or null
+         * @param connection Connection of the statement, or null
          *
          * @throws SQLException on error
          */
         public TabularRowSet(
             ResultSet rs,
-            int totalCount)
+            int totalCount,
+            java.sql.Statement statement,
+            java.sql.Connection connection)
             throws SQLException
         {
             this.totalCount = totalCount;
@@ -1817,17 +1813,11 @@ public class XmlaHandler {
                         md.getScale(i + 1)));
             }
 
-            // Populate data; assume that SqlStatement is already positioned
-            // on first row (or isDone() is true), and assume that the
-            // number of rows returned is limited.
-            rows = new ArrayList<>();
-            while (rs.next()) {
-                Object[] row = new Object[columnCount];
-                for (int i = 0; i < columnCount; i++) {
-                    row[i] = rs.getObject(i + 1);
-                }
-                rows.add(row);
-            }
+            // Data is read in unparse; assume that SqlStatement is already
+            // positioned on first row (or isDone() is true).
+            this.resultSet = rs;
+            this.statement = statement;
+            this.connection = connection;
         }
 
         /**
@@ -1873,12 +1863,21 @@ public class XmlaHandler {
         }
 
         @Override
-		public void close() {
-            // no resources to close
+		public void close() throws SQLException {
+            final SQLException e =
+                Util.close(resultSet, statement, connection);
+            resultSet = null;
+            statement = null;
+            connection = null;
+            if (e != null) {
+                throw e;
+            }
         }
 
         @Override
-		public void unparse(SaxWriter writer) throws SAXException {
+		public void unparse(SaxWriter writer)
+            throws SAXException, SQLException
+        {
             // write total count row if enabled
             if (totalCount >= 0) {
                 String countStr = Integer.toString(totalCount);
@@ -1891,29 +1890,43 @@ public class XmlaHandler {
                 writer.endElement(); // row
             }
 
-            for (Object[] row : rows) {
-                writer.startElement("row");
-                for (int i = 0; i < row.length; i++) {
-                    Object value = row[i];
-                    if(value == null) {
-                        writer.characters("null");
-                    } else {
-                        writer.startElement(
-                                columns.get(i).encodedName,
-                                new Object[]{
-                                        "xsi:type",
-                                        columns.get(i).xsdType});
-                        String valueString = value.toString();
-                        if (value instanceof Number) {
-                            valueString =
-                                XmlaUtil.normalizeNumericString(valueString);
-                        }
-                        writer.characters(valueString);
-                        writer.endElement();
+            if (resultSet != null) {
+                final Object[] row = new Object[columns.size()];
+                while (resultSet.next()) {
+                    for (int i = 0; i < row.length; i++) {
+                        row[i] = resultSet.getObject(i + 1);
                     }
+                    writeRow(writer, row);
+                }
+            } else {
+                for (Object[] row : rows) {
+                    writeRow(writer, row);
+                }
+            }
+        }
+
+        private void writeRow(SaxWriter writer, Object[] row) {
+            writer.startElement("row");
+            for (int i = 0; i < row.length; i++) {
+                Object value = row[i];
+                if(value == null) {
+                    writer.characters("null");
+                } else {
+                    writer.startElement(
+                            columns.get(i).encodedName,
+                            new Object[]{
+                                    "xsi:type",
+                                    columns.get(i).xsdType});
+                    String valueString = value.toString();
+                    if (value instanceof Number) {
+                        valueString =
+                            XmlaUtil.normalizeNumericString(valueString);
+                    }
+                    writer.characters(valueString);
+                    writer.endElement();
                 }
-                writer.endElement(); // row
             }
+            writer.endElement(); // row
         }
 
         /**
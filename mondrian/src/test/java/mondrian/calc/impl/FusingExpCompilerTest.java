@@ -0,0 +1,216 @@
+/*
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   SmartCity Jena - initial
+ */
+package mondrian.calc.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import org.eclipse.daanse.olap.api.model.Dimension;
+import org.eclipse.daanse.olap.api.model.Hierarchy;
+import org.eclipse.daanse.olap.api.model.Level;
+import org.eclipse.daanse.olap.api.model.Member;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import mondrian.calc.BooleanCalc;
+import mondrian.calc.Calc;
+import mondrian.calc.DoubleCalc;
+import mondrian.mdx.MemberExpr;
+import mondrian.olap.Category;
+import mondrian.olap.Evaluator;
+import mondrian.olap.Exp;
+import mondrian.olap.FunDef;
+import mondrian.olap.Literal;
+import mondrian.olap.Syntax;
+import mondrian.olap.Validator;
+import mondrian.olap.fun.BuiltinFunTable;
+import mondrian.olap.fun.Resolver;
+
+/**
+ * Test for <code>FusingExpCompiler</code>: fused calculations must return the
+ * same values as the calculations they replace.
+ */
+class FusingExpCompilerTest {
+
+    private static final Object[] VALUES = {null, 0d, 1.5d, -2, 7.25d, Double.NaN};
+
+    private final Map<Member, Object> cells = new HashMap<>();
+    private final Member[] current = new Member[1];
+    private final boolean[] evalAxes = new boolean[1];
+    private Hierarchy measuresHierarchy;
+    private Hierarchy otherHierarchy;
+    private Validator validator;
+    private Evaluator evaluator;
+    private Exp a;
+    private Exp b;
+    private Exp c;
+
+    @BeforeEach
+    void setUp() {
+        Dimension dimension = mock(Dimension.class);
+        measuresHierarchy = mock(Hierarchy.class);
+        otherHierarchy = mock(Hierarchy.class);
+        Level level = mock(Level.class);
+        when(measuresHierarchy.getDimension()).thenReturn(dimension);
+        when(level.getHierarchy()).thenReturn(measuresHierarchy);
+        when(level.getDimension()).thenReturn(dimension);
+        a = measure(dimension, level, "A");
+        b = measure(dimension, level, "B");
+        c = measure(dimension, level, "C");
+
+        validator = mock(Validator.class);
+        when(validator.canConvert(anyInt(), any(), anyInt(), any())).thenAnswer(invocation -> {
+            Exp exp = invocation.getArgument(1);
+            int to = invocation.getArgument(2);
+            return exp.getCategory() == to
+                || to == Category.NUMERIC && exp.getCategory() == Category.MEMBER;
+        });
+
+        evaluator = mock(Evaluator.class);
+        when(evaluator.setContext(any(Member.class))).thenAnswer(invocation -> {
+            Member previous = current[0];
+            current[0] = invocation.getArgument(0);
+            return previous;
+        });
+        doAnswer(invocation -> {
+            current[0] = null;
+            return null;
+        }).when(evaluator).restore(anyInt());
+        when(evaluator.evaluateCurrent()).thenAnswer(invocation -> cells.get(current[0]));
+        when(evaluator.isEvalAxes()).thenAnswer(invocation -> evalAxes[0]);
+    }
+
+    private static Exp measure(Dimension dimension, Level level, String name) {
+        Member member = mock(Member.class);
+        when(member.getDimension()).thenReturn(dimension);
+        when(member.getHierarchy()).thenReturn(level.getHierarchy());
+        when(member.getLevel()).thenReturn(level);
+        when(member.getUniqueName()).thenReturn("[Measures].[" + name + "]");
+        when(member.getName()).thenReturn(name);
+        return new MemberExpr(member);
+    }
+
+    @Test
+    void testArithmetic() {
+        assertSameDouble(call("+", Syntax.Infix, a, b));
+        assertSameDouble(call("-", Syntax.Infix, a, call("*", Syntax.Infix, b, c)));
+        assertSameDouble(call("/", Syntax.Infix, call("+", Syntax.Infix, a, number(2)), b));
+        assertSameDouble(call("/", Syntax.Infix, call("-", Syntax.Prefix, a),
+            call("-", Syntax.Infix, b, c)));
+    }
+
+    @Test
+    void testIif() {
+        assertSameDouble(call("+", Syntax.Infix, number(1),
+            call("IIf", Syntax.Function, call(">", Syntax.Infix, a, b),
+                call("-", Syntax.Infix, a, b), call("*", Syntax.Infix, b, number(2)))));
+        Exp condition = call("OR", Syntax.Infix,
+            call("AND", Syntax.Infix, call(">=", Syntax.Infix, a, number(0)),
+                call("NOT", Syntax.Prefix, call("=", Syntax.Infix, b, c))),
+            call("<>", Syntax.Infix, a, b));
+        assertSameDouble(call("+", Syntax.Infix,
+            call("IIf", Syntax.Function, condition, a, c), number(0)));
+    }
+
+    @Test
+    void testCoalesceEmpty() {
+        assertSameDouble(call("*", Syntax.Infix,
+            call("CoalesceEmpty", Syntax.Function, a, call("*", Syntax.Infix, b, number(2)), number(0)),
+            c));
+    }
+
+    @Test
+    void testLogical() {
+        assertSameBoolean(call("AND", Syntax.Infix, call(">", Syntax.Infix, a, b),
+            call("<", Syntax.Infix, b, c)));
+        assertSameBoolean(call("NOT", Syntax.Prefix, call("<=", Syntax.Infix, a, c)));
+    }
+
+    private Exp call(String name, Syntax syntax, Exp... args) {
+        for (Resolver resolver : BuiltinFunTable.instance().getResolvers(name, syntax)) {
+            FunDef funDef = resolver.resolve(args, validator, new ArrayList<>());
+            if (funDef != null) {
+                return funDef.createCall(validator, args);
+            }
+        }
+        throw new IllegalArgumentException(name);
+    }
+
+    private static Exp number(double d) {
+        return Literal.create(BigDecimal.valueOf(d));
+    }
+
+    private void assertSameDouble(Exp exp) {
+        DoubleCalc expected = new BetterExpCompiler(evaluator, validator).compileDouble(exp);
+        DoubleCalc actual = new FusingExpCompiler(evaluator, validator).compileDouble(exp);
+        assertFused(actual, expected);
+        forEachContext(context -> {
+            assertEquals(expected.evaluate(evaluator), actual.evaluate(evaluator), context);
+            assertEquals(expected.evaluateDouble(evaluator), actual.evaluateDouble(evaluator), context);
+        });
+    }
+
+    private void assertSameBoolean(Exp exp) {
+        BooleanCalc expected = new BetterExpCompiler(evaluator, validator).compileBoolean(exp);
+        BooleanCalc actual = new FusingExpCompiler(evaluator, validator).compileBoolean(exp);
+        assertFused(actual, expected);
+        forEachContext(context -> {
+            assertEquals(expected.evaluate(evaluator), actual.evaluate(evaluator), context);
+            assertEquals(expected.evaluateBoolean(evaluator), actual.evaluateBoolean(evaluator), context);
+        });
+    }
+
+    private void assertFused(Calc actual, Calc expected) {
+        assertNotNull(actual);
+        assertTrue(actual.getClass().isHidden(), actual.getClass().getName());
+        assertFalse(expected.getClass().isHidden());
+        assertEquals(expected.dependsOn(measuresHierarchy), actual.dependsOn(measuresHierarchy));
+        assertEquals(expected.dependsOn(otherHierarchy), actual.dependsOn(otherHierarchy));
+    }
+
+    /**
+     * Runs a check for each combination of values of the measures, with and
+     * without evaluating axes.
+     */
+    private void forEachContext(Consumer<String> check) {
+        List<Member> members = List.of(
+            ((MemberExpr) a).getMember(), ((MemberExpr) b).getMember(), ((MemberExpr) c).getMember());
+        for (boolean axes : new boolean[] {false, true}) {
+            evalAxes[0] = axes;
+            for (Object va : VALUES) {
+                for (Object vb : VALUES) {
+                    for (Object vc : VALUES) {
+                        cells.put(members.get(0), va);
+                        cells.put(members.get(1), vb);
+                        cells.put(members.get(2), vc);
+                        check.accept("A=" + va + ", B=" + vb + ", C=" + vc + ", axes=" + axes);
+                    }
+                }
+            }
+        }
+    }
+}
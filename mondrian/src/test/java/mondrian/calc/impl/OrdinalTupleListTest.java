@@ -0,0 +1,173 @@
+/*
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   SmartCity Jena - initial
+ */
+package mondrian.calc.impl;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+import static org.mockito.Mockito.mock;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.eclipse.daanse.olap.api.model.Member;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import mondrian.calc.TupleCursor;
+import mondrian.calc.TupleList;
+import mondrian.olap.MondrianProperties;
+import mondrian.olap.ResourceLimitExceededException;
+import mondrian.test.PropertySaver5;
+
+class OrdinalTupleListTest {
+
+  /**
+   * Access properties via this object and their values will be reset.
+   */
+  protected final PropertySaver5 propSaver = new PropertySaver5();
+
+  @AfterEach
+  public void afterEach() {
+    propSaver.reset();
+  }
+
+  private Member member1 = mock( Member.class );
+  private Member member2 = mock( Member.class );
+  private Member member3 = mock( Member.class );
+
+  @Test
+  void testGrowListBeyondInitialCapacity() {
+    propSaver.set( MondrianProperties.instance().ResultLimit, 0 );
+    OrdinalTupleList list = new OrdinalTupleList( 2, 10 );
+    for ( int i = 0; i < 50; i++ ) {
+      list.addTuple( member1, i % 2 == 0 ? member2 : member3 );
+    }
+
+    assertEquals( 50, list.size() );
+    for ( int i = 0; i < 50; i++ ) {
+      assertSame( member1, list.get( i ).get( 0 ) );
+      assertSame( i % 2 == 0 ? member2 : member3, list.get( 1, i ) );
+    }
+  }
+
+  @Test
+  void testAttemptToGrowBeyondResultLimit() {
+    propSaver.set( MondrianProperties.instance().ResultLimit, 30 );
+    OrdinalTupleList list = new OrdinalTupleList( 2, 10 );
+    try {
+      for ( int i = 0; i < 32; i++ ) {
+        list.addTuple( member1, member2 );
+      }
+      fail( "Expected exception." );
+    } catch ( ResourceLimitExceededException e ) {
+      assertTrue( e.getMessage().contains( "result (31) exceeded limit (30)" ),
+        "Actual message:  " + e.getMessage() + " \ndid not match expected" );
+    }
+  }
+
+  @Test
+  void testModify() {
+    OrdinalTupleList list = new OrdinalTupleList( 2 );
+    list.add( Arrays.asList( member1, member2 ) );
+    list.add( Arrays.asList( member3, member3 ) );
+    list.add( 1, Arrays.asList( member2, member1 ) );
+    assertEquals(
+      List.of(
+        List.of( member1, member2 ),
+        List.of( member2, member1 ),
+        List.of( member3, member3 ) ),
+      list );
+
+    list.set( 0, Arrays.asList( member3, member1 ) );
+    list.remove( 1 );
+    assertEquals(
+      List.of( List.of( member3, member1 ), List.of( member3, member3 ) ),
+      list );
+
+    TupleList projected = list.project( new int[] { 1 } );
+    assertEquals( List.of( List.of( member1 ), List.of( member3 ) ), projected );
+  }
+
+  @Test
+  void testCursor() {
+    OrdinalTupleList list = new OrdinalTupleList( 2 );
+    list.addTuple( member1, member2 );
+    list.addTuple( member3, member1 );
+
+    Member[] members = new Member[ 3 ];
+    TupleCursor cursor = list.tupleCursor();
+    assertTrue( cursor.forward() );
+    assertTrue( cursor.forward() );
+    cursor.currentToArray( members, 1 );
+    assertArrayEquals( new Member[] { null, member3, member1 }, members );
+    assertSame( member1, cursor.member( 1 ) );
+    assertFalse( cursor.forward() );
+
+    OrdinalTupleList copy = OrdinalTupleList.copyOf( new ArrayTupleList( 2, 2 ) {
+      {
+        addTuple( member1, member2 );
+      }
+    } );
+    assertEquals( List.of( List.of( member1, member2 ) ), copy );
+  }
+
+  @Test
+  void testKeys() {
+    OrdinalTupleList list = new OrdinalTupleList( 2 );
+    list.addTuple( member1, member2 );
+    list.addTuple( member2, member1 );
+    list.addTuple( member1, member2 );
+
+    int[] key0 = new int[ 2 ];
+    int[] key = new int[ 2 ];
+    list.key( 0, key0 );
+    list.key( 2, key );
+    assertArrayEquals( key0, key );
+    list.key( 1, key );
+    assertFalse( Arrays.equals( key0, key ) );
+
+    assertTrue( list.key( List.of( member1, member2 ), key ) );
+    assertArrayEquals( key0, key );
+    assertFalse( list.key( List.of( member1, member3 ), key ) );
+
+    // a clone shares the dictionaries, so keys agree
+    OrdinalTupleList clone = (OrdinalTupleList) list.cloneList( 1 );
+    clone.addTuple( list, 2 );
+    clone.key( 0, key );
+    assertArrayEquals( key0, key );
+    assertSame( member2, clone.get( 1, 0 ) );
+  }
+
+  @Test
+  void testSet() {
+    OrdinalTupleSet set = new OrdinalTupleSet( 2, 1 );
+    for ( int i = 0; i < 1000; i++ ) {
+      assertTrue( set.add( new int[] { i, i % 7 } ) );
+    }
+    assertEquals( 1000, set.size() );
+    for ( int i = 0; i < 1000; i++ ) {
+      assertFalse( set.add( new int[] { i, i % 7 } ) );
+      assertTrue( set.contains( new int[] { i, i % 7 } ) );
+      assertFalse( set.contains( new int[] { i, i % 7 + 1 } ) );
+    }
+
+    assertEquals( -1, set.put( new int[] { -1, 0 }, 5 ) );
+    assertEquals( 5, set.put( new int[] { -1, 0 }, 6 ) );
+    assertEquals( 6, set.get( new int[] { -1, 0 } ) );
+    assertEquals( -1, set.get( new int[] { -1, 1 } ) );
+  }
+}
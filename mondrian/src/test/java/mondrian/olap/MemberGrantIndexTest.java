@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   SmartCity Jena - initial
+ */
+package mondrian.olap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.daanse.olap.api.access.Access;
+import org.eclipse.daanse.olap.api.model.Level;
+import org.eclipse.daanse.olap.api.model.Member;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class MemberGrantIndexTest {
+
+    private Level[] levels;
+    private Member all;
+    private Member usa;
+    private Member ca;
+    private Member or;
+    private Member sf;
+    private Member la;
+    private Member sd;
+
+    @BeforeEach
+    void beforeEach() {
+        levels = new Level[4];
+        for (int i = 0; i < levels.length; i++) {
+            levels[i] = mock(Level.class);
+            when(levels[i].getDepth()).thenReturn(i);
+        }
+        all = member(null, "All Stores");
+        usa = member(all, "USA");
+        ca = member(usa, "CA");
+        or = member(usa, "OR");
+        sf = member(ca, "San Francisco");
+        la = member(ca, "Los Angeles");
+        sd = member(ca, "San Diego");
+    }
+
+    private Member member(Member parent, String name) {
+        final int depth =
+            parent == null ? 0 : parent.getLevel().getDepth() + 1;
+        final String uniqueName =
+            parent == null
+                ? "[" + name + "]"
+                : parent.getUniqueName() + ".[" + name + "]";
+        final Member member = mock(Member.class);
+        when(member.getLevel()).thenReturn(levels[depth]);
+        when(member.getParentMember()).thenReturn(parent);
+        when(member.getUniqueName()).thenReturn(uniqueName);
+        return member;
+    }
+
+    private MemberGrantIndex index() {
+        final Map<Member, Access> grants = new LinkedHashMap<>();
+        grants.put(usa, Access.CUSTOM);
+        grants.put(ca, Access.CUSTOM);
+        grants.put(sf, Access.ALL);
+        grants.put(la, Access.RESTRICTED);
+        grants.put(sd, Access.NONE);
+        return new MemberGrantIndex(grants);
+    }
+
+    @Test
+    void testGetGrant() {
+        final MemberGrantIndex index = index();
+        assertEquals(5, index.size());
+        assertEquals(Access.CUSTOM, index.getGrant(ca));
+        assertEquals(Access.ALL, index.getGrant(sf));
+        assertEquals(Access.NONE, index.getGrant(sd));
+        assertNull(index.getGrant(or));
+        // No grants at the top level; not looked up.
+        assertNull(index.getGrant(all));
+        assertTrue(index.isAboveGrants(all));
+        assertFalse(index.isAboveGrants(usa));
+    }
+
+    @Test
+    void testHasRestrictedDescendants() {
+        final MemberGrantIndex index = index();
+        assertTrue(index.hasRestrictedDescendants(all));
+        assertTrue(index.hasRestrictedDescendants(usa));
+        assertTrue(index.hasRestrictedDescendants(ca));
+        assertTrue(index.hasRestrictedDescendants(sd));
+        assertFalse(index.hasRestrictedDescendants(or));
+        assertFalse(index.hasRestrictedDescendants(sf));
+        assertFalse(index.hasRestrictedDescendants(la));
+    }
+
+    @Test
+    void testGetAccessibleChildren() {
+        final MemberGrantIndex index = index();
+        assertEquals(List.of(sf, la), index.getAccessibleChildren(ca));
+        assertEquals(List.of(ca), index.getAccessibleChildren(usa));
+        // Not granted CUSTOM access; children are not restricted to grants.
+        assertNull(index.getAccessibleChildren(sf));
+        assertNull(index.getAccessibleChildren(or));
+    }
+
+    @Test
+    void testMemo() {
+        final MemberGrantIndex index = index();
+        assertNull(index.getMemoizedAccess(or));
+        index.memoizeAccess(or, Access.NONE);
+        assertEquals(Access.NONE, index.getMemoizedAccess(or));
+        for (int i = 0; i < MemberGrantIndex.MEMO_LIMIT; i++) {
+            final Member member = mock(Member.class);
+            when(member.getUniqueName()).thenReturn("[m" + i + "]");
+            index.memoizeAccess(member, Access.ALL);
+        }
+        // The memo was cleared when it reached its limit.
+        assertNull(index.getMemoizedAccess(or));
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   SmartCity Jena - initial
+ */
+package mondrian.olap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+
+import org.eclipse.daanse.olap.api.Connection;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.opencube.junit5.ContextSource;
+import org.opencube.junit5.TestUtil;
+import org.opencube.junit5.context.TestingContext;
+import org.opencube.junit5.dataloader.FastFoodmardDataLoader;
+import org.opencube.junit5.propupdator.AppandFoodMartCatalogAsFile;
+
+import mondrian.rolap.RolapConnection;
+import mondrian.test.PropertySaver5;
+
+class ParsedQueryCacheTest {
+
+    private PropertySaver5 propSaver;
+
+    @BeforeEach
+    void beforeEach() {
+        propSaver = new PropertySaver5();
+    }
+
+    @AfterEach
+    void afterEach() {
+        propSaver.reset();
+    }
+
+    @Test
+    void testNormalize() {
+        assertEquals(
+            "select [Measures].[Unit Sales] on 0 from [Sales]",
+            ParsedQueryCache.normalize(
+                "  select  [Measures].[Unit Sales]\n\ton 0\r\nfrom [Sales]\n"));
+        // White space in identifiers and strings is kept.
+        assertEquals(
+            "with member [Measures].[A  B] as 'x  y' select",
+            ParsedQueryCache.normalize(
+                "with member [Measures].[A  B]   as 'x  y'\n select"));
+        // Escaped brackets and quotes do not end an identifier or string.
+        assertEquals(
+            "select [A]]  B] , \"x\"\"  y\" from",
+            ParsedQueryCache.normalize("select [A]]  B]  ,  \"x\"\"  y\"  from"));
+        // A comment may end at a line break; the text is left as it is.
+        assertEquals(
+            "select -- axis\n[A] on 0",
+            ParsedQueryCache.normalize(" select -- axis\n[A] on 0 "));
+        assertEquals(
+            "select // axis\n[A]",
+            ParsedQueryCache.normalize("select // axis\n[A]"));
+    }
+
+    /**
+     * A query that is executed again is created from the cached parse tree,
+     * and returns the same result.
+     */
+    @ParameterizedTest
+    @ContextSource(propertyUpdater = AppandFoodMartCatalogAsFile.class, dataloader = FastFoodmardDataLoader.class )
+    void testCachedQuery(TestingContext foodMartContext) {
+        propSaver.set(propSaver.properties.ParsedQueryCacheSize, 10);
+        final Connection connection = foodMartContext.createConnection();
+        final ParsedQueryCache parsedQueryCache =
+            ((RolapConnection) connection).getSchema().getParsedQueryCache();
+        parsedQueryCache.clear();
+        final String mdx =
+            "with member [Measures].[Double Sales] as\n"
+            + " '[Measures].[Unit Sales] * 2'\n"
+            + "select {[Measures].[Unit Sales], [Measures].[Double Sales]}"
+            + " on 0,\n"
+            + " [Gender].children on 1\n"
+            + "from [Sales]\n"
+            + "where [Time].[1997].[Q1]";
+        final Query query1 = connection.parseQuery(mdx);
+        final String result1 =
+            TestUtil.toString(connection.execute(query1));
+        assertEquals(1, parsedQueryCache.size());
+
+        final Query query2 =
+            connection.parseQuery(mdx.replace("\n", "\n  "));
+        assertNotSame(query1, query2);
+        assertEquals(1, parsedQueryCache.size());
+        assertEquals(result1, TestUtil.toString(connection.execute(query2)));
+
+        connection.getCacheControl(null).flushSchema(
+            ((RolapConnection) connection).getSchema());
+        assertEquals(0, parsedQueryCache.size());
+    }
+}
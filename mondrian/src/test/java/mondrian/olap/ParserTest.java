@@ -25,7 +25,9 @@ import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.util.Collections;
 import java.util.List;
+import java.util.function.Function;
 
+import org.eclipse.daanse.mdx.parser.ccc.MdxParserProviderImpl;
 import org.eclipse.daanse.olap.api.Connection;
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
@@ -38,6 +40,7 @@ import org.opencube.junit5.propupdator.AppandFoodMartCatalogAsFile;
 import mondrian.mdx.QueryPrintWriter;
 import mondrian.mdx.UnresolvedFunCall;
 import mondrian.olap.fun.BuiltinFunTable;
+import mondrian.parser.CongoccParserValidatorImpl;
 import mondrian.parser.JavaccParserValidatorImpl;
 import mondrian.parser.MdxParserValidator;
 import mondrian.server.Statement;
@@ -903,6 +906,81 @@ class ParserTest {
             + "from [Sales]\n");
     }
 
+    /**
+     * Tests that {@link CongoccParserValidatorImpl} converts common statements
+     * to the same parse tree as {@link JavaccParserValidatorImpl} itself,
+     * without falling back to the JavaCC parser.
+     */
+    @Test
+    void testCongoccWithoutFallback() {
+        final String[] queries = {
+            "select {[Measures].[Unit Sales]}\n"
+            + " dimension properties [Store].[Store Name].[Store Type]\n"
+            + " on columns,\n"
+            + "non empty [Store].[Store Name].Members on rows\n"
+            + "from [Sales] where [Time].[1997].[Q1]",
+            "select [Measures].[Unit Sales] on 0 from [Sales]\n"
+            + "cell properties value, formatted_value",
+            "with member [Measures].[Foo] as '[Measures].[Unit Sales] * 2',\n"
+            + " format_string = '#,##0'\n"
+            + "member [Measures].[Bar] as [Measures].[Foo] / 3,\n"
+            + " solve_order = 2\n"
+            + "set [Top Stores] as\n"
+            + " TopCount([Store].[Store Name].Members, 5, [Measures].[Foo])\n"
+            + "select {[Measures].[Foo], [Measures].[Bar]} on columns,\n"
+            + " [Top Stores] on rows\n"
+            + "from [Sales]",
+            "select {[Measures].[Unit Sales]} on columns from [Sales]\n"
+            + "where case\n"
+            + " when [Time].CurrentMember is null then 1\n"
+            + " when [Time].CurrentMember.Properties(\"Key\")\n"
+            + "  not in {\"1\", \"2\"} then 2\n"
+            + " else cast(3 as string) end",
+            "select [Product].&[1].&[2] on columns,\n"
+            + " [Store].[USA].Children on rows,\n"
+            + " {} on axis(5)\n"
+            + "from [Sales]",
+            "drillthrough maxrows 10 firstrowset 2\n"
+            + "select [Measures].[Unit Sales] on 0 from [Sales]\n"
+            + "return [Customers].[Name], [Gender]",
+            "explain plan for\n"
+            + "select -[Measures].[Unit Sales] on 0\n"
+            + "from (select [Gender].[F] on 0 from [Sales])",
+        };
+        final MdxParserValidator noFallback = new MdxParserValidator() {
+            @Override
+            public QueryPart parseInternal(
+                Statement statement,
+                String queryString,
+                boolean debug,
+                FunTable funTable,
+                boolean strictValidation)
+            {
+                return fail("fell back to JavaCC: " + queryString);
+            }
+
+            @Override
+            public Exp parseExpression(
+                Statement statement,
+                String queryString,
+                boolean debug,
+                FunTable funTable)
+            {
+                return fail("fell back to JavaCC: " + queryString);
+            }
+        };
+        for (String mdx : queries) {
+            TestParser expected = createParser();
+            new JavaccParserValidatorImpl(expected)
+                .parseInternal(null, mdx, false, funTable, false);
+            TestParser actual = createParser();
+            new CongoccParserValidatorImpl(
+                new MdxParserProviderImpl(), actual, noFallback)
+                .parseInternal(null, mdx, false, funTable, false);
+            assertEquals(expected.toMdxString(), actual.toMdxString(), mdx);
+        }
+    }
+
     /**
      * Test case for bug <a href="http://jira.pentaho.com/browse/MONDRIAN-924">
      * MONDRIAN-924, "Parsing fails with multiple spaces between words"</a>.
@@ -996,14 +1074,27 @@ class ParserTest {
 
     private void assertParseQuery(
         String mdx, final String expected, boolean old)
+    {
+        if (old) {
+            assertParseQuery(mdx, expected, null);
+        } else {
+            assertParseQuery(mdx, expected, JavaccParserValidatorImpl::new);
+            assertParseQuery(mdx, expected, CongoccParserValidatorImpl::new);
+        }
+    }
+
+    private void assertParseQuery(
+        String mdx,
+        final String expected,
+        Function<MdxParserValidator.QueryPartFactory, MdxParserValidator>
+            parserFactory)
     {
         TestParser p = createParser();
         final QueryPart query;
-        if (old) {
+        if (parserFactory == null) {
             query = p.parseInternal(null, mdx, false, funTable, false);
         } else {
-            MdxParserValidator parser =
-                new JavaccParserValidatorImpl(p);
+            MdxParserValidator parser = parserFactory.apply(p);
             query =
                 parser.parseInternal(
                     null, mdx, false, funTable, false);
@@ -1031,15 +1122,28 @@ class ParserTest {
 
     private void assertParseExpr(
         String expr, final String expected, boolean old)
+    {
+        if (old) {
+            assertParseExpr(expr, expected, null);
+        } else {
+            assertParseExpr(expr, expected, JavaccParserValidatorImpl::new);
+            assertParseExpr(expr, expected, CongoccParserValidatorImpl::new);
+        }
+    }
+
+    private void assertParseExpr(
+        String expr,
+        final String expected,
+        Function<MdxParserValidator.QueryPartFactory, MdxParserValidator>
+            parserFactory)
     {
         TestParser p = createParser();
         final String mdx = wrapExpr(expr);
         final QueryPart query;
-        if (old) {
+        if (parserFactory == null) {
             query = p.parseInternal(null, mdx, false, funTable, false);
         } else {
-            MdxParserValidator parser =
-                new JavaccParserValidatorImpl(p);
+            MdxParserValidator parser = parserFactory.apply(p);
             query =
                 parser.parseInternal(
                     null, mdx, false, funTable, false);
@@ -9,6 +9,7 @@
 package mondrian.olap.fun;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
@@ -45,6 +46,7 @@ import mondrian.mdx.ResolvedFunCall;
 import mondrian.olap.Exp;
 import mondrian.olap.FunDef;
 import mondrian.olap.MondrianProperties;
+import mondrian.olap.MondrianServer;
 import mondrian.olap.SchemaReader;
 import mondrian.olap.Syntax;
 import mondrian.olap.Util;
@@ -379,6 +381,50 @@ void testResultLimitWithinCrossjoin_1(TestingContext foodMartContext) {
       "result (1,539) exceeded limit (1,000)","Sales" );
   }
 
+	@ParameterizedTest
+	@ContextSource(propertyUpdater = AppandFoodMartCatalogAsFile.class, dataloader = FastFoodmardDataLoader.class )
+  void testNonEmptyCrossJoinFromSegments(TestingContext foodMartContext) {
+    propSaver.set( MondrianProperties.instance().EnableNativeCrossJoin, false );
+    propSaver.set( MondrianProperties.instance().EnableNativeNonEmpty, false );
+    Connection connection = foodMartContext.createConnection();
+    String query = "select {[Measures].[Unit Sales], [Measures].[Store Cost]} on 0,\n"
+      + "NON EMPTY NonEmptyCrossJoin([Customers].[City].Members, [Product].[Brand Name].Members) on 1\n"
+      + "from [Sales] where [Time].[1997].[Q1]";
+    String expected = TestUtil.toString( TestUtil.executeQuery( connection, query ) );
+    int crossJoinSize =
+      memberCount( connection, "[Customers].[City].Members" )
+        * memberCount( connection, "[Product].[Brand Name].Members" );
+
+    // same tuples, read from the segment of the crossjoin, whether it has
+    // to be loaded or is in the cache
+    propSaver.set( MondrianProperties.instance().CrossJoinFromSegments, true );
+    TestUtil.flushCache( connection );
+    assertEquals( expected, TestUtil.toString( TestUtil.executeQuery( connection, query ) ) );
+    int requestCount = cellCacheRequestCount( connection );
+    assertEquals( expected, TestUtil.toString( TestUtil.executeQuery( connection, query ) ) );
+    int segmentRequestCount = cellCacheRequestCount( connection ) - requestCount;
+
+    // Evaluating the crossjoin reads at least one cell per tuple; reading
+    // the segment reads one cell per measure.
+    propSaver.set( MondrianProperties.instance().CrossJoinFromSegments, false );
+    requestCount = cellCacheRequestCount( connection );
+    assertEquals( expected, TestUtil.toString( TestUtil.executeQuery( connection, query ) ) );
+    int evaluatedRequestCount = cellCacheRequestCount( connection ) - requestCount;
+    assertTrue(
+      evaluatedRequestCount - segmentRequestCount >= crossJoinSize - 2,
+      "cell requests: " + segmentRequestCount + " from the segment, " + evaluatedRequestCount
+        + " evaluated, crossjoin of " + crossJoinSize );
+  }
+
+  private static int memberCount( Connection connection, String set ) {
+    return TestUtil.executeQuery( connection, "select {} on 0, " + set + " on 1 from [Sales]" )
+      .getAxes()[ 1 ].getPositions().size();
+  }
+
+  private static int cellCacheRequestCount( Connection connection ) {
+    return MondrianServer.forConnection( connection ).getMonitor().getServer().getCellCacheRequestCount();
+  }
+
   ////////////////////////////////////////////////////////////////////////
   // Helper methods
   ////////////////////////////////////////////////////////////////////////
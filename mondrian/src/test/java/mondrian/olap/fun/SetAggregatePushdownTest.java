@@ -0,0 +1,217 @@
+/*
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   SmartCity Jena - initial
+ */
+package mondrian.olap.fun;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import org.eclipse.daanse.olap.api.Connection;
+import org.eclipse.daanse.olap.api.result.Cell;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.opencube.junit5.ContextSource;
+import org.opencube.junit5.TestUtil;
+import org.opencube.junit5.context.BaseTestContext;
+import org.opencube.junit5.context.TestingContext;
+import org.opencube.junit5.dataloader.FastFoodmardDataLoader;
+import org.opencube.junit5.propupdator.AppandFoodMartCatalogAsFile;
+import org.opencube.junit5.propupdator.SchemaUpdater;
+
+import mondrian.rolap.RolapUtil;
+import mondrian.test.PropertySaver5;
+
+/**
+ * Differential tests of {@link SetAggregatePushdown}: each expression is
+ * evaluated once per tuple and once with the pushdown enabled, and the
+ * results must agree; the SQL shows whether the set was pushed down.
+ */
+class SetAggregatePushdownTest {
+    /** Number of tuples in a cell request, so that 7 tuples need 3. */
+    private static final int CHUNK_SIZE = 3;
+
+    private static final String CITIES =
+        "Head([Customers].[USA].[CA].Children, 7)";
+
+    private PropertySaver5 propSaver;
+
+    @BeforeEach
+    public void beforeEach() {
+        propSaver = new PropertySaver5();
+    }
+
+    @AfterEach
+    public void afterEach() {
+        propSaver.reset();
+    }
+
+    private static void withMinMaxMeasures(TestingContext context) {
+        ((BaseTestContext) context).update(
+            SchemaUpdater.createSubstitutingCube(
+                "Sales",
+                null,
+                "<Measure name=\"Min Unit Sales\" column=\"unit_sales\" aggregator=\"min\"/>\n"
+                + "<Measure name=\"Max Unit Sales\" column=\"unit_sales\" aggregator=\"max\"/>\n",
+                null,
+                null));
+    }
+
+    @ParameterizedTest
+    @ContextSource(propertyUpdater = AppandFoodMartCatalogAsFile.class, dataloader = FastFoodmardDataLoader.class)
+    void testSumIsPushedDownInChunks(TestingContext context) {
+        // 7 cities, 3 to a chunk.
+        assertPushedDown(
+            context, "Sum(" + CITIES + ", [Measures].[Unit Sales])", "city", 3);
+        assertPushedDown(
+            context, "Sum(" + CITIES + ", [Measures].[Sales Count])", "city", 3);
+    }
+
+    @ParameterizedTest
+    @ContextSource(propertyUpdater = AppandFoodMartCatalogAsFile.class, dataloader = FastFoodmardDataLoader.class)
+    void testMinMaxArePushedDown(TestingContext context) {
+        withMinMaxMeasures(context);
+        assertPushedDown(
+            context, "Min(" + CITIES + ", [Measures].[Min Unit Sales])",
+            "city", 3);
+        assertPushedDown(
+            context, "Max(" + CITIES + ", [Measures].[Max Unit Sales])",
+            "city", 3);
+    }
+
+    @ParameterizedTest
+    @ContextSource(propertyUpdater = AppandFoodMartCatalogAsFile.class, dataloader = FastFoodmardDataLoader.class)
+    void testCrossJoinIsPushedDown(TestingContext context) {
+        // 3 states by 2 genders, 3 tuples to a chunk.
+        assertPushedDown(
+            context,
+            "Sum(CrossJoin([Customers].[USA].Children, [Gender].Children),"
+            + " [Measures].[Unit Sales])",
+            "gender", 2);
+    }
+
+    @ParameterizedTest
+    @ContextSource(propertyUpdater = AppandFoodMartCatalogAsFile.class, dataloader = FastFoodmardDataLoader.class)
+    void testCalculatedMeasureIsNotPushedDown(TestingContext context) {
+        assertPushedDown(
+            context, "Sum(" + CITIES + ", [Measures].[Profit])", "city", 0);
+    }
+
+    @ParameterizedTest
+    @ContextSource(propertyUpdater = AppandFoodMartCatalogAsFile.class, dataloader = FastFoodmardDataLoader.class)
+    void testIncompatibleAggregatorIsNotPushedDown(TestingContext context) {
+        withMinMaxMeasures(context);
+        // Min and Max of a sum, and Sum of a distinct count or of a maximum.
+        assertPushedDown(
+            context, "Min(" + CITIES + ", [Measures].[Unit Sales])", "city", 0);
+        assertPushedDown(
+            context, "Max(" + CITIES + ", [Measures].[Unit Sales])", "city", 0);
+        assertPushedDown(
+            context, "Sum(" + CITIES + ", [Measures].[Customer Count])",
+            "city", 0);
+        assertPushedDown(
+            context, "Sum(" + CITIES + ", [Measures].[Max Unit Sales])",
+            "city", 0);
+    }
+
+    @ParameterizedTest
+    @ContextSource(propertyUpdater = AppandFoodMartCatalogAsFile.class, dataloader = FastFoodmardDataLoader.class)
+    void testSetIsNotPushedDown(TestingContext context) {
+        // Members of different levels.
+        assertPushedDown(
+            context,
+            "Sum({[Customers].[USA].[OR], [Customers].[USA].[CA].[Berkeley],"
+            + " [Customers].[USA].[CA].[Burbank], [Customers].[USA].[CA].[Colma]},"
+            + " [Measures].[Unit Sales])",
+            "city", 0);
+        // A tuple that occurs twice is counted twice.
+        assertPushedDown(
+            context,
+            "Sum({[Customers].[USA].[CA].[Berkeley], [Customers].[USA].[CA].[Burbank],"
+            + " [Customers].[USA].[CA].[Berkeley], [Customers].[USA].[CA].[Colma]},"
+            + " [Measures].[Unit Sales])",
+            "city", 0);
+        // A calculated member.
+        assertPushedDown(
+            context,
+            "Sum({[Customers].[USA].[CA].[Berkeley], [Customers].[USA].[CA].[Burbank],"
+            + " [Customers].[USA].[CA].[Colma],"
+            + " [Customers].[USA].[CA].[Burbank] + [Customers].[USA].[CA].[Colma]},"
+            + " [Measures].[Unit Sales])",
+            "city", 0);
+    }
+
+    /**
+     * Asserts that an expression has the same value with and without the
+     * pushdown, and that, with the pushdown, the given number of statements
+     * constrain a column of the set without selecting it, which only the
+     * statements of a pushed-down set do.
+     */
+    private void assertPushedDown(
+        TestingContext context,
+        String expression,
+        String column,
+        int expectedStatements)
+    {
+        propSaver.set(propSaver.properties.MaxConstraints, CHUNK_SIZE);
+        propSaver.set(propSaver.properties.SetAggregatePushdownMinSize, 0);
+        final Object perTuple =
+            evaluate(context, expression, new ArrayList<>());
+
+        propSaver.set(propSaver.properties.SetAggregatePushdownMinSize, 2);
+        final List<String> sqls = new ArrayList<>();
+        final Object pushedDown = evaluate(context, expression, sqls);
+
+        if (perTuple instanceof Number expected
+            && pushedDown instanceof Number actual)
+        {
+            assertEquals(
+                expected.doubleValue(), actual.doubleValue(),
+                Math.abs(expected.doubleValue()) * 1e-9, expression);
+        } else {
+            assertEquals(perTuple, pushedDown, expression);
+        }
+        int statements = 0;
+        for (String sql : sqls) {
+            final String s = sql.toLowerCase(Locale.ROOT);
+            final int from = s.indexOf(" from ");
+            if (from >= 0
+                && !s.substring(0, from).contains(column)
+                && s.indexOf(column, from) >= 0)
+            {
+                ++statements;
+            }
+        }
+        assertEquals(expectedStatements, statements, expression + ": " + sqls);
+    }
+
+    private static Object evaluate(
+        TestingContext context,
+        String expression,
+        List<String> sqls)
+    {
+        final Connection connection = context.createConnection();
+        connection.getCacheControl(null).flushSchemaCache();
+        RolapUtil.setHook(sqls::add);
+        try {
+            final Cell cell =
+                TestUtil.executeExprRaw(
+                    context.createConnection(), "Sales", expression);
+            return cell.getValue();
+        } finally {
+            RolapUtil.setHook(null);
+        }
+    }
+}
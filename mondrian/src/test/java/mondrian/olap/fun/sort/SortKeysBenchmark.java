@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   SmartCity Jena - initial
+ */
+package mondrian.olap.fun.sort;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.eclipse.daanse.olap.api.model.Member;
+
+import mondrian.olap.Util;
+import mondrian.olap.fun.TestMember;
+
+/**
+ * Compares sorting members by a key with the comparators that
+ * {@link Sorter} used before, {@link MemberComparator.BreakMemberComparator}
+ * with preloaded values, to sorting by {@link SortKeys}, for the full sort of
+ * {@code Order} and the partial sort of {@code TopCount}.
+ *
+ * <p>Keys are random numbers with some nulls, as a measure would give. Both
+ * sides start from evaluated keys, so the time to evaluate, which is the
+ * same for both, is not measured.
+ */
+public class SortKeysBenchmark {
+
+  private static final int TOP = 100;
+
+  public static void main( String[] args ) {
+    for ( int size : new int[] { 10_000, 1_000_000 } ) {
+      benchmark( size );
+    }
+  }
+
+  private static void benchmark( int size ) {
+    Random random = new Random( size );
+    List<Member> members = new ArrayList<>( size );
+    Map<Member, Object> valueMap = new HashMap<>();
+    Object[] values = new Object[ size ];
+    for ( int i = 0; i < size; i++ ) {
+      Member member = new TestMember( "m" + i );
+      members.add( member );
+      values[ i ] = random.nextInt( 20 ) == 0 ? Util.nullValue : (Object) ( random.nextDouble() * 1000d );
+      valueMap.put( member, values[ i ] );
+    }
+    int iterations = Math.max( 3, 10_000_000 / size );
+
+    for ( int warmup = 0; warmup < 2; warmup++ ) {
+      long comparatorSort = 0;
+      long keySort = 0;
+      long comparatorTop = 0;
+      long keyTop = 0;
+      for ( int i = 0; i < iterations; i++ ) {
+        long start = System.nanoTime();
+        List<Member> list = new ArrayList<>( members );
+        list.sort( comparator( valueMap ) );
+        comparatorSort += System.nanoTime() - start;
+
+        start = System.nanoTime();
+        int[] order = new SortKeys( values ).order( true );
+        keySort += System.nanoTime() - start;
+        check( list.get( 0 ) == members.get( order[ 0 ] ) );
+
+        start = System.nanoTime();
+        List<Member> top = Sorter.stablePartialSort( members, comparator( valueMap ), TOP );
+        comparatorTop += System.nanoTime() - start;
+
+        start = System.nanoTime();
+        int[] topKeys = new SortKeys( values ).top( TOP, true );
+        keyTop += System.nanoTime() - start;
+        check( top.get( TOP - 1 ) == members.get( topKeys[ TOP - 1 ] ) );
+      }
+      if ( warmup == 1 ) {
+        System.out.printf( "%,d members, %d threads%n", size, Runtime.getRuntime()
+          .availableProcessors() );
+        System.out.printf( "  Order     comparator %9.3f ms  keys %9.3f ms%n",
+          comparatorSort / 1e6 / iterations, keySort / 1e6 / iterations );
+        System.out.printf( "  TopCount  comparator %9.3f ms  keys %9.3f ms%n",
+          comparatorTop / 1e6 / iterations, keyTop / 1e6 / iterations );
+      }
+    }
+  }
+
+  private static MemberComparator comparator( Map<Member, Object> valueMap ) {
+    MemberComparator comparator = new MemberComparator.BreakMemberComparator( null, null, true );
+    comparator.preloadValues( valueMap );
+    return comparator;
+  }
+
+  private static void check( boolean condition ) {
+    if ( !condition ) {
+      throw new IllegalStateException( "Sorts disagree" );
+    }
+  }
+}
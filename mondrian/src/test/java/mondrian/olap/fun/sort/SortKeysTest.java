@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   SmartCity Jena - initial
+ */
+package mondrian.olap.fun.sort;
+
+import static mondrian.olap.fun.FunUtil.DOUBLE_NULL;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import mondrian.olap.Util;
+import mondrian.rolap.RolapUtil;
+
+class SortKeysTest {
+
+  private static final Object[] VALUES = {
+    3, 2.5d, Util.nullValue, Double.NaN, -0.0d, Double.POSITIVE_INFINITY, 0,
+    DOUBLE_NULL, Double.NEGATIVE_INFINITY, RolapUtil.valueNotReadyException,
+    -7L, Double.MAX_VALUE, -Double.MAX_VALUE, Double.MIN_VALUE, 2.5f, Util.nullValue
+  };
+
+  @Test
+  void testEncodingAgreesWithCompareValues() {
+    for ( Object v1 : VALUES ) {
+      for ( Object v2 : VALUES ) {
+        SortKeys keys = new SortKeys( new Object[] { v1, v2 } );
+        int[] order = keys.order( false );
+        int c = Sorter.compareValues( v1, v2 );
+        assertArrayEquals(
+          c <= 0 ? new int[] { 0, 1 } : new int[] { 1, 0 }, order,
+          v1 + " vs " + v2 );
+      }
+    }
+  }
+
+  @Test
+  void testOrderIsStable() {
+    Object[] values = { 2, 1, 2, Util.nullValue, 1, 2 };
+    assertArrayEquals(
+      new int[] { 3, 1, 4, 0, 2, 5 }, new SortKeys( values ).order( false ) );
+    assertArrayEquals(
+      new int[] { 0, 2, 5, 1, 4, 3 }, new SortKeys( values ).order( true ) );
+  }
+
+  @Test
+  void testStrings() {
+    Object[] values = { "b", "A", Util.nullValue, "a", "C" };
+    assertArrayEquals(
+      new int[] { 2, 1, 3, 0, 4 }, new SortKeys( values ).order( false ) );
+    assertArrayEquals(
+      new int[] { 4, 0 }, new SortKeys( values ).top( 2, true ) );
+  }
+
+  @Test
+  void testTopAgreesWithStableSort() {
+    Random random = new Random( 42 );
+    for ( int size : new int[] { 1, 100, 100_000 } ) {
+      Object[] values = new Object[ size ];
+      for ( int i = 0; i < size; i++ ) {
+        values[ i ] = random.nextInt( 10 ) == 0
+          ? Util.nullValue
+          : (Object) (double) random.nextInt( size / 10 + 1 );
+      }
+      for ( boolean desc : new boolean[] { false, true } ) {
+        Integer[] expected = new Integer[ size ];
+        Arrays.setAll( expected, i -> i );
+        Comparator<Integer> comparator =
+          ( i, j ) -> Sorter.compareValues( values[ i ], values[ j ] );
+        Arrays.sort( expected, desc ? comparator.reversed() : comparator );
+
+        int[] order = new SortKeys( values ).order( desc );
+        assertArrayEquals(
+          Arrays.stream( expected ).mapToInt( i -> i ).toArray(), order );
+        for ( int limit : new int[] { 0, 1, Math.min( 10, size ), size } ) {
+          int[] top = new SortKeys( values ).top( limit, desc );
+          assertEquals( limit, top.length );
+          assertArrayEquals( Arrays.copyOf( order, limit ), top );
+        }
+      }
+    }
+  }
+
+  @Test
+  void testSelect() {
+    long[] a = new Random( 7 ).longs( 1000 ).toArray();
+    long[] sorted = a.clone();
+    Arrays.sort( sorted );
+    SortKeys.select( a, 0, a.length, 50 );
+    long[] head = Arrays.copyOf( a, 50 );
+    Arrays.sort( head );
+    assertArrayEquals( Arrays.copyOf( sorted, 50 ), head );
+  }
+}
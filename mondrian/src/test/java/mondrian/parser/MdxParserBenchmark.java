@@ -0,0 +1,257 @@
+/*
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   SmartCity Jena - initial
+ */
+package mondrian.parser;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+
+import org.eclipse.daanse.mdx.parser.api.MdxParserException;
+import org.eclipse.daanse.mdx.parser.api.MdxParserProvider;
+
+import com.sun.management.ThreadMXBean;
+
+import mondrian.olap.CalculatedFormula;
+import mondrian.olap.DmvQuery;
+import mondrian.olap.DrillThrough;
+import mondrian.olap.Exp;
+import mondrian.olap.Explain;
+import mondrian.olap.Formula;
+import mondrian.olap.FunTable;
+import mondrian.olap.Query;
+import mondrian.olap.QueryAxis;
+import mondrian.olap.QueryPart;
+import mondrian.olap.Refresh;
+import mondrian.olap.Subcube;
+import mondrian.olap.TransactionCommand;
+import mondrian.olap.Update;
+import mondrian.olap.fun.BuiltinFunTable;
+import mondrian.server.Statement;
+
+/**
+ * Compares the time and the memory allocated to parse large generated MDX
+ * statements, with hundreds of calculated members and long member lists, by
+ * {@link JavaccParserValidatorImpl}, by {@link CongoccParserValidatorImpl}
+ * without fallback, and by the CongoCC parsers of
+ * {@code org.eclipse.daanse.mdx.parser.ccc} and
+ * {@code org.eclipse.daanse.mdx.parser.cccx} alone, which build only the
+ * {@link org.eclipse.daanse.mdx.model.api MDX model}.
+ *
+ * <p>The factory makes no queries, so validation, which is the same for
+ * both parse trees, is not measured.
+ */
+public class MdxParserBenchmark {
+    private static final int ITERATIONS = 50;
+
+    public static void main(String[] args) throws MdxParserException {
+        for (int size : new int[] {100, 1_000}) {
+            benchmark(size);
+        }
+    }
+
+    private static void benchmark(int size) throws MdxParserException {
+        final String mdx = generate(size);
+        final FunTable funTable = BuiltinFunTable.instance();
+        final MdxParserValidator.QueryPartFactory factory = new NullFactory();
+        final MdxParserValidator javacc =
+            new JavaccParserValidatorImpl(factory);
+        final MdxParserValidator congocc =
+            new CongoccParserValidatorImpl(
+                new org.eclipse.daanse.mdx.parser.ccc.MdxParserProviderImpl(),
+                factory,
+                new NoFallback());
+        final MdxParserProvider ccc =
+            new org.eclipse.daanse.mdx.parser.ccc.MdxParserProviderImpl();
+        final MdxParserProvider cccx =
+            new org.eclipse.daanse.mdx.parser.cccx.MdxParserProviderImpl();
+        final ThreadMXBean threadBean =
+            (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        final long threadId = Thread.currentThread().getId();
+
+        for (int warmup = 0; warmup < 2; warmup++) {
+            final long[] nanos = new long[4];
+            final long[] bytes = new long[4];
+            for (int i = 0; i < ITERATIONS; i++) {
+                for (int parser = 0; parser < 4; parser++) {
+                    long allocated = threadBean.getThreadAllocatedBytes(threadId);
+                    long start = System.nanoTime();
+                    switch (parser) {
+                    case 0:
+                        javacc.parseInternal(null, mdx, false, funTable, false);
+                        break;
+                    case 1:
+                        congocc.parseInternal(null, mdx, false, funTable, false);
+                        break;
+                    case 2:
+                        ccc.newParser(mdx).parseMdxStatement();
+                        break;
+                    default:
+                        cccx.newParser(mdx).parseMdxStatement();
+                        break;
+                    }
+                    nanos[parser] += System.nanoTime() - start;
+                    bytes[parser] +=
+                        threadBean.getThreadAllocatedBytes(threadId) - allocated;
+                }
+            }
+            if (warmup == 1) {
+                System.out.printf(
+                    "%,d calculated members, %,d characters%n",
+                    size, mdx.length());
+                String[] names = {
+                    "JavaCC", "CongoCC to Exp", "ccc model", "cccx model"
+                };
+                for (int parser = 0; parser < 4; parser++) {
+                    System.out.printf(
+                        "  %-15s %9.3f ms %,13d bytes%n",
+                        names[parser],
+                        nanos[parser] / 1e6 / ITERATIONS,
+                        bytes[parser] / ITERATIONS);
+                }
+            }
+        }
+    }
+
+    /**
+     * Generates a query with {@code size} calculated members, one in ten of
+     * them with a single-quoted formula, and an axis that lists each of
+     * {@code size} members.
+     */
+    static String generate(int size) {
+        StringBuilder buf = new StringBuilder("WITH\n");
+        for (int i = 0; i < size; i++) {
+            buf.append("MEMBER [Measures].[Calc ").append(i).append("] AS ");
+            String formula =
+                "IIf([Measures].[Unit Sales] > " + i
+                + ", ([Measures].[Store Sales], [Time].[1997].[Q"
+                + (i % 4 + 1) + "]) / " + (i + 1)
+                + ", Sum({[Store].[USA].[CA], [Store].[USA].[WA]},"
+                + " [Measures].[Store Cost]))";
+            if (i % 10 == 0) {
+                buf.append('\'').append(formula).append('\'');
+            } else {
+                buf.append(formula);
+            }
+            buf.append(", FORMAT_STRING = '#,##0.00'\n");
+        }
+        buf.append("SELECT {");
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                buf.append(", ");
+            }
+            buf.append("[Measures].[Calc ").append(i).append(']');
+        }
+        buf.append("} ON COLUMNS,\n{");
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                buf.append(", ");
+            }
+            buf.append("[Product].[Drink].[Beverages].[Product ")
+                .append(i).append(']');
+        }
+        buf.append("} ON ROWS\nFROM [Sales]\n")
+            .append("WHERE ([Time].[1997], [Gender].[F])\n");
+        return buf.toString();
+    }
+
+    private static class NoFallback implements MdxParserValidator {
+        @Override
+        public QueryPart parseInternal(
+            Statement statement,
+            String queryString,
+            boolean debug,
+            FunTable funTable,
+            boolean strictValidation)
+        {
+            throw new IllegalStateException("Not converted: " + queryString);
+        }
+
+        @Override
+        public Exp parseExpression(
+            Statement statement,
+            String queryString,
+            boolean debug,
+            FunTable funTable)
+        {
+            throw new IllegalStateException("Not converted: " + queryString);
+        }
+    }
+
+    private static class NullFactory
+        implements MdxParserValidator.QueryPartFactory
+    {
+        @Override
+        public Query makeQuery(
+            Statement statement,
+            Formula[] formulae,
+            QueryAxis[] axes,
+            Subcube subcube,
+            Exp slicer,
+            QueryPart[] cellProps,
+            boolean strictValidation)
+        {
+            return null;
+        }
+
+        @Override
+        public DrillThrough makeDrillThrough(
+            Query query,
+            int maxRowCount,
+            int firstRowOrdinal,
+            List<Exp> returnList)
+        {
+            return null;
+        }
+
+        @Override
+        public CalculatedFormula makeCalculatedFormula(
+            String cubeName,
+            Formula e)
+        {
+            return null;
+        }
+
+        @Override
+        public Explain makeExplain(QueryPart query) {
+            return null;
+        }
+
+        @Override
+        public Refresh makeRefresh(String cubeName) {
+            return null;
+        }
+
+        @Override
+        public Update makeUpdate(
+            String cubeName,
+            List<Update.UpdateClause> list)
+        {
+            return null;
+        }
+
+        @Override
+        public DmvQuery makeDmvQuery(
+            String tableName,
+            List<String> columns,
+            Exp whereExpression)
+        {
+            return null;
+        }
+
+        @Override
+        public TransactionCommand makeTransactionCommand(
+            TransactionCommand.Command c)
+        {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   SmartCity Jena - initial
+ */
+package mondrian.rolap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class CatalogContentCacheTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testLocalFileIsReadAgainWhenItChanges() throws IOException {
+        final Path path = dir.resolve("catalog.xml");
+        Files.writeString(path, "<Schema name=\"A\"/>");
+        final String catalogUrl = path.toUri().toString();
+        final List<String> reads = new ArrayList<>();
+        final CatalogContentCache cache =
+            new CatalogContentCache(url -> {
+                reads.add(url);
+                return Files.readString(path);
+            });
+
+        final CatalogContentCache.Content content = cache.get(catalogUrl);
+        assertEquals("<Schema name=\"A\"/>", content.catalogStr);
+        assertSame(content, cache.get(catalogUrl));
+        assertEquals(1, reads.size());
+
+        // A change of size is detected even if the modification time has
+        // not moved on.
+        Files.writeString(path, "<Schema name=\"AB\"/>");
+        assertEquals("<Schema name=\"AB\"/>", cache.get(catalogUrl).catalogStr);
+        assertEquals(2, reads.size());
+
+        // Same size, different modification time.
+        Files.writeString(path, "<Schema name=\"BA\"/>");
+        Files.setLastModifiedTime(
+            path,
+            FileTime.fromMillis(
+                Files.getLastModifiedTime(path).toMillis() + 10_000));
+        assertEquals("<Schema name=\"BA\"/>", cache.get(catalogUrl).catalogStr);
+        assertEquals(3, reads.size());
+
+        cache.invalidate(catalogUrl);
+        cache.get(catalogUrl);
+        assertEquals(4, reads.size());
+    }
+
+    @Test
+    void testChecksumAndKey() throws IOException {
+        final Path path = dir.resolve("catalog.xml");
+        Files.writeString(path, "<Schema name=\"A\"/>");
+        final String catalogUrl = path.toUri().toString();
+        final CatalogContentCache cache =
+            new CatalogContentCache(url -> Files.readString(path));
+        final CatalogContentCache.Content content = cache.get(catalogUrl);
+        assertSame(content.getChecksum(), content.getChecksum());
+        // The key of a catalog that is read from its URL does not depend on
+        // its content.
+        Files.writeString(path, "<Schema name=\"AB\"/>");
+        assertEquals(
+            content.schemaContentKey,
+            cache.get(catalogUrl).schemaContentKey);
+    }
+
+    @Test
+    void testToLocalFile() {
+        final File file = new File("catalog.xml").getAbsoluteFile();
+        assertEquals(file, CatalogContentCache.toLocalFile("catalog.xml"));
+        assertEquals(
+            file, CatalogContentCache.toLocalFile("file:catalog.xml"));
+        assertEquals(
+            new File("/tmp/catalog.xml").getAbsoluteFile(),
+            CatalogContentCache.toLocalFile("file:///tmp/catalog.xml"));
+        assertNotNull(
+            CatalogContentCache.toLocalFile(
+                "file://localhost/tmp/catalog.xml"));
+        assertNull(
+            CatalogContentCache.toLocalFile("http://host/catalog.xml"));
+        assertNull(CatalogContentCache.toLocalFile("res:catalog.xml"));
+        assertNull(CatalogContentCache.toLocalFile("file:/tmp/a%20b.xml"));
+    }
+}
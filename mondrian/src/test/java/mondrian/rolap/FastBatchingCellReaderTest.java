@@ -13,6 +13,7 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertInstanceOf;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 import static org.opencube.junit5.TestUtil.assertQueriesReturnSimilarResults;
@@ -42,6 +43,7 @@ import org.opencube.junit5.dataloader.FastFoodmardDataLoader;
 import org.opencube.junit5.propupdator.AppandFoodMartCatalogAsFile;
 
 import mondrian.enums.DatabaseProduct;
+import mondrian.olap.CacheControl;
 import mondrian.olap.MondrianProperties;
 import mondrian.olap.MondrianServer;
 import mondrian.rolap.agg.AggregationKey;
@@ -570,6 +572,72 @@ class FastBatchingCellReaderTest extends BatchTestCase{
     assertFalse( aggregationBatch.canBatch( detailedBatch ) );
   }
 
+  /**
+   * Tests that a batch can be grouped with a summary batch that loads a subset of its measures, and that the summary
+   * batch then loads the measures of the detailed batch.
+   */
+  @ParameterizedTest
+  @ContextSource(propertyUpdater = AppandFoodMartCatalogAsFile.class, dataloader = FastFoodmardDataLoader.class)
+  void testCanBatchForSuperSetOfMeasures(TestingContext context) {
+    prepareContext(context);
+    final BatchLoader fbcr = createFbcr( null, salesCube );
+    Connection connection = context.createConnection();
+    BatchLoader.Batch aggregationBatch =
+        createBatch(connection, fbcr, new String[] { tableTime, tableProductClass, tableProductClass }, new String[] { fieldYear,
+          fieldProductFamily, fieldProductDepartment }, new String[][] { fieldValuesYear, fieldValuesProductFamily,
+            fieldValueProductDepartment }, cubeNameSales, measureUnitSales );
+
+    final RolapStar.Measure storeSales = getMeasure( connection, cubeNameSales, "[Measures].[Store Sales]" );
+    BatchLoader.Batch detailedBatch =
+        createBatch(connection, fbcr, new String[] { tableTime, tableProductClass, tableProductClass, tableCustomer },
+            new String[] { fieldYear, fieldProductFamily, fieldProductDepartment, fieldGender }, new String[][] {
+              fieldValuesYear, fieldValuesProductFamily, fieldValueProductDepartment, fieldValuesGender },
+            cubeNameSales, measureUnitSales ).withMeasures( Arrays.asList( storeSales ) );
+
+    assertTrue( detailedBatch.canBatch( aggregationBatch ) );
+    assertFalse( aggregationBatch.canBatch( detailedBatch ) );
+
+    // As done by CompositeBatch.load before loading the grouping sets. The
+    // grouped batch itself is not modified.
+    BatchLoader.Batch loadedBatch = aggregationBatch.withMeasures( detailedBatch.measuresList );
+    assertEquals( 2, loadedBatch.measuresList.size() );
+    assertTrue( loadedBatch.measuresList.contains( storeSales ) );
+    assertEquals( 1, aggregationBatch.measuresList.size() );
+    assertSame( detailedBatch, detailedBatch.withMeasures( loadedBatch.measuresList ) );
+
+    // A summary batch with a measure that the detailed batch does not load
+    // cannot be grouped with it.
+    BatchLoader.Batch storeCostBatch = aggregationBatch.withMeasures(
+        Arrays.asList( getMeasure( connection, cubeNameSales, "[Measures].[Store Cost]" ) ) );
+    assertFalse( detailedBatch.canBatch( storeCostBatch ) );
+  }
+
+  /**
+   * Tests that the execution counts the SQL statements that loaded cells.
+   */
+  @ParameterizedTest
+  @ContextSource(propertyUpdater = AppandFoodMartCatalogAsFile.class, dataloader = FastFoodmardDataLoader.class)
+  void testSqlQueryCount(TestingContext context) {
+    prepareContext(context);
+    final CacheControl cacheControl = connection.getCacheControl( null );
+    cacheControl.flush( cacheControl.createMeasuresRegion( salesCube ) );
+    final FastBatchingCellReader fbcr = new FastBatchingCellReader( e, salesCube, aggMgr );
+    fbcr.recordCellRequest(
+        createRequest( connection, cubeNameSales, measureUnitSales, tableCustomer, fieldGender, "M" ) );
+    fbcr.recordCellRequest(
+        createRequest( connection, cubeNameSales, measureUnitSales, tableTime, fieldYear, "1997" ) );
+    final List<String> sqls = new ArrayList<>();
+    RolapUtil.setHook( sqls::add );
+    try {
+      assertTrue( fbcr.loadAggregations() );
+    } finally {
+      RolapUtil.setHook( null );
+    }
+    final long cellSqlCount = sqls.stream().filter( sql -> sql.contains( "sum(" ) ).count();
+    assertTrue( cellSqlCount > 0, sqls::toString );
+    assertEquals( cellSqlCount, e.getSqlQueryCount() );
+  }
+
   @ParameterizedTest
   @ContextSource(propertyUpdater = AppandFoodMartCatalogAsFile.class, dataloader = FastFoodmardDataLoader.class)
   void testCanBatchForBatchWithConstraint(TestingContext context) {
@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   SmartCity Jena - initial
+ */
+package mondrian.rolap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import org.junit.jupiter.api.Test;
+
+class ParentChildIndexTest {
+
+    private static Object[] row(Object key, Object parent) {
+        return new Object[] {key, "name " + key, parent};
+    }
+
+    private static List<Object> keys(List<Object[]> rows) {
+        final List<Object> keys = new ArrayList<>();
+        for (Object[] row : rows) {
+            keys.add(row[0]);
+        }
+        return keys;
+    }
+
+    /**
+     * Builds an index of the tree
+     * <pre>
+     * 1
+     * +- 3
+     * |  +- 5
+     * |  +- 4
+     * +- 2
+     * 6
+     * +- 7
+     * </pre>
+     * with an orphan 9 and a cycle of 10 and 11.
+     */
+    private static ParentChildIndex index() {
+        final List<Object[]> rows = List.of(
+            row(1, 0),
+            row(3, 1),
+            row(5, 3),
+            row(6, 0),
+            row(2, 1),
+            row(4, 3),
+            row(7, 6),
+            row(9, 8),
+            row(10, 11),
+            row(11, 10));
+        return new ParentChildIndex(rows, 0, 2, v -> Objects.equals(v, 0));
+    }
+
+    @Test
+    void testRootsAndChildren() {
+        final ParentChildIndex index = index();
+        assertEquals(7, index.size());
+        assertEquals(List.of(1, 6), keys(index.getRootRows()));
+        // Children are in the order of the rows.
+        assertEquals(List.of(3, 2), keys(index.getChildRows(1)));
+        assertEquals(List.of(5, 4), keys(index.getChildRows(3)));
+        assertEquals(List.of(7), keys(index.getChildRows(6)));
+        assertEquals(List.of(), keys(index.getChildRows(5)));
+        // The orphan and the cycle are not reachable.
+        assertEquals(List.of(), keys(index.getChildRows(8)));
+        assertEquals(List.of(), keys(index.getChildRows(10)));
+        assertEquals("name 3", index.getChildRows(1).get(0)[1]);
+    }
+
+    @Test
+    void testDeepTree() {
+        // A chain deeper than the stack a recursive walk could use.
+        final int n = 100_000;
+        final List<Object[]> rows = new ArrayList<>(n);
+        for (int i = 1; i <= n; i++) {
+            rows.add(row(i, i - 1));
+        }
+        final ParentChildIndex index =
+            new ParentChildIndex(rows, 0, 2, v -> Objects.equals(v, 0));
+        assertEquals(n, index.size());
+        assertEquals(List.of(1), keys(index.getRootRows()));
+        assertEquals(List.of(n), keys(index.getChildRows(n - 1)));
+    }
+}
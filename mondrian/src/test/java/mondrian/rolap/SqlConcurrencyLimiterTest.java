@@ -0,0 +1,171 @@
+/*
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   SmartCity Jena - initial
+ */
+package mondrian.rolap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import mondrian.server.monitor.SqlStatementEvent.Purpose;
+
+class SqlConcurrencyLimiterTest {
+    private final List<String> grants =
+        Collections.synchronizedList(new ArrayList<>());
+    private final List<Thread> threads = new ArrayList<>();
+
+    /**
+     * Starts a thread that waits for a permit, records that it got one, and
+     * returns it at once; returns when the thread is waiting.
+     */
+    private void enqueue(
+        SqlConcurrencyLimiter limiter,
+        Purpose purpose,
+        Object session,
+        String name)
+        throws InterruptedException
+    {
+        final int queued = limiter.getQueued();
+        final Thread thread = new Thread(() -> {
+            try {
+                final SqlConcurrencyLimiter.Permit permit =
+                    limiter.acquire(purpose, session);
+                grants.add(name);
+                limiter.release(permit, -1);
+            } catch (InterruptedException e) {
+                grants.add(name + " interrupted");
+            }
+        });
+        thread.start();
+        threads.add(thread);
+        while (limiter.getQueued() == queued) {
+            Thread.sleep(1);
+        }
+    }
+
+    private void join() throws InterruptedException {
+        for (Thread thread : threads) {
+            thread.join(10_000);
+        }
+    }
+
+    @Test
+    void testLimit() throws InterruptedException {
+        final SqlConcurrencyLimiter limiter =
+            new SqlConcurrencyLimiter(() -> 2, () -> false);
+        final SqlConcurrencyLimiter.Permit p1 =
+            limiter.acquire(Purpose.TUPLES, null);
+        final SqlConcurrencyLimiter.Permit p2 =
+            limiter.acquire(Purpose.TUPLES, null);
+        assertEquals(2, limiter.getInFlight());
+        enqueue(limiter, Purpose.TUPLES, null, "t3");
+        assertEquals(1, limiter.getQueued());
+        assertEquals(List.of(), grants);
+        limiter.release(p1, 1000);
+        // Releasing twice has no effect.
+        limiter.release(p1, 1000);
+        join();
+        assertEquals(List.of("t3"), grants);
+        limiter.release(p2, 1000);
+        assertEquals(0, limiter.getInFlight());
+        assertEquals(0, limiter.getQueued());
+    }
+
+    @Test
+    void testLanesTakeTurns() throws InterruptedException {
+        final SqlConcurrencyLimiter limiter =
+            new SqlConcurrencyLimiter(() -> 4, () -> false);
+        // With no other lane waiting, drill-throughs may use the whole
+        // limit.
+        final List<SqlConcurrencyLimiter.Permit> permits = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            permits.add(limiter.acquire(Purpose.DRILL_THROUGH, null));
+        }
+        enqueue(limiter, Purpose.DRILL_THROUGH, null, "d1");
+        enqueue(limiter, Purpose.DRILL_THROUGH, null, "d2");
+        enqueue(limiter, Purpose.CELL_SEGMENT, null, "c1");
+        limiter.release(permits.get(0), -1);
+        join();
+        // The cell load arrived last, but drill-throughs hold more than half
+        // of the limit, so it goes first.
+        assertEquals(List.of("c1", "d1", "d2"), grants);
+    }
+
+    @Test
+    void testSessionsTakeTurns() throws InterruptedException {
+        final SqlConcurrencyLimiter limiter =
+            new SqlConcurrencyLimiter(() -> 1, () -> false);
+        final SqlConcurrencyLimiter.Permit permit =
+            limiter.acquire(Purpose.CELL_SEGMENT, "a");
+        enqueue(limiter, Purpose.CELL_SEGMENT, "a", "a1");
+        enqueue(limiter, Purpose.CELL_SEGMENT, "a", "a2");
+        enqueue(limiter, Purpose.CELL_SEGMENT, "a", "a3");
+        enqueue(limiter, Purpose.CELL_SEGMENT, "b", "b1");
+        enqueue(limiter, Purpose.CELL_SEGMENT, null, "n1");
+        limiter.release(permit, -1);
+        join();
+        assertEquals(List.of("a1", "b1", "n1", "a2", "a3"), grants);
+    }
+
+    @Test
+    void testInterrupt() throws InterruptedException {
+        final SqlConcurrencyLimiter limiter =
+            new SqlConcurrencyLimiter(() -> 1, () -> false);
+        final SqlConcurrencyLimiter.Permit permit =
+            limiter.acquire(Purpose.OTHER, null);
+        enqueue(limiter, Purpose.OTHER, null, "o1");
+        threads.get(0).interrupt();
+        join();
+        assertEquals(List.of("o1 interrupted"), grants);
+        assertEquals(0, limiter.getQueued());
+        limiter.release(permit, -1);
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    void testAdaptive() throws InterruptedException {
+        final SqlConcurrencyLimiter limiter =
+            new SqlConcurrencyLimiter(() -> 40, () -> true);
+        assertEquals(40, limiter.getLimit());
+        // Steady latency does not change the limit.
+        for (int i = 0; i < 100; i++) {
+            limiter.release(limiter.acquire(Purpose.TUPLES, null), 1_000_000);
+        }
+        assertEquals(40, limiter.getLimit());
+        // The database slows down.
+        for (int i = 0; i < 200; i++) {
+            limiter.release(
+                limiter.acquire(Purpose.TUPLES, null), 100_000_000);
+        }
+        final int shrunk = limiter.getLimit();
+        assertTrue(shrunk < 40, "limit " + shrunk);
+        assertTrue(shrunk >= SqlConcurrencyLimiter.MIN_LIMIT, "limit " + shrunk);
+
+        // The limit grows back while it is in use and latency is normal.
+        final List<SqlConcurrencyLimiter.Permit> permits = new ArrayList<>();
+        for (int round = 0; round < 500; round++) {
+            while (limiter.getInFlight() < limiter.getLimit()) {
+                permits.add(limiter.acquire(Purpose.TUPLES, null));
+            }
+            limiter.release(permits.remove(permits.size() - 1), 100_000_000);
+        }
+        assertTrue(limiter.getLimit() > shrunk, "limit " + limiter.getLimit());
+        for (SqlConcurrencyLimiter.Permit permit : permits) {
+            limiter.release(permit, -1);
+        }
+    }
+}
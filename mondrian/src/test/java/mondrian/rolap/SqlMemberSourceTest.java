@@ -12,6 +12,7 @@ package mondrian.rolap;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.when;
@@ -21,11 +22,14 @@ import java.sql.Connection;
 import java.sql.DatabaseMetaData;
 import java.sql.ResultSet;
 import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
 
 import javax.sql.DataSource;
 
 import org.eclipse.daanse.olap.api.model.Dimension;
 import org.eclipse.daanse.olap.api.model.Level;
+import org.eclipse.daanse.olap.api.model.Member;
 import org.eclipse.daanse.olap.rolap.dbmapper.model.api.Relation;
 import org.eclipse.daanse.olap.rolap.dbmapper.model.api.Table;
 import org.eclipse.daanse.olap.rolap.dbmapper.model.jaxb.LevelImpl;
@@ -37,8 +41,18 @@ import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.opencube.junit5.ContextSource;
 import org.opencube.junit5.SchemaUtil;
+import org.opencube.junit5.TestUtil;
+import org.opencube.junit5.context.TestingContext;
+import org.opencube.junit5.dataloader.FastFoodmardDataLoader;
+import org.opencube.junit5.propupdator.AppandFoodMartCatalogAsFile;
 
+import mondrian.olap.MondrianProperties;
+import mondrian.olap.SchemaReader;
+import mondrian.olap.Util;
+import mondrian.test.PropertySaver5;
 import mondrian.util.ByteString;
 
 class SqlMemberSourceTest {
@@ -85,6 +99,155 @@ class SqlMemberSourceTest {
     assertEquals( "select count(DISTINCT `store`.`store_city`, `store`.`store_state`, `store`.`store_country`) as `c0` from  as `store`", result );
   }
 
+  /**
+   * The children of parents in different levels are read with one statement
+   * per level, not one per parent.
+   */
+  @ParameterizedTest
+  @ContextSource(propertyUpdater = AppandFoodMartCatalogAsFile.class, dataloader = FastFoodmardDataLoader.class )
+  void testGetMemberChildrenOfParentsInDifferentLevels( TestingContext foodMartContext ) {
+    foodMartContext.createConnection().getCacheControl( null ).flushSchemaCache();
+    final org.eclipse.daanse.olap.api.Connection connection = foodMartContext.createConnection();
+    final SchemaReader schemaReader = connection.getSchemaReader().withLocus();
+    final List<Member> parents = new ArrayList<>();
+    for ( String name : new String[] {
+      "[Store].[USA].[CA]", "[Store].[Mexico]", "[Store].[USA].[OR]", "[Store].[USA].[WA]" } ) {
+      parents.add( schemaReader.getMemberByUniqueName( Util.parseIdentifier( name ), true ) );
+    }
+    final List<String> sqls = new ArrayList<>();
+    RolapUtil.setHook( sqls::add );
+    final List<Member> children;
+    try {
+      children = schemaReader.getMemberChildren( parents );
+    } finally {
+      RolapUtil.setHook( null );
+    }
+    // One statement for the children of Mexico, and one for the children of
+    // the three states.
+    assertEquals( 2, sqls.size(), sqls::toString );
+    // Children are in the order of their parents.
+    assertEquals( "[Store].[USA].[CA].[Alameda]", children.get( 0 ).getUniqueName() );
+    assertEquals( "[Store].[Mexico].[DF]", children.get( 5 ).getUniqueName() );
+    assertEquals( "[Store].[USA].[WA].[Yakima]", children.get( children.size() - 1 ).getUniqueName() );
+  }
+
+  /**
+   * If there are more parents than {@link MondrianProperties#MaxConstraints},
+   * their children are read in chunks.
+   */
+  @ParameterizedTest
+  @ContextSource(propertyUpdater = AppandFoodMartCatalogAsFile.class, dataloader = FastFoodmardDataLoader.class )
+  void testDrilldownLevelReadsChildrenInChunks( TestingContext foodMartContext ) {
+    final PropertySaver5 propSaver = new PropertySaver5();
+    propSaver.set( propSaver.properties.MaxConstraints, 2 );
+    try {
+      foodMartContext.createConnection().getCacheControl( null ).flushSchemaCache();
+      final org.eclipse.daanse.olap.api.Connection connection = foodMartContext.createConnection();
+      final List<String> sqls = new ArrayList<>();
+      RolapUtil.setHook( sqls::add );
+      try {
+        TestUtil.executeQuery(
+          connection,
+          "select DrilldownLevel({[Store].[USA].[CA], [Store].[USA].[OR], [Store].[USA].[WA]}) on 0\n"
+            + "from [Sales]" );
+      } finally {
+        RolapUtil.setHook( null );
+      }
+      // Children of CA and OR, then children of WA; rather than one
+      // statement per state, or one that reads all cities.
+      final long count =
+        sqls.stream().filter( sql -> sql.contains( "store_city" ) && !sql.contains( "sales_fact" ) ).count();
+      assertEquals( 2, count, sqls::toString );
+    } finally {
+      propSaver.reset();
+    }
+  }
+
+  /**
+   * With the parent-child index, the members of a parent-child hierarchy are
+   * read with one statement, and are the same as those read one parent at a
+   * time.
+   */
+  @ParameterizedTest
+  @ContextSource(propertyUpdater = AppandFoodMartCatalogAsFile.class, dataloader = FastFoodmardDataLoader.class )
+  void testParentChildIndex( TestingContext foodMartContext ) {
+    final String mdx =
+      "select {[Measures].[Number of Employees]} on 0,\n"
+        + " Descendants([Employees].[All Employees], 3, SELF_AND_BEFORE) on 1\n"
+        + "from [HR]";
+    foodMartContext.createConnection().getCacheControl( null ).flushSchemaCache();
+    final String expected =
+      TestUtil.toString( TestUtil.executeQuery( foodMartContext.createConnection(), mdx ) );
+
+    final PropertySaver5 propSaver = new PropertySaver5();
+    propSaver.set( propSaver.properties.EnableParentChildIndex, true );
+    try {
+      foodMartContext.createConnection().getCacheControl( null ).flushSchemaCache();
+      final org.eclipse.daanse.olap.api.Connection connection = foodMartContext.createConnection();
+      final List<String> sqls = new ArrayList<>();
+      RolapUtil.setHook( sqls::add );
+      final String actual;
+      try {
+        actual = TestUtil.toString( TestUtil.executeQuery( connection, mdx ) );
+      } finally {
+        RolapUtil.setHook( null );
+      }
+      assertEquals( expected, actual );
+      // Statements which read members, not cells from the "salary" table.
+      final long count =
+        sqls.stream().filter( sql -> sql.contains( "supervisor_id" ) && !sql.contains( "salary" ) ).count();
+      assertEquals( 1, count, sqls::toString );
+    } finally {
+      propSaver.reset();
+    }
+  }
+
+  /**
+   * Children read from the parent-child index are subject to the result
+   * limit, as if they were read by SQL; and flushing the member cache also
+   * discards the index.
+   */
+  @ParameterizedTest
+  @ContextSource(propertyUpdater = AppandFoodMartCatalogAsFile.class, dataloader = FastFoodmardDataLoader.class )
+  void testParentChildIndexLimitAndFlush( TestingContext foodMartContext ) {
+    final String mdx =
+      "select {[Measures].[Number of Employees]} on 0,\n"
+        + " [Employees].[Sheri Nowmer].Children on 1\n"
+        + "from [HR]";
+    final PropertySaver5 propSaver = new PropertySaver5();
+    propSaver.set( propSaver.properties.EnableParentChildIndex, true );
+    try {
+      foodMartContext.createConnection().getCacheControl( null ).flushSchemaCache();
+      propSaver.set( propSaver.properties.ResultLimit, 2 );
+      TestUtil.assertQueryThrows(
+        foodMartContext.createConnection(), mdx, "Number of members to be read exceeded limit (2)" );
+      propSaver.set( propSaver.properties.ResultLimit, 0 );
+
+      final org.eclipse.daanse.olap.api.Connection connection = foodMartContext.createConnection();
+      final String expected = TestUtil.toString( TestUtil.executeQuery( connection, mdx ) );
+      final List<String> sqls = new ArrayList<>();
+      RolapUtil.setHook( sqls::add );
+      final String actual;
+      try {
+        final SchemaReader schemaReader = connection.getSchemaReader().withLocus();
+        final Member sheri =
+          schemaReader.getMemberByUniqueName( Util.parseIdentifier( "[Employees].[Sheri Nowmer]" ), true );
+        connection.getCacheControl( null ).flush(
+          connection.getCacheControl( null ).createMemberSet( sheri, true ) );
+        actual = TestUtil.toString( TestUtil.executeQuery( connection, mdx ) );
+      } finally {
+        RolapUtil.setHook( null );
+      }
+      assertEquals( expected, actual );
+      // The index is read again.
+      assertTrue(
+        sqls.stream().anyMatch( sql -> sql.contains( "supervisor_id" ) && !sql.contains( "salary" ) ),
+        sqls::toString );
+    } finally {
+      propSaver.reset();
+    }
+  }
+
   private String runMakeLeveMemberCountSql( RolapLevel level, DataSource dataSource, boolean[] mustCount ) throws Exception {
     Method method = sqlMemberSource.getClass().getDeclaredMethod( "makeLevelMemberCountSql", RolapLevel.class, DataSource.class, boolean[].class );
     method.setAccessible( true );
@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   SmartCity Jena - initial
+ */
+package mondrian.rolap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.rowset.CachedRowSet;
+import javax.sql.rowset.RowSetProvider;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import mondrian.rolap.sql.ParameterizedSql;
+
+class SqlSingleFlightTest {
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final SqlSingleFlight singleFlight = new SqlSingleFlight(executor);
+    private final SqlSingleFlight.Key key =
+        new SqlSingleFlight.Key(
+            null, ParameterizedSql.of("select 1"), null, 0, 0);
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Returns a loader that counts its calls and returns rows once a latch
+     * is released.
+     */
+    private SqlSingleFlight.Loader loader(
+        CountDownLatch release,
+        CachedRowSet rows)
+    {
+        return flight -> {
+            loads.incrementAndGet();
+            release.await();
+            return rows;
+        };
+    }
+
+    private Future<CachedRowSet> join(
+        SqlSingleFlight.Loader loader,
+        Runnable checkCancel,
+        int waiters)
+        throws InterruptedException
+    {
+        final Future<CachedRowSet> future =
+            executor.submit(() -> singleFlight.await(key, loader, checkCancel));
+        while (singleFlight.getWaiters(key) < waiters) {
+            Thread.sleep(1);
+        }
+        return future;
+    }
+
+    @Test
+    void testConcurrentStatementsShareRows() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        final CachedRowSet rows =
+            RowSetProvider.newFactory().createCachedRowSet();
+        final SqlSingleFlight.Loader loader = loader(release, rows);
+        final List<Future<CachedRowSet>> futures = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            futures.add(join(loader, () -> { }, i + 1));
+        }
+        release.countDown();
+        for (Future<CachedRowSet> future : futures) {
+            assertSame(rows, future.get(10, TimeUnit.SECONDS));
+        }
+        assertEquals(1, loads.get());
+
+        // The flight has ended; the next statement loads again.
+        assertSame(rows, singleFlight.await(key, loader, () -> { }));
+        assertEquals(2, loads.get());
+        assertEquals(0, singleFlight.getWaiters(key));
+    }
+
+    @Test
+    void testErrorReachesEveryStatement() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        final SqlSingleFlight.Loader loader = flight -> {
+            loads.incrementAndGet();
+            release.await();
+            throw new IllegalStateException("database is down");
+        };
+        final Future<CachedRowSet> first = join(loader, () -> { }, 1);
+        final Future<CachedRowSet> second = join(loader, () -> { }, 2);
+        release.countDown();
+        for (Future<CachedRowSet> future : List.of(first, second)) {
+            final Exception e =
+                assertThrows(
+                    Exception.class, () -> future.get(10, TimeUnit.SECONDS));
+            assertTrue(
+                e.getCause() instanceof IllegalStateException, e.toString());
+        }
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void testLastStatementToLeaveCancelsFlight() throws Exception {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch canceled = new CountDownLatch(1);
+        final SqlSingleFlight.Loader loader = flight -> {
+            loads.incrementAndGet();
+            flight.setCanceller(canceled::countDown);
+            started.countDown();
+            canceled.await();
+            throw new SQLException("canceled");
+        };
+        final AtomicBoolean cancelFirst = new AtomicBoolean();
+        final AtomicBoolean cancelSecond = new AtomicBoolean();
+        final Future<CachedRowSet> first =
+            join(loader, () -> check(cancelFirst), 1);
+        final Future<CachedRowSet> second =
+            join(loader, () -> check(cancelSecond), 2);
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+
+        // One statement leaves; the flight runs on for the other.
+        cancelFirst.set(true);
+        assertThrows(Exception.class, () -> first.get(10, TimeUnit.SECONDS));
+        assertEquals(1, canceled.getCount());
+
+        // The last statement leaves; the flight is canceled.
+        cancelSecond.set(true);
+        assertThrows(Exception.class, () -> second.get(10, TimeUnit.SECONDS));
+        assertTrue(canceled.await(10, TimeUnit.SECONDS));
+        assertEquals(0, singleFlight.getWaiters(key));
+        assertEquals(1, loads.get());
+    }
+
+    private static void check(AtomicBoolean cancel) {
+        if (cancel.get()) {
+            throw new IllegalStateException("canceled");
+        }
+    }
+}
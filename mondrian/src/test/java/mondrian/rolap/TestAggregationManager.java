@@ -47,6 +47,7 @@ import org.opencube.junit5.propupdator.SchemaUpdater;
 import mondrian.enums.DatabaseProduct;
 import mondrian.olap.MondrianProperties;
 import mondrian.olap.Util;
+import mondrian.rolap.agg.AggregationCostModel;
 import mondrian.rolap.agg.AggregationManager;
 import mondrian.rolap.agg.CellRequest;
 import mondrian.rolap.agg.ValueColumnPredicate;
@@ -230,6 +231,129 @@ class TestAggregationManager extends BatchTestCase {
         assertRequestSql(connection, new CellRequest[]{request}, patterns);
     }
 
+    /**
+     * As {@link #testFemaleUnitSalesSql(TestingContext)}, but choosing the
+     * aggregate table by estimated cost. The collapsed gender column of
+     * "agg_g_ms_pcat_sales_fact_1997" avoids the join to "customer" that
+     * "agg_l_03_sales_fact_1997" and the fact table would need.
+     */
+    @ParameterizedTest
+    @ContextSource(propertyUpdater = AppandFoodMartCatalogAsFile.class, dataloader = FastFoodmardDataLoader.class)
+    void testChooseAggregateByCostSql(TestingContext context) {
+        prepareContext(context);
+        propSaver.set(propSaver.properties.UseAggregates, true);
+        propSaver.set(propSaver.properties.ReadAggregates, true);
+        propSaver.set(propSaver.properties.ChooseAggregateByCost, true);
+        Connection connection = context.createConnection();
+        flushSchemaCache(connection);
+        CellRequest request = createRequest(connection,
+            "Sales", "[Measures].[Unit Sales]", "customer", "gender", "F");
+
+        SqlPattern[] patterns = {
+            new SqlPattern(
+                ACCESS_MYSQL,
+                "select `agg_g_ms_pcat_sales_fact_1997`.`gender` as `c0`,"
+                + " sum(`agg_g_ms_pcat_sales_fact_1997`.`unit_sales`) as `m0` "
+                + "from `agg_g_ms_pcat_sales_fact_1997` as `agg_g_ms_pcat_sales_fact_1997` "
+                + "where `agg_g_ms_pcat_sales_fact_1997`.`gender` = 'F' "
+                + "group by `agg_g_ms_pcat_sales_fact_1997`.`gender`",
+                26)
+        };
+
+        assertRequestSql(connection, new CellRequest[]{request}, patterns);
+    }
+
+    /**
+     * Tests which FoodMart aggregate table is chosen by cost for the request
+     * of {@link #testChooseAggregateByCostSql(TestingContext)}, with its
+     * predicate on the gender. "agg_g_ms_pcat_sales_fact_1997" is chosen, as
+     * it has the gender column collapsed and applies the predicate without a
+     * join, and must be rolled up to the gender.
+     */
+    @ParameterizedTest
+    @ContextSource(propertyUpdater = AppandFoodMartCatalogAsFile.class, dataloader = FastFoodmardDataLoader.class)
+    void testChooseAggregateByCostTable(TestingContext context) {
+        prepareContext(context);
+        propSaver.set(propSaver.properties.UseAggregates, true);
+        propSaver.set(propSaver.properties.ReadAggregates, true);
+        propSaver.set(propSaver.properties.ChooseAggregateByCost, true);
+        Connection connection = context.createConnection();
+        flushSchemaCache(connection);
+        CellRequest request = createRequest(connection,
+            "Sales", "[Measures].[Unit Sales]", "customer", "gender", "F");
+        final RolapStar star = request.getMeasure().getStar();
+        final BitKey measureBitKey =
+            BitKey.Factory.makeBitKey(star.getColumnCount());
+        measureBitKey.set(request.getMeasure().getBitPosition());
+        final StarColumnPredicate[] predicates =
+            new StarColumnPredicate[request.getNumValues()];
+        for (int i = 0; i < predicates.length; i++) {
+            predicates[i] = request.getValueAt(i);
+        }
+
+        final boolean[] rollup = {false};
+        final AggStar aggStar =
+            AggregationManager.findAgg(
+                star,
+                request.getConstrainedColumnsBitKey(),
+                measureBitKey,
+                rollup,
+                AggregationCostModel.indexPredicates(
+                    star, request.getConstrainedColumns(), predicates));
+        assertEquals(
+            "agg_g_ms_pcat_sales_fact_1997",
+            aggStar.getFactTable().getName());
+        assertTrue(rollup[0]);
+    }
+
+    /**
+     * Tests that choosing aggregate tables by cost returns the same results
+     * as choosing the first suitable aggregate table, for queries at several
+     * granularities and with several kinds of predicates.
+     */
+    @ParameterizedTest
+    @ContextSource(propertyUpdater = AppandFoodMartCatalogAsFile.class, dataloader = FastFoodmardDataLoader.class)
+    void testChooseAggregateByCostResults(TestingContext context) {
+        prepareContext(context);
+        propSaver.set(propSaver.properties.UseAggregates, true);
+        propSaver.set(propSaver.properties.ReadAggregates, true);
+        final String[] queries = {
+            "select {[Measures].[Unit Sales], [Measures].[Store Sales]}"
+            + " on columns,\n"
+            + " [Time].[1997].Children on rows\n"
+            + "from [Sales]",
+            "select {[Measures].[Unit Sales]} on columns,\n"
+            + " [Product].[Food].Children on rows\n"
+            + "from [Sales]\n"
+            + "where [Customers].[USA].[CA]",
+            "select {[Measures].[Customer Count]} on columns,\n"
+            + " {[Gender].[F], [Gender].[M]} on rows\n"
+            + "from [Sales]\n"
+            + "where [Time].[1997].[Q1].[1]",
+            "select {[Measures].[Store Cost]} on columns,\n"
+            + " [Store].[USA].Children * [Promotion Media].Children on rows\n"
+            + "from [Sales]",
+        };
+        final List<String> expected = new ArrayList<>();
+        Connection connection = context.createConnection();
+        flushSchemaCache(connection);
+        for (String query : queries) {
+            expected.add(
+                TestUtil.toString(TestUtil.executeQuery(connection, query)));
+        }
+
+        propSaver.set(propSaver.properties.ChooseAggregateByCost, true);
+        connection = context.createConnection();
+        flushSchemaCache(connection);
+        for (int i = 0; i < queries.length; i++) {
+            assertEquals(
+                expected.get(i),
+                TestUtil.toString(
+                    TestUtil.executeQuery(connection, queries[i])),
+                queries[i]);
+        }
+    }
+
     /**
      * As {@link #testFemaleUnitSalesSql()}, but with aggregate tables switched
      * on.
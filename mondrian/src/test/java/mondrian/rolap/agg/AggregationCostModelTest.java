@@ -0,0 +1,267 @@
+/*
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   SmartCity Jena - initial
+ */
+package mondrian.rolap.agg;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+import mondrian.olap.MondrianProperties;
+import mondrian.rolap.BitKey;
+import mondrian.rolap.RolapStar;
+import mondrian.rolap.RolapStatisticsCache;
+import mondrian.rolap.StarColumnPredicate;
+import mondrian.rolap.aggmatcher.AggStar;
+
+class AggregationCostModelTest {
+
+    private static final double DELTA = 1e-9;
+
+    @Test
+    void testSelectivity() {
+        final RolapStar.Column column = mock(RolapStar.Column.class);
+        assertEquals(
+            1d, AggregationCostModel.selectivity(null, 10), DELTA);
+        assertEquals(
+            1d,
+            AggregationCostModel.selectivity(LiteralStarPredicate.TRUE, 10),
+            DELTA);
+        assertEquals(
+            0d,
+            AggregationCostModel.selectivity(LiteralStarPredicate.FALSE, 10),
+            DELTA);
+
+        final ValueColumnPredicate a = new ValueColumnPredicate(column, "a");
+        final ValueColumnPredicate b = new ValueColumnPredicate(column, "b");
+        assertEquals(0.1d, AggregationCostModel.selectivity(a, 10), DELTA);
+        assertEquals(
+            0.2d,
+            AggregationCostModel.selectivity(
+                new ListColumnPredicate(
+                    column, Arrays.<StarColumnPredicate>asList(a, b)),
+                10),
+            DELTA);
+
+        // Cardinality is not known.
+        assertEquals(
+            AggregationCostModel.DEFAULT_SELECTIVITY,
+            AggregationCostModel.selectivity(a, -1),
+            DELTA);
+
+        // A list of more values than the cardinality reads all rows.
+        assertEquals(
+            1d,
+            AggregationCostModel.selectivity(
+                new ListColumnPredicate(
+                    column, Arrays.<StarColumnPredicate>asList(a, b)),
+                1),
+            DELTA);
+    }
+
+    @Test
+    void testCost() {
+        assertEquals(
+            100d, AggregationCostModel.cost(100, 1d, 0, false), DELTA);
+        assertEquals(
+            10d * (1d + AggregationCostModel.ROLLUP_COST),
+            AggregationCostModel.cost(100, 0.1d, 0, true),
+            DELTA);
+        assertEquals(
+            100d * (1d + 2 * AggregationCostModel.JOIN_COST),
+            AggregationCostModel.cost(100, 1d, 2, false),
+            DELTA);
+        assertEquals(
+            Double.MAX_VALUE,
+            AggregationCostModel.cost(-1, 1d, 0, false),
+            DELTA);
+    }
+
+    /**
+     * A larger table whose predicates can be applied locally is cheaper than
+     * a smaller table that must be joined to a dimension table to apply them.
+     */
+    @Test
+    void testLocalPredicateBeatsSmallerTable() {
+        final double collapsed =
+            AggregationCostModel.cost(80_000, 1d / 50, 0, true);
+        final double joined =
+            AggregationCostModel.cost(20_000, 1d, 1, true);
+        assertTrue(collapsed < joined);
+    }
+
+    /**
+     * Without a predicate, the smaller aggregate table is chosen, although
+     * it must be joined to the dimension table of the city column. With a
+     * predicate on the city, the larger aggregate table into which the city
+     * is collapsed is chosen, because it applies the predicate without a
+     * join.
+     */
+    @Test
+    void testPredicateChangesChoice() {
+        final RolapStar.Column city = city();
+        final AggStar joined = aggStar(20_000, false);
+        final AggStar collapsed = aggStar(80_000, true);
+        final RolapStar star = star(city, 1_000_000L, joined, collapsed);
+        final StarColumnPredicate[] predicates = {
+            new ValueColumnPredicate(city, "San Francisco")
+        };
+
+        final boolean[] rollup = {false};
+        assertSame(joined, findAggByCost(star, rollup, null));
+        assertSame(collapsed, findAggByCost(star, rollup, predicates));
+        assertTrue(rollup[0]);
+    }
+
+    /**
+     * Of aggregate tables of equal cost, the first, which is the smallest,
+     * is chosen. If no row count is known, all costs are equal, and the
+     * first aggregate table is chosen rather than the fact table or the
+     * largest aggregate table.
+     */
+    @Test
+    void testTieKeepsFirstAggregate() {
+        final AggStar first = aggStar(20_000, true);
+        final AggStar second = aggStar(20_000, true);
+        assertSame(
+            first,
+            findAggByCost(
+                star(city(), 1_000_000L, first, second),
+                new boolean[1],
+                null));
+
+        final AggStar unknown1 = aggStar(-1, true);
+        final AggStar unknown2 = aggStar(-1, true);
+        assertSame(
+            unknown1,
+            findAggByCost(
+                star(city(), -1, unknown1, unknown2),
+                new boolean[1],
+                null));
+    }
+
+    /**
+     * The cardinality of a column is only looked up, which may cost a query,
+     * if there is a predicate on the column whose values can be counted.
+     */
+    @Test
+    void testCardinalityOnlyOfConstrainedColumns() {
+        final RolapStar.Column city = city();
+        final RolapStar star =
+            star(city, 1_000_000L, aggStar(20_000, true));
+        final BitKey levelBitKey = levelBitKey();
+
+        new AggregationCostModel(star, levelBitKey, null).factCost();
+        new AggregationCostModel(
+            star, levelBitKey, new StarColumnPredicate[] {null})
+            .aggCost(star.getAggStars().get(0), true);
+        new AggregationCostModel(
+            star, levelBitKey,
+            new StarColumnPredicate[] {LiteralStarPredicate.TRUE})
+            .aggCost(star.getAggStars().get(0), true);
+        verify(city, never()).getCardinality();
+
+        new AggregationCostModel(
+            star, levelBitKey,
+            new StarColumnPredicate[] {
+                new ValueColumnPredicate(city, "San Francisco")
+            })
+            .aggCost(star.getAggStars().get(0), true);
+        verify(city).getCardinality();
+    }
+
+    private static AggStar findAggByCost(
+        RolapStar star,
+        boolean[] rollup,
+        StarColumnPredicate[] predicates)
+    {
+        final MondrianProperties properties = MondrianProperties.instance();
+        final boolean chooseByCost = properties.ChooseAggregateByCost.get();
+        properties.ChooseAggregateByCost.set(true);
+        try {
+            return AggregationManager.findAgg(
+                star, levelBitKey(), BitKey.Factory.makeBitKey(1), rollup,
+                predicates);
+        } finally {
+            properties.ChooseAggregateByCost.set(chooseByCost);
+        }
+    }
+
+    private static BitKey levelBitKey() {
+        final BitKey levelBitKey = BitKey.Factory.makeBitKey(1);
+        levelBitKey.set(0);
+        return levelBitKey;
+    }
+
+    /**
+     * Creates a city column of cardinality 50 in a dimension table.
+     */
+    private static RolapStar.Column city() {
+        final RolapStar.Column city = mock(RolapStar.Column.class);
+        when(city.getBitPosition()).thenReturn(0);
+        when(city.getTable()).thenReturn(mock(RolapStar.Table.class));
+        when(city.getCardinality()).thenReturn(50L);
+        return city;
+    }
+
+    /**
+     * Creates a star with the city column and some aggregate tables, whose
+     * fact table has the given number of rows.
+     */
+    private static RolapStar star(
+        RolapStar.Column city,
+        long factRowCount,
+        AggStar... aggStars)
+    {
+        final RolapStatisticsCache statisticsCache =
+            mock(RolapStatisticsCache.class);
+        when(statisticsCache.getRelationCardinality(any(), any(), anyLong()))
+            .thenReturn(factRowCount);
+        final RolapStar star = mock(RolapStar.class);
+        when(star.getColumnCount()).thenReturn(1);
+        when(star.getColumn(0)).thenReturn(city);
+        when(star.getFactTable()).thenReturn(mock(RolapStar.Table.class));
+        when(star.getStatisticsCache()).thenReturn(statisticsCache);
+        when(star.getAggStars()).thenReturn(Arrays.asList(aggStars));
+        return star;
+    }
+
+    /**
+     * Creates an aggregate table that can answer any request at the city
+     * level, and that has the city column either in its fact table or in a
+     * dimension table.
+     */
+    private static AggStar aggStar(long rowCount, boolean cityCollapsed) {
+        final AggStar aggStar = mock(AggStar.class);
+        final AggStar.FactTable aggFactTable = mock(AggStar.FactTable.class);
+        when(aggFactTable.getNumberOfRows()).thenReturn(rowCount);
+        final AggStar.Table.Column column = mock(AggStar.Table.Column.class);
+        when(column.getTable()).thenReturn(
+            cityCollapsed ? aggFactTable : mock(AggStar.Table.class));
+        when(aggStar.getFactTable()).thenReturn(aggFactTable);
+        when(aggStar.lookupColumn(0)).thenReturn(column);
+        when(aggStar.superSetMatch(any())).thenReturn(true);
+        when(aggStar.getDistinctMeasureBitKey())
+            .thenReturn(BitKey.Factory.makeBitKey(1));
+        return aggStar;
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   SmartCity Jena - initial
+ */
+package mondrian.rolap.agg;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+class CellBatchSizerTest {
+
+    @Test
+    void testDisabled() {
+        final CellBatchSizer sizer = new CellBatchSizer(0);
+        assertEquals(CellBatchSizer.MAX_LIMIT, sizer.getCellRequestLimit());
+        sizer.recordLoad(5000, TimeUnit.SECONDS.toNanos(10));
+        assertEquals(CellBatchSizer.MAX_LIMIT, sizer.getCellRequestLimit());
+    }
+
+    @Test
+    void testInitialLimit() {
+        final CellBatchSizer sizer = new CellBatchSizer(1000);
+        assertEquals(CellBatchSizer.MAX_LIMIT, sizer.getCellRequestLimit());
+
+        // Too few cells to learn from.
+        sizer.recordLoad(
+            CellBatchSizer.MIN_OBSERVED_CELLS - 1,
+            TimeUnit.SECONDS.toNanos(10));
+        assertEquals(CellBatchSizer.MAX_LIMIT, sizer.getCellRequestLimit());
+    }
+
+    @Test
+    void testSlowLoadsShrinkLimit() {
+        final CellBatchSizer sizer = new CellBatchSizer(1000);
+        // 5 cells per millisecond; 5,000 cells fit in the target.
+        sizer.recordLoad(10000, TimeUnit.SECONDS.toNanos(2));
+        assertEquals(5000, sizer.getCellRequestLimit());
+
+        // Very slow; bounded below.
+        final CellBatchSizer slow = new CellBatchSizer(1000);
+        slow.recordLoad(100, TimeUnit.SECONDS.toNanos(100));
+        assertEquals(CellBatchSizer.MIN_LIMIT, slow.getCellRequestLimit());
+    }
+
+    @Test
+    void testFastLoadsGrowLimit() {
+        final CellBatchSizer sizer = new CellBatchSizer(1000);
+        sizer.recordLoad(10000, TimeUnit.SECONDS.toNanos(2));
+        final int before = sizer.getCellRequestLimit();
+        for (int i = 0; i < 50; i++) {
+            sizer.recordLoad(10000, TimeUnit.MILLISECONDS.toNanos(10));
+        }
+        assertTrue(sizer.getCellRequestLimit() > before);
+        assertEquals(CellBatchSizer.MAX_LIMIT, sizer.getCellRequestLimit());
+    }
+
+    @Test
+    void testMovingAverage() {
+        final CellBatchSizer sizer = new CellBatchSizer(1000);
+        sizer.recordLoad(10000, TimeUnit.SECONDS.toNanos(2));
+        sizer.recordLoad(10000, TimeUnit.SECONDS.toNanos(1));
+        // 0.25 * 10 + 0.75 * 5 = 6.25 cells per millisecond
+        assertEquals(6250, sizer.getCellRequestLimit());
+    }
+}
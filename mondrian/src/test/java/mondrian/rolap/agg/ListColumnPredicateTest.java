@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   SmartCity Jena - initial
+ */
+package mondrian.rolap.agg;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.daanse.db.dialect.api.Datatype;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import mondrian.rolap.RolapStar;
+import mondrian.rolap.RolapUtil;
+import mondrian.rolap.StarColumnPredicate;
+import mondrian.rolap.sql.SqlQuery;
+import mondrian.test.PropertySaver5;
+
+class ListColumnPredicateTest {
+
+    private PropertySaver5 propSaver;
+    private RolapStar.Column column;
+    private SqlQuery sqlQuery;
+
+    @BeforeEach
+    void beforeEach() {
+        propSaver = new PropertySaver5();
+        column = mock(RolapStar.Column.class);
+        when(column.getDatatype()).thenReturn(Datatype.INTEGER);
+        sqlQuery = mock(SqlQuery.class);
+        doAnswer(invocation -> {
+            StringBuilder buf = invocation.getArgument(0);
+            buf.append(invocation.getArgument(1).toString());
+            return null;
+        }).when(sqlQuery).quote(any(), any(), any());
+        when(column.generateExprString(sqlQuery)).thenReturn("x");
+    }
+
+    @AfterEach
+    void afterEach() {
+        propSaver.reset();
+    }
+
+    private ListColumnPredicate list(Object... values) {
+        final List<StarColumnPredicate> list = new ArrayList<>();
+        for (Object value : values) {
+            list.add(new ValueColumnPredicate(column, value));
+        }
+        return new ListColumnPredicate(column, list);
+    }
+
+    private String toSql(StarColumnPredicate predicate) {
+        final StringBuilder buf = new StringBuilder();
+        predicate.toSql(sqlQuery, buf);
+        return buf.toString();
+    }
+
+    @Test
+    void testRangeTermCount() {
+        assertEquals(3, list(1, 2, 3, 4, 5, 9, 11).getRangeTermCount());
+        assertEquals(2, list(2, 1).getRangeTermCount());
+        // Not integers
+        assertEquals(4, list("1", "2", "3", "4").getRangeTermCount());
+        assertEquals(4, list(1.5d, 2.5d, 3.5d, 4.5d).getRangeTermCount());
+    }
+
+    @Test
+    void testShortListIsNotRewritten() {
+        propSaver.set(propSaver.properties.MaxConstraints, 1000);
+        assertEquals("x in (1, 2, 3, 4)", toSql(list(1, 2, 3, 4)));
+    }
+
+    @Test
+    void testLongListWrittenAsRanges() {
+        propSaver.set(propSaver.properties.MaxConstraints, 5);
+        assertEquals(
+            "(x between 1 and 5 or x between 20 and 22 or x in (9, 11))",
+            toSql(list(22, 1, 2, 3, 4, 5, 9, 11, 20, 21)));
+        assertEquals(
+            "(x between 1 and 6 or x is null)",
+            toSql(list(1, 2, 3, 4, 5, 6, RolapUtil.sqlNullValue)));
+    }
+
+    @Test
+    void testLongListWithoutRunsIsNotRewritten() {
+        propSaver.set(propSaver.properties.MaxConstraints, 2);
+        assertEquals("x in (1, 3, 5)", toSql(list(1, 3, 5)));
+    }
+
+    /**
+     * On a NUMERIC column, "x between 1 and 2" would also match 1.5, so the
+     * list must not be written as ranges, even if its values are integers.
+     */
+    @Test
+    void testNumericListIsNotRewritten() {
+        propSaver.set(propSaver.properties.MaxConstraints, 2);
+        when(column.getDatatype()).thenReturn(Datatype.NUMERIC);
+        final ListColumnPredicate list = list(
+            new BigDecimal(1), new BigDecimal(2), new BigDecimal(3),
+            new BigDecimal(4), new BigDecimal(5));
+        assertEquals(5, list.getRangeTermCount());
+        assertEquals("x in (1, 2, 3, 4, 5)", toSql(list));
+    }
+
+    /**
+     * Each value is quoted once, as a query with bind parameters keeps the
+     * value of every placeholder that is quoted.
+     */
+    @Test
+    void testListWithNullQuotesEachValueOnce() {
+        propSaver.set(propSaver.properties.MaxConstraints, 1000);
+        assertEquals(
+            "(x = 1 or x is null)",
+            toSql(list(1, RolapUtil.sqlNullValue)));
+        verify(sqlQuery, times(1)).quote(any(), any(), any());
+        assertEquals(
+            "(x in (1, 2) or x is null)",
+            toSql(list(1, RolapUtil.sqlNullValue, 2)));
+        verify(sqlQuery, times(3)).quote(any(), any(), any());
+        assertEquals(
+            "x is null",
+            toSql(list(RolapUtil.sqlNullValue, RolapUtil.sqlNullValue)));
+        verify(sqlQuery, times(3)).quote(any(), any(), any());
+    }
+}
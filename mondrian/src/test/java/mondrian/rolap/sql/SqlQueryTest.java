@@ -14,6 +14,9 @@ import static mondrian.enums.DatabaseProduct.MYSQL;
 import static mondrian.enums.DatabaseProduct.POSTGRES;
 import static mondrian.enums.DatabaseProduct.getDatabaseProduct;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.when;
 import static org.opencube.junit5.TestUtil.assertQueryReturns;
@@ -23,14 +26,18 @@ import static org.opencube.junit5.TestUtil.withSchema;
 
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
+import org.eclipse.daanse.db.dialect.api.Datatype;
 import org.eclipse.daanse.db.dialect.api.Dialect;
 import org.eclipse.daanse.db.dialect.db.common.JdbcDialectImpl;
 import org.eclipse.daanse.olap.api.Connection;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.opencube.junit5.ContextSource;
 import org.opencube.junit5.SchemaUtil;
@@ -44,6 +51,7 @@ import org.opencube.junit5.propupdator.SchemaUpdater;
 import mondrian.enums.DatabaseProduct;
 import mondrian.olap.MondrianProperties;
 import mondrian.rolap.BatchTestCase;
+import mondrian.rolap.RolapUtil;
 import mondrian.test.PropertySaver5;
 import mondrian.test.SqlPattern;
 
@@ -891,6 +899,179 @@ class SqlQueryTest  extends BatchTestCase {
         assertQuerySql(context.createConnection(), mdx, new SqlPattern[]{mySqlPattern});
     }
 
+    @Test
+    void testQuoteWithBindParameters() {
+        final SqlQuery query =
+            new SqlQuery(new JdbcDialectImplForTest(), false);
+        final StringBuilder buf = new StringBuilder("x = ");
+        query.quote(buf, "it's", Datatype.STRING);
+        assertEquals("x = 'it''s'", buf.toString());
+
+        query.setBindParameters(true);
+        buf.setLength(0);
+        buf.append("x = ");
+        query.quote(buf, "it's", Datatype.STRING);
+        buf.append(" and y in (");
+        query.quote(buf, 1997, Datatype.INTEGER);
+        buf.append(", ");
+        query.quote(buf, null, Datatype.INTEGER);
+        buf.append(") and z = ");
+        // The default dialect does not bind dates.
+        query.quote(buf, "1997-01-01", Datatype.DATE);
+
+        assertEquals(
+            "x = ? and y in (?, null) and z = DATE '1997-01-01'",
+            buf.toString());
+        query.addSelect("c1", null);
+        query.addFromTable("s", "t1", "t1alias", null, null, true);
+        query.addWhere(buf.toString());
+
+        final ParameterizedSql parameterizedSql = query.toParameterizedSql();
+        assertEquals(
+            "select c1 as c0 from s.t1 as t1alias "
+            + "where x = ? and y in (?, null) and z = DATE '1997-01-01'",
+            parameterizedSql.getSql());
+        assertEquals(
+            Arrays.asList(
+                new ParameterizedSql.Parameter(
+                    "it's", Datatype.STRING, "'it''s'"),
+                new ParameterizedSql.Parameter(
+                    1997, Datatype.INTEGER, "1997")),
+            parameterizedSql.getParameters());
+        // Other consumers of the SQL see literals.
+        assertEquals(
+            "select c1 as c0 from s.t1 as t1alias "
+            + "where x = 'it''s' and y in (1997, null) "
+            + "and z = DATE '1997-01-01'",
+            query.toString());
+        assertEquals(query.toString(), parameterizedSql.toString());
+
+        // Malformed values fail as they do when quoted as literals.
+        assertThrows(
+            NumberFormatException.class,
+            () -> query.quote(new StringBuilder(), "x", Datatype.DATE));
+    }
+
+    @Test
+    void testBindParametersStayWithTheirClause() {
+        final SqlQuery query =
+            new SqlQuery(new JdbcDialectImplForTest(), false);
+        query.setBindParameters(true);
+        query.addSelect("c1", null);
+        query.addFromTable("s", "t1", "t1alias", null, null, true);
+        final StringBuilder buf = new StringBuilder("x = ");
+        query.quote(buf, "a", Datatype.STRING);
+        query.addWhere(buf.toString());
+        // Same text, different value: not a duplicate.
+        buf.setLength(0);
+        buf.append("x = ");
+        query.quote(buf, "b", Datatype.STRING);
+        query.addWhere(buf.toString());
+        // Same text and value: a duplicate.
+        buf.setLength(0);
+        buf.append("x = ");
+        query.quote(buf, "a", Datatype.STRING);
+        query.addWhere(buf.toString());
+        buf.setLength(0);
+        buf.append("y = '?' and z = ");
+        query.quote(buf, 3, Datatype.INTEGER);
+        query.addHaving(buf.toString());
+
+        final SqlQuery outer = query.cloneEmpty();
+        outer.addSelect("d", null);
+        outer.addFrom(query, "q", true);
+        buf.setLength(0);
+        buf.append("d > ");
+        outer.quote(buf, 4, Datatype.INTEGER);
+        outer.addWhere(buf.toString());
+
+        final ParameterizedSql parameterizedSql = outer.toParameterizedSql();
+        assertEquals(
+            "select d as c0 from (select c1 as c0 "
+            + "from s.t1 as t1alias "
+            + "where x = ? and x = ? having y = '?' and z = ?) as q "
+            + "where d > ?",
+            parameterizedSql.getSql());
+        assertEquals(
+            "['a', 'b', 3, 4]",
+            parameterizedSql.getParameters().toString());
+        assertEquals(
+            "select d as c0 from (select c1 as c0 "
+            + "from s.t1 as t1alias "
+            + "where x = 'a' and x = 'b' having y = '?' and z = 3) as q "
+            + "where d > 4",
+            outer.toString());
+    }
+
+    @Test
+    void testBindParameterNotAddedToQuery() {
+        final SqlQuery query =
+            new SqlQuery(new JdbcDialectImplForTest(), false);
+        query.setBindParameters(true);
+        query.addSelect("c1", null);
+        query.quote(new StringBuilder(), "a", Datatype.STRING);
+        assertThrows(RuntimeException.class, query::toParameterizedSql);
+        assertThrows(
+            RuntimeException.class,
+            () -> query.addWhere("x = ? and y = ?"));
+    }
+
+    @Test
+    void testAddRowLimitWithOffset() {
+        // The default dialect cannot skip rows in SQL.
+        assertFalse(
+            new SqlQuery(new JdbcDialectImplForTest(), false)
+                .addRowLimit(10, 30));
+
+        final Dialect dialect = spy(new JdbcDialectImplForTest());
+        when(dialect.supportsLimitOffset()).thenReturn(true);
+        final SqlQuery query = new SqlQuery(dialect, false);
+        query.addSelect("c1", null);
+        query.addFromTable("s", "t1", "t1alias", null, null, true);
+        assertTrue(query.addRowLimit(10, 30));
+        // Rows 11 to 30.
+        final String sql = query.toString();
+        assertTrue(sql.endsWith(" LIMIT 20 OFFSET 10"), sql);
+    }
+
+    @ParameterizedTest
+    @ContextSource(propertyUpdater = AppandFoodMartCatalogAsFile.class, dataloader = FastFoodmardDataLoader.class)
+    void testGenerateParameterizedSql(TestingContext context) {
+        propSaver.set(propSaver.properties.GenerateParameterizedSql, true);
+        final Connection connection = context.createConnection();
+        connection.getCacheControl(null).flushSchemaCache();
+        final List<String> sqls = new ArrayList<>();
+        RolapUtil.setHook(sqls::add);
+        try {
+            assertQueryReturns(
+                connection,
+                "select {[Measures].[Unit Sales]} on 0,\n"
+                + " {[Store].[USA].[CA].children} on 1\n"
+                + "from [Sales]\n"
+                + "where [Time].[1997]",
+                "Axis #0:\n"
+                + "{[Time].[1997]}\n"
+                + "Axis #1:\n"
+                + "{[Measures].[Unit Sales]}\n"
+                + "Axis #2:\n"
+                + "{[Store].[USA].[CA].[Alameda]}\n"
+                + "{[Store].[USA].[CA].[Beverly Hills]}\n"
+                + "{[Store].[USA].[CA].[Los Angeles]}\n"
+                + "{[Store].[USA].[CA].[San Diego]}\n"
+                + "{[Store].[USA].[CA].[San Francisco]}\n"
+                + "Row #0: \n"
+                + "Row #1: 21,333\n"
+                + "Row #2: 25,663\n"
+                + "Row #3: 25,635\n"
+                + "Row #4: 2,117\n");
+        } finally {
+            RolapUtil.setHook(null);
+        }
+        assertTrue(
+            sqls.stream().anyMatch(sql -> sql.contains("= ?")),
+            sqls::toString);
+    }
+
     private boolean isGroupingSetsSupported(Connection connection) {
         return MondrianProperties.instance().EnableGroupingSets.get()
                 && getDialect(connection).supportsGroupingSets();
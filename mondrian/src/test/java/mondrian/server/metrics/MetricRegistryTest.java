@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   SmartCity Jena - initial
+ */
+package mondrian.server.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.jupiter.api.Test;
+
+import mondrian.util.CountingExecutorService;
+
+/**
+ * Test case for {@link MetricRegistry} and the OpenMetrics text it writes.
+ */
+class MetricRegistryTest {
+
+    @Test
+    void testCounterAndGauge() {
+        MetricRegistry registry = new MetricRegistry();
+        Counter counter = registry.counter("test_requests", "Requests");
+        counter.inc();
+        counter.add(4);
+        counter.add(-3);
+        registry.gauge("test_size", "Size", () -> 2.5);
+
+        assertEquals(
+            "# TYPE test_requests counter\n"
+            + "# HELP test_requests Requests\n"
+            + "test_requests_total 5\n"
+            + "# TYPE test_size gauge\n"
+            + "# HELP test_size Size\n"
+            + "test_size 2.5\n"
+            + "# EOF\n",
+            registry.toString());
+    }
+
+    @Test
+    void testHistogram() {
+        MetricRegistry registry = new MetricRegistry();
+        Histogram histogram =
+            registry.histogram("test_latency", "Latency", new double[] {1, .1});
+        histogram.observe(.05);
+        histogram.observe(.1);
+        histogram.observe(.5);
+        histogram.observe(3);
+
+        assertEquals(4, histogram.getCount());
+        assertEquals(3.65, histogram.getSum(), 1e-9);
+        assertEquals(
+            "# TYPE test_latency histogram\n"
+            + "# HELP test_latency Latency\n"
+            + "test_latency_bucket{le=\"0.1\"} 2\n"
+            + "test_latency_bucket{le=\"1\"} 3\n"
+            + "test_latency_bucket{le=\"+Inf\"} 4\n"
+            + "test_latency_count 4\n"
+            + "test_latency_sum 3.65\n"
+            + "# EOF\n",
+            registry.toString());
+    }
+
+    @Test
+    void testLabelledFamily() {
+        MetricRegistry registry = new MetricRegistry();
+        registry.register(
+            new Gauge("test_queue", "Queue", Metric.label("pool", "a"), () -> 1));
+        Gauge b =
+            registry.register(
+                new Gauge(
+                    "test_queue", "Queue", Metric.label("pool", "b\""), () -> 2));
+        assertEquals(
+            "# TYPE test_queue gauge\n"
+            + "# HELP test_queue Queue\n"
+            + "test_queue{pool=\"a\"} 1\n"
+            + "test_queue{pool=\"b\\\"\"} 2\n"
+            + "# EOF\n",
+            registry.toString());
+
+        registry.unregister(b);
+        assertTrue(!registry.toString().contains("pool=\"b"));
+    }
+
+    @Test
+    void testRegisterExecutor() {
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            List<Metric> metrics =
+                EngineMetrics.registerExecutor("test", "1", executor);
+            assertEquals(3, metrics.size());
+            String text = MetricRegistry.instance().toString();
+            assertTrue(
+                text.contains(
+                    "mondrian_executor_pool_size{executor=\"test\",owner=\"1\"} 3\n"),
+                text);
+            EngineMetrics.unregister(metrics);
+            assertTrue(
+                !MetricRegistry.instance().toString()
+                    .contains("executor=\"test\""));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void testRegisterCountingExecutor() throws Exception {
+        CountingExecutorService executor =
+            new CountingExecutorService(Executors.newFixedThreadPool(1));
+        try {
+            executor.submit(() -> { }).get();
+            List<Metric> metrics =
+                EngineMetrics.registerExecutor("counting", "1", executor);
+            assertEquals(3, metrics.size());
+            String text = MetricRegistry.instance().toString();
+            String labels = "{executor=\"counting\",owner=\"1\"}";
+            assertTrue(
+                text.contains("mondrian_executor_submitted_tasks" + labels + " 1\n"),
+                text);
+            assertTrue(
+                text.contains("mondrian_executor_completed_tasks" + labels + " 1\n"),
+                text);
+            assertTrue(
+                text.contains("mondrian_executor_active_threads" + labels + " 0\n"),
+                text);
+            EngineMetrics.unregister(metrics);
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   SmartCity Jena - initial
+ */
+package mondrian.server.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+import jakarta.activation.DataSource;
+
+/**
+ * Test case for {@link MetricsWebserviceProvider}.
+ */
+class MetricsWebserviceProviderTest {
+
+    @Test
+    void testInvoke() throws IOException {
+        DataSource response = new MetricsWebserviceProvider().invoke(null);
+
+        assertEquals(MetricRegistry.CONTENT_TYPE, response.getContentType());
+        assertTrue(read(response).endsWith("# EOF\n"));
+    }
+
+    @Test
+    void testReadOnly() throws IOException {
+        DataSource response = new MetricsWebserviceProvider().invoke(null);
+
+        assertThrows(IOException.class, response::getOutputStream);
+        assertTrue(read(response).endsWith("# EOF\n"));
+    }
+
+    private static String read(DataSource dataSource) throws IOException {
+        try (InputStream in = dataSource.getInputStream()) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -16,6 +16,7 @@ import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import org.eclipse.daanse.olap.api.Connection;
@@ -52,6 +53,7 @@ import mondrian.olap.RoleImpl;
 import mondrian.olap.SchemaReader;
 import mondrian.olap.Util;
 import mondrian.rolap.RolapHierarchy.LimitedRollupMember;
+import mondrian.rolap.RolapUtil;
 
 /**
  * <code>AccessControlTest</code> is a set of unit-tests for access-control.
@@ -604,6 +606,37 @@ class AccessControlTest {
             + "[Store].[USA].[CA].[San Francisco]");
     }
 
+    /**
+     * Children of a member with custom access are restricted in SQL to those
+     * granted, and are the same as when they are filtered after reading.
+     */
+    @ParameterizedTest
+    @ContextSource(propertyUpdater = AppandFoodMartCatalogAsFile.class, dataloader = FastFoodmardDataLoader.class )
+    void testGrantHierarchy2PushRoleRestrictionsToSql(TestingContext foodMartContext) {
+        propSaver.set(propSaver.properties.PushRoleRestrictionsToSql, true);
+        Connection connection = getRestrictedConnection(foodMartContext);
+        final List<String> sqls = new ArrayList<>();
+        RolapUtil.setHook(sqls::add);
+        try {
+            TestUtil.assertAxisReturns(
+                connection,
+                "[Store].[USA].children",
+                "[Store].[USA].[CA]");
+            TestUtil.assertAxisReturns(
+                connection,
+                "[Store].[USA].[CA].children",
+                "[Store].[USA].[CA].[Los Angeles]\n"
+                + "[Store].[USA].[CA].[San Francisco]");
+        } finally {
+            RolapUtil.setHook(null);
+        }
+        assertTrue(
+            sqls.stream().anyMatch(
+                sql -> sql.contains("'Los Angeles'")
+                    && sql.contains("'San Francisco'")),
+            sqls::toString);
+    }
+
     @ParameterizedTest
     @ContextSource(propertyUpdater = AppandFoodMartCatalogAsFile.class, dataloader = FastFoodmardDataLoader.class )
     void testGrantHierarchy3(TestingContext foodMartContext) {
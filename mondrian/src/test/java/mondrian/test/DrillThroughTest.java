@@ -20,6 +20,8 @@ import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.when;
 import static org.opencube.junit5.TestUtil.assertSqlEquals;
 import static org.opencube.junit5.TestUtil.checkThrowable;
 import static org.opencube.junit5.TestUtil.executeQuery;
@@ -32,17 +34,22 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.text.MessageFormat;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 import javax.sql.DataSource;
 
 import org.eclipse.daanse.db.dialect.api.Dialect;
+import org.eclipse.daanse.engine.api.Context;
 import org.eclipse.daanse.olap.api.Connection;
 import org.eclipse.daanse.olap.api.model.Cube;
 import org.eclipse.daanse.olap.api.model.Hierarchy;
 import org.eclipse.daanse.olap.api.model.Level;
+import org.eclipse.daanse.olap.api.model.OlapElement;
 import org.eclipse.daanse.olap.api.result.Cell;
 import org.eclipse.daanse.olap.api.result.Result;
 import org.eclipse.daanse.olap.rolap.dbmapper.model.api.Expression;
@@ -58,12 +65,17 @@ import org.opencube.junit5.propupdator.AppandFoodMartCatalogAsFile;
 import org.opencube.junit5.propupdator.SchemaUpdater;
 
 import mondrian.enums.DatabaseProduct;
+import mondrian.olap.DriverManager;
 import mondrian.olap.Id;
 import mondrian.olap.MondrianException;
 import mondrian.olap.MondrianProperties;
+import mondrian.olap.Util;
+import mondrian.rolap.RolapCell;
+import mondrian.rolap.RolapConnectionProperties;
 import mondrian.rolap.RolapCube;
 import mondrian.rolap.RolapLevel;
 import mondrian.rolap.RolapStar;
+import mondrian.rolap.SqlStatement;
 
 /**
  * Test generation of SQL to access the fact table data underlying an MDX
@@ -2165,4 +2177,98 @@ class DrillThroughTest {
             }
         }
     }
+
+    /**
+     * Tests that drill-through pages, read with a maximum row count and a
+     * first row ordinal, are disjoint, have the requested number of rows
+     * except for the last page, and together hold the rows of the whole
+     * drill-through; whether the dialect skips the rows in SQL or not.
+     */
+    @ParameterizedTest
+    @ContextSource(propertyUpdater = AppandFoodMartCatalogAsFile.class, dataloader = FastFoodmardDataLoader.class )
+    void testDrillThroughPaging(TestingContext context) throws SQLException {
+        final Dialect dialect = context.getContext().getDialect();
+        assertTrue(dialect.supportsLimitOffset());
+        checkDrillThroughPaging(context.createConnection(), true);
+
+        // The same pages from a dialect which cannot skip rows in SQL.
+        final Dialect noOffsetDialect = spy(dialect);
+        when(noOffsetDialect.supportsLimitOffset()).thenReturn(false);
+        final Context noOffsetContext = spy(context.getContext());
+        when(noOffsetContext.getDialect()).thenReturn(noOffsetDialect);
+        final Util.PropertyList properties =
+            Util.parseConnectString(context.getOlapConnectString());
+        properties.put(RolapConnectionProperties.UseSchemaPool.name(), "false");
+        checkDrillThroughPaging(
+            DriverManager.getConnection(properties, null, noOffsetContext),
+            false);
+    }
+
+    private void checkDrillThroughPaging(
+        Connection connection,
+        boolean offsetInSql) throws SQLException
+    {
+        final Result result = executeQuery(connection,
+            "select {[Measures].[Unit Sales]} on 0\n"
+            + "from [Sales]\n"
+            + "where ([Time].[1997].[Q1], [Customers].[USA].[CA].[Berkeley])");
+        final RolapCell cell = (RolapCell) result.getCell(new int[] {0});
+        final List<OlapElement> fields = new ArrayList<>();
+
+        final String sql = cell.getDrillThroughSQL(fields, false, 14, 7);
+        assertEquals(offsetInSql, sql.contains("LIMIT 7 OFFSET 7"), sql);
+
+        final List<String> all = drillThroughRows(cell, fields, 0, 0);
+        final int rowCount = all.size();
+        assertTrue(rowCount > 10, "rows: " + rowCount);
+        int pageSize = 4;
+        while (rowCount % pageSize == 0) {
+            ++pageSize;
+        }
+
+        final List<String> paged = new ArrayList<>();
+        for (int first = 0; first < rowCount; first += pageSize) {
+            final List<String> page =
+                drillThroughRows(cell, fields, first + pageSize, first);
+            // Every page is full, except the last one.
+            assertEquals(Math.min(pageSize, rowCount - first), page.size());
+            paged.addAll(page);
+        }
+        // There are no rows after the last page.
+        assertEquals(
+            0,
+            drillThroughRows(cell, fields, rowCount + pageSize, rowCount)
+                .size());
+
+        // Rows with the same sort key may come in any order.
+        Collections.sort(all);
+        Collections.sort(paged);
+        assertEquals(all, paged);
+    }
+
+    private static List<String> drillThroughRows(
+        RolapCell cell,
+        List<OlapElement> fields,
+        int maxRowCount,
+        int firstRowOrdinal) throws SQLException
+    {
+        final SqlStatement stmt =
+            cell.drillThroughInternal(
+                maxRowCount, firstRowOrdinal, fields, false, null);
+        try {
+            final ResultSet resultSet = stmt.getResultSet();
+            final int columnCount = resultSet.getMetaData().getColumnCount();
+            final List<String> rows = new ArrayList<>();
+            while (resultSet.next()) {
+                final List<Object> row = new ArrayList<>();
+                for (int i = 1; i <= columnCount; i++) {
+                    row.add(resultSet.getObject(i));
+                }
+                rows.add(row.toString());
+            }
+            return rows;
+        } finally {
+            stmt.close();
+        }
+    }
 }
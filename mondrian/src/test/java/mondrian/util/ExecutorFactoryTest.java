@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   SmartCity Jena - initial
+ */
+package mondrian.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import mondrian.olap.Util;
+
+class ExecutorFactoryTest {
+    /** Number of queries that arrive at the same time. */
+    private static final int QUERY_COUNT = 500;
+    /** Number of platform threads, as RolapConnectionShepherdNbThreads. */
+    private static final int POOL_SIZE = 20;
+
+    @Test
+    void testUnsupported() {
+        assumeTrue(!ExecutorFactory.isVirtualThreadSupported());
+        assertThrows(
+            UnsupportedOperationException.class,
+            () -> ExecutorFactory.newVirtualThreadExecutor("test"));
+    }
+
+    @Test
+    void testVirtualThreadNames() throws Exception {
+        assumeTrue(ExecutorFactory.isVirtualThreadSupported());
+        final ExecutorService executor =
+            ExecutorFactory.newVirtualThreadExecutor("test");
+        try {
+            final String name =
+                executor.submit(() -> Thread.currentThread().getName()).get();
+            assertEquals("test_1", name);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Submits {@link #QUERY_COUNT} queries at the same time, each of which
+     * waits until all have been submitted, as queries wait for the database.
+     * The pool starts the first {@link #POOL_SIZE} of them, in the order they
+     * were submitted, and queues the others behind them.
+     */
+    @Test
+    void testPoolQueueing() throws Exception {
+        final ThreadPoolExecutor pool =
+            (ThreadPoolExecutor) Util.getExecutorService(
+                POOL_SIZE, POOL_SIZE, 1, "test-pool", null);
+        final Set<Integer> started =
+            startQueries(
+                pool,
+                POOL_SIZE,
+                () -> assertEquals(
+                    QUERY_COUNT - POOL_SIZE, pool.getQueue().size()));
+        final Set<Integer> first = new HashSet<>();
+        for (int i = 0; i < POOL_SIZE; i++) {
+            first.add(i);
+        }
+        assertEquals(first, started);
+    }
+
+    /**
+     * As {@link #testPoolQueueing()}, but on virtual threads, which start
+     * every query.
+     */
+    @Test
+    void testVirtualThreadQueueing() throws Exception {
+        assumeTrue(ExecutorFactory.isVirtualThreadSupported());
+        final CountingExecutorService virtual =
+            (CountingExecutorService)
+                ExecutorFactory.newVirtualThreadExecutor("test-virtual");
+        assertEquals(
+            QUERY_COUNT,
+            startQueries(
+                virtual,
+                QUERY_COUNT,
+                () -> {
+                    assertEquals(QUERY_COUNT, virtual.getSubmittedCount());
+                    assertEquals(QUERY_COUNT, virtual.getActiveCount());
+                }).size());
+    }
+
+    /**
+     * Submits {@link #QUERY_COUNT} queries which block until released, waits
+     * until {@code expected} of them have started, calls {@code check}, and
+     * returns the indexes of the queries which had started by then.
+     */
+    private static Set<Integer> startQueries(
+        ExecutorService executor,
+        int expected,
+        Runnable check)
+        throws Exception
+    {
+        final CountDownLatch started = new CountDownLatch(expected);
+        final CountDownLatch release = new CountDownLatch(1);
+        final Set<Integer> startedQueries = ConcurrentHashMap.newKeySet();
+        final List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int i = 0; i < QUERY_COUNT; i++) {
+                final int query = i;
+                futures.add(
+                    executor.submit(() -> {
+                        startedQueries.add(query);
+                        started.countDown();
+                        release.await();
+                        return null;
+                    }));
+            }
+            assertTrue(
+                started.await(1, TimeUnit.MINUTES),
+                "started " + startedQueries.size() + " of " + expected);
+            check.run();
+            final Set<Integer> result = new HashSet<>(startedQueries);
+            release.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            assertEquals(QUERY_COUNT, startedQueries.size());
+            return result;
+        } finally {
+            release.countDown();
+            executor.shutdown();
+        }
+    }
+}
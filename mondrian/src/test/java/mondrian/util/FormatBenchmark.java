@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   SmartCity Jena - initial
+ */
+package mondrian.util;
+
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+
+import com.sun.management.ThreadMXBean;
+
+/**
+ * Compares the time and the memory allocated to format cell values with a
+ * {@link Format} looked up in the cache by {@link Format#get}, as
+ * {@code RolapResult} does, to parsing the format string for every value
+ * with {@link Format#Format(String, Locale)}.
+ *
+ * <p>Each format string formats numbers of a few magnitudes, with and
+ * without fractions, as the cells of a measure would be. Formatting into a
+ * caller's buffer, with {@link Format#format(Object, StringBuilder)}, shows
+ * the allocation left for the number itself.
+ */
+public class FormatBenchmark {
+    private static final int ITERATIONS = 20;
+    private static final int VALUES = 100_000;
+
+    private static final String[] FORMAT_STRINGS = {
+        "#,##0.00",
+        "#,##,###0.0",
+        "Currency",
+        "0.00%",
+        "0.000E+00",
+    };
+
+    public static void main(String[] args) {
+        final double[] values = new double[VALUES];
+        for (int i = 0; i < VALUES; i++) {
+            values[i] = (i % 7 - 3) * Math.pow(10, i % 9) / 7d;
+        }
+        for (String formatString : FORMAT_STRINGS) {
+            benchmark(formatString, values);
+        }
+    }
+
+    private static void benchmark(String formatString, double[] values) {
+        final ThreadMXBean threadBean =
+            (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        final long threadId = Thread.currentThread().getId();
+        final StringBuilder buf = new StringBuilder();
+
+        for (int warmup = 0; warmup < 2; warmup++) {
+            final long[] nanos = new long[3];
+            final long[] bytes = new long[3];
+            for (int i = 0; i < ITERATIONS; i++) {
+                for (int path = 0; path < 3; path++) {
+                    long allocated = threadBean.getThreadAllocatedBytes(threadId);
+                    long start = System.nanoTime();
+                    int length = 0;
+                    switch (path) {
+                    case 0:
+                        for (double value : values) {
+                            length += new Format(formatString, Locale.US)
+                                .format(value).length();
+                        }
+                        break;
+                    case 1:
+                        for (double value : values) {
+                            length += Format.get(formatString, Locale.US)
+                                .format(value).length();
+                        }
+                        break;
+                    default:
+                        for (double value : values) {
+                            buf.setLength(0);
+                            length += Format.get(formatString, Locale.US)
+                                .format(value, buf).length();
+                        }
+                        break;
+                    }
+                    nanos[path] += System.nanoTime() - start;
+                    bytes[path] +=
+                        threadBean.getThreadAllocatedBytes(threadId) - allocated;
+                    check(length > 0);
+                }
+            }
+            if (warmup == 1) {
+                System.out.printf(
+                    "\"%s\", %,d values%n", formatString, values.length);
+                String[] names = {"uncached", "cached", "cached, buffer"};
+                for (int path = 0; path < 3; path++) {
+                    System.out.printf(
+                        "  %-15s %9.3f ms %,9d bytes per value%n",
+                        names[path],
+                        nanos[path] / 1e6 / ITERATIONS,
+                        bytes[path] / ITERATIONS / values.length);
+                }
+            }
+        }
+    }
+
+    private static void check(boolean condition) {
+        if (!condition) {
+            throw new IllegalStateException("Nothing formatted");
+        }
+    }
+}
@@ -10,12 +10,18 @@
 package mondrian.util;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Date;
+import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.junit.jupiter.api.Test;
 
@@ -662,6 +668,85 @@ class FormatTest {
         }
     }
 
+    /**
+     * Formats and cache lookups from many threads. The cache is bounded, and
+     * the formats shared between threads give the same results as when used
+     * by a single thread.
+     */
+    @Test
+    void testCacheConcurrent() throws Exception {
+        final int threadCount = 8;
+        final ExecutorService executor =
+            Executors.newFixedThreadPool(threadCount);
+        try {
+            final List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threadCount; t++) {
+                final int seed = t;
+                futures.add(
+                    executor.submit(() -> {
+                        for (int i = 0; i < 2000; i++) {
+                            final String zeroes =
+                                "0000000000".substring((i * 31 + seed) % 10);
+                            final String fraction =
+                                zeroes.isEmpty() ? "" : "." + zeroes;
+                            final Format format =
+                                Format.get("#,##,###0" + fraction, Locale.US);
+                            assertEquals(
+                                "1,23,4567" + fraction,
+                                format.format(1234567));
+                            assertEquals(
+                                "12,34,56,78,9012" + fraction,
+                                format.format(123456789012L));
+                        }
+                    }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        // Same format object for the same format string and locale.
+        assertSame(
+            Format.get("#,##0.00", Locale.US),
+            Format.get("#,##0.00", Locale.US));
+    }
+
+    /**
+     * Formats into a buffer supplied by the caller, and formats repeatedly
+     * with a format whose thousand separators are not evenly spaced; the
+     * separator positions must not be consumed by a previous call.
+     */
+    @Test
+    void testFormatToBuffer() {
+        final Format format = Format.get("#,##,###0", Locale.US);
+        final StringBuilder buf = new StringBuilder();
+        for (int i = 0; i < 3; i++) {
+            buf.setLength(0);
+            assertSame(buf, format.format(1234567, buf));
+            buf.append(' ');
+            format.format(123456789012L, buf);
+            assertEquals("1,23,4567 12,34,56,78,9012", buf.toString());
+        }
+    }
+
+    /**
+     * Formats numbers of different lengths in turn on one thread, which
+     * reuses its scratch arrays; digits left by a longer number must not
+     * show in a shorter one, and rounding must still carry into a new
+     * leading digit.
+     */
+    @Test
+    void testScratchArraysReused() {
+        final Format format = Format.get("#,##0.0", Locale.US);
+        assertEquals("1,234,567,890.1", format.format(1234567890.12));
+        assertEquals("100.0", format.format(99.99));
+        assertEquals("10.0", format.format(9.99));
+        assertEquals("0.5", format.format(0.5));
+        assertEquals("-1,000.0", format.format(-999.96));
+        assertEquals("1,234,567,890.1", format.format(1234567890.12));
+    }
+
     @Test
     void testString() {
         // Excel2003
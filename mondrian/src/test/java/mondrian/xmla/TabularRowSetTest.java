@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   SmartCity Jena - initial
+ */
+package mondrian.xmla;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.StringWriter;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import mondrian.xmla.impl.DefaultSaxWriter;
+
+/**
+ * Test case for {@link XmlaHandler.TabularRowSet}, which writes the rows of
+ * a drill-through as it reads them from the result set.
+ */
+class TabularRowSetTest {
+
+    @Test
+    void testRowsAreReadWhileWriting() throws Exception {
+        final StringWriter out = new StringWriter();
+        final List<String> outputWhenRead = new ArrayList<>();
+        final ResultSet resultSet =
+            resultSet(
+                new Object[][] {{1, "a"}, {2, null}, {3, "c"}},
+                () -> outputWhenRead.add(out.toString()));
+        final Statement statement = mock(Statement.class);
+        final Connection connection = mock(Connection.class);
+
+        final XmlaHandler.TabularRowSet rowSet =
+            new XmlaHandler.TabularRowSet(resultSet, -1, statement, connection);
+        // Creating the row set reads no rows.
+        verify(resultSet, never()).next();
+
+        rowSet.unparse(new DefaultSaxWriter(out));
+        final String xml = out.toString();
+        assertRows(xml, "1", "a", "2", "3", "c");
+        assertFalse(xml.contains("count"), xml);
+
+        // Each row was written before the next one was read.
+        assertEquals(4, outputWhenRead.size());
+        assertFalse(outputWhenRead.get(0).contains("<row"));
+        assertTrue(outputWhenRead.get(1).contains(">1<"));
+        assertFalse(outputWhenRead.get(1).contains(">2<"));
+        assertTrue(outputWhenRead.get(2).contains(">2<"));
+        assertFalse(outputWhenRead.get(2).contains(">3<"));
+
+        rowSet.close();
+        verify(resultSet).close();
+        verify(statement).close();
+        verify(connection).close();
+
+        // Closing again does not close the resources twice.
+        rowSet.close();
+        verify(resultSet, times(1)).close();
+    }
+
+    @Test
+    void testTotalCount() throws Exception {
+        final ResultSet resultSet =
+            resultSet(new Object[][] {{7, "x"}}, () -> { });
+        final XmlaHandler.TabularRowSet rowSet =
+            new XmlaHandler.TabularRowSet(resultSet, 42, null, null);
+        final StringWriter out = new StringWriter();
+        rowSet.unparse(new DefaultSaxWriter(out));
+        final String xml = out.toString();
+        assertTrue(xml.contains(">42<"), xml);
+        assertTrue(xml.indexOf(">42<") < xml.indexOf(">7<"), xml);
+        rowSet.close();
+        verify(resultSet).close();
+    }
+
+    @Test
+    void testCloseWithoutWriting() throws Exception {
+        final ResultSet resultSet =
+            resultSet(new Object[][] {{1, "a"}}, () -> { });
+        final Statement statement = mock(Statement.class);
+        final Connection connection = mock(Connection.class);
+        final XmlaHandler.TabularRowSet rowSet =
+            new XmlaHandler.TabularRowSet(resultSet, -1, statement, connection);
+
+        // A failed response closes the row set before its rows are read.
+        rowSet.close();
+        verify(resultSet, never()).next();
+        verify(resultSet).close();
+        verify(statement).close();
+        verify(connection).close();
+    }
+
+    private static void assertRows(String xml, String... values) {
+        int from = 0;
+        for (String value : values) {
+            final int i = xml.indexOf(">" + value + "<", from);
+            assertTrue(i >= 0, value + " in " + xml);
+            from = i;
+        }
+    }
+
+    /**
+     * Creates a forward-only result set over some rows of an INTEGER and a
+     * VARCHAR column, which calls {@code onNext} whenever a row is read.
+     */
+    private static ResultSet resultSet(Object[][] rows, Runnable onNext)
+        throws SQLException
+    {
+        final ResultSetMetaData md = mock(ResultSetMetaData.class);
+        when(md.getColumnCount()).thenReturn(2);
+        when(md.getColumnLabel(1)).thenReturn("id");
+        when(md.getColumnLabel(2)).thenReturn("name");
+        when(md.getColumnType(1)).thenReturn(Types.INTEGER);
+        when(md.getColumnType(2)).thenReturn(Types.VARCHAR);
+
+        final ResultSet resultSet = mock(ResultSet.class);
+        final int[] row = {-1};
+        when(resultSet.getMetaData()).thenReturn(md);
+        when(resultSet.next()).thenAnswer(invocation -> {
+            onNext.run();
+            return ++row[0] < rows.length;
+        });
+        when(resultSet.getObject(anyInt())).thenAnswer(invocation ->
+            rows[row[0]][(Integer) invocation.getArgument(0) - 1]);
+        return resultSet;
+    }
+}
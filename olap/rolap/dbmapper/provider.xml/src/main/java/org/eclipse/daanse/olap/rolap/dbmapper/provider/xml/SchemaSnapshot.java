@@ -0,0 +1,536 @@
+/*
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   SmartCity Jena - initial
+ */
+package org.eclipse.daanse.olap.rolap.dbmapper.provider.xml;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Modifier;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.daanse.olap.rolap.dbmapper.model.api.enums.AccessEnum;
+import org.eclipse.daanse.olap.rolap.dbmapper.model.jaxb.SchemaImpl;
+
+/**
+ * Binary snapshot of a schema read by {@link XmlSchemaReader}.
+ *
+ * <p>
+ * A snapshot holds the fields of the schema objects, so that a schema can be
+ * restored without parsing and unmarshalling the catalog again. Each class and
+ * each string is written once and then referred to by index, and an object
+ * that is reachable more than once is restored once. The names of the fields
+ * of each class are part of the snapshot; a snapshot whose classes no longer
+ * have these fields is rejected with a {@link SnapshotException}.
+ *
+ * <p>
+ * Only classes of the package of {@link SchemaImpl} and the enums of the
+ * package of {@link AccessEnum} are written, and a snapshot that names any
+ * other class is rejected before the class is loaded.
+ */
+public class SchemaSnapshot {
+
+    private static final int MAGIC = 0x44534e50; // DSNP
+    private static final int VERSION = 1;
+    private static final String SUFFIX = ".schema";
+
+    private static final byte NULL = 0;
+    private static final byte STRING = 1;
+    private static final byte STRING_REF = 2;
+    private static final byte TRUE = 3;
+    private static final byte FALSE = 4;
+    private static final byte INT = 5;
+    private static final byte LONG = 6;
+    private static final byte DOUBLE = 7;
+    private static final byte ENUM = 8;
+    private static final byte LIST = 9;
+    private static final byte OBJECT = 10;
+    private static final byte OBJECT_REF = 11;
+
+    private static final String SCHEMA_PACKAGE = SchemaImpl.class.getPackageName();
+    private static final String ENUM_PACKAGE = AccessEnum.class.getPackageName();
+
+    private static final Map<Class<?>, Field[]> FIELDS = new ConcurrentHashMap<>();
+
+    private SchemaSnapshot() {
+        // constructor
+    }
+
+    /**
+     * Returns the SHA-256 checksum of a catalog, as hex string.
+     */
+    public static String checksum(byte[] catalog) {
+        try {
+            return HexFormat.of()
+                    .formatHex(MessageDigest.getInstance("SHA-256")
+                            .digest(catalog));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public static void write(SchemaImpl schema, OutputStream outputStream) throws IOException {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(outputStream));
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        new Writer(out).value(schema);
+        out.flush();
+    }
+
+    public static byte[] write(SchemaImpl schema) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        write(schema, out);
+        return out.toByteArray();
+    }
+
+    /**
+     * Returns the file of the snapshot of a catalog in a directory.
+     */
+    public static Path file(Path directory, byte[] catalog) {
+        return directory.resolve(checksum(catalog) + SUFFIX);
+    }
+
+    /**
+     * Writes a snapshot to a file. The file is replaced atomically, so that
+     * concurrent readers see either no snapshot or a complete one.
+     */
+    public static void write(SchemaImpl schema, Path file) throws IOException {
+        Path directory = file.toAbsolutePath()
+                .getParent();
+        Files.createDirectories(directory);
+        Path tmp = Files.createTempFile(directory, file.getFileName()
+                .toString(), ".tmp");
+        try {
+            try (OutputStream out = Files.newOutputStream(tmp)) {
+                write(schema, out);
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /**
+     * Restores a schema from a memory mapped snapshot file.
+     *
+     * @throws SnapshotException if the file is not a snapshot of a schema of
+     *                           the current classes
+     */
+    public static SchemaImpl read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return read(channel.map(MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Restores a schema from a snapshot, for example from a memory mapped
+     * file.
+     *
+     * @throws SnapshotException if the buffer is not a snapshot of a schema of
+     *                           the current classes
+     */
+    public static SchemaImpl read(ByteBuffer buffer) {
+        try {
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                throw new SnapshotException("Not a schema snapshot");
+            }
+            Object schema = new Reader(buffer).value();
+            if (!(schema instanceof SchemaImpl schemaImpl)) {
+                throw new SnapshotException("Snapshot does not hold a schema");
+            }
+            return schemaImpl;
+        } catch (BufferUnderflowException e) {
+            throw new SnapshotException("Snapshot is truncated", e);
+        } catch (SnapshotException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            throw new SnapshotException("Snapshot is corrupt", e);
+        }
+    }
+
+    /**
+     * Returns whether a class may be written to and read from a snapshot.
+     */
+    private static boolean isSchemaClass(Class<?> clazz) {
+        return clazz.getPackageName()
+                .equals(SCHEMA_PACKAGE)
+                || clazz.isEnum() && clazz.getPackageName()
+                        .equals(ENUM_PACKAGE);
+    }
+
+    /**
+     * Returns whether a class name is in a package whose classes may be written
+     * to a snapshot, so that no other class is loaded.
+     */
+    private static boolean isSchemaClassName(String name) {
+        int dot = name.lastIndexOf('.');
+        if (dot < 0) {
+            return false;
+        }
+        String packageName = name.substring(0, dot);
+        return packageName.equals(SCHEMA_PACKAGE) || packageName.equals(ENUM_PACKAGE);
+    }
+
+    /**
+     * Returns the instance fields of a class and its superclasses.
+     */
+    private static Field[] fields(Class<?> clazz) {
+        return FIELDS.computeIfAbsent(clazz, c -> {
+            List<Field> fields = new ArrayList<>();
+            for (Class<?> k = c; k != null && k != Object.class; k = k.getSuperclass()) {
+                for (Field field : k.getDeclaredFields()) {
+                    int modifiers = field.getModifiers();
+                    if (!Modifier.isStatic(modifiers) && !Modifier.isTransient(modifiers) && !field.isSynthetic()) {
+                        field.setAccessible(true);
+                        fields.add(field);
+                    }
+                }
+            }
+            return fields.toArray(new Field[0]);
+        });
+    }
+
+    public static class SnapshotException extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        public SnapshotException(String message) {
+            super(message);
+        }
+
+        public SnapshotException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+
+    private static class Writer {
+        private final DataOutputStream out;
+        private final Map<String, Integer> strings = new HashMap<>();
+        private final Map<Class<?>, Integer> classes = new HashMap<>();
+        private final Map<Object, Integer> objects = new IdentityHashMap<>();
+
+        Writer(DataOutputStream out) {
+            this.out = out;
+        }
+
+        void value(Object value) throws IOException {
+            if (value == null) {
+                out.writeByte(NULL);
+            } else if (value instanceof String s) {
+                string(s);
+            } else if (value instanceof Boolean b) {
+                out.writeByte(b.booleanValue() ? TRUE : FALSE);
+            } else if (value instanceof Integer i) {
+                out.writeByte(INT);
+                varInt(i);
+            } else if (value instanceof Long l) {
+                out.writeByte(LONG);
+                out.writeLong(l);
+            } else if (value instanceof Double d) {
+                out.writeByte(DOUBLE);
+                out.writeDouble(d);
+            } else if (value instanceof Enum<?> e) {
+                if (!isSchemaClass(e.getDeclaringClass())) {
+                    throw new IllegalArgumentException("Unsupported type in schema: " + e.getDeclaringClass()
+                            .getName());
+                }
+                out.writeByte(ENUM);
+                type(e.getDeclaringClass());
+                string(e.name());
+            } else if (value instanceof List<?> list) {
+                out.writeByte(LIST);
+                varInt(list.size());
+                for (Object o : list) {
+                    value(o);
+                }
+            } else {
+                object(value);
+            }
+        }
+
+        private void object(Object value) throws IOException {
+            Integer ref = objects.get(value);
+            if (ref != null) {
+                out.writeByte(OBJECT_REF);
+                varInt(ref);
+                return;
+            }
+            objects.put(value, objects.size());
+            Class<?> clazz = value.getClass();
+            if (!isSchemaClass(clazz)) {
+                throw new IllegalArgumentException("Unsupported type in schema: " + clazz.getName());
+            }
+            out.writeByte(OBJECT);
+            type(clazz);
+            for (Field field : fields(clazz)) {
+                try {
+                    value(field.get(value));
+                } catch (IllegalAccessException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        }
+
+        /**
+         * Writes the index of a class, followed by its name and field names the
+         * first time.
+         */
+        private void type(Class<?> clazz) throws IOException {
+            Integer index = classes.get(clazz);
+            if (index != null) {
+                varInt(index);
+                return;
+            }
+            varInt(classes.size());
+            classes.put(clazz, classes.size());
+            string(clazz.getName());
+            if (clazz.isEnum()) {
+                return;
+            }
+            Field[] fields = fields(clazz);
+            varInt(fields.length);
+            for (Field field : fields) {
+                string(field.getName());
+            }
+        }
+
+        private void string(String s) throws IOException {
+            Integer index = strings.get(s);
+            if (index != null) {
+                out.writeByte(STRING_REF);
+                varInt(index);
+                return;
+            }
+            strings.put(s, strings.size());
+            out.writeByte(STRING);
+            byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            varInt(bytes.length);
+            out.write(bytes);
+        }
+
+        private void varInt(int value) throws IOException {
+            int v = (value << 1) ^ (value >> 31);
+            while ((v & ~0x7f) != 0) {
+                out.writeByte((v & 0x7f) | 0x80);
+                v >>>= 7;
+            }
+            out.writeByte(v);
+        }
+    }
+
+    private static class Reader {
+        private final ByteBuffer in;
+        private final List<String> strings = new ArrayList<>();
+        private final List<Type> types = new ArrayList<>();
+        private final List<Object> objects = new ArrayList<>();
+
+        Reader(ByteBuffer in) {
+            this.in = in;
+        }
+
+        Object value() {
+            byte tag = in.get();
+            switch (tag) {
+            case NULL:
+                return null;
+            case STRING, STRING_REF:
+                return string(tag);
+            case TRUE:
+                return Boolean.TRUE;
+            case FALSE:
+                return Boolean.FALSE;
+            case INT:
+                return varInt();
+            case LONG:
+                return in.getLong();
+            case DOUBLE:
+                return in.getDouble();
+            case ENUM:
+                return enumConstant(type().clazz, string(in.get()));
+            case LIST: {
+                int size = length();
+                List<Object> list = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    list.add(value());
+                }
+                return list;
+            }
+            case OBJECT:
+                return object();
+            case OBJECT_REF:
+                return objects.get(varInt());
+            default:
+                throw new SnapshotException("Unknown tag " + tag);
+            }
+        }
+
+        @SuppressWarnings({ "unchecked", "rawtypes" })
+        private static Object enumConstant(Class<?> clazz, String name) {
+            try {
+                return Enum.valueOf((Class<Enum>) clazz, name);
+            } catch (IllegalArgumentException e) {
+                throw new SnapshotException("Unknown constant " + name + " of " + clazz.getName(), e);
+            }
+        }
+
+        private Object object() {
+            Type type = type();
+            Object object;
+            try {
+                object = type.constructor.newInstance();
+            } catch (InstantiationException | IllegalAccessException | InvocationTargetException e) {
+                throw new SnapshotException("Cannot create " + type.clazz.getName(), e);
+            }
+            objects.add(object);
+            for (Field field : type.fields) {
+                Object value = value();
+                try {
+                    if (field.getType()
+                            .isPrimitive() && value == null) {
+                        throw new SnapshotException("Null for " + field);
+                    }
+                    field.set(object, value);
+                } catch (IllegalAccessException | IllegalArgumentException e) {
+                    throw new SnapshotException("Cannot set " + field, e);
+                }
+            }
+            return object;
+        }
+
+        private Type type() {
+            int index = varInt();
+            if (index < types.size()) {
+                return types.get(index);
+            }
+            if (index != types.size()) {
+                throw new SnapshotException("Unknown class " + index);
+            }
+            String name = string(in.get());
+            if (!isSchemaClassName(name)) {
+                throw new SnapshotException("Class not allowed in snapshot: " + name);
+            }
+            Class<?> clazz;
+            try {
+                clazz = Class.forName(name, false, SchemaImpl.class.getClassLoader());
+            } catch (ClassNotFoundException e) {
+                throw new SnapshotException("Unknown class " + name, e);
+            }
+            if (!isSchemaClass(clazz)) {
+                throw new SnapshotException("Class not allowed in snapshot: " + name);
+            }
+            Type type;
+            if (clazz.isEnum()) {
+                type = new Type(clazz, null, null);
+            } else {
+                type = new Type(clazz, constructor(clazz), fields(clazz, varInt()));
+            }
+            types.add(type);
+            return type;
+        }
+
+        /**
+         * Reads the field names of a class and checks them against its current
+         * fields.
+         */
+        private Field[] fields(Class<?> clazz, int count) {
+            Field[] fields = SchemaSnapshot.fields(clazz);
+            if (count != fields.length) {
+                throw new SnapshotException("Fields of " + clazz.getName() + " have changed");
+            }
+            for (int i = 0; i < count; i++) {
+                if (!fields[i].getName()
+                        .equals(string(in.get()))) {
+                    throw new SnapshotException("Fields of " + clazz.getName() + " have changed: "
+                            + Arrays.toString(fields));
+                }
+            }
+            return fields;
+        }
+
+        private static Constructor<?> constructor(Class<?> clazz) {
+            try {
+                Constructor<?> constructor = clazz.getDeclaredConstructor();
+                constructor.setAccessible(true);
+                return constructor;
+            } catch (NoSuchMethodException e) {
+                throw new SnapshotException("No default constructor in " + clazz.getName(), e);
+            }
+        }
+
+        private String string(byte tag) {
+            if (tag == STRING_REF) {
+                return strings.get(varInt());
+            }
+            if (tag != STRING) {
+                throw new SnapshotException("Expected string, got tag " + tag);
+            }
+            byte[] bytes = new byte[length()];
+            in.get(bytes);
+            String s = new String(bytes, StandardCharsets.UTF_8);
+            strings.add(s);
+            return s;
+        }
+
+        /**
+         * Reads the length of a string or list, which is never more than the
+         * number of bytes left.
+         */
+        private int length() {
+            int length = varInt();
+            if (length < 0 || length > in.remaining()) {
+                throw new SnapshotException("Invalid length " + length);
+            }
+            return length;
+        }
+
+        private int varInt() {
+            int v = 0;
+            int shift = 0;
+            byte b;
+            do {
+                if (shift > 28) {
+                    throw new SnapshotException("Malformed number");
+                }
+                b = in.get();
+                v |= (b & 0x7f) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            return (v >>> 1) ^ -(v & 1);
+        }
+    }
+
+    private record Type(Class<?> clazz, Constructor<?> constructor, Field[] fields) {
+    }
+}
@@ -2,7 +2,9 @@ package org.eclipse.daanse.olap.rolap.dbmapper.provider.xml;
 
 import jakarta.xml.bind.JAXBException;
 import org.eclipse.daanse.olap.rolap.dbmapper.model.api.Schema;
+import org.eclipse.daanse.olap.rolap.dbmapper.model.jaxb.SchemaImpl;
 import org.eclipse.daanse.olap.rolap.dbmapper.provider.api.DbMappingSchemaProvider;
+import org.eclipse.daanse.olap.rolap.dbmapper.provider.xml.SchemaSnapshot.SnapshotException;
 import org.eclipse.daanse.olap.rolap.dbmapper.provider.xml.XmlDbMappingSchemaProvider.Config;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
@@ -11,9 +13,12 @@ import org.osgi.service.metatype.annotations.ObjectClassDefinition;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
 
 @Component(service = DbMappingSchemaProvider.class)
 @Designate(ocd = Config.class, factory = true)
@@ -25,6 +30,13 @@ public class XmlDbMappingSchemaProvider implements DbMappingSchemaProvider {
 
 		String url();
 
+		/**
+		 * Directory of binary snapshots of the catalogs. A snapshot is written
+		 * on the first load of a catalog and used instead of the catalog while
+		 * the catalog is unchanged. No snapshots are used if empty.
+		 */
+		String snapshotDirectory() default "";
+
 	}
 
 	private XmlSchemaReader reader = new XmlSchemaReader();
@@ -34,13 +46,36 @@ public class XmlDbMappingSchemaProvider implements DbMappingSchemaProvider {
 	public void activate(Config config) throws IOException, JAXBException {
 		URL url = new URL(config.url());
 		try (InputStream in = url.openStream()) {
-			schema = reader.read(in);
+			String snapshotDirectory = config.snapshotDirectory();
+			if (snapshotDirectory == null || snapshotDirectory.isBlank()) {
+				schema = reader.read(in);
+			} else {
+				schema = readWithSnapshot(Path.of(snapshotDirectory), in.readAllBytes());
+			}
 		} catch (Exception e) {
             LOGGER.error("XmlDbMappingSchemaProvider activation error");
 			throw e;
 		}
 	}
 
+	private Schema readWithSnapshot(Path directory, byte[] catalog) throws JAXBException {
+		Path file = SchemaSnapshot.file(directory, catalog);
+		if (Files.isRegularFile(file)) {
+			try {
+				return SchemaSnapshot.read(file);
+			} catch (IOException | SnapshotException e) {
+				LOGGER.warn("Ignoring schema snapshot {}: {}", file, e.getMessage());
+			}
+		}
+		SchemaImpl schemaImpl = reader.read(new ByteArrayInputStream(catalog));
+		try {
+			SchemaSnapshot.write(schemaImpl, file);
+		} catch (IOException e) {
+			LOGGER.warn("Cannot write schema snapshot {}", file, e);
+		}
+		return schemaImpl;
+	}
+
 	@Override
 	public Schema get() {
 		return schema;
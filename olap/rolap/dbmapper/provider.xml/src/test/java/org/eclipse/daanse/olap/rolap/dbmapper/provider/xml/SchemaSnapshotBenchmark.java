@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   SmartCity Jena - initial
+ */
+package org.eclipse.daanse.olap.rolap.dbmapper.provider.xml;
+
+import java.io.ByteArrayInputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.eclipse.daanse.olap.rolap.dbmapper.model.jaxb.SchemaImpl;
+
+/**
+ * Compares the time to load a catalog with {@link XmlSchemaReader} with the
+ * time to restore it from a memory mapped {@link SchemaSnapshot}.
+ *
+ * <p>
+ * Run from the directory of this module with the catalogs as arguments,
+ * defaults are the FoodMart and SteelWheels samples. The first load of each
+ * kind is reported separately, as it is the load at startup.
+ */
+public class SchemaSnapshotBenchmark {
+
+    private static final int ITERATIONS = 200;
+
+    public static void main(String[] args) throws Exception {
+        String[] catalogs = args.length > 0 ? args
+                : new String[] { "../provider.sample.foodmart.xml/src/main/resources/FoodMart.xml",
+                        "../provider.sample.steelwheels.xml/src/main/resources/SteelWheels.xml" };
+        Path directory = Files.createTempDirectory("schema-snapshots");
+        for (String catalog : catalogs) {
+            benchmark(Path.of(catalog), directory);
+        }
+    }
+
+    private static void benchmark(Path catalogFile, Path directory) throws Exception {
+        byte[] catalog = Files.readAllBytes(catalogFile);
+        XmlSchemaReader reader = new XmlSchemaReader();
+
+        long start = System.nanoTime();
+        SchemaImpl schema = reader.read(new ByteArrayInputStream(catalog));
+        long firstXml = System.nanoTime() - start;
+
+        Path file = SchemaSnapshot.file(directory, catalog);
+        SchemaSnapshot.write(schema, file);
+
+        start = System.nanoTime();
+        SchemaImpl restored = SchemaSnapshot.read(file);
+        long firstSnapshot = System.nanoTime() - start;
+        if (!SchemaSnapshotTest.marshal(restored)
+                .equals(SchemaSnapshotTest.marshal(schema))) {
+            throw new IllegalStateException("Snapshot differs from catalog " + catalogFile);
+        }
+
+        start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            reader.read(new ByteArrayInputStream(catalog));
+        }
+        long xml = (System.nanoTime() - start) / ITERATIONS;
+
+        start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            SchemaSnapshot.read(file);
+        }
+        long snapshot = (System.nanoTime() - start) / ITERATIONS;
+
+        System.out.printf("%s: catalog %d bytes, snapshot %d bytes%n", catalogFile.getFileName(), catalog.length,
+                Files.size(file));
+        System.out.printf("  first load  xml %8.2f ms  snapshot %8.2f ms%n", firstXml / 1e6, firstSnapshot / 1e6);
+        System.out.printf("  warm load   xml %8.3f ms  snapshot %8.3f ms%n", xml / 1e6, snapshot / 1e6);
+    }
+}
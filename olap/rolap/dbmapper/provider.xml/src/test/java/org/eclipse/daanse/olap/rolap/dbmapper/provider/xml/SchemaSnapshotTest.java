@@ -0,0 +1,196 @@
+/*
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   SmartCity Jena - initial
+ */
+package org.eclipse.daanse.olap.rolap.dbmapper.provider.xml;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.ByteArrayInputStream;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.eclipse.daanse.olap.rolap.dbmapper.model.api.Hierarchy;
+import org.eclipse.daanse.olap.rolap.dbmapper.model.api.Join;
+import org.eclipse.daanse.olap.rolap.dbmapper.model.api.PrivateDimension;
+import org.eclipse.daanse.olap.rolap.dbmapper.model.api.Table;
+import org.eclipse.daanse.olap.rolap.dbmapper.model.api.enums.LevelTypeEnum;
+import org.eclipse.daanse.olap.rolap.dbmapper.model.jaxb.SchemaImpl;
+import org.eclipse.daanse.olap.rolap.dbmapper.provider.xml.SchemaSnapshot.SnapshotException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import jakarta.xml.bind.JAXBContext;
+import jakarta.xml.bind.Marshaller;
+
+class SchemaSnapshotTest {
+
+    static final String CATALOG = """
+            <Schema name="Test" description="Snapshot">
+              <Annotations>
+                <Annotation name="a">value</Annotation>
+              </Annotations>
+              <Dimension name="Store">
+                <Hierarchy hasAll="true" primaryKey="store_id">
+                  <Table name="store"/>
+                  <Level name="Store Country" column="store_country" uniqueMembers="true"/>
+                  <Level name="Store Name" column="store_name" uniqueMembers="true"/>
+                </Hierarchy>
+              </Dimension>
+              <Cube name="Sales" defaultMeasure="Unit Sales">
+                <Table name="sales_fact_1997">
+                  <AggExclude name="agg_c_special_sales_fact_1997"/>
+                </Table>
+                <DimensionUsage name="Store" source="Store" foreignKey="store_id"/>
+                <Dimension name="Time" type="TimeDimension" foreignKey="time_id">
+                  <Hierarchy hasAll="false" primaryKey="time_id">
+                    <Table name="time_by_day"/>
+                    <Level name="Year" column="the_year" type="Numeric" uniqueMembers="true" levelType="TimeYears"/>
+                  </Hierarchy>
+                </Dimension>
+                <Dimension name="Product" foreignKey="product_id">
+                  <Hierarchy hasAll="true" primaryKey="product_id" primaryKeyTable="product">
+                    <Join leftKey="product_class_id" rightKey="product_class_id">
+                      <Table name="product"/>
+                      <Table name="product_class"/>
+                    </Join>
+                    <Level name="Product Family" table="product_class" column="product_family" uniqueMembers="true"/>
+                    <Level name="Brand Name" table="product" uniqueMembers="false">
+                      <KeyExpression>
+                        <SQL dialect="generic">brand_name</SQL>
+                      </KeyExpression>
+                    </Level>
+                  </Hierarchy>
+                </Dimension>
+                <Measure name="Unit Sales" column="unit_sales" aggregator="sum" formatString="Standard"/>
+                <CalculatedMember name="Profit" dimension="Measures">
+                  <Formula>[Measures].[Unit Sales] * 2</Formula>
+                  <CalculatedMemberProperty name="FORMAT_STRING" value="$#,##0.00"/>
+                </CalculatedMember>
+              </Cube>
+              <VirtualCube name="Warehouse and Sales">
+                <VirtualCubeDimension name="Store"/>
+                <VirtualCubeMeasure cubeName="Sales" name="[Measures].[Unit Sales]"/>
+              </VirtualCube>
+              <Role name="California manager">
+                <SchemaGrant access="none">
+                  <CubeGrant cube="Sales" access="all">
+                    <HierarchyGrant hierarchy="[Store]" access="custom" topLevel="[Store].[Store Country]">
+                      <MemberGrant member="[Store].[USA].[CA]" access="all"/>
+                    </HierarchyGrant>
+                  </CubeGrant>
+                </SchemaGrant>
+              </Role>
+            </Schema>
+            """;
+
+    @Test
+    void testRoundTrip() throws Exception {
+        SchemaImpl schema = read(CATALOG);
+
+        SchemaImpl restored = SchemaSnapshot.read(ByteBuffer.wrap(SchemaSnapshot.write(schema)));
+
+        assertThat(restored).isNotSameAs(schema);
+        assertThat(marshal(restored)).isEqualTo(marshal(schema));
+        assertThat(restored.cubes()
+                .get(0)
+                .fact()).isInstanceOf(Table.class);
+        assertThat(hierarchy(restored, 2).relation()).isInstanceOf(Join.class);
+        assertThat(hierarchy(restored, 1).levels()
+                .get(0)
+                .levelType()).isEqualTo(LevelTypeEnum.TIME_YEARS);
+    }
+
+    @Test
+    void testFile(@TempDir Path directory) throws Exception {
+        byte[] catalog = CATALOG.getBytes(StandardCharsets.UTF_8);
+        Path file = SchemaSnapshot.file(directory, catalog);
+        assertThat(file).isEqualTo(SchemaSnapshot.file(directory, catalog.clone()));
+        assertThat(file).isNotEqualTo(SchemaSnapshot.file(directory, CATALOG.replace("Test", "Other")
+                .getBytes(StandardCharsets.UTF_8)));
+
+        SchemaImpl schema = read(CATALOG);
+        SchemaSnapshot.write(schema, file);
+
+        assertThat(directory).isDirectoryContaining(p -> p.equals(file));
+        assertThat(marshal(SchemaSnapshot.read(file))).isEqualTo(marshal(schema));
+    }
+
+    @Test
+    void testInvalid(@TempDir Path directory) throws Exception {
+        byte[] snapshot = SchemaSnapshot.write(read(CATALOG));
+
+        assertThatThrownBy(() -> SchemaSnapshot.read(ByteBuffer.wrap(CATALOG.getBytes(StandardCharsets.UTF_8))))
+                .isInstanceOf(SnapshotException.class);
+        Path truncated = directory.resolve("truncated");
+        Files.write(truncated, Arrays.copyOf(snapshot, snapshot.length / 2));
+        assertThatThrownBy(() -> SchemaSnapshot.read(truncated)).isInstanceOf(SnapshotException.class);
+    }
+
+    @Test
+    void testCorrupt() throws Exception {
+        byte[] snapshot = SchemaSnapshot.write(read(CATALOG));
+
+        for (int i = 8; i < snapshot.length; i++) {
+            byte[] corrupt = snapshot.clone();
+            corrupt[i] ^= 0x55;
+            try {
+                SchemaSnapshot.read(ByteBuffer.wrap(corrupt));
+            } catch (RuntimeException e) {
+                assertThat(e).as("byte %d", i)
+                        .isInstanceOf(SnapshotException.class);
+            }
+        }
+    }
+
+    @Test
+    void testClassNotAllowed() {
+        byte[] name = "java.util.ArrayList".getBytes(StandardCharsets.UTF_8);
+        ByteBuffer snapshot = ByteBuffer.allocate(12 + name.length);
+        // magic, version, object of class 0, named by a new string
+        snapshot.putInt(0x44534e50)
+                .putInt(1)
+                .put((byte) 10)
+                .put((byte) 0)
+                .put((byte) 1)
+                .put((byte) (name.length << 1))
+                .put(name)
+                .flip();
+
+        assertThatThrownBy(() -> SchemaSnapshot.read(snapshot)).isInstanceOf(SnapshotException.class)
+                .hasMessageContaining("not allowed");
+    }
+
+    private static Hierarchy hierarchy(SchemaImpl schema, int dimension) {
+        return ((PrivateDimension) schema.cubes()
+                .get(0)
+                .dimensionUsageOrDimensions()
+                .get(dimension)).hierarchies()
+                .get(0);
+    }
+
+    private static SchemaImpl read(String catalog) throws Exception {
+        return new XmlSchemaReader().read(new ByteArrayInputStream(catalog.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    static String marshal(SchemaImpl schema) throws Exception {
+        Marshaller marshaller = JAXBContext.newInstance(SchemaImpl.class)
+                .createMarshaller();
+        StringWriter writer = new StringWriter();
+        marshaller.marshal(schema, writer);
+        return writer.toString();
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   SmartCity Jena - initial
+ */
+package org.eclipse.daanse.olap.rolap.dbmapper.verifyer.basic.jdbc;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.daanse.db.jdbc.metadata.api.JdbcMetaDataService;
+import org.eclipse.daanse.db.jdbc.metadata.impl.Column;
+import org.eclipse.daanse.db.jdbc.metadata.impl.ForeignKey;
+
+/**
+ * {@link JdbcMetaDataService} that answers the existence and data type checks
+ * of a verification run from metadata that is read once.
+ *
+ * <p>
+ * The tables of a database schema are read in bulk with
+ * {@link JdbcMetaDataService#getAllTables(String)} on the first check against
+ * the schema, the columns of a table with
+ * {@link JdbcMetaDataService#getAllColumns(String, String)} on the first check
+ * against the table, and only if the table exists. Both are kept for the
+ * lifetime of this instance. A failed read is not cached, the next check reads
+ * again. Reads are serialized, so the delegate is never used by two threads at
+ * once, while lookups of cached metadata may run concurrently.
+ *
+ * <p>
+ * The columns are not read per database schema as well, as drivers fail on
+ * that for large schemas, SQLite for example for more than 500 tables.
+ *
+ * <p>
+ * Table and column names are looked up by exact, case-sensitive equality with
+ * the names the driver reports. The live service passes them to
+ * {@link java.sql.DatabaseMetaData} as search patterns, in which {@code _} and
+ * {@code %} are wildcards, so that there a check of {@code sales_fact} also
+ * succeeds if only a table {@code sales1fact} exists; here it fails, as it
+ * should. The schema name of the bulk reads and the table name of the column
+ * read are still patterns, as in the live service, so that the columns of a
+ * table whose name contains {@code _} may include those of similarly named
+ * tables.
+ */
+class CachingJdbcMetaDataService implements JdbcMetaDataService {
+
+    private final JdbcMetaDataService delegate;
+    private final Map<Key, Set<String>> tables = new ConcurrentHashMap<>();
+    private final Map<Key, Map<String, Integer>> columns = new ConcurrentHashMap<>();
+    private final Map<Key, Boolean> schemas = new ConcurrentHashMap<>();
+
+    CachingJdbcMetaDataService(JdbcMetaDataService delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public Optional<Integer> getColumnDataType(String schemaName, String tableName, String columnName)
+            throws SQLException {
+        if (tableName == null) {
+            synchronized (this) {
+                return delegate.getColumnDataType(schemaName, tableName, columnName);
+            }
+        }
+        Map<String, Integer> types = columns(schemaName, tableName);
+        if (columnName == null) {
+            return types.values()
+                    .stream()
+                    .findFirst();
+        }
+        return Optional.ofNullable(types.get(columnName));
+    }
+
+    @Override
+    public boolean doesColumnExist(String schemaName, String tableName, String columnName) throws SQLException {
+        return getColumnDataType(schemaName, tableName, columnName).isPresent();
+    }
+
+    @Override
+    public boolean doesTableExist(String schemaName, String tableName) throws SQLException {
+        Set<String> names = tables(schemaName);
+        return tableName == null ? !names.isEmpty() : names.contains(tableName);
+    }
+
+    @Override
+    public boolean doesSchemaExist(String schemaName) throws SQLException {
+        Key key = new Key(schemaName, null);
+        Boolean exists = schemas.get(key);
+        if (exists == null) {
+            synchronized (this) {
+                exists = schemas.get(key);
+                if (exists == null) {
+                    exists = delegate.doesSchemaExist(schemaName);
+                    schemas.put(key, exists);
+                }
+            }
+        }
+        return exists;
+    }
+
+    @Override
+    public synchronized List<ForeignKey> getForeignKeys(String schemaName, String tableName) {
+        return delegate.getForeignKeys(schemaName, tableName);
+    }
+
+    @Override
+    public synchronized List<Column> getColumns(String schemaName, String tableName) {
+        return delegate.getColumns(schemaName, tableName);
+    }
+
+    @Override
+    public List<String> getAllTables(String schemaName) throws SQLException {
+        return new ArrayList<>(tables(schemaName));
+    }
+
+    @Override
+    public List<Column> getAllColumns(String schemaName, String tableName) throws SQLException {
+        return columns(schemaName, tableName).entrySet()
+                .stream()
+                .map(e -> new Column(e.getKey(), e.getValue()))
+                .toList();
+    }
+
+    private Set<String> tables(String schemaName) throws SQLException {
+        Key key = new Key(schemaName, null);
+        Set<String> names = tables.get(key);
+        if (names == null) {
+            synchronized (this) {
+                names = tables.get(key);
+                if (names == null) {
+                    names = new HashSet<>(delegate.getAllTables(schemaName));
+                    tables.put(key, names);
+                }
+            }
+        }
+        return names;
+    }
+
+    private Map<String, Integer> columns(String schemaName, String tableName) throws SQLException {
+        Key key = new Key(schemaName, tableName);
+        Map<String, Integer> types = columns.get(key);
+        if (types == null) {
+            boolean exists = tables(schemaName).contains(tableName);
+            synchronized (this) {
+                types = columns.get(key);
+                if (types == null) {
+                    types = new LinkedHashMap<>();
+                    if (exists) {
+                        // the first column of a name wins, as in the live lookup
+                        for (Column column : delegate.getAllColumns(schemaName, tableName)) {
+                            types.putIfAbsent(column.getName(), column.getType());
+                        }
+                    }
+                    columns.put(key, types);
+                }
+            }
+        }
+        return types;
+    }
+
+    /**
+     * Cache key of a database schema or of a table in it, {@code null} stands
+     * for all schemas.
+     */
+    private record Key(String schemaName, String tableName) {
+    }
+}
@@ -9,4 +9,9 @@ public interface DatabaseVerifierConfig {
     default Boolean isSchemaRequired() {
         return true;
     }
+
+    @AttributeDefinition(description = "verify the cubes of a schema in parallel")
+    default Boolean isParallel() {
+        return true;
+    }
 }
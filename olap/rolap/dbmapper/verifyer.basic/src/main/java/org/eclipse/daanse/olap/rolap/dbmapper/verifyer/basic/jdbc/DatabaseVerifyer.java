@@ -63,7 +63,7 @@ public class DatabaseVerifyer implements Verifyer {
         List<VerificationResult> results = new ArrayList<>();
 
         try (Connection connection = dataSource.getConnection()) {
-            JdbcMetaDataService jmds = jmdsf.create(connection);
+            JdbcMetaDataService jmds = new CachingJdbcMetaDataService(jmdsf.create(connection));
 
             JDBCSchemaWalker walker = new JDBCSchemaWalker(config, jmds);
             return walker.checkSchema(schema);
@@ -21,13 +21,18 @@ import org.eclipse.daanse.olap.rolap.dbmapper.model.api.Join;
 import org.eclipse.daanse.olap.rolap.dbmapper.model.api.Measure;
 import org.eclipse.daanse.olap.rolap.dbmapper.model.api.PrivateDimension;
 import org.eclipse.daanse.olap.rolap.dbmapper.model.api.Property;
+import org.eclipse.daanse.olap.rolap.dbmapper.model.api.Schema;
 import org.eclipse.daanse.olap.rolap.dbmapper.model.api.Table;
 import org.eclipse.daanse.olap.rolap.dbmapper.verifyer.api.Cause;
+import org.eclipse.daanse.olap.rolap.dbmapper.verifyer.api.VerificationResult;
 import org.eclipse.daanse.olap.rolap.dbmapper.verifyer.basic.AbstractSchemaWalker;
 import org.eclipse.daanse.olap.rolap.dbmapper.verifyer.basic.SchemaExplorer;
 import org.eclipse.daanse.olap.rolap.dbmapper.verifyer.basic.VerificationResultR;
 
 import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 
 import static org.eclipse.daanse.olap.rolap.dbmapper.verifyer.api.Cause.DATABASE;
@@ -69,18 +74,54 @@ import static org.eclipse.daanse.olap.rolap.dbmapper.verifyer.basic.SchemaWalker
 import static org.eclipse.daanse.olap.rolap.dbmapper.verifyer.basic.SchemaWalkerMessages.TABLE;
 import static org.eclipse.daanse.olap.rolap.dbmapper.verifyer.basic.SchemaWalkerMessages.TABLE_S_DOES_NOT_EXIST_IN_DATABASE;
 
+/**
+ * Checks the tables and columns a schema refers to against the database.
+ *
+ * <p>
+ * If {@link DatabaseVerifierConfig#isParallel()} is set, the cubes of the
+ * schema are checked in parallel, each by a walker of its own, and their
+ * results are added in the order of the cubes, so the results are the same as
+ * of a sequential walk. Missing cubes, {@code null} entries of the list, are
+ * skipped in both walks. The {@link JdbcMetaDataService} must then be safe for
+ * use by several threads, as the {@link CachingJdbcMetaDataService} is.
+ */
 public class JDBCSchemaWalker extends AbstractSchemaWalker {
 
     private JdbcMetaDataService jmds;
     private DatabaseVerifierConfig config;
+    private Iterator<List<VerificationResult>> cubeResults;
 
     public JDBCSchemaWalker(DatabaseVerifierConfig config, JdbcMetaDataService jmds) {
         this.config = config;
         this.jmds = jmds;
     }
 
+    @Override
+    public List<VerificationResult> checkSchema(Schema schema) {
+        if (schema != null && schema.cubes() != null && Boolean.TRUE.equals(config.isParallel())) {
+            cubeResults = schema.cubes()
+                .parallelStream()
+                .filter(Objects::nonNull)
+                .map(this::checkCubeSeparately)
+                .toList()
+                .iterator();
+        }
+        try {
+            return super.checkSchema(schema);
+        } finally {
+            cubeResults = null;
+        }
+    }
+
     @Override
     protected void checkCube(Cube cube) {
+        if (cube == null) {
+            return;
+        }
+        if (cubeResults != null && cubeResults.hasNext()) {
+            results.addAll(cubeResults.next());
+            return;
+        }
         super.checkCube(cube);
 
         if (cube.fact() instanceof Table table) {
@@ -294,6 +335,12 @@ public class JDBCSchemaWalker extends AbstractSchemaWalker {
         return config.isSchemaRequired();
     }
 
+    private List<VerificationResult> checkCubeSeparately(Cube cube) {
+        JDBCSchemaWalker walker = new JDBCSchemaWalker(config, jmds);
+        walker.checkCube(cube);
+        return walker.results;
+    }
+
     private void checkPropertyHierarchy(String column, Hierarchy hierarchy, Cube cube) {
         if (hierarchy.relation() == null && cube != null) {
             checkPropertyHierarchyRelationNull(column, cube);
@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   SmartCity Jena - initial
+ */
+package org.eclipse.daanse.olap.rolap.dbmapper.verifyer.basic.jdbc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.eclipse.daanse.olap.rolap.dbmapper.verifyer.basic.SchemaWalkerMessages.AGGREGATOR_IS_NOT_VALID_FOR_THE_DATA_TYPE_OF_THE_COLUMN;
+import static org.eclipse.daanse.olap.rolap.dbmapper.verifyer.basic.SchemaWalkerMessages.COLUMN_S_DEFINED_IN_FIELD_DOES_NOT_EXIST_IN_TABLE;
+import static org.eclipse.daanse.olap.rolap.dbmapper.verifyer.basic.SchemaWalkerMessages.FACT_TABLE_0_DOES_NOT_EXIST_IN_DATABASE;
+import static org.eclipse.daanse.olap.rolap.dbmapper.verifyer.basic.SchemaWalkerMessages.PRIMARY_KEY;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.daanse.db.jdbc.metadata.impl.JdbcMetaDataServiceLiveImpl;
+import org.eclipse.daanse.olap.rolap.dbmapper.model.api.Cube;
+import org.eclipse.daanse.olap.rolap.dbmapper.model.api.CubeDimension;
+import org.eclipse.daanse.olap.rolap.dbmapper.model.api.Measure;
+import org.eclipse.daanse.olap.rolap.dbmapper.model.api.Schema;
+import org.eclipse.daanse.olap.rolap.dbmapper.model.record.TableR;
+import org.eclipse.daanse.olap.rolap.dbmapper.model.record.builder.CubeRBuilder;
+import org.eclipse.daanse.olap.rolap.dbmapper.model.record.builder.HierarchyRBuilder;
+import org.eclipse.daanse.olap.rolap.dbmapper.model.record.builder.LevelRBuilder;
+import org.eclipse.daanse.olap.rolap.dbmapper.model.record.builder.MeasureRBuilder;
+import org.eclipse.daanse.olap.rolap.dbmapper.model.record.builder.PrivateDimensionRBuilder;
+import org.eclipse.daanse.olap.rolap.dbmapper.model.record.builder.SchemaRBuilder;
+import org.eclipse.daanse.olap.rolap.dbmapper.verifyer.api.VerificationResult;
+import org.eclipse.daanse.olap.rolap.dbmapper.verifyer.api.Verifyer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.osgi.test.common.annotation.InjectService;
+import org.osgi.test.junit5.context.BundleContextExtension;
+import org.osgi.test.junit5.service.ServiceExtension;
+import org.sqlite.SQLiteDataSource;
+
+@ExtendWith(BundleContextExtension.class)
+@ExtendWith(ServiceExtension.class)
+class DatabaseVerifyerSqliteTest {
+
+    private static final int CUBES = 100;
+    private static final int DIMENSIONS = 29;
+
+    @InjectService(filter = "(component.name=" + DatabaseVerifyerTest.COMPONENT_NAME + ")")
+    Verifyer verifyer;
+
+    @Test
+    void testManyTables(@TempDir Path directory) throws Exception {
+        SQLiteDataSource dataSource = new SQLiteDataSource();
+        dataSource.setUrl("jdbc:sqlite:" + directory.resolve("verifyer.sqlite"));
+        createTables(dataSource);
+        Schema schema = schema();
+
+        List<VerificationResult> expected;
+        try (Connection connection = dataSource.getConnection()) {
+            DatabaseVerifierConfig sequential = new DatabaseVerifierConfig() {
+                @Override
+                public Boolean isParallel() {
+                    return false;
+                }
+            };
+            expected = new JDBCSchemaWalker(sequential, new JdbcMetaDataServiceLiveImpl(connection))
+                .checkSchema(schema);
+        }
+
+        List<VerificationResult> result = verifyer.verify(schema, dataSource);
+
+        assertThat(result).isNotEmpty()
+            .containsExactlyElementsOf(expected);
+        assertThat(result).extracting(VerificationResult::description)
+            .contains(String.format(FACT_TABLE_0_DOES_NOT_EXIST_IN_DATABASE, "missing_fact_0", "."))
+            .contains(String.format(AGGREGATOR_IS_NOT_VALID_FOR_THE_DATA_TYPE_OF_THE_COLUMN, "sum", "label"))
+            .contains(String.format(COLUMN_S_DEFINED_IN_FIELD_DOES_NOT_EXIST_IN_TABLE, "missing_id", PRIMARY_KEY,
+                "dim_5_0"));
+    }
+
+    /**
+     * Creates a fact table and {@link #DIMENSIONS} dimension tables per cube,
+     * 3000 tables in all.
+     */
+    private static void createTables(SQLiteDataSource dataSource) throws Exception {
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            connection.setAutoCommit(false);
+            for (int c = 0; c < CUBES; c++) {
+                StringBuilder fact = new StringBuilder("CREATE TABLE fact_").append(c)
+                    .append(" (amount NUMERIC, label TEXT");
+                for (int d = 0; d < DIMENSIONS; d++) {
+                    fact.append(", dim_").append(d).append("_id INTEGER");
+                    statement.executeUpdate("CREATE TABLE dim_" + c + "_" + d + " (id INTEGER, name TEXT)");
+                }
+                statement.executeUpdate(fact.append(")").toString());
+            }
+            connection.commit();
+        }
+    }
+
+    /**
+     * Every tenth cube has a missing fact table, every seventh cube sums a text
+     * column and every fifth cube has a hierarchy with a missing primary key.
+     */
+    private static Schema schema() {
+        List<Cube> cubes = new ArrayList<>();
+        for (int c = 0; c < CUBES; c++) {
+            List<CubeDimension> dimensions = new ArrayList<>();
+            for (int d = 0; d < DIMENSIONS; d++) {
+                TableR table = new TableR(null, "dim_" + c + "_" + d, null, List.of());
+                dimensions.add(PrivateDimensionRBuilder.builder()
+                    .name("Dimension " + d)
+                    .foreignKey("dim_" + d + "_id")
+                    .hierarchies(List.of(HierarchyRBuilder.builder()
+                        .hasAll(true)
+                        .primaryKey(c % 5 == 0 && d == 0 ? "missing_id" : "id")
+                        .relation(table)
+                        .levels(List.of(LevelRBuilder.builder()
+                            .name("Level " + d)
+                            .column("name")
+                            .uniqueMembers(true)
+                            .build()))
+                        .build()))
+                    .build());
+            }
+            List<Measure> measures = new ArrayList<>();
+            measures.add(MeasureRBuilder.builder()
+                .name("Amount")
+                .column("amount")
+                .aggregator("sum")
+                .build());
+            if (c % 7 == 0) {
+                measures.add(MeasureRBuilder.builder()
+                    .name("Label")
+                    .column("label")
+                    .aggregator("sum")
+                    .build());
+            }
+            cubes.add(CubeRBuilder.builder()
+                .name("Cube " + c)
+                .fact(new TableR(null, c % 10 == 0 ? "missing_fact_" + c : "fact_" + c, null, List.of()))
+                .enabled(true)
+                .measures(measures)
+                .dimensionUsageOrDimensions(dimensions)
+                .build());
+        }
+        return SchemaRBuilder.builder()
+            .name("Verifyer")
+            .cubes(cubes)
+            .build();
+    }
+}
@@ -61,6 +61,7 @@ class DatabaseVerifyerTest {
     Connection connection = mock(Connection.class);
     DatabaseMetaData metaData = mock(DatabaseMetaData.class);
     ResultSet rs = mock(ResultSet.class);
+    ResultSet columns = mock(ResultSet.class);
 
     Schema schema = mock(Schema.class);
     Cube cube = mock(Cube.class);
@@ -108,11 +109,31 @@ class DatabaseVerifyerTest {
             .containsOnly(org.eclipse.daanse.olap.rolap.dbmapper.verifyer.api.Level.ERROR);
     }
 
+    @Test
+    void testNullCube() throws Exception {
+        when(metaData.getTables(any(), any(), any(), any())).thenReturn(rs);
+        when(rs.next()).thenReturn(false);
+        when(schema.cubes()).thenAnswer(setupDummyListAnswer(null, cube, null));
+        when(cube.fact()).thenReturn(table);
+        when(table.name()).thenReturn("name");
+        when(table.schema()).thenReturn("schema");
+        List<VerificationResult> result = verifyer.verify(schema, dataSource);
+        assertThat(result).isNotNull()
+            .hasSize(2);
+
+        assertThat(result)
+            .extracting(VerificationResult::description)
+            .contains(String.format(CUBE_MUST_CONTAIN_MEASURES, NOT_SET))
+            .contains(String.format(FACT_TABLE_0_DOES_NOT_EXIST_IN_DATABASE, "name",
+                SCHEMA_SPACE + "schema"));
+    }
+
     @Test
     void testMeasure1() throws Exception {
         when(metaData.getColumns(any(), any(), any(), any())).thenThrow(new SQLException());
         when(metaData.getTables(any(), any(), any(), any())).thenReturn(rs);
-        when(rs.next()).thenReturn(true);
+        when(rs.next()).thenReturn(true, false);
+        when(rs.getString("TABLE_NAME")).thenReturn("name");
         when(schema.cubes()).thenAnswer(setupDummyListAnswer(cube));
         when(cube.fact()).thenReturn(table);
         when(cube.measures()).thenAnswer(setupDummyListAnswer(measure));
@@ -135,10 +156,13 @@ class DatabaseVerifyerTest {
 
     @Test
     void testMeasure2() throws Exception {
-        when(metaData.getColumns(any(), any(), any(), any())).thenReturn(rs);
+        when(metaData.getColumns(any(), any(), any(), any())).thenReturn(columns);
         when(metaData.getTables(any(), any(), any(), any())).thenReturn(rs);
-        when(rs.next()).thenReturn(true);
-        when(rs.getInt("DATA_TYPE")).thenReturn(1);
+        when(rs.next()).thenReturn(true, false);
+        when(rs.getString("TABLE_NAME")).thenReturn("name");
+        when(columns.next()).thenReturn(true, false);
+        when(columns.getString("COLUMN_NAME")).thenReturn("column");
+        when(columns.getInt("DATA_TYPE")).thenReturn(1);
         when(schema.cubes()).thenAnswer(setupDummyListAnswer(cube));
         when(cube.fact()).thenReturn(table);
         when(cube.measures()).thenAnswer(setupDummyListAnswer(measure));
@@ -8,7 +8,20 @@ public class Constants {
         // constructor
     }
 
-    private static final String URN_SCHEMAS_MICROSOFT_COM_XML_ANALYSIS = "urn:schemas-microsoft-com:xml-analysis";
+    static final String URN_SCHEMAS_MICROSOFT_COM_XML_ANALYSIS = "urn:schemas-microsoft-com:xml-analysis";
+    static final String URN_SCHEMAS_MICROSOFT_COM_XML_ANALYSIS_ROWSET = "urn:schemas-microsoft-com:xml-analysis:rowset";
+    static final String URN_SCHEMAS_MICROSOFT_COM_XML_ANALYSIS_MDDATASET =
+        "urn:schemas-microsoft-com:xml-analysis:mddataset";
+    static final String HTTP_SCHEMAS_XMLSOAP_ORG_SOAP_ENVELOPE = "http://schemas.xmlsoap.org/soap/envelope/";
+    static final String HTTP_SCHEMAS_MICROSOFT_COM_ANALYSISSERVICES_2003_ENGINE =
+        "http://schemas.microsoft.com/analysisservices/2003/engine";
+    static final String HTTP_SCHEMAS_MICROSOFT_COM_ANALYSISSERVICES_2003_XMLA =
+        "http://schemas.microsoft.com/analysisservices/2003/xmla";
+    static final String HTTP_SCHEMAS_MICROSOFT_COM_ANALYSISSERVICES_2010_ENGINE_200 =
+        "http://schemas.microsoft.com/analysisservices/2010/engine/200";
+
+    public static final QName QNAME_SOAP_ENVELOPE = new QName(HTTP_SCHEMAS_XMLSOAP_ORG_SOAP_ENVELOPE, "Envelope");
+    public static final QName QNAME_SOAP_BODY = new QName(HTTP_SCHEMAS_XMLSOAP_ORG_SOAP_ENVELOPE, "Body");
 
     public static final QName QNAME_MSXMLA_DISCOVER = new QName(URN_SCHEMAS_MICROSOFT_COM_XML_ANALYSIS,
         "Discover");
@@ -24,4 +37,10 @@ public class Constants {
         "PropertyList");
     public static final QName QNAME_MSXMLA_EXECUTE = new QName(URN_SCHEMAS_MICROSOFT_COM_XML_ANALYSIS,
         "Execute");
+    public static final QName QNAME_MSXMLA_COMMAND = new QName(URN_SCHEMAS_MICROSOFT_COM_XML_ANALYSIS,
+        "Command");
+    public static final QName QNAME_MSXMLA_STATEMENT = new QName(URN_SCHEMAS_MICROSOFT_COM_XML_ANALYSIS,
+        "Statement");
+    public static final QName QNAME_MSXMLA_PARAMETERS = new QName(URN_SCHEMAS_MICROSOFT_COM_XML_ANALYSIS,
+        "Parameters");
 }
@@ -0,0 +1,240 @@
+/*
+* Copyright (c) 2023 Contributors to the Eclipse Foundation.
+*
+* This program and the accompanying materials are made
+* available under the terms of the Eclipse Public License 2.0
+* which is available at https://www.eclipse.org/legal/epl-2.0/
+*
+* SPDX-License-Identifier: EPL-2.0
+*
+* Contributors:
+*   SmartCity Jena - initial
+*/
+package org.eclipse.daanse.xmla.ws.jakarta.provider.soapmessage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded buffer through which a writer thread passes a response to the
+ * transport that reads it.
+ *
+ * <p>
+ * Unlike {@link java.io.PipedInputStream}, neither side waits for the other
+ * longer than the timeout, the writer fails as soon as the transport closes its
+ * end, and a failure of the writer is reported to the transport as an
+ * {@link IOException} rather than as the end of the stream, so that a truncated
+ * response is aborted instead of being sent as if it were complete.
+ */
+final class ResponsePipe {
+
+    private final byte[] buffer;
+    private final long timeoutNanos;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition readable = lock.newCondition();
+    private final Condition writable = lock.newCondition();
+    private final InputStream in = new In();
+    private final OutputStream out = new Out();
+
+    private int head;
+    private int count;
+    private boolean writerClosed;
+    private boolean readerClosed;
+    private Throwable failure;
+
+    ResponsePipe(int size, long timeoutMillis) {
+        this.buffer = new byte[size];
+        this.timeoutNanos = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+    }
+
+    /**
+     * Returns the end that the transport reads.
+     */
+    InputStream in() {
+        return in;
+    }
+
+    /**
+     * Returns the end that the writer writes; closing it completes the
+     * response.
+     */
+    OutputStream out() {
+        return out;
+    }
+
+    /**
+     * Ends the response with an error, unless it is already complete. The
+     * transport gets an {@link IOException} on its next read.
+     */
+    void fail(Throwable cause) {
+        lock.lock();
+        try {
+            if (!writerClosed) {
+                failure = cause;
+                writerClosed = true;
+                readable.signalAll();
+                writable.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Waits until the buffer is full or the response is complete or failed, at
+     * most for the timeout, so that an error early in the response can still
+     * be answered with a fault.
+     *
+     * @throws IOException if the writer failed
+     */
+    void awaitFilled() throws IOException {
+        lock.lock();
+        try {
+            long nanos = timeoutNanos;
+            while (count < buffer.length && !writerClosed && nanos > 0) {
+                nanos = readable.awaitNanos(nanos);
+            }
+            if (failure != null) {
+                throw new IOException(failure);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread()
+                    .interrupt();
+            throw new InterruptedIOException();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private class In extends InputStream {
+
+        @Override
+        public int read() throws IOException {
+            byte[] b = new byte[1];
+            return read(b, 0, 1) < 0 ? -1 : b[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            lock.lock();
+            try {
+                long nanos = timeoutNanos;
+                while (count == 0 && !writerClosed && !readerClosed) {
+                    if (nanos <= 0) {
+                        throw new IOException("No response was written for " + timeoutMillis() + " ms");
+                    }
+                    nanos = readable.awaitNanos(nanos);
+                }
+                if (readerClosed) {
+                    throw new IOException("Pipe closed");
+                }
+                if (failure != null) {
+                    throw new IOException("Writing the response failed", failure);
+                }
+                if (count == 0) {
+                    return -1;
+                }
+                int n = Math.min(len, Math.min(count, buffer.length - head));
+                System.arraycopy(buffer, head, b, off, n);
+                head = (head + n) % buffer.length;
+                count -= n;
+                writable.signalAll();
+                return n;
+            } catch (InterruptedException e) {
+                Thread.currentThread()
+                        .interrupt();
+                throw new InterruptedIOException();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public int available() {
+            lock.lock();
+            try {
+                return count;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public void close() {
+            lock.lock();
+            try {
+                readerClosed = true;
+                count = 0;
+                writable.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private class Out extends OutputStream {
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] { (byte) b }, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            lock.lock();
+            try {
+                while (len > 0) {
+                    long nanos = timeoutNanos;
+                    while (count == buffer.length && !readerClosed && !writerClosed) {
+                        if (nanos <= 0) {
+                            throw new IOException("The response was not read for " + timeoutMillis() + " ms");
+                        }
+                        nanos = writable.awaitNanos(nanos);
+                    }
+                    if (readerClosed) {
+                        throw new IOException("The response was closed by the transport");
+                    }
+                    if (writerClosed) {
+                        throw new IOException("Pipe closed");
+                    }
+                    int tail = (head + count) % buffer.length;
+                    int n = Math.min(len, Math.min(buffer.length - count, buffer.length - tail));
+                    System.arraycopy(b, off, buffer, tail, n);
+                    count += n;
+                    off += n;
+                    len -= n;
+                    readable.signalAll();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread()
+                        .interrupt();
+                throw new InterruptedIOException();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public void close() {
+            lock.lock();
+            try {
+                writerClosed = true;
+                readable.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private long timeoutMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(timeoutNanos);
+    }
+}
@@ -0,0 +1,286 @@
+/*
+* Copyright (c) 2023 Contributors to the Eclipse Foundation.
+*
+* This program and the accompanying materials are made
+* available under the terms of the Eclipse Public License 2.0
+* which is available at https://www.eclipse.org/legal/epl-2.0/
+*
+* SPDX-License-Identifier: EPL-2.0
+*
+* Contributors:
+*   SmartCity Jena - initial
+*/
+package org.eclipse.daanse.xmla.ws.jakarta.provider.soapmessage;
+
+import static javax.xml.stream.XMLStreamConstants.CHARACTERS;
+import static javax.xml.stream.XMLStreamConstants.CDATA;
+import static javax.xml.stream.XMLStreamConstants.END_ELEMENT;
+import static javax.xml.stream.XMLStreamConstants.START_ELEMENT;
+import static org.eclipse.daanse.xmla.api.discover.discover.properties.DiscoverPropertiesRestrictions.RESTRICTIONS_PROPERTY_NAME;
+import static org.eclipse.daanse.xmla.api.discover.mdschema.members.MdSchemaMembersRestrictions.RESTRICTIONS_CATALOG_NAME;
+import static org.eclipse.daanse.xmla.api.discover.mdschema.members.MdSchemaMembersRestrictions.RESTRICTIONS_CUBE_NAME;
+import static org.eclipse.daanse.xmla.api.discover.mdschema.members.MdSchemaMembersRestrictions.RESTRICTIONS_CUBE_SOURCE;
+import static org.eclipse.daanse.xmla.api.discover.mdschema.members.MdSchemaMembersRestrictions.RESTRICTIONS_DIMENSION_UNIQUE_NAME;
+import static org.eclipse.daanse.xmla.api.discover.mdschema.members.MdSchemaMembersRestrictions.RESTRICTIONS_HIERARCHY_UNIQUE_NAME;
+import static org.eclipse.daanse.xmla.api.discover.mdschema.members.MdSchemaMembersRestrictions.RESTRICTIONS_LEVEL_NUMBER;
+import static org.eclipse.daanse.xmla.api.discover.mdschema.members.MdSchemaMembersRestrictions.RESTRICTIONS_LEVEL_UNIQUE_NAME;
+import static org.eclipse.daanse.xmla.api.discover.mdschema.members.MdSchemaMembersRestrictions.RESTRICTIONS_MEMBER_CAPTION;
+import static org.eclipse.daanse.xmla.api.discover.mdschema.members.MdSchemaMembersRestrictions.RESTRICTIONS_MEMBER_NAME;
+import static org.eclipse.daanse.xmla.api.discover.mdschema.members.MdSchemaMembersRestrictions.RESTRICTIONS_MEMBER_TYPE;
+import static org.eclipse.daanse.xmla.api.discover.mdschema.members.MdSchemaMembersRestrictions.RESTRICTIONS_MEMBER_UNIQUE_NAME;
+import static org.eclipse.daanse.xmla.api.discover.mdschema.members.MdSchemaMembersRestrictions.RESTRICTIONS_SCHEMA_NAME;
+import static org.eclipse.daanse.xmla.api.discover.mdschema.members.MdSchemaMembersRestrictions.RESTRICTIONS_TREE_OP;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.eclipse.daanse.xmla.api.common.enums.CubeSourceEnum;
+import org.eclipse.daanse.xmla.api.common.enums.MemberTypeEnum;
+import org.eclipse.daanse.xmla.api.common.enums.TreeOpEnum;
+import org.eclipse.daanse.xmla.api.common.properties.PropertyListElementDefinition;
+import org.eclipse.daanse.xmla.api.execute.ExecuteParameter;
+import org.eclipse.daanse.xmla.model.record.discover.PropertiesR;
+import org.eclipse.daanse.xmla.model.record.discover.discover.properties.DiscoverPropertiesRequestR;
+import org.eclipse.daanse.xmla.model.record.discover.discover.properties.DiscoverPropertiesRestrictionsR;
+import org.eclipse.daanse.xmla.model.record.discover.mdschema.members.MdSchemaMembersRequestR;
+import org.eclipse.daanse.xmla.model.record.discover.mdschema.members.MdSchemaMembersRestrictionsR;
+import org.eclipse.daanse.xmla.model.record.execute.ExecuteParameterR;
+import org.eclipse.daanse.xmla.model.record.execute.statement.StatementRequestR;
+import org.eclipse.daanse.xmla.model.record.xmla.StatementR;
+
+/**
+ * Reads an XMLA request from a SOAP envelope with a {@link XMLStreamReader}
+ * into the request records of the XMLA API, without building a DOM of the
+ * message.
+ *
+ * <p>
+ * Supported are the {@code DISCOVER_PROPERTIES} and {@code MDSCHEMA_MEMBERS}
+ * request types of {@code Discover}, and {@code Execute} with a
+ * {@code Statement} command. Other requests are read to their end and
+ * reported as not supported, so that the caller can pass them on.
+ */
+public class StaxXmlaRequestReader {
+
+    static final String DISCOVER_PROPERTIES = "DISCOVER_PROPERTIES";
+    static final String MDSCHEMA_MEMBERS = "MDSCHEMA_MEMBERS";
+
+    private StaxXmlaRequestReader() {
+        // constructor
+    }
+
+    /**
+     * Reads the request in the body of a SOAP envelope.
+     *
+     * @param reader Reader positioned before the envelope
+     * @return a {@link DiscoverPropertiesRequestR}, {@link MdSchemaMembersRequestR}
+     *         or {@link StatementRequestR}, or {@code null} if the request is
+     *         not supported
+     * @throws IllegalArgumentException if the message is not a valid request
+     */
+    public static Object read(XMLStreamReader reader) throws XMLStreamException {
+        if (reader.nextTag() != START_ELEMENT || !Constants.QNAME_SOAP_ENVELOPE.equals(reader.getName())) {
+            throw new IllegalArgumentException("Not a SOAP envelope: " + reader.getName());
+        }
+        while (reader.nextTag() == START_ELEMENT) {
+            if (!Constants.QNAME_SOAP_BODY.equals(reader.getName())) {
+                // Header
+                skip(reader);
+                continue;
+            }
+            if (reader.nextTag() != START_ELEMENT) {
+                break;
+            }
+            QName name = reader.getName();
+            if (Constants.QNAME_MSXMLA_DISCOVER.equals(name)) {
+                return discover(reader);
+            }
+            if (Constants.QNAME_MSXMLA_EXECUTE.equals(name)) {
+                return execute(reader);
+            }
+            return null;
+        }
+        throw new IllegalArgumentException("SOAP envelope without request");
+    }
+
+    private static Object discover(XMLStreamReader reader) throws XMLStreamException {
+        String requestType = null;
+        Map<String, String> restrictions = Map.of();
+        PropertiesR properties = new PropertiesR();
+        while (reader.nextTag() == START_ELEMENT) {
+            QName name = reader.getName();
+            if (Constants.QNAME_MSXMLA_REQUESTTYPE.equals(name)) {
+                requestType = text(reader);
+            } else if (Constants.QNAME_MSXMLA_RESTRICTIONS.equals(name)) {
+                restrictions = restrictions(reader);
+            } else if (Constants.QNAME_MSXMLA_PROPERTIES.equals(name)) {
+                properties = properties(reader);
+            } else {
+                skip(reader);
+            }
+        }
+        if (requestType == null) {
+            throw new IllegalArgumentException("Discover without RequestType");
+        }
+        return switch (requestType) {
+        case DISCOVER_PROPERTIES -> new DiscoverPropertiesRequestR(properties,
+                new DiscoverPropertiesRestrictionsR(Optional.ofNullable(restrictions.get(RESTRICTIONS_PROPERTY_NAME))));
+        case MDSCHEMA_MEMBERS -> new MdSchemaMembersRequestR(properties, mdSchemaMembersRestrictions(restrictions));
+        default -> null;
+        };
+    }
+
+    private static MdSchemaMembersRestrictionsR mdSchemaMembersRestrictions(Map<String, String> m) {
+        return new MdSchemaMembersRestrictionsR(Optional.ofNullable(m.get(RESTRICTIONS_CATALOG_NAME)),
+                Optional.ofNullable(m.get(RESTRICTIONS_SCHEMA_NAME)), Optional.ofNullable(m.get(RESTRICTIONS_CUBE_NAME)),
+                Optional.ofNullable(m.get(RESTRICTIONS_DIMENSION_UNIQUE_NAME)),
+                Optional.ofNullable(m.get(RESTRICTIONS_HIERARCHY_UNIQUE_NAME)),
+                Optional.ofNullable(m.get(RESTRICTIONS_LEVEL_UNIQUE_NAME)),
+                Optional.ofNullable(m.get(RESTRICTIONS_LEVEL_NUMBER))
+                        .map(Integer::valueOf),
+                Optional.ofNullable(m.get(RESTRICTIONS_MEMBER_NAME)),
+                Optional.ofNullable(m.get(RESTRICTIONS_MEMBER_UNIQUE_NAME)),
+                Optional.ofNullable(MemberTypeEnum.fromValue(m.get(RESTRICTIONS_MEMBER_TYPE))),
+                Optional.ofNullable(m.get(RESTRICTIONS_MEMBER_CAPTION)),
+                Optional.ofNullable(CubeSourceEnum.fromValue(m.get(RESTRICTIONS_CUBE_SOURCE))),
+                Optional.ofNullable(TreeOpEnum.fromValue(m.get(RESTRICTIONS_TREE_OP))));
+    }
+
+    private static StatementRequestR execute(XMLStreamReader reader) throws XMLStreamException {
+        boolean command = false;
+        String statement = null;
+        PropertiesR properties = new PropertiesR();
+        List<ExecuteParameter> parameters = new ArrayList<>();
+        while (reader.nextTag() == START_ELEMENT) {
+            QName name = reader.getName();
+            if (Constants.QNAME_MSXMLA_COMMAND.equals(name)) {
+                command = true;
+                statement = statement(reader);
+            } else if (Constants.QNAME_MSXMLA_PROPERTIES.equals(name)) {
+                properties = properties(reader);
+            } else if (Constants.QNAME_MSXMLA_PARAMETERS.equals(name)) {
+                parameters(reader, parameters);
+            } else {
+                skip(reader);
+            }
+        }
+        if (!command) {
+            throw new IllegalArgumentException("Execute without Command");
+        }
+        if (statement == null) {
+            // a command other than Statement
+            return null;
+        }
+        return new StatementRequestR(properties, parameters, new StatementR(statement));
+    }
+
+    /**
+     * Returns the text of the {@code Statement} of a {@code Command}, or
+     * {@code null} if it has another command.
+     */
+    private static String statement(XMLStreamReader reader) throws XMLStreamException {
+        String statement = null;
+        boolean other = false;
+        while (reader.nextTag() == START_ELEMENT) {
+            if (Constants.QNAME_MSXMLA_STATEMENT.equals(reader.getName())) {
+                statement = text(reader);
+            } else {
+                other = true;
+                skip(reader);
+            }
+        }
+        return other ? null : statement;
+    }
+
+    private static void parameters(XMLStreamReader reader, List<ExecuteParameter> parameters)
+            throws XMLStreamException {
+        while (reader.nextTag() == START_ELEMENT) {
+            String name = null;
+            String value = null;
+            while (reader.nextTag() == START_ELEMENT) {
+                switch (reader.getLocalName()) {
+                case "Name" -> name = text(reader);
+                case "Value" -> value = text(reader);
+                default -> skip(reader);
+                }
+            }
+            parameters.add(new ExecuteParameterR(name, value));
+        }
+    }
+
+    /**
+     * Reads the values of a {@code Restrictions} element by name.
+     */
+    private static Map<String, String> restrictions(XMLStreamReader reader) throws XMLStreamException {
+        Map<String, String> restrictions = new HashMap<>();
+        while (reader.nextTag() == START_ELEMENT) {
+            if (!Constants.QNAME_MSXMLA_RESTRICTIONLIST.equals(reader.getName())) {
+                skip(reader);
+                continue;
+            }
+            while (reader.nextTag() == START_ELEMENT) {
+                String name = reader.getLocalName();
+                restrictions.putIfAbsent(name, text(reader));
+            }
+        }
+        return restrictions;
+    }
+
+    private static PropertiesR properties(XMLStreamReader reader) throws XMLStreamException {
+        PropertiesR properties = new PropertiesR();
+        while (reader.nextTag() == START_ELEMENT) {
+            if (!Constants.QNAME_MSXMLA_PROPERTYLIST.equals(reader.getName())) {
+                skip(reader);
+                continue;
+            }
+            while (reader.nextTag() == START_ELEMENT) {
+                Optional<PropertyListElementDefinition> opd = PropertyListElementDefinition
+                        .byNameValue(reader.getLocalName());
+                String value = text(reader);
+                opd.ifPresent(pd -> properties.addProperty(pd, value));
+            }
+        }
+        return properties;
+    }
+
+    /**
+     * Returns the text of the current element and its descendants, and moves
+     * to its end.
+     */
+    private static String text(XMLStreamReader reader) throws XMLStreamException {
+        StringBuilder text = new StringBuilder();
+        int depth = 1;
+        while (depth > 0) {
+            switch (reader.next()) {
+            case START_ELEMENT -> depth++;
+            case END_ELEMENT -> depth--;
+            case CHARACTERS, CDATA -> text.append(reader.getText());
+            default -> {
+                // comments and processing instructions
+            }
+            }
+        }
+        return text.toString();
+    }
+
+    /**
+     * Moves to the end of the current element.
+     */
+    private static void skip(XMLStreamReader reader) throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0) {
+            int event = reader.next();
+            if (event == START_ELEMENT) {
+                depth++;
+            } else if (event == END_ELEMENT) {
+                depth--;
+            }
+        }
+    }
+}
@@ -0,0 +1,511 @@
+/*
+* Copyright (c) 2023 Contributors to the Eclipse Foundation.
+*
+* This program and the accompanying materials are made
+* available under the terms of the Eclipse Public License 2.0
+* which is available at https://www.eclipse.org/legal/epl-2.0/
+*
+* SPDX-License-Identifier: EPL-2.0
+*
+* Contributors:
+*   SmartCity Jena - initial
+*/
+package org.eclipse.daanse.xmla.ws.jakarta.provider.soapmessage;
+
+import static org.eclipse.daanse.xmla.ws.jakarta.provider.soapmessage.Constants.HTTP_SCHEMAS_MICROSOFT_COM_ANALYSISSERVICES_2003_ENGINE;
+import static org.eclipse.daanse.xmla.ws.jakarta.provider.soapmessage.Constants.HTTP_SCHEMAS_MICROSOFT_COM_ANALYSISSERVICES_2003_XMLA;
+import static org.eclipse.daanse.xmla.ws.jakarta.provider.soapmessage.Constants.HTTP_SCHEMAS_MICROSOFT_COM_ANALYSISSERVICES_2010_ENGINE_200;
+import static org.eclipse.daanse.xmla.ws.jakarta.provider.soapmessage.Constants.HTTP_SCHEMAS_XMLSOAP_ORG_SOAP_ENVELOPE;
+import static org.eclipse.daanse.xmla.ws.jakarta.provider.soapmessage.Constants.URN_SCHEMAS_MICROSOFT_COM_XML_ANALYSIS;
+import static org.eclipse.daanse.xmla.ws.jakarta.provider.soapmessage.Constants.URN_SCHEMAS_MICROSOFT_COM_XML_ANALYSIS_MDDATASET;
+import static org.eclipse.daanse.xmla.ws.jakarta.provider.soapmessage.Constants.URN_SCHEMAS_MICROSOFT_COM_XML_ANALYSIS_ROWSET;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Base64;
+import java.util.List;
+import java.util.Optional;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.eclipse.daanse.xmla.api.discover.discover.properties.DiscoverPropertiesResponseRow;
+import org.eclipse.daanse.xmla.api.discover.mdschema.members.MdSchemaMembersResponseRow;
+import org.eclipse.daanse.xmla.api.engine200.WarningColumn;
+import org.eclipse.daanse.xmla.api.engine200.WarningLocationObject;
+import org.eclipse.daanse.xmla.api.engine200.WarningMeasure;
+import org.eclipse.daanse.xmla.api.exception.ErrorType;
+import org.eclipse.daanse.xmla.api.exception.MessageLocation;
+import org.eclipse.daanse.xmla.api.exception.Messages;
+import org.eclipse.daanse.xmla.api.exception.StartEnd;
+import org.eclipse.daanse.xmla.api.exception.Type;
+import org.eclipse.daanse.xmla.api.exception.WarningType;
+import org.eclipse.daanse.xmla.api.execute.statement.StatementResponse;
+import org.eclipse.daanse.xmla.api.mddataset.Axes;
+import org.eclipse.daanse.xmla.api.mddataset.AxesInfo;
+import org.eclipse.daanse.xmla.api.mddataset.Axis;
+import org.eclipse.daanse.xmla.api.mddataset.AxisInfo;
+import org.eclipse.daanse.xmla.api.mddataset.CellData;
+import org.eclipse.daanse.xmla.api.mddataset.CellInfoItem;
+import org.eclipse.daanse.xmla.api.mddataset.CellType;
+import org.eclipse.daanse.xmla.api.mddataset.CellTypeError;
+import org.eclipse.daanse.xmla.api.mddataset.CubeInfo;
+import org.eclipse.daanse.xmla.api.mddataset.HierarchyInfo;
+import org.eclipse.daanse.xmla.api.mddataset.Mddataset;
+import org.eclipse.daanse.xmla.api.mddataset.MemberType;
+import org.eclipse.daanse.xmla.api.mddataset.MembersType;
+import org.eclipse.daanse.xmla.api.mddataset.NormTupleSet;
+import org.eclipse.daanse.xmla.api.mddataset.OlapInfo;
+import org.eclipse.daanse.xmla.api.mddataset.OlapInfoCube;
+import org.eclipse.daanse.xmla.api.mddataset.SetListType;
+import org.eclipse.daanse.xmla.api.mddataset.TupleType;
+import org.eclipse.daanse.xmla.api.mddataset.TuplesType;
+import org.eclipse.daanse.xmla.api.mddataset.Union;
+import org.eclipse.daanse.xmla.api.msxmla.MemberRef;
+import org.eclipse.daanse.xmla.api.msxmla.NormTuple;
+
+/**
+ * Writes XMLA responses in a SOAP envelope to a {@link XMLStreamWriter}, row
+ * by row and cell by cell, without building a DOM of the message.
+ *
+ * <p>
+ * The elements and namespaces are those of the responses of the SAAJ and JAXB
+ * endpoints: rows of a {@code Discover} response in the rowset namespace, the
+ * content of an {@code mddataset} root element unqualified.
+ */
+public class StaxXmlaResponseWriter {
+
+    private static final String SOAP_PREFIX = "SOAP-ENV";
+    private static final String MSXMLA_PREFIX = "msxmla";
+    private static final String MDDATASET_PREFIX = "mddataset";
+    private static final String ENGINE_PREFIX = "engine";
+    private static final String ENGINE200_PREFIX = "engine200";
+    private static final String XMLA_PREFIX = "xmla";
+    private static final DateTimeFormatter INSTANT_FORMATTER = DateTimeFormatter
+            .ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSSXXX")
+            .withZone(ZoneId.systemDefault());
+
+    private final XMLStreamWriter writer;
+
+    public StaxXmlaResponseWriter(XMLStreamWriter writer) {
+        this.writer = writer;
+    }
+
+    public void startEnvelope() throws XMLStreamException {
+        writer.writeStartDocument("UTF-8", "1.0");
+        writer.writeStartElement(SOAP_PREFIX, "Envelope", HTTP_SCHEMAS_XMLSOAP_ORG_SOAP_ENVELOPE);
+        writer.writeNamespace(SOAP_PREFIX, HTTP_SCHEMAS_XMLSOAP_ORG_SOAP_ENVELOPE);
+        writer.writeStartElement(SOAP_PREFIX, "Body", HTTP_SCHEMAS_XMLSOAP_ORG_SOAP_ENVELOPE);
+    }
+
+    public void endEnvelope() throws XMLStreamException {
+        writer.writeEndElement();
+        writer.writeEndElement();
+        writer.writeEndDocument();
+        writer.flush();
+    }
+
+    public void discoverProperties(List<DiscoverPropertiesResponseRow> rows) throws XMLStreamException {
+        startDiscoverResponse();
+        for (DiscoverPropertiesResponseRow row : rows) {
+            writer.writeStartElement("row");
+            column("PropertyName", row.propertyName());
+            column("PropertyDescription", row.propertyDescription());
+            column("PropertyType", row.propertyType());
+            column("PropertyAccessType", row.propertyAccessType());
+            column("IsRequired", row.required());
+            column("Value", row.value());
+            writer.writeEndElement();
+        }
+        endDiscoverResponse();
+    }
+
+    public void mdSchemaMembers(List<MdSchemaMembersResponseRow> rows) throws XMLStreamException {
+        startDiscoverResponse();
+        for (MdSchemaMembersResponseRow row : rows) {
+            writer.writeStartElement("row");
+            column("CATALOG_NAME", row.catalogName());
+            column("SCHEMA_NAME", row.schemaName());
+            column("CUBE_NAME", row.cubeName());
+            column("DIMENSION_UNIQUE_NAME", row.dimensionUniqueName());
+            column("HIERARCHY_UNIQUE_NAME", row.hierarchyUniqueName());
+            column("LEVEL_UNIQUE_NAME", row.levelUniqueName());
+            column("LEVEL_NUMBER", row.levelNumber());
+            column("MEMBER_ORDINAL", row.memberOrdinal());
+            column("MEMBER_NAME", row.memberName());
+            column("MEMBER_UNIQUE_NAME", row.memberUniqueName());
+            column("MEMBER_TYPE", row.memberType()
+                    .map(v -> v.getValue()));
+            column("MEMBER_GUID", row.memberGuid());
+            column("MEMBER_CAPTION", row.measureCaption());
+            column("CHILDREN_CARDINALITY", row.childrenCardinality());
+            column("PARENT_LEVEL", row.parentLevel());
+            column("PARENT_UNIQUE_NAME", row.parentUniqueName());
+            column("PARENT_COUNT", row.parentCount());
+            column("DESCRIPTION", row.description());
+            column("EXPRESSION", row.expression());
+            column("MEMBER_KEY", row.memberKey());
+            column("IS_PLACEHOLDERMEMBER", row.isPlaceHolderMember());
+            column("IS_DATAMEMBER", row.isDataMember());
+            column("SCOPE", row.scope()
+                    .map(v -> v.getValue()));
+            writer.writeEndElement();
+        }
+        endDiscoverResponse();
+    }
+
+    public void statement(StatementResponse response) throws XMLStreamException {
+        writer.writeStartElement(MSXMLA_PREFIX, "ExecuteResponse", URN_SCHEMAS_MICROSOFT_COM_XML_ANALYSIS);
+        writer.writeNamespace(MSXMLA_PREFIX, URN_SCHEMAS_MICROSOFT_COM_XML_ANALYSIS);
+        writer.writeStartElement(MSXMLA_PREFIX, "return", URN_SCHEMAS_MICROSOFT_COM_XML_ANALYSIS);
+        writer.writeStartElement(MDDATASET_PREFIX, "root", URN_SCHEMAS_MICROSOFT_COM_XML_ANALYSIS_MDDATASET);
+        writer.writeNamespace(MDDATASET_PREFIX, URN_SCHEMAS_MICROSOFT_COM_XML_ANALYSIS_MDDATASET);
+        writer.writeNamespace(ENGINE_PREFIX, HTTP_SCHEMAS_MICROSOFT_COM_ANALYSISSERVICES_2003_ENGINE);
+        writer.writeNamespace(ENGINE200_PREFIX, HTTP_SCHEMAS_MICROSOFT_COM_ANALYSISSERVICES_2010_ENGINE_200);
+        Mddataset mddataset = response == null ? null : response.mdDataSet();
+        if (mddataset != null) {
+            olapInfo(mddataset.olapInfo());
+            axes(mddataset.axes());
+            cellData(mddataset.cellData());
+            if (mddataset.exception() != null) {
+                writer.writeEmptyElement("Exception");
+            }
+            messages(mddataset.messages());
+        }
+        writer.writeEndElement();
+        writer.writeEndElement();
+        writer.writeEndElement();
+    }
+
+    private void startDiscoverResponse() throws XMLStreamException {
+        writer.writeStartElement(MSXMLA_PREFIX, "DiscoverResponse", URN_SCHEMAS_MICROSOFT_COM_XML_ANALYSIS);
+        writer.writeNamespace(MSXMLA_PREFIX, URN_SCHEMAS_MICROSOFT_COM_XML_ANALYSIS);
+        writer.writeStartElement("return");
+        writer.writeStartElement("root");
+        writer.writeDefaultNamespace(URN_SCHEMAS_MICROSOFT_COM_XML_ANALYSIS_ROWSET);
+    }
+
+    private void endDiscoverResponse() throws XMLStreamException {
+        writer.writeEndElement();
+        writer.writeEndElement();
+        writer.writeEndElement();
+    }
+
+    private void olapInfo(OlapInfo olapInfo) throws XMLStreamException {
+        if (olapInfo == null) {
+            return;
+        }
+        writer.writeStartElement("OlapInfo");
+        cubeInfo(olapInfo.cubeInfo());
+        axesInfo(olapInfo.axesInfo());
+        if (olapInfo.cellInfo() != null) {
+            writer.writeStartElement("CellInfo");
+            items(olapInfo.cellInfo()
+                    .any());
+            writer.writeEndElement();
+        }
+        writer.writeEndElement();
+    }
+
+    private void cubeInfo(CubeInfo cubeInfo) throws XMLStreamException {
+        if (cubeInfo == null) {
+            return;
+        }
+        writer.writeStartElement("CubeInfo");
+        for (OlapInfoCube cube : list(cubeInfo.cube())) {
+            writer.writeStartElement("Cube");
+            element("CubeName", cube.cubeName());
+            instant("LastDataUpdate", cube.lastDataUpdate());
+            instant("LastSchemaUpdate", cube.lastSchemaUpdate());
+            writer.writeEndElement();
+        }
+        writer.writeEndElement();
+    }
+
+    private void axesInfo(AxesInfo axesInfo) throws XMLStreamException {
+        if (axesInfo == null) {
+            return;
+        }
+        writer.writeStartElement("AxesInfo");
+        for (AxisInfo axisInfo : list(axesInfo.axisInfo())) {
+            writer.writeStartElement("AxisInfo");
+            attribute("name", axisInfo.name());
+            for (HierarchyInfo hierarchyInfo : list(axisInfo.hierarchyInfo())) {
+                writer.writeStartElement("HierarchyInfo");
+                attribute("name", hierarchyInfo.name());
+                items(hierarchyInfo.any());
+                writer.writeEndElement();
+            }
+            writer.writeEndElement();
+        }
+        writer.writeEndElement();
+    }
+
+    private void axes(Axes axes) throws XMLStreamException {
+        if (axes == null) {
+            return;
+        }
+        writer.writeStartElement("Axes");
+        for (Axis axis : list(axes.axis())) {
+            writer.writeStartElement("Axis");
+            attribute("name", axis.name());
+            setTypes(axis.setType());
+            writer.writeEndElement();
+        }
+        writer.writeEndElement();
+    }
+
+    private void setTypes(List<org.eclipse.daanse.xmla.api.mddataset.Type> setTypes) throws XMLStreamException {
+        for (org.eclipse.daanse.xmla.api.mddataset.Type setType : list(setTypes)) {
+            if (setType instanceof MembersType membersType) {
+                writer.writeStartElement("Members");
+                attribute("Hierarchy", membersType.hierarchy());
+                members(membersType.member());
+                writer.writeEndElement();
+            } else if (setType instanceof TuplesType tuplesType) {
+                writer.writeStartElement("Tuples");
+                tuples(tuplesType.tuple());
+                writer.writeEndElement();
+            } else if (setType instanceof SetListType setListType) {
+                writer.writeStartElement("CrossProduct");
+                if (setListType.size() != null) {
+                    attribute("Size", String.valueOf(setListType.size()));
+                }
+                setTypes(setListType.setType());
+                writer.writeEndElement();
+            } else if (setType instanceof Union union) {
+                writer.writeStartElement("Union");
+                setTypes(union.setType());
+                writer.writeEndElement();
+            } else if (setType instanceof NormTupleSet normTupleSet) {
+                normTupleSet(normTupleSet);
+            }
+        }
+    }
+
+    private void normTupleSet(NormTupleSet normTupleSet) throws XMLStreamException {
+        writer.writeStartElement(XMLA_PREFIX, "NormTupleSet", HTTP_SCHEMAS_MICROSOFT_COM_ANALYSISSERVICES_2003_XMLA);
+        writer.writeNamespace(XMLA_PREFIX, HTTP_SCHEMAS_MICROSOFT_COM_ANALYSISSERVICES_2003_XMLA);
+        writer.writeStartElement("NormTuples");
+        if (normTupleSet.normTuples() != null) {
+            for (NormTuple normTuple : list(normTupleSet.normTuples()
+                    .normTuple())) {
+                writer.writeStartElement("NormTuple");
+                for (MemberRef memberRef : list(normTuple.memberRef())) {
+                    writer.writeStartElement("MemberRef");
+                    element("MemberOrdinal", String.valueOf(memberRef.memberOrdinal()));
+                    if (memberRef.memberDispInfo() != null) {
+                        element("MemberDispInfo", String.valueOf(memberRef.memberDispInfo()));
+                    }
+                    writer.writeEndElement();
+                }
+                writer.writeEndElement();
+            }
+        }
+        writer.writeEndElement();
+        writer.writeStartElement("MembersLookup");
+        if (normTupleSet.membersLookup() != null) {
+            for (TupleType members : list(normTupleSet.membersLookup()
+                    .members())) {
+                writer.writeStartElement("Members");
+                members(members.member());
+                writer.writeEndElement();
+            }
+        }
+        writer.writeEndElement();
+        writer.writeEndElement();
+    }
+
+    private void tuples(List<TupleType> tuples) throws XMLStreamException {
+        for (TupleType tuple : list(tuples)) {
+            writer.writeStartElement("Tuple");
+            members(tuple.member());
+            writer.writeEndElement();
+        }
+    }
+
+    private void members(List<MemberType> members) throws XMLStreamException {
+        for (MemberType member : list(members)) {
+            writer.writeStartElement("Member");
+            attribute("Hierarchy", member.hierarchy());
+            items(member.any());
+            writer.writeEndElement();
+        }
+    }
+
+    private void cellData(CellData cellData) throws XMLStreamException {
+        if (cellData == null) {
+            return;
+        }
+        writer.writeStartElement("CellData");
+        for (CellType cell : list(cellData.cell())) {
+            writer.writeStartElement("Cell");
+            attribute("CellOrdinal", String.valueOf(cell.cellOrdinal()));
+            if (cell.value() != null) {
+                writer.writeStartElement("Value");
+                for (CellTypeError error : list(cell.value()
+                        .error())) {
+                    writer.writeEmptyElement("Error");
+                    if (error.errorCode() != null) {
+                        attribute("ErrorCode", String.valueOf(error.errorCode()));
+                    }
+                    attribute("Description", error.description());
+                }
+                writer.writeEndElement();
+            }
+            items(cell.any());
+            writer.writeEndElement();
+        }
+        if (cellData.cellSet() != null) {
+            writer.writeStartElement("CellSet");
+            for (byte[] data : list(cellData.cellSet()
+                    .data())) {
+                element("Data", Base64.getEncoder()
+                        .encodeToString(data));
+            }
+            writer.writeEndElement();
+        }
+        writer.writeEndElement();
+    }
+
+    private void messages(Messages messages) throws XMLStreamException {
+        if (messages == null) {
+            return;
+        }
+        writer.writeStartElement("Messages");
+        for (Type type : list(messages.warningOrError())) {
+            if (type instanceof ErrorType error) {
+                writer.writeStartElement("Error");
+                if (error.errorCode() != null) {
+                    attribute("ErrorCode", String.valueOf(error.errorCode()));
+                }
+                attribute("Description", error.description());
+                attribute("Source", error.source());
+                attribute("HelpFile", error.helpFile());
+                location(error.location());
+                element("Callstack", error.callstack());
+                writer.writeEndElement();
+            } else if (type instanceof WarningType warning) {
+                writer.writeStartElement("Warning");
+                if (warning.warningCode() != null) {
+                    attribute("WarningCode", String.valueOf(warning.warningCode()));
+                }
+                attribute("Description", warning.description());
+                attribute("Source", warning.source());
+                attribute("HelpFile", warning.helpFile());
+                location(warning.location());
+                writer.writeEndElement();
+            }
+        }
+        writer.writeEndElement();
+    }
+
+    private void location(MessageLocation location) throws XMLStreamException {
+        if (location == null) {
+            return;
+        }
+        writer.writeStartElement("Location");
+        startEnd("Start", location.start());
+        startEnd("End", location.end());
+        integer("LineOffset", location.lineOffset());
+        integer("TextLength", location.textLength());
+        locationObject("SourceObject", location.sourceObject());
+        locationObject("DependsOnObject", location.dependsOnObject());
+        integer("RowNumber", location.rowNumber());
+        writer.writeEndElement();
+    }
+
+    private void startEnd(String name, StartEnd startEnd) throws XMLStreamException {
+        if (startEnd == null) {
+            return;
+        }
+        writer.writeStartElement(name);
+        element("Line", String.valueOf(startEnd.line()));
+        element("Column", String.valueOf(startEnd.column()));
+        writer.writeEndElement();
+    }
+
+    private void locationObject(String name, WarningLocationObject object) throws XMLStreamException {
+        if (object == null) {
+            return;
+        }
+        writer.writeStartElement(name);
+        WarningColumn column = object.warningColumn();
+        if (column != null) {
+            writer.writeStartElement(ENGINE200_PREFIX, "WarningColumn",
+                    HTTP_SCHEMAS_MICROSOFT_COM_ANALYSISSERVICES_2010_ENGINE_200);
+            element("Dimension", column.dimension());
+            element("Attribute", column.attribute());
+            writer.writeEndElement();
+        }
+        WarningMeasure measure = object.warningMeasure();
+        if (measure != null) {
+            writer.writeStartElement(ENGINE200_PREFIX, "WarningMeasure",
+                    HTTP_SCHEMAS_MICROSOFT_COM_ANALYSISSERVICES_2010_ENGINE_200);
+            element("Cube", measure.cube());
+            element("MeasureGroup", measure.measureGroup());
+            element("MeasureName", measure.measureName());
+            writer.writeEndElement();
+        }
+        writer.writeEndElement();
+    }
+
+    /**
+     * Writes member properties and cell properties, whose element names are
+     * given by the items.
+     */
+    private void items(List<CellInfoItem> items) throws XMLStreamException {
+        for (CellInfoItem item : list(items)) {
+            writer.writeEmptyElement(item.tagName());
+            attribute("name", item.name());
+            if (item.type()
+                    .isPresent()) {
+                attribute("type", item.type()
+                        .get());
+            }
+        }
+    }
+
+    private void column(String name, Optional<?> value) throws XMLStreamException {
+        if (value.isPresent()) {
+            element(name, String.valueOf(value.get()));
+        }
+    }
+
+    private void column(String name, String value) throws XMLStreamException {
+        element(name, value);
+    }
+
+    private void instant(String name, Instant instant) throws XMLStreamException {
+        if (instant != null) {
+            writer.writeStartElement(ENGINE_PREFIX, name, HTTP_SCHEMAS_MICROSOFT_COM_ANALYSISSERVICES_2003_ENGINE);
+            writer.writeCharacters(INSTANT_FORMATTER.format(instant));
+            writer.writeEndElement();
+        }
+    }
+
+    private void integer(String name, Integer value) throws XMLStreamException {
+        if (value != null) {
+            element(name, String.valueOf(value));
+        }
+    }
+
+    private void element(String name, String value) throws XMLStreamException {
+        if (value != null) {
+            writer.writeStartElement(name);
+            writer.writeCharacters(value);
+            writer.writeEndElement();
+        }
+    }
+
+    private void attribute(String name, String value) throws XMLStreamException {
+        if (value != null) {
+            writer.writeAttribute(name, value);
+        }
+    }
+
+    private static <T> List<T> list(List<T> list) {
+        return list == null ? List.of() : list;
+    }
+}
@@ -0,0 +1,324 @@
+/*
+* Copyright (c) 2023 Contributors to the Eclipse Foundation.
+*
+* This program and the accompanying materials are made
+* available under the terms of the Eclipse Public License 2.0
+* which is available at https://www.eclipse.org/legal/epl-2.0/
+*
+* SPDX-License-Identifier: EPL-2.0
+*
+* Contributors:
+*   SmartCity Jena - initial
+*/
+package org.eclipse.daanse.xmla.ws.jakarta.provider.soapmessage;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+import javax.xml.transform.Source;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.stream.StreamResult;
+import javax.xml.transform.stream.StreamSource;
+
+import org.eclipse.daanse.ws.api.whiteboard.annotations.RequireSoapWhiteboard;
+import org.eclipse.daanse.ws.api.whiteboard.prototypes.SOAPWhiteboardEndpoint;
+import org.eclipse.daanse.xmla.api.XmlaService;
+import org.eclipse.daanse.xmla.api.discover.discover.properties.DiscoverPropertiesRequest;
+import org.eclipse.daanse.xmla.api.discover.discover.properties.DiscoverPropertiesResponseRow;
+import org.eclipse.daanse.xmla.api.discover.mdschema.members.MdSchemaMembersRequest;
+import org.eclipse.daanse.xmla.api.discover.mdschema.members.MdSchemaMembersResponseRow;
+import org.eclipse.daanse.xmla.api.execute.statement.StatementRequest;
+import org.eclipse.daanse.xmla.api.execute.statement.StatementResponse;
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Deactivate;
+import org.osgi.service.component.annotations.Reference;
+import org.osgi.service.metatype.annotations.AttributeDefinition;
+import org.osgi.service.metatype.annotations.Designate;
+import org.osgi.service.metatype.annotations.ObjectClassDefinition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import jakarta.xml.soap.MessageFactory;
+import jakarta.xml.soap.SOAPConstants;
+import jakarta.xml.soap.SOAPException;
+import jakarta.xml.soap.SOAPFactory;
+import jakarta.xml.soap.SOAPFault;
+import jakarta.xml.soap.SOAPMessage;
+import jakarta.xml.ws.Provider;
+import jakarta.xml.ws.Service;
+import jakarta.xml.ws.ServiceMode;
+import jakarta.xml.ws.WebServiceProvider;
+import jakarta.xml.ws.soap.SOAPFaultException;
+
+/**
+ * XMLA endpoint that reads the request from the SOAP message with a
+ * {@link XMLStreamReader} into the records of the XMLA api and writes the
+ * response with a {@link XMLStreamWriter}, without a SAAJ or DOM tree of either
+ * message.
+ *
+ * <p>
+ * Handles {@code Discover} of {@code DISCOVER_PROPERTIES} and
+ * {@code MDSCHEMA_MEMBERS} and {@code Execute} of a {@code Statement}. Other
+ * requests are handled as by {@link XmlaWebserviceProvider}, which is why the
+ * request is kept in memory; requests are small.
+ *
+ * <p>
+ * The response is written while the transport reads it, through a
+ * {@link ResponsePipe} from a writer thread, so that large rowsets and cell
+ * sets are never held as bytes. The service is called, and the first part of
+ * the response is written, before the response is returned, so that their
+ * errors are answered with a SOAP fault; a later error aborts the response. The
+ * number of writer threads is bounded; when all are busy, the response is
+ * written in memory on the calling thread.
+ *
+ * <p>
+ * It is configured by its own factory configuration, and its default context
+ * path {@code xmlastax} is not that of the SAAJ endpoint.
+ */
+@WebServiceProvider()
+@ServiceMode(value = Service.Mode.MESSAGE)
+@RequireSoapWhiteboard
+@Component(service = Provider.class, name = XmlaStaxWebserviceProvider.PID)
+@Designate(factory = true, ocd = XmlaStaxWebserviceProvider.Config.class)
+@SOAPWhiteboardEndpoint(contextpath = "xmlastax")
+public class XmlaStaxWebserviceProvider implements Provider<Source> {
+    private static final Logger LOGGER = LoggerFactory.getLogger(XmlaStaxWebserviceProvider.class);
+
+    static final String PID = "org.eclipse.daanse.msxmlanalysisservice.stax";
+
+    private static final int PIPE_SIZE = 64 * 1024;
+
+    private static final int MAX_WRITERS = 64;
+
+    private static final long WRITE_TIMEOUT_MILLIS = 60_000;
+
+    private static final XMLInputFactory INPUT_FACTORY = inputFactory();
+    private static final XMLOutputFactory OUTPUT_FACTORY = XMLOutputFactory.newInstance();
+
+    @ObjectClassDefinition(name = "XMLA StAX Webservice Provider")
+    @interface Config {
+
+        @AttributeDefinition(name = "XMLA-Service Filter", required = true)
+        String xmlaserviceTarget()
+
+        default "(&(must.be.configured=*)(!(must.not.configured=*)))";
+
+        @AttributeDefinition(required = true)
+        String osgiSoapEndpointContextpath() default "xmlastax";
+    }
+
+    /**
+     * Writes the body of a response, between the start and the end of the
+     * envelope.
+     */
+    @FunctionalInterface
+    interface ResponseBody {
+        void write(StaxXmlaResponseWriter writer) throws XMLStreamException;
+    }
+
+    @Reference
+    private XmlaService xmlaService;
+
+    private XmlaApiAdapter wsAdapter;
+
+    private ExecutorService executor;
+
+    public XmlaStaxWebserviceProvider() {
+        // component
+    }
+
+    XmlaStaxWebserviceProvider(XmlaService xmlaService) {
+        this.xmlaService = xmlaService;
+    }
+
+    @Activate
+    public void activate() {
+        wsAdapter = new XmlaApiAdapter(xmlaService);
+        executor = new ThreadPoolExecutor(0, MAX_WRITERS, 60, TimeUnit.SECONDS, new SynchronousQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "daanse-xmla-stax-response");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    @Deactivate
+    public void deactivate() {
+        executor.shutdownNow();
+    }
+
+    @Override
+    public Source invoke(Source request) {
+        LOGGER.debug("===== The provider got a request =====");
+        byte[] message;
+        XMLStreamReader reader = null;
+        Object xmlaRequest;
+        try {
+            message = bytes(request);
+            reader = INPUT_FACTORY.createXMLStreamReader(new ByteArrayInputStream(message));
+            xmlaRequest = StaxXmlaRequestReader.read(reader);
+        } catch (XMLStreamException | TransformerException | IOException | IllegalArgumentException e) {
+            throw new SOAPFaultException(getFault(SOAPConstants.SOAP_SENDER_FAULT, e));
+        } finally {
+            close(reader);
+        }
+        try {
+            if (xmlaRequest == null) {
+                return saaj(message);
+            }
+            return stream(response(xmlaService, xmlaRequest));
+        } catch (IllegalArgumentException e) {
+            throw new SOAPFaultException(getFault(SOAPConstants.SOAP_SENDER_FAULT, e));
+        } catch (SOAPException | IOException | XMLStreamException | RuntimeException e) {
+            throw new SOAPFaultException(getFault(SOAPConstants.SOAP_RECEIVER_FAULT, e));
+        }
+    }
+
+    /**
+     * Reads one request and calls the service.
+     *
+     * @return the body of the response, or {@code null} if the request is not
+     *         one that this endpoint reads
+     */
+    static ResponseBody response(XmlaService xmlaService, XMLStreamReader reader) throws XMLStreamException {
+        Object request = StaxXmlaRequestReader.read(reader);
+        return request == null ? null : response(xmlaService, request);
+    }
+
+    private static ResponseBody response(XmlaService xmlaService, Object request) {
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug(request.toString());
+        }
+        if (request instanceof DiscoverPropertiesRequest discoverPropertiesRequest) {
+            List<DiscoverPropertiesResponseRow> rows = xmlaService.discover()
+                    .discoverProperties(discoverPropertiesRequest);
+            return writer -> writer.discoverProperties(rows);
+        }
+        if (request instanceof MdSchemaMembersRequest mdSchemaMembersRequest) {
+            List<MdSchemaMembersResponseRow> rows = xmlaService.discover()
+                    .mdSchemaMembers(mdSchemaMembersRequest);
+            return writer -> writer.mdSchemaMembers(rows);
+        }
+        StatementResponse statementResponse = xmlaService.execute()
+                .statement((StatementRequest) request);
+        return writer -> writer.statement(statementResponse);
+    }
+
+    /**
+     * Writes the response envelope.
+     */
+    static void write(ResponseBody body, OutputStream out) throws XMLStreamException {
+        XMLStreamWriter writer = OUTPUT_FACTORY.createXMLStreamWriter(out, "UTF-8");
+        StaxXmlaResponseWriter responseWriter = new StaxXmlaResponseWriter(writer);
+        responseWriter.startEnvelope();
+        body.write(responseWriter);
+        responseWriter.endEnvelope();
+        writer.close();
+    }
+
+    /**
+     * Returns a source that a writer thread fills while the transport reads it.
+     * An error before the pipe is first filled is thrown; a later one fails the
+     * pipe, which aborts the response.
+     */
+    private Source stream(ResponseBody body) throws IOException, XMLStreamException {
+        ResponsePipe pipe = new ResponsePipe(PIPE_SIZE, WRITE_TIMEOUT_MILLIS);
+        try {
+            executor.execute(() -> {
+                try {
+                    write(body, pipe.out());
+                    pipe.out()
+                            .close();
+                } catch (XMLStreamException | IOException | RuntimeException e) {
+                    LOGGER.error("Writing the response failed", e);
+                    pipe.fail(e);
+                } finally {
+                    // does nothing if the response is complete
+                    pipe.fail(new IOException("The response writer stopped"));
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            LOGGER.debug("All response writers are busy, the response is written in memory");
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            write(body, out);
+            return new StreamSource(new ByteArrayInputStream(out.toByteArray()));
+        }
+        try {
+            pipe.awaitFilled();
+        } catch (IOException e) {
+            pipe.in()
+                    .close();
+            throw e;
+        }
+        return new StreamSource(pipe.in());
+    }
+
+    private Source saaj(byte[] message) throws SOAPException, IOException {
+        SOAPMessage request = MessageFactory.newInstance()
+                .createMessage();
+        request.getSOAPPart()
+                .setContent(new StreamSource(new ByteArrayInputStream(message)));
+        return XmlaWebserviceProvider.handle(wsAdapter, request)
+                .getSOAPPart()
+                .getContent();
+    }
+
+    private static byte[] bytes(Source source) throws IOException, TransformerException {
+        if (source instanceof StreamSource streamSource && streamSource.getInputStream() != null) {
+            return streamSource.getInputStream()
+                    .readAllBytes();
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        TransformerFactory.newInstance()
+                .newTransformer()
+                .transform(source, new StreamResult(out));
+        return out.toByteArray();
+    }
+
+    private static void close(XMLStreamReader reader) {
+        if (reader != null) {
+            try {
+                reader.close();
+            } catch (XMLStreamException e) {
+                LOGGER.debug("closing the request reader failed", e);
+            }
+        }
+    }
+
+    private static XMLInputFactory inputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+        return factory;
+    }
+
+    private SOAPFault getFault(QName faultCode, Exception ex) {
+        try {
+            SOAPFault fault = SOAPFactory.newInstance()
+                    .createFault();
+            fault.setFaultCode(faultCode);
+            fault.setFaultString(ex.toString());
+            return fault;
+        } catch (SOAPException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+}
@@ -80,26 +80,34 @@ public class XmlaWebserviceProvider implements Provider<SOAPMessage> {
     public SOAPMessage invoke(SOAPMessage request) {
         LOGGER.debug("===== The provider got a request =====");
         try {
-            String reqString = SOAPUtil.string(request);
-            LOGGER.debug(reqString);
+            return handle(wsAdapter, request);
+        } catch (SOAPException | IOException e) {
+            throw new SOAPFaultException(getFault(e));
+        }
+    }
 
-            wsAdapter.handleRequest(request);
+    /**
+     * Handles a request with the SAAJ adapter, also for the requests that
+     * {@link XmlaStaxWebserviceProvider} does not read itself.
+     */
+    static SOAPMessage handle(XmlaApiAdapter wsAdapter, SOAPMessage request) throws SOAPException, IOException {
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug(SOAPUtil.string(request));
+        }
 
-            MessageFactory messageFactory = MessageFactory.newInstance();
-            SOAPMessage soapMessage = messageFactory.createMessage();
-            SOAPPart soapPart = soapMessage.getSOAPPart();
-            SOAPEnvelope envelope = soapPart.getEnvelope();
-            envelope.addNamespaceDeclaration("tns", "myTargetNamespace");
-            SOAPBody body = envelope.getBody();
+        wsAdapter.handleRequest(request);
 
-            body.addChildElement("provider", "tns", MY_TNS);
-            body.addChildElement("say")
-                    .setTextContent("Hello Test");
-            return soapMessage;
+        MessageFactory messageFactory = MessageFactory.newInstance();
+        SOAPMessage soapMessage = messageFactory.createMessage();
+        SOAPPart soapPart = soapMessage.getSOAPPart();
+        SOAPEnvelope envelope = soapPart.getEnvelope();
+        envelope.addNamespaceDeclaration("tns", "myTargetNamespace");
+        SOAPBody body = envelope.getBody();
 
-        } catch (SOAPException | IOException e) {
-            throw new SOAPFaultException(getFault(e));
-        }
+        body.addChildElement("provider", "tns", MY_TNS);
+        body.addChildElement("say")
+                .setTextContent("Hello Test");
+        return soapMessage;
     }
 
     private SOAPFault getFault(Exception ex) {
@@ -0,0 +1,101 @@
+/*
+* Copyright (c) 2023 Contributors to the Eclipse Foundation.
+*
+* This program and the accompanying materials are made
+* available under the terms of the Eclipse Public License 2.0
+* which is available at https://www.eclipse.org/legal/epl-2.0/
+*
+* SPDX-License-Identifier: EPL-2.0
+*
+* Contributors:
+*   SmartCity Jena - initial
+*/
+package org.eclipse.daanse.xmla.ws.jakarta.provider.soapmessage;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+class ResponsePipeTest {
+
+    @Test
+    void testCompleteResponseIsRead() throws Exception {
+        ResponsePipe pipe = new ResponsePipe(4, 10_000);
+        Thread writer = new Thread(() -> {
+            try (OutputStream out = pipe.out()) {
+                out.write("<Envelope/>".getBytes(StandardCharsets.UTF_8));
+            } catch (IOException e) {
+                pipe.fail(e);
+            }
+        });
+        writer.start();
+
+        try (InputStream in = pipe.in()) {
+            assertThat(new String(in.readAllBytes(), StandardCharsets.UTF_8)).isEqualTo("<Envelope/>");
+        }
+        writer.join();
+    }
+
+    @Test
+    void testWriteTimesOutIfNotRead() throws Exception {
+        ResponsePipe pipe = new ResponsePipe(4, 50);
+        OutputStream out = pipe.out();
+        out.write(new byte[4]);
+
+        assertThatThrownBy(() -> out.write(1)).isInstanceOf(IOException.class)
+                .hasMessageContaining("not read");
+    }
+
+    @Test
+    void testWriteFailsIfReaderClosed() throws Exception {
+        ResponsePipe pipe = new ResponsePipe(4, 10_000);
+        OutputStream out = pipe.out();
+        out.write(new byte[4]);
+        pipe.in()
+                .close();
+
+        assertThatThrownBy(() -> out.write(1)).isInstanceOf(IOException.class)
+                .hasMessageContaining("closed");
+    }
+
+    @Test
+    void testFailureAbortsRead() throws Exception {
+        ResponsePipe pipe = new ResponsePipe(4, 10_000);
+        pipe.out()
+                .write(new byte[2]);
+        pipe.fail(new IllegalStateException("cell set closed"));
+
+        assertThatThrownBy(() -> pipe.in()
+                .read()).isInstanceOf(IOException.class)
+                .hasRootCauseMessage("cell set closed");
+    }
+
+    @Test
+    void testFailureAfterCloseIsIgnored() throws Exception {
+        ResponsePipe pipe = new ResponsePipe(4, 10_000);
+        pipe.out()
+                .write(new byte[2]);
+        pipe.out()
+                .close();
+        pipe.fail(new IOException("The response writer stopped"));
+
+        pipe.awaitFilled();
+        assertThat(pipe.in()
+                .readAllBytes()).hasSize(2);
+    }
+
+    @Test
+    void testAwaitFilledThrowsEarlyFailure() {
+        ResponsePipe pipe = new ResponsePipe(4, 10_000);
+        pipe.fail(new IllegalStateException("cell set closed"));
+
+        assertThatThrownBy(pipe::awaitFilled).isInstanceOf(IOException.class)
+                .hasMessageContaining("cell set closed");
+    }
+}
@@ -0,0 +1,225 @@
+/*
+* Copyright (c) 2023 Contributors to the Eclipse Foundation.
+*
+* This program and the accompanying materials are made
+* available under the terms of the Eclipse Public License 2.0
+* which is available at https://www.eclipse.org/legal/epl-2.0/
+*
+* SPDX-License-Identifier: EPL-2.0
+*
+* Contributors:
+*   SmartCity Jena - initial
+*/
+package org.eclipse.daanse.xmla.ws.jakarta.provider.soapmessage;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLInputFactory;
+
+import org.eclipse.daanse.xmla.api.XmlaService;
+import org.eclipse.daanse.xmla.api.common.enums.MemberTypeEnum;
+import org.eclipse.daanse.xmla.api.common.enums.ScopeEnum;
+import org.eclipse.daanse.xmla.api.discover.DiscoverService;
+import org.eclipse.daanse.xmla.api.discover.mdschema.members.MdSchemaMembersResponseRow;
+import org.eclipse.daanse.xmla.api.execute.ExecuteService;
+import org.eclipse.daanse.xmla.api.execute.statement.StatementResponse;
+import org.eclipse.daanse.xmla.api.mddataset.CellInfoItem;
+import org.eclipse.daanse.xmla.api.mddataset.CellType;
+import org.eclipse.daanse.xmla.model.record.discover.mdschema.members.MdSchemaMembersResponseRowR;
+import org.eclipse.daanse.xmla.model.record.execute.statement.StatementResponseR;
+import org.eclipse.daanse.xmla.model.record.mddataset.CellDataR;
+import org.eclipse.daanse.xmla.model.record.mddataset.CellInfoItemR;
+import org.eclipse.daanse.xmla.model.record.mddataset.CellTypeR;
+import org.eclipse.daanse.xmla.model.record.mddataset.MddatasetR;
+
+import jakarta.xml.soap.MessageFactory;
+import jakarta.xml.soap.MimeHeaders;
+import jakarta.xml.soap.SOAPBody;
+import jakarta.xml.soap.SOAPElement;
+import jakarta.xml.soap.SOAPMessage;
+
+/**
+ * Compares the throughput of the SAAJ message path with the StAX path of
+ * {@link XmlaStaxWebserviceProvider} for a {@code Discover} of
+ * {@code MDSCHEMA_MEMBERS} and an {@code Execute} of a statement.
+ *
+ * <p>
+ * The SAAJ path parses the request into a {@link SOAPMessage}, reads it from
+ * the DOM, builds the response as a {@link SOAPMessage} and writes it, as the
+ * SAAJ provider does. The service returns prepared rows and cells in both
+ * paths.
+ *
+ * <p>
+ * Run with {@code [rows] [iterations]}, defaults {@code 10000 200}.
+ */
+public class XmlaStaxBenchmark {
+
+    private static final String ROWSET = Constants.URN_SCHEMAS_MICROSOFT_COM_XML_ANALYSIS_ROWSET;
+    private static final String MDDATASET = Constants.URN_SCHEMAS_MICROSOFT_COM_XML_ANALYSIS_MDDATASET;
+    private static final String MSXMLA = Constants.URN_SCHEMAS_MICROSOFT_COM_XML_ANALYSIS;
+
+    private final List<MdSchemaMembersResponseRow> rows = new ArrayList<>();
+    private final StatementResponse statementResponse;
+    private final XmlaService xmlaService = mock(XmlaService.class);
+    private final MessageFactory messageFactory;
+    private final XMLInputFactory inputFactory = XMLInputFactory.newInstance();
+
+    XmlaStaxBenchmark(int size) throws Exception {
+        List<CellType> cells = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            rows.add(new MdSchemaMembersResponseRowR(Optional.of("FoodMart"), Optional.empty(), Optional.of("Sales"),
+                    Optional.of("[Product]"), Optional.of("[Product]"), Optional.of("[Product].[Product Name]"),
+                    Optional.of(5), Optional.of(i), Optional.of("Product " + i),
+                    Optional.of("[Product].[Product " + i + "]"), Optional.of(MemberTypeEnum.REGULAR_MEMBER),
+                    Optional.empty(), Optional.of("Product " + i), Optional.of(0), Optional.of(4),
+                    Optional.of("[Product].[Brand]"), Optional.of(1), Optional.empty(), Optional.empty(),
+                    Optional.of(String.valueOf(i)), Optional.of(false), Optional.of(false),
+                    Optional.of(ScopeEnum.GLOBAL)));
+            cells.add(new CellTypeR(null, List.of(new CellInfoItemR("Value", String.valueOf(i * 1.5d), Optional.empty()),
+                    new CellInfoItemR("FmtValue", String.valueOf(i), Optional.empty())), i));
+        }
+        statementResponse = new StatementResponseR(new MddatasetR(null, null, new CellDataR(cells, null), null, null));
+
+        DiscoverService discoverService = mock(DiscoverService.class);
+        ExecuteService executeService = mock(ExecuteService.class);
+        when(xmlaService.discover()).thenReturn(discoverService);
+        when(xmlaService.execute()).thenReturn(executeService);
+        when(discoverService.mdSchemaMembers(any())).thenReturn(rows);
+        when(executeService.statement(any())).thenReturn(statementResponse);
+        messageFactory = MessageFactory.newInstance();
+    }
+
+    public static void main(String[] args) throws Exception {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        XmlaStaxBenchmark benchmark = new XmlaStaxBenchmark(size);
+        byte[] discover = XmlaStaxWebserviceProviderTest.MDSCHEMA_MEMBERS_REQUEST.getBytes(StandardCharsets.UTF_8);
+        byte[] execute = XmlaStaxWebserviceProviderTest.STATEMENT_REQUEST.getBytes(StandardCharsets.UTF_8);
+
+        // warm up
+        for (int i = 0; i < iterations; i++) {
+            benchmark.saajMembers(discover);
+            benchmark.stax(discover);
+            benchmark.saajStatement(execute);
+            benchmark.stax(execute);
+        }
+        report("MDSCHEMA_MEMBERS saaj", iterations, size, () -> benchmark.saajMembers(discover));
+        report("MDSCHEMA_MEMBERS stax", iterations, size, () -> benchmark.stax(discover));
+        report("Execute saaj", iterations, size, () -> benchmark.saajStatement(execute));
+        report("Execute stax", iterations, size, () -> benchmark.stax(execute));
+    }
+
+    int stax(byte[] request) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        XmlaStaxWebserviceProvider.write(XmlaStaxWebserviceProvider.response(xmlaService,
+                inputFactory.createXMLStreamReader(new ByteArrayInputStream(request))), out);
+        return out.size();
+    }
+
+    int saajMembers(byte[] request) throws Exception {
+        readSaaj(request);
+        SOAPMessage response = messageFactory.createMessage();
+        SOAPElement root = response.getSOAPBody()
+                .addChildElement("DiscoverResponse", "msxmla", MSXMLA)
+                .addChildElement("return")
+                .addChildElement(new QName(ROWSET, "root"));
+        for (MdSchemaMembersResponseRow row : xmlaService.discover()
+                .mdSchemaMembers(null)) {
+            SOAPElement r = root.addChildElement(new QName(ROWSET, "row"));
+            add(r, "CATALOG_NAME", row.catalogName());
+            add(r, "CUBE_NAME", row.cubeName());
+            add(r, "DIMENSION_UNIQUE_NAME", row.dimensionUniqueName());
+            add(r, "HIERARCHY_UNIQUE_NAME", row.hierarchyUniqueName());
+            add(r, "LEVEL_UNIQUE_NAME", row.levelUniqueName());
+            add(r, "LEVEL_NUMBER", row.levelNumber());
+            add(r, "MEMBER_ORDINAL", row.memberOrdinal());
+            add(r, "MEMBER_NAME", row.memberName());
+            add(r, "MEMBER_UNIQUE_NAME", row.memberUniqueName());
+            add(r, "MEMBER_TYPE", row.memberType()
+                    .map(v -> v.getValue()));
+            add(r, "MEMBER_CAPTION", row.measureCaption());
+            add(r, "CHILDREN_CARDINALITY", row.childrenCardinality());
+            add(r, "PARENT_LEVEL", row.parentLevel());
+            add(r, "PARENT_UNIQUE_NAME", row.parentUniqueName());
+            add(r, "PARENT_COUNT", row.parentCount());
+            add(r, "MEMBER_KEY", row.memberKey());
+            add(r, "IS_PLACEHOLDERMEMBER", row.isPlaceHolderMember());
+            add(r, "IS_DATAMEMBER", row.isDataMember());
+            add(r, "SCOPE", row.scope()
+                    .map(v -> v.getValue()));
+        }
+        return write(response);
+    }
+
+    int saajStatement(byte[] request) throws Exception {
+        readSaaj(request);
+        SOAPMessage response = messageFactory.createMessage();
+        SOAPElement root = response.getSOAPBody()
+                .addChildElement("ExecuteResponse", "msxmla", MSXMLA)
+                .addChildElement("return", "msxmla")
+                .addChildElement("root", "mddataset", MDDATASET);
+        SOAPElement cellData = root.addChildElement(new QName("CellData"));
+        for (CellType cell : xmlaService.execute()
+                .statement(null)
+                .mdDataSet()
+                .cellData()
+                .cell()) {
+            SOAPElement c = cellData.addChildElement(new QName("Cell"));
+            c.setAttribute("CellOrdinal", String.valueOf(cell.cellOrdinal()));
+            for (CellInfoItem item : cell.any()) {
+                c.addChildElement(new QName(item.tagName()))
+                        .setAttribute("name", item.name());
+            }
+        }
+        return write(response);
+    }
+
+    private void readSaaj(byte[] request) throws Exception {
+        SOAPMessage message = messageFactory.createMessage(new MimeHeaders(), new ByteArrayInputStream(request));
+        SOAPBody body = message.getSOAPBody();
+        Iterator<?> it = body.getChildElements();
+        while (it.hasNext()) {
+            it.next();
+        }
+    }
+
+    private static void add(SOAPElement row, String name, Optional<?> value) throws Exception {
+        if (value.isPresent()) {
+            row.addChildElement(new QName(ROWSET, name))
+                    .setTextContent(String.valueOf(value.get()));
+        }
+    }
+
+    private static int write(SOAPMessage response) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        response.writeTo(out);
+        return out.size();
+    }
+
+    private static void report(String name, int iterations, int size, Run run) throws Exception {
+        long bytes = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            bytes += run.run();
+        }
+        long nanos = System.nanoTime() - start;
+        System.out.printf("%-24s %10.1f responses/s %12.0f rows/s %8d bytes%n", name,
+                iterations * 1e9d / nanos, (double) iterations * size * 1e9d / nanos, bytes / iterations);
+    }
+
+    @FunctionalInterface
+    private interface Run {
+        int run() throws Exception;
+    }
+}
@@ -0,0 +1,339 @@
+/*
+* Copyright (c) 2023 Contributors to the Eclipse Foundation.
+*
+* This program and the accompanying materials are made
+* available under the terms of the Eclipse Public License 2.0
+* which is available at https://www.eclipse.org/legal/epl-2.0/
+*
+* SPDX-License-Identifier: EPL-2.0
+*
+* Contributors:
+*   SmartCity Jena - initial
+*/
+package org.eclipse.daanse.xmla.ws.jakarta.provider.soapmessage;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowableOfType;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.transform.Source;
+import javax.xml.transform.stream.StreamSource;
+
+import org.eclipse.daanse.xmla.api.XmlaService;
+import org.eclipse.daanse.xmla.api.common.enums.MemberTypeEnum;
+import org.eclipse.daanse.xmla.api.common.enums.ScopeEnum;
+import org.eclipse.daanse.xmla.api.discover.DiscoverService;
+import org.eclipse.daanse.xmla.api.discover.mdschema.members.MdSchemaMembersRequest;
+import org.eclipse.daanse.xmla.api.execute.ExecuteService;
+import org.eclipse.daanse.xmla.api.execute.statement.StatementRequest;
+import org.eclipse.daanse.xmla.api.execute.statement.StatementResponse;
+import org.eclipse.daanse.xmla.model.record.discover.mdschema.members.MdSchemaMembersResponseRowR;
+import org.eclipse.daanse.xmla.model.record.execute.statement.StatementResponseR;
+import org.eclipse.daanse.xmla.model.record.mddataset.AxesR;
+import org.eclipse.daanse.xmla.model.record.mddataset.AxisR;
+import org.eclipse.daanse.xmla.model.record.mddataset.CellDataR;
+import org.eclipse.daanse.xmla.model.record.mddataset.CellInfoItemR;
+import org.eclipse.daanse.xmla.model.record.mddataset.CellTypeR;
+import org.eclipse.daanse.xmla.model.record.mddataset.MddatasetR;
+import org.eclipse.daanse.xmla.model.record.mddataset.MemberTypeR;
+import org.eclipse.daanse.xmla.model.record.mddataset.MembersTypeR;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.xmlunit.assertj3.XmlAssert;
+
+import jakarta.xml.soap.SOAPConstants;
+import jakarta.xml.ws.soap.SOAPFaultException;
+
+class XmlaStaxWebserviceProviderTest {
+
+    static final String MDSCHEMA_MEMBERS_REQUEST = """
+            <SOAP-ENV:Envelope xmlns:SOAP-ENV="http://schemas.xmlsoap.org/soap/envelope/">
+                <SOAP-ENV:Header/>
+                <SOAP-ENV:Body>
+                    <Discover xmlns="urn:schemas-microsoft-com:xml-analysis">
+                        <RequestType>MDSCHEMA_MEMBERS</RequestType>
+                        <Restrictions>
+                            <RestrictionList>
+                                <CATALOG_NAME>FoodMart</CATALOG_NAME>
+                                <CUBE_NAME>Sales</CUBE_NAME>
+                                <LEVEL_NUMBER>1</LEVEL_NUMBER>
+                                <MEMBER_TYPE>1</MEMBER_TYPE>
+                            </RestrictionList>
+                        </Restrictions>
+                        <Properties>
+                            <PropertyList>
+                                <DataSourceInfo>FoodMart</DataSourceInfo>
+                            </PropertyList>
+                        </Properties>
+                    </Discover>
+                </SOAP-ENV:Body>
+            </SOAP-ENV:Envelope>
+            """;
+
+    static final String STATEMENT_REQUEST = """
+            <SOAP-ENV:Envelope xmlns:SOAP-ENV="http://schemas.xmlsoap.org/soap/envelope/">
+                <SOAP-ENV:Body>
+                    <Execute xmlns="urn:schemas-microsoft-com:xml-analysis">
+                        <Command>
+                            <Statement>SELECT [Measures].[Unit Sales] ON 0 FROM [Sales]</Statement>
+                        </Command>
+                        <Properties>
+                            <PropertyList>
+                                <DataSourceInfo>FoodMart</DataSourceInfo>
+                            </PropertyList>
+                        </Properties>
+                        <Parameters>
+                            <Parameter>
+                                <Name>p</Name>
+                                <Value>1</Value>
+                            </Parameter>
+                        </Parameters>
+                    </Execute>
+                </SOAP-ENV:Body>
+            </SOAP-ENV:Envelope>
+            """;
+
+    static final String ALTER_REQUEST = """
+            <SOAP-ENV:Envelope xmlns:SOAP-ENV="http://schemas.xmlsoap.org/soap/envelope/">
+                <SOAP-ENV:Body>
+                    <Execute xmlns="urn:schemas-microsoft-com:xml-analysis">
+                        <Command>
+                            <Alter/>
+                        </Command>
+                    </Execute>
+                </SOAP-ENV:Body>
+            </SOAP-ENV:Envelope>
+            """;
+
+    static final String MDSCHEMA_CUBES_REQUEST = """
+            <SOAP-ENV:Envelope xmlns:SOAP-ENV="http://schemas.xmlsoap.org/soap/envelope/">
+                <SOAP-ENV:Body>
+                    <Discover xmlns="urn:schemas-microsoft-com:xml-analysis">
+                        <RequestType>MDSCHEMA_CUBES</RequestType>
+                    </Discover>
+                </SOAP-ENV:Body>
+            </SOAP-ENV:Envelope>
+            """;
+
+    private static final Map<String, String> NS = Map.of("SOAP", "http://schemas.xmlsoap.org/soap/envelope/",
+            "msxmla", "urn:schemas-microsoft-com:xml-analysis", "rowset",
+            "urn:schemas-microsoft-com:xml-analysis:rowset", "mddataset",
+            "urn:schemas-microsoft-com:xml-analysis:mddataset");
+
+    private XmlaService xmlaService;
+    private DiscoverService discoverService;
+    private ExecuteService executeService;
+
+    @BeforeEach
+    void beforeEach() {
+        xmlaService = mock(XmlaService.class);
+        discoverService = mock(DiscoverService.class);
+        executeService = mock(ExecuteService.class);
+        when(xmlaService.discover()).thenReturn(discoverService);
+        when(xmlaService.execute()).thenReturn(executeService);
+    }
+
+    @Test
+    void testMdSchemaMembers() throws Exception {
+        when(discoverService.mdSchemaMembers(any())).thenReturn(List.of(new MdSchemaMembersResponseRowR(
+                Optional.of("FoodMart"), Optional.empty(), Optional.of("Sales"), Optional.of("[Store]"),
+                Optional.of("[Store]"), Optional.of("[Store].[Store Country]"), Optional.of(1), Optional.of(0),
+                Optional.of("USA"), Optional.of("[Store].[USA]"), Optional.of(MemberTypeEnum.REGULAR_MEMBER),
+                Optional.empty(), Optional.of("USA & Co"), Optional.of(3), Optional.of(0),
+                Optional.of("[Store].[All Stores]"), Optional.of(1), Optional.empty(), Optional.empty(),
+                Optional.of("USA"), Optional.of(false), Optional.of(false), Optional.of(ScopeEnum.GLOBAL))));
+
+        XmlAssert xmlAssert = handle(MDSCHEMA_MEMBERS_REQUEST);
+
+        ArgumentCaptor<MdSchemaMembersRequest> captor = ArgumentCaptor.forClass(MdSchemaMembersRequest.class);
+        verify(discoverService).mdSchemaMembers(captor.capture());
+        MdSchemaMembersRequest request = captor.getValue();
+        assertThat(request.restrictions()
+                .catalogName()).contains("FoodMart");
+        assertThat(request.restrictions()
+                .cubeName()).contains("Sales");
+        assertThat(request.restrictions()
+                .levelNumber()).contains(1);
+        assertThat(request.restrictions()
+                .memberType()).contains(MemberTypeEnum.REGULAR_MEMBER);
+        assertThat(request.properties()
+                .dataSourceInfo()).contains("FoodMart");
+
+        String row = "/SOAP:Envelope/SOAP:Body/msxmla:DiscoverResponse/return/rowset:root/rowset:row";
+        xmlAssert.nodesByXPath(row)
+                .hasSize(1);
+        xmlAssert.valueByXPath(row + "/rowset:MEMBER_UNIQUE_NAME")
+                .isEqualTo("[Store].[USA]");
+        xmlAssert.valueByXPath(row + "/rowset:MEMBER_CAPTION")
+                .isEqualTo("USA & Co");
+        xmlAssert.valueByXPath(row + "/rowset:MEMBER_TYPE")
+                .isEqualTo("1");
+        xmlAssert.valueByXPath(row + "/rowset:IS_DATAMEMBER")
+                .isEqualTo("false");
+        xmlAssert.nodesByXPath(row + "/rowset:SCHEMA_NAME")
+                .doNotExist();
+    }
+
+    @Test
+    void testStatement() throws Exception {
+        when(executeService.statement(any())).thenReturn(new StatementResponseR(new MddatasetR(null,
+                new AxesR(List.of(new AxisR(List.of(new MembersTypeR(List.of(new MemberTypeR(
+                        List.of(new CellInfoItemR("UName", "[Measures].[Unit Sales]", Optional.empty())),
+                        "[Measures]")), "[Measures]")), "Axis0"))),
+                new CellDataR(List.of(new CellTypeR(null,
+                        List.of(new CellInfoItemR("FmtValue", "266,773", Optional.of("xsd:string"))), 0)),
+                        null),
+                null, null)));
+
+        XmlAssert xmlAssert = handle(STATEMENT_REQUEST);
+
+        ArgumentCaptor<StatementRequest> captor = ArgumentCaptor.forClass(StatementRequest.class);
+        verify(executeService).statement(captor.capture());
+        StatementRequest request = captor.getValue();
+        assertThat(request.command()
+                .statement()).isEqualTo("SELECT [Measures].[Unit Sales] ON 0 FROM [Sales]");
+        assertThat(request.parameters()).hasSize(1);
+        assertThat(request.parameters()
+                .get(0)
+                .name()).isEqualTo("p");
+
+        String root = "/SOAP:Envelope/SOAP:Body/msxmla:ExecuteResponse/msxmla:return/mddataset:root";
+        xmlAssert.valueByXPath(root + "/Axes/Axis/@name")
+                .isEqualTo("Axis0");
+        xmlAssert.valueByXPath(root + "/Axes/Axis/Members/Member/@Hierarchy")
+                .isEqualTo("[Measures]");
+        xmlAssert.valueByXPath(root + "/Axes/Axis/Members/Member/UName/@name")
+                .isEqualTo("[Measures].[Unit Sales]");
+        xmlAssert.valueByXPath(root + "/CellData/Cell/@CellOrdinal")
+                .isEqualTo("0");
+        xmlAssert.valueByXPath(root + "/CellData/Cell/FmtValue/@type")
+                .isEqualTo("xsd:string");
+    }
+
+    @Test
+    void testInvokeStreamsResponse() throws Exception {
+        when(executeService.statement(any())).thenReturn(new StatementResponseR(new MddatasetR(null, null,
+                new CellDataR(List.of(new CellTypeR(null,
+                        List.of(new CellInfoItemR("FmtValue", "266,773", Optional.of("xsd:string"))), 0)), null),
+                null, null)));
+        XmlaStaxWebserviceProvider provider = new XmlaStaxWebserviceProvider(xmlaService);
+        provider.activate();
+        try {
+            Source response = provider.invoke(source(STATEMENT_REQUEST));
+
+            assertThat(response).isInstanceOf(StreamSource.class);
+            String root = "/SOAP:Envelope/SOAP:Body/msxmla:ExecuteResponse/msxmla:return/mddataset:root";
+            XmlAssert.assertThat(read(response))
+                    .withNamespaceContext(NS)
+                    .valueByXPath(root + "/CellData/Cell/@CellOrdinal")
+                    .isEqualTo("0");
+        } finally {
+            provider.deactivate();
+        }
+    }
+
+    @Test
+    void testUnsupportedCommandIsHandledBySaaj() throws Exception {
+        XmlaStaxWebserviceProvider provider = new XmlaStaxWebserviceProvider(xmlaService);
+        provider.activate();
+        try {
+            Source response = provider.invoke(source(ALTER_REQUEST));
+
+            XmlAssert.assertThat(response)
+                    .withNamespaceContext(NS)
+                    .valueByXPath("/SOAP:Envelope/SOAP:Body/say")
+                    .isEqualTo("Hello Test");
+            verifyNoInteractions(executeService);
+        } finally {
+            provider.deactivate();
+        }
+    }
+
+    @Test
+    void testUnsupportedRequestTypeIsSenderFault() {
+        SOAPFaultException fault = invokeFault(MDSCHEMA_CUBES_REQUEST);
+
+        assertThat(fault.getFault()
+                .getFaultCodeAsQName()).isEqualTo(SOAPConstants.SOAP_SENDER_FAULT);
+        assertThat(fault.getFault()
+                .getFaultString()).contains("MDSCHEMA_CUBES");
+        verifyNoInteractions(discoverService);
+    }
+
+    @Test
+    void testInvalidRequestIsSenderFault() {
+        SOAPFaultException fault = invokeFault("<Envelope/>");
+
+        assertThat(fault.getFault()
+                .getFaultCodeAsQName()).isEqualTo(SOAPConstants.SOAP_SENDER_FAULT);
+    }
+
+    @Test
+    void testServiceErrorIsReceiverFault() {
+        when(executeService.statement(any())).thenThrow(new IllegalStateException("no connection"));
+
+        SOAPFaultException fault = invokeFault(STATEMENT_REQUEST);
+
+        assertThat(fault.getFault()
+                .getFaultCodeAsQName()).isEqualTo(SOAPConstants.SOAP_RECEIVER_FAULT);
+        assertThat(fault.getFault()
+                .getFaultString()).contains("no connection");
+    }
+
+    @Test
+    void testWriteErrorIsReceiverFault() {
+        StatementResponse statementResponse = mock(StatementResponse.class);
+        when(statementResponse.mdDataSet()).thenThrow(new IllegalStateException("cell set closed"));
+        when(executeService.statement(any())).thenReturn(statementResponse);
+
+        SOAPFaultException fault = invokeFault(STATEMENT_REQUEST);
+
+        assertThat(fault.getFault()
+                .getFaultCodeAsQName()).isEqualTo(SOAPConstants.SOAP_RECEIVER_FAULT);
+        assertThat(fault.getFault()
+                .getFaultString()).contains("cell set closed");
+    }
+
+    private SOAPFaultException invokeFault(String request) {
+        XmlaStaxWebserviceProvider provider = new XmlaStaxWebserviceProvider(xmlaService);
+        provider.activate();
+        try {
+            return catchThrowableOfType(() -> provider.invoke(source(request)), SOAPFaultException.class);
+        } finally {
+            provider.deactivate();
+        }
+    }
+
+    private static Source source(String request) {
+        return new StreamSource(new ByteArrayInputStream(request.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static String read(Source source) throws Exception {
+        try (InputStream in = ((StreamSource) source).getInputStream()) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private XmlAssert handle(String request) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        XmlaStaxWebserviceProvider.write(XmlaStaxWebserviceProvider.response(xmlaService, XMLInputFactory.newInstance()
+                .createXMLStreamReader(new StringReader(request))), out);
+        return XmlAssert.assertThat(new String(out.toByteArray(), StandardCharsets.UTF_8))
+                .withNamespaceContext(NS);
+    }
+}